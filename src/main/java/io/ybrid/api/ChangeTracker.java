@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks changes of {@link SubInfo sub information} using version counters.
+ * <P>
+ * Unlike {@link KnowsSubInfoState#hasChanged(SubInfo)} the state of this tracker is never cleared.
+ * Instead each consumer holds its own {@link Cursor} and asks for the changes since that cursor.
+ * This allows any number of consumers to track changes independently. No locks are used.
+ * <P>
+ * Typical use:
+ * <pre>{@code
+ * ChangeTracker.Cursor cursor = tracker.getCursor();
+ * ...
+ * ChangeTracker.Changes changes = tracker.changesSince(cursor);
+ * cursor = changes.getCursor();
+ * if (changes.contains(SubInfo.METADATA))
+ *     ...
+ * }</pre>
+ */
+@ApiStatus.Experimental
+public final class ChangeTracker {
+    private static final @NotNull SubInfo[] SUB_INFOS = SubInfo.values();
+
+    private final @NotNull AtomicLongArray versions = new AtomicLongArray(SUB_INFOS.length);
+    private final @NotNull AtomicLong sequence = new AtomicLong();
+
+    /**
+     * A cursor marks a position in the history of a {@link ChangeTracker}.
+     * Cursors are immutable and can be shared freely.
+     */
+    public static final class Cursor {
+        private final @NotNull ChangeTracker tracker;
+        private final long sequence;
+        private final @NotNull long[] versions;
+
+        private Cursor(@NotNull ChangeTracker tracker, long sequence, @NotNull long[] versions) {
+            this.tracker = tracker;
+            this.sequence = sequence;
+            this.versions = versions;
+        }
+
+        /**
+         * Gets the version of the given sub information as seen by this cursor.
+         * @param what The sub information.
+         * @return The version.
+         */
+        @Contract(pure = true)
+        public long getVersion(@NotNull SubInfo what) {
+            return versions[what.ordinal()];
+        }
+    }
+
+    /**
+     * The result of {@link #changesSince(Cursor)}.
+     */
+    public static final class Changes {
+        private final @NotNull Cursor cursor;
+        private final @NotNull Set<SubInfo> changed;
+
+        private Changes(@NotNull Cursor cursor, @NotNull EnumSet<SubInfo> changed) {
+            this.cursor = cursor;
+            this.changed = Collections.unmodifiableSet(changed);
+        }
+
+        /**
+         * Gets the cursor to use for the next call to {@link #changesSince(Cursor)}.
+         * @return The new cursor.
+         */
+        @Contract(pure = true)
+        public @NotNull Cursor getCursor() {
+            return cursor;
+        }
+
+        /**
+         * Gets the set of sub information that changed.
+         * @return The unmodifiable set of changes.
+         */
+        @Contract(pure = true)
+        public @NotNull Set<SubInfo> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Checks whether the given sub information changed.
+         * @param what The sub information to check.
+         * @return Whether it changed.
+         */
+        @Contract(pure = true)
+        public boolean contains(@NotNull SubInfo what) {
+            return changed.contains(what);
+        }
+
+        /**
+         * Checks whether nothing changed.
+         * @return Whether nothing changed.
+         */
+        @Contract(pure = true)
+        public boolean isEmpty() {
+            return changed.isEmpty();
+        }
+    }
+
+    /**
+     * Marks the given sub information as changed.
+     * @param what The sub information that changed.
+     */
+    public void markChanged(@NotNull SubInfo what) {
+        // The version must be updated before the sequence so readers seeing the new sequence will also see the new version.
+        versions.incrementAndGet(what.ordinal());
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * Gets the current version of the given sub information.
+     * The version is increased each time the sub information changes.
+     *
+     * @param what The sub information.
+     * @return The current version.
+     */
+    public long getVersion(@NotNull SubInfo what) {
+        return versions.get(what.ordinal());
+    }
+
+    /**
+     * Gets a cursor for the current position.
+     * @return The new cursor.
+     */
+    public @NotNull Cursor getCursor() {
+        final long sequence = this.sequence.get();
+        final @NotNull long[] versions = new long[SUB_INFOS.length];
+
+        for (int i = 0; i < versions.length; i++)
+            versions[i] = this.versions.get(i);
+
+        return new Cursor(this, sequence, versions);
+    }
+
+    /**
+     * Gets the changes since the given cursor.
+     * <P>
+     * A change that happens while this is running is either included in the result
+     * or reported by the next call using the returned cursor. Changes are never lost.
+     *
+     * @param cursor The cursor as returned by {@link #getCursor()} or {@link Changes#getCursor()}.
+     * @return The changes including the new cursor.
+     * @throws IllegalArgumentException Thrown if the cursor belongs to a different tracker.
+     */
+    public @NotNull Changes changesSince(@NotNull Cursor cursor) throws IllegalArgumentException {
+        final long sequence;
+        final @NotNull long[] versions;
+        final @NotNull EnumSet<SubInfo> changed = EnumSet.noneOf(SubInfo.class);
+
+        if (cursor.tracker != this)
+            throw new IllegalArgumentException("Cursor belongs to a different tracker");
+
+        sequence = this.sequence.get();
+        if (sequence == cursor.sequence)
+            return new Changes(cursor, changed);
+
+        versions = new long[SUB_INFOS.length];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = this.versions.get(i);
+            if (versions[i] != cursor.versions[i])
+                changed.add(SUB_INFOS[i]);
+        }
+
+        return new Changes(new Cursor(this, sequence, versions), changed);
+    }
+
+    /**
+     * Gets the changes between two cursors.
+     *
+     * @param from The older cursor or {@code null} to get all changes up to {@code to}.
+     * @param to The newer cursor.
+     * @return The set of sub information that changed between the cursors.
+     * @throws IllegalArgumentException Thrown if any of the cursors belongs to a different tracker.
+     */
+    public @NotNull EnumSet<SubInfo> changesBetween(@Nullable Cursor from, @NotNull Cursor to) throws IllegalArgumentException {
+        final @NotNull EnumSet<SubInfo> changed = EnumSet.noneOf(SubInfo.class);
+
+        if (to.tracker != this || (from != null && from.tracker != this))
+            throw new IllegalArgumentException("Cursor belongs to a different tracker");
+
+        for (int i = 0; i < SUB_INFOS.length; i++) {
+            if (to.versions[i] != (from == null ? 0 : from.versions[i]))
+                changed.add(SUB_INFOS[i]);
+        }
+
+        return changed;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This event is delivered to {@link SubInfoListener SubInfoListeners} when a {@link SubInfo sub information} changed.
+ * <P>
+ * The type of the values depends on the sub information:
+ * <ul>
+ *     <li>{@link SubInfo#METADATA}: {@link io.ybrid.api.metadata.Metadata}</li>
+ *     <li>{@link SubInfo#BOUQUET}: {@link io.ybrid.api.bouquet.Bouquet}</li>
+ *     <li>{@link SubInfo#PLAYOUT}: {@link PlayoutInfo}</li>
+ *     <li>{@link SubInfo#CAPABILITIES}: {@link CapabilitySet}</li>
+ *     <li>{@link SubInfo#VALIDITY}: {@link Boolean}</li>
+ * </ul>
+ *
+ * @param <T> The type of the values.
+ */
+@ApiStatus.Experimental
+public final class SubInfoEvent<T> {
+    private final @NotNull SubInfo subInfo;
+    private final @Nullable T oldValue;
+    private final @Nullable T newValue;
+
+    /**
+     * Creates a new event.
+     *
+     * @param subInfo The sub information that changed.
+     * @param oldValue The value last delivered to the listener or {@code null}.
+     * @param newValue The new value or {@code null}.
+     */
+    @ApiStatus.Internal
+    public SubInfoEvent(@NotNull SubInfo subInfo, @Nullable T oldValue, @Nullable T newValue) {
+        this.subInfo = subInfo;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    /**
+     * Gets the sub information that changed.
+     * @return The sub information.
+     */
+    @Contract(pure = true)
+    public @NotNull SubInfo getSubInfo() {
+        return subInfo;
+    }
+
+    /**
+     * Gets the value before the change.
+     * If several changes were coalesced this is the value of the last event.
+     *
+     * @return The old value or {@code null} if not known.
+     */
+    @Contract(pure = true)
+    public @Nullable T getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * Gets the value after the change.
+     * @return The new value or {@code null} if not known.
+     */
+    @Contract(pure = true)
+    public @Nullable T getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        return "SubInfoEvent{" +
+                "subInfo=" + subInfo +
+                ", oldValue=" + oldValue +
+                ", newValue=" + newValue +
+                '}';
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listeners implementing this interface are notified about changes of {@link SubInfo sub information}.
+ * <P>
+ * Listeners are called on the configured executor, never on the thread that applied the change.
+ * Changes that happen in quick succession are coalesced into a single event per sub information.
+ * Listeners of the same object are called one at a time and in order.
+ *
+ * @see io.ybrid.api.session.Session#addListener(SubInfoListener)
+ * @see io.ybrid.api.metadata.MetadataMixer#addListener(SubInfoListener)
+ */
+@ApiStatus.Experimental
+@FunctionalInterface
+public interface SubInfoListener {
+    /**
+     * Called when a sub information changed.
+     *
+     * @param event The event describing the change.
+     */
+    void onSubInfoChanged(@NotNull SubInfoEvent<?> event);
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver;
+
+import io.ybrid.api.MediaProtocol;
+import io.ybrid.api.util.Utils;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class caches the results of protocol discovery done by {@link DriverSelector}.
+ * <P>
+ * Entries are keyed by the URI of the {@link io.ybrid.api.MediaEndpoint}.
+ * Successful discoveries are cached for the TTL, failed discoveries are cached for the negative TTL.
+ * Optionally the cache can be backed by a file so that it survives restarts.
+ * <P>
+ * An in-memory cache is used by default. It can be replaced or disabled using {@link #setDefault(DiscoveryCache)}.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Internal
+public final class DiscoveryCache {
+    static final Logger LOGGER = Logger.getLogger(DiscoveryCache.class.getName());
+
+    /**
+     * The default time successful discoveries are cached.
+     */
+    public static final @NotNull Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    /**
+     * The default time failed discoveries are cached.
+     */
+    public static final @NotNull Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private static final int FILE_VERSION = 1;
+    private static volatile @Nullable DiscoveryCache defaultCache = new DiscoveryCache();
+
+    private final @NotNull Duration ttl;
+    private final @NotNull Duration negativeTtl;
+    private final @Nullable File file;
+    private final @NotNull Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final @NotNull AtomicLong hits = new AtomicLong();
+    private final @NotNull AtomicLong misses = new AtomicLong();
+
+    /**
+     * A single cache entry.
+     */
+    public static final class Entry {
+        private final @Nullable EnumSet<MediaProtocol> protocols;
+        private final @Nullable String method;
+        private final @Nullable URI baseURI;
+        private final @NotNull Instant expires;
+
+        private Entry(@Nullable EnumSet<MediaProtocol> protocols, @Nullable String method, @Nullable URI baseURI, @NotNull Instant expires) {
+            this.protocols = protocols == null ? null : EnumSet.copyOf(protocols);
+            this.method = method;
+            this.baseURI = baseURI;
+            this.expires = expires;
+        }
+
+        /**
+         * Returns whether this entry caches a failed discovery.
+         * @return Whether this entry is negative.
+         */
+        @Contract(pure = true)
+        public boolean isNegative() {
+            return protocols == null;
+        }
+
+        /**
+         * Gets the set of supported protocols.
+         * @return The set of protocols or {@code null} if this is a negative entry.
+         */
+        public @Nullable EnumSet<MediaProtocol> getProtocols() {
+            return protocols == null ? null : EnumSet.copyOf(protocols);
+        }
+
+        /**
+         * Gets the name of the method that was used for discovery.
+         * @return The method or {@code null} if this is a negative entry.
+         */
+        @Contract(pure = true)
+        public @Nullable String getMethod() {
+            return method;
+        }
+
+        /**
+         * Gets the base URI returned by the server.
+         * @return The base URI or {@code null}.
+         */
+        @Contract(pure = true)
+        public @Nullable URI getBaseURI() {
+            return baseURI;
+        }
+
+        /**
+         * Gets the time this entry expires.
+         * @return The time of expiry.
+         */
+        @Contract(pure = true)
+        public @NotNull Instant getExpires() {
+            return expires;
+        }
+
+        private boolean isExpired(@NotNull Instant now) {
+            return !now.isBefore(expires);
+        }
+
+        private @NotNull JSONObject toJSON() {
+            final @NotNull JSONObject ret = new JSONObject();
+
+            if (protocols != null) {
+                final @NotNull JSONArray array = new JSONArray();
+                for (final @NotNull MediaProtocol protocol : protocols)
+                    array.put(protocol.name());
+                ret.put("protocols", array);
+            }
+            if (method != null)
+                ret.put("method", method);
+            if (baseURI != null)
+                ret.put("baseURI", baseURI.toString());
+            ret.put("expires", expires.toEpochMilli());
+
+            return ret;
+        }
+
+        private static @NotNull Entry fromJSON(@NotNull JSONObject json) {
+            @Nullable EnumSet<MediaProtocol> protocols = null;
+
+            if (json.has("protocols")) {
+                final @NotNull JSONArray array = json.getJSONArray("protocols");
+                protocols = EnumSet.noneOf(MediaProtocol.class);
+                for (int i = 0; i < array.length(); i++)
+                    protocols.add(MediaProtocol.valueOf(array.getString(i)));
+            }
+
+            return new Entry(protocols, json.optString("method", null),
+                    json.has("baseURI") ? URI.create(json.getString("baseURI")) : null,
+                    Instant.ofEpochMilli(json.getLong("expires")));
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "protocols=" + protocols +
+                    ", method=" + method +
+                    ", baseURI=" + baseURI +
+                    ", expires=" + expires +
+                    "}";
+        }
+    }
+
+    /**
+     * Creates a new in-memory cache with default settings.
+     */
+    public DiscoveryCache() {
+        this(DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, null);
+    }
+
+    /**
+     * Creates a new cache.
+     * <P>
+     * If a file is given, entries are loaded from it and every update is written back to it.
+     * A missing or unreadable file results in an empty cache.
+     *
+     * @param ttl The time successful discoveries are cached.
+     * @param negativeTtl The time failed discoveries are cached.
+     * @param file The file to back this cache or {@code null}.
+     */
+    public DiscoveryCache(@NotNull Duration ttl, @NotNull Duration negativeTtl, @Nullable File file) {
+        if (ttl.isNegative() || negativeTtl.isNegative())
+            throw new IllegalArgumentException("Invalid TTL: " + ttl + ", " + negativeTtl);
+
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.file = file;
+
+        if (file != null)
+            load(file);
+    }
+
+    /**
+     * Gets the default cache.
+     * @return The default cache or {@code null} if caching is disabled by default.
+     */
+    public static @Nullable DiscoveryCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Sets the default cache.
+     * @param cache The default cache or {@code null} to disable caching by default.
+     */
+    public static void setDefault(@Nullable DiscoveryCache cache) {
+        defaultCache = cache;
+    }
+
+    private static @NotNull String key(@NotNull URI uri) {
+        return uri.toString();
+    }
+
+    /**
+     * Gets the entry for the given endpoint.
+     *
+     * @param uri The URI of the endpoint.
+     * @return The entry or {@code null} if there is no valid entry.
+     */
+    public @Nullable Entry get(@NotNull URI uri) {
+        final @NotNull String key = key(uri);
+        final @Nullable Entry entry = entries.get(key);
+
+        if (entry == null || entry.isExpired(Instant.now())) {
+            if (entry != null)
+                entries.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Stores the result of a successful discovery.
+     *
+     * @param uri The URI of the endpoint.
+     * @param protocols The set of supported protocols.
+     * @param method The name of the method used for discovery.
+     * @param baseURI The base URI returned by the server or {@code null}.
+     */
+    public void put(@NotNull URI uri, @NotNull EnumSet<MediaProtocol> protocols, @NotNull String method, @Nullable URI baseURI) {
+        put(uri, new Entry(protocols, method, baseURI, Instant.now().plus(ttl)));
+    }
+
+    /**
+     * Stores a failed discovery.
+     *
+     * @param uri The URI of the endpoint.
+     */
+    public void putNegative(@NotNull URI uri) {
+        put(uri, new Entry(null, null, null, Instant.now().plus(negativeTtl)));
+    }
+
+    private void put(@NotNull URI uri, @NotNull Entry entry) {
+        entries.put(key(uri), entry);
+        save();
+    }
+
+    /**
+     * Removes the entry for the given endpoint.
+     * This should be called if the cached result turned out to be wrong.
+     *
+     * @param uri The URI of the endpoint.
+     */
+    public void invalidate(@NotNull URI uri) {
+        if (entries.remove(key(uri)) != null)
+            save();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        entries.clear();
+        save();
+    }
+
+    /**
+     * Gets the number of entries, including expired ones that have not yet been removed.
+     * @return The number of entries.
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups that returned an entry.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that did not return an entry.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void load(@NotNull File file) {
+        final @NotNull Instant now = Instant.now();
+        final @NotNull JSONObject json;
+
+        if (!file.exists())
+            return;
+
+        try (final @NotNull InputStream inputStream = new FileInputStream(file)) {
+            json = new JSONObject(Utils.slurpToString(inputStream));
+        } catch (IOException | JSONException e) {
+            LOGGER.log(Level.WARNING, "Can not read discovery cache from " + file, e);
+            return;
+        }
+
+        if (json.optInt("version", -1) != FILE_VERSION) {
+            LOGGER.warning("Ignoring discovery cache " + file + " of unsupported version");
+            return;
+        }
+
+        final @NotNull JSONObject stored = json.getJSONObject("entries");
+        for (final @NotNull String key : stored.keySet()) {
+            try {
+                final @NotNull Entry entry = Entry.fromJSON(stored.getJSONObject(key));
+                if (!entry.isExpired(now))
+                    entries.put(key, entry);
+            } catch (IllegalArgumentException | JSONException e) {
+                LOGGER.log(Level.WARNING, "Ignoring invalid discovery cache entry for " + key, e);
+            }
+        }
+    }
+
+    private synchronized void save() {
+        final @Nullable File file = this.file;
+        final @NotNull JSONObject json = new JSONObject();
+        final @NotNull JSONObject stored = new JSONObject();
+        final @NotNull Instant now = Instant.now();
+        final @NotNull File temp;
+
+        if (file == null)
+            return;
+
+        for (final @NotNull Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (!entry.getValue().isExpired(now))
+                stored.put(entry.getKey(), entry.getValue().toJSON());
+        }
+
+        json.put("version", FILE_VERSION);
+        json.put("entries", stored);
+
+        // Write to a temporary file first so readers never see a partially written cache.
+        temp = new File(file.getPath() + ".tmp");
+        try {
+            try (final @NotNull Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+                writer.write(json.toString());
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Can not write discovery cache to " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DiscoveryCache{" +
+                "ttl=" + ttl +
+                ", negativeTtl=" + negativeTtl +
+                ", file=" + file +
+                ", size=" + getSize() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                "}";
+    }
+}
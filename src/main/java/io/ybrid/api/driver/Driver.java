@@ -25,14 +25,18 @@ package io.ybrid.api.driver;
 import io.ybrid.api.KnowsSubInfoState;
 import io.ybrid.api.PlayoutInfo;
 import io.ybrid.api.SubInfo;
+import io.ybrid.api.TemporalValidity;
 import io.ybrid.api.bouquet.Bouquet;
 import io.ybrid.api.bouquet.Service;
 import io.ybrid.api.session.Command;
+import io.ybrid.api.session.SessionSnapshot;
+import io.ybrid.api.session.SessionState;
 import io.ybrid.api.transaction.Request;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -43,6 +47,26 @@ public interface Driver extends KnowsSubInfoState {
 
     @NotNull PlayoutInfo getPlayoutInfo();
 
+    /**
+     * Gets the temporal validity of the current item as reported by the server.
+     * Unlike {@link #getPlayoutInfo()} this does not alter the change state.
+     * <P>
+     * The default implementation returns {@link TemporalValidity#INDEFINITELY_VALID}.
+     *
+     * @return The temporal validity of the current item.
+     */
+    default @NotNull TemporalValidity getCurrentItemValidity() {
+        return TemporalValidity.INDEFINITELY_VALID;
+    }
+
+    /**
+     * Gets the last published state of this driver.
+     * This must not block and must be safe to call from any thread.
+     *
+     * @return The current state.
+     */
+    @NotNull SessionState getState();
+
     @NotNull URI getStreamURI() throws MalformedURLException, URISyntaxException;
 
     @NotNull io.ybrid.api.CapabilitySet getCapabilities();
@@ -54,6 +78,28 @@ public interface Driver extends KnowsSubInfoState {
 
     void executeRequest(@NotNull Request<Command> request) throws Throwable;
 
+    /**
+     * Exports the state of this driver into a {@link SessionSnapshot}.
+     *
+     * @param builder The builder to export to.
+     * @throws UnsupportedOperationException Thrown if this driver does not support snapshots.
+     */
+    default void exportState(@NotNull SessionSnapshot.Builder builder) {
+        throw new UnsupportedOperationException("Snapshots are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Restores the state of this driver from a {@link SessionSnapshot} instead of connecting.
+     * The restored session is validated with the server.
+     *
+     * @param snapshot The snapshot to restore from.
+     * @throws IOException Thrown on I/O-Error or if the session is no longer valid.
+     * @throws UnsupportedOperationException Thrown if this driver does not support snapshots.
+     */
+    default void restoreState(@NotNull SessionSnapshot snapshot) throws IOException {
+        throw new UnsupportedOperationException("Snapshots are not supported by " + getClass().getName());
+    }
+
     boolean isConnected();
 
     boolean isValid();
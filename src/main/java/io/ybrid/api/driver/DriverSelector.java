@@ -27,6 +27,13 @@ import io.ybrid.api.MediaEndpoint;
 import io.ybrid.api.MediaProtocol;
 import io.ybrid.api.session.Session;
 import io.ybrid.api.Workaround;
+import io.ybrid.api.driver.http.HedgingPolicy;
+import io.ybrid.api.driver.http.LatencyTracker;
+import io.ybrid.api.driver.http.SingleFlight;
+import io.ybrid.api.driver.http.Transport;
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.DeadlineExceededException;
 import io.ybrid.api.util.TriState;
 import io.ybrid.api.util.Utils;
 import io.ybrid.api.util.uri.Builder;
@@ -42,8 +49,19 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -56,6 +74,22 @@ import java.util.logging.Logger;
 public final class DriverSelector {
     private static final Logger LOGGER = Logger.getLogger(DriverSelector.class.getName());
 
+    /**
+     * The name of the probe using an {@code OPTIONS} request.
+     */
+    public static final @NotNull String PROBE_OPTIONS = "OPTIONS";
+    /**
+     * The name of the probe using a Ybrid v2 {@code session/info} request.
+     */
+    public static final @NotNull String PROBE_YBRID_V2 = "Ybrid v2 request";
+
+    /**
+     * The time to wait for a probe once a probe with lower precedence has succeeded.
+     */
+    private static final @NotNull Duration PRECEDENCE_GRACE = Duration.ofMillis(250);
+
+    private static final @NotNull Map<String, LatencyTracker> probeLatencies = new ConcurrentHashMap<>();
+
     @ApiStatus.Internal
     private static final class Result {
         final public @NotNull EnumSet<MediaProtocol> set;
@@ -81,10 +115,11 @@ public final class DriverSelector {
      *
      * @param session The {@link Session} to use.
      * @return The instance of the {@link Driver} to use.
+     * @throws IOException Thrown if the URI of the endpoint is invalid or the discovery was canceled or timed out.
      */
-    public static @NotNull Driver getFactory(@NotNull Session session) throws MalformedURLException {
+    public static @NotNull Driver getFactory(@NotNull Session session) throws IOException {
         @NotNull MediaEndpoint mediaEndpoint = session.getMediaEndpoint();
-        final @NotNull Result result = getSupportedVersions(mediaEndpoint);
+        final @NotNull Result result = getSupportedVersions(session);
         final @NotNull URI baseURI = Objects.requireNonNull(Utils.firstOf(result.baseURI, mediaEndpoint.getURI()));
 
         if (LOGGER.isLoggable(Level.INFO)) {
@@ -107,21 +142,148 @@ public final class DriverSelector {
         throw new UnsupportedOperationException("Server and client do not share a common supported version.");
     }
 
-    private static Result getSupportedVersions(@NotNull MediaEndpoint mediaEndpoint) {
+    /**
+     * Creates a {@link Driver} for the given protocol without accessing the network.
+     * This is used to restore sessions from a {@link io.ybrid.api.session.SessionSnapshot}.
+     *
+     * @param session The {@link Session} to use.
+     * @param protocol The protocol the driver must implement.
+     * @param baseURI The base URI to use.
+     * @return The new instance of the {@link Driver}.
+     * @throws UnsupportedOperationException Thrown if there is no driver for the protocol.
+     */
+    public static @NotNull Driver getDriver(@NotNull Session session, @NotNull MediaProtocol protocol, @NotNull URI baseURI) {
+        switch (protocol) {
+            case YBRID_V2_BETA:
+                return new io.ybrid.api.driver.ybrid.v2.Driver(session, baseURI);
+            case YBRID_V1:
+                return new io.ybrid.api.driver.ybrid.v1.Driver(session, baseURI);
+            case ICY:
+            case ICECAST_V2_4:
+            case ICECAST_V2_5_BETA:
+                return new io.ybrid.api.driver.icy.Driver(session, baseURI);
+            case PLAIN:
+                return new io.ybrid.api.driver.plain.Driver(session, baseURI);
+        }
+
+        throw new UnsupportedOperationException("No driver for protocol: " + protocol);
+    }
+
+    private static Result getSupportedVersions(@NotNull Session session) throws IOException {
+        final @NotNull MediaEndpoint mediaEndpoint = session.getMediaEndpoint();
+        final @Nullable DiscoveryCache cache = session.getDiscoveryCache();
+        final @NotNull URI uri = mediaEndpoint.getURI();
+        @Nullable Result result;
+
         if (mediaEndpoint.getForcedMediaProtocol() != null) {
             return new Result(EnumSet.of(mediaEndpoint.getForcedMediaProtocol()), "force on MediaEndpoint", false, null);
         }
 
-        try {
-            return getSupportedVersionsFromOptions(mediaEndpoint);
-        } catch (Exception ignored) {
+        if (cache != null) {
+            final @Nullable DiscoveryCache.Entry entry = cache.get(uri);
+            if (entry != null) {
+                final @Nullable EnumSet<MediaProtocol> protocols = entry.getProtocols();
+                if (protocols != null)
+                    return new Result(protocols, "cached " + entry.getMethod(), true, entry.getBaseURI());
+                return getDefaultVersions(mediaEndpoint);
+            }
+        }
+
+        // This throws if probing did not finish, so nothing is cached or selected based on it.
+        result = probeSupportedVersions(mediaEndpoint, session.getTransport());
+
+        if (cache != null) {
+            if (result != null) {
+                cache.put(uri, result.set, result.method, result.baseURI);
+            } else {
+                cache.putNegative(uri);
+            }
         }
 
+        if (result != null)
+            return result;
+
+        return getDefaultVersions(mediaEndpoint);
+    }
+
+    /**
+     * Checks whether a probe failed because the discovery itself was canceled or ran out of time.
+     * Such failures say nothing about the server.
+     */
+    private static boolean isIncomplete(@Nullable Throwable e) {
+        return CanceledException.isCausedBy(e) || DeadlineExceededException.isCausedBy(e);
+    }
+
+    private static @NotNull CompletableFuture<Void> anySucceeded(@NotNull List<CompletableFuture<Result>> probes) {
+        final @NotNull CompletableFuture<Void> ret = new CompletableFuture<>();
+
+        for (final @NotNull CompletableFuture<Result> probe : probes)
+            probe.thenRun(() -> ret.complete(null));
+
+        return ret;
+    }
+
+    private static @Nullable Result probeSupportedVersions(@NotNull MediaEndpoint mediaEndpoint, @Nullable Transport transport) throws IOException {
+        final @NotNull Cancellation cancellation = new Cancellation();
+        // Canceling the caller, e.g. the transaction selecting the driver, cancels the probes as well.
+        final @NotNull Cancellation.Registration registration = Cancellation.register(Cancellation.current(), cancellation::cancel);
+        final @NotNull List<CompletableFuture<Result>> probes;
+        @Nullable Throwable incomplete = null;
+
         try {
-            return getSupportedVersionsFromYbridV2Server(mediaEndpoint);
-        } catch (Exception ignored) {
+            // Probes shared with other sessions are only given up by us, not aborted for them.
+            final @NotNull Cancellation.Scope scope = cancellation.enter();
+
+            try {
+                // The probes in order of precedence. They run concurrently but the first one in this list that succeeds wins.
+                probes = Arrays.asList(
+                        probe(mediaEndpoint, transport, null, "OPTIONS", PROBE_OPTIONS, cancellation),
+                        probe(mediaEndpoint, transport, "/ctrl/v2/session/info", "GET", PROBE_YBRID_V2, cancellation)
+                );
+            } finally {
+                scope.close();
+            }
+
+            for (int i = 0; i < probes.size(); i++) {
+                final @NotNull CompletableFuture<Result> probe = probes.get(i);
+
+                try {
+                    try {
+                        CompletableFuture.anyOf(probe, anySucceeded(probes.subList(i + 1, probes.size()))).get();
+                    } catch (ExecutionException ignored) {
+                        // The probe failed, this is handled below.
+                    }
+                    // Once a probe with lower precedence has succeeded we only wait a little longer for this one.
+                    return probe.get(PRECEDENCE_GRACE.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException | CancellationException ignored) {
+                } catch (ExecutionException e) {
+                    if (isIncomplete(e))
+                        incomplete = e.getCause();
+                }
+            }
+
+            if (cancellation.isCanceled())
+                throw new CanceledException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanceledException(e);
+        } finally {
+            registration.close();
+            // Abort the probes that lost. This does nothing to probes that are already done.
+            cancellation.cancel();
+        }
+
+        if (incomplete != null) {
+            if (incomplete instanceof IOException)
+                throw (IOException) incomplete;
+            throw new IOException(incomplete);
         }
 
+        return null;
+    }
+
+    @Contract("_ -> new")
+    private static @NotNull Result getDefaultVersions(@NotNull MediaEndpoint mediaEndpoint) {
         if (mediaEndpoint.getWorkarounds().get(Workaround.WORKAROUND_GUESS_ICY).equals(TriState.TRUE))
             return new Result(EnumSet.of(MediaProtocol.ICY), "using default", true, null);
 
@@ -129,37 +291,75 @@ public final class DriverSelector {
         return new Result(EnumSet.of(MediaProtocol.PLAIN), "using default", true, null);
     }
 
-    @Contract("_ -> new")
-    private static @NotNull Result getSupportedVersionsFromOptions(@NotNull MediaEndpoint mediaEndpoint) throws IOException, URISyntaxException {
-        return getSupportedVersionsFromYbridV2Server(mediaEndpoint, null, "OPTIONS", "OPTIONS");
+    /**
+     * Gets the latency tracker for the given probe.
+     * Latencies are recorded for all probes that completed, including failed probes and probes that lost.
+     *
+     * @param probe The probe, either {@link #PROBE_OPTIONS} or {@link #PROBE_YBRID_V2}.
+     * @return The latency tracker.
+     */
+    public static @NotNull LatencyTracker getProbeLatencyTracker(@NotNull String probe) {
+        return probeLatencies.computeIfAbsent(probe, k -> new LatencyTracker());
     }
 
-    @Contract("_ -> new")
-    private static @NotNull Result getSupportedVersionsFromYbridV2Server(@NotNull MediaEndpoint mediaEndpoint) throws IOException, URISyntaxException {
-        return getSupportedVersionsFromYbridV2Server(mediaEndpoint, new Path("/ctrl/v2/session/info"), "GET", "Ybrid v2 request");
+    private static @NotNull CompletableFuture<Result> probe(@NotNull MediaEndpoint mediaEndpoint, @Nullable Transport transport, @Nullable String pathSuffix, @NotNull String method, @NotNull String resultMethod, @NotNull Cancellation cancellation) {
+        final long start = System.nanoTime();
+        final @NotNull Builder builder;
+        final @NotNull URL url;
+
+        try {
+            builder = new Builder(mediaEndpoint.getURI());
+            if (pathSuffix != null)
+                builder.appendPath(new Path(pathSuffix));
+            url = builder.toURL();
+        } catch (MalformedURLException | URISyntaxException e) {
+            return Utils.failedFuture(e);
+        }
+
+        return probe(url, method, transport, cancellation).thenApply(request -> getSupportedVersions(request, resultMethod)).whenComplete((result, e) -> {
+            final long nanos = System.nanoTime() - start;
+
+            getProbeLatencyTracker(resultMethod).recordNanos(nanos);
+            if (LOGGER.isLoggable(Level.FINE))
+                LOGGER.fine("Probe " + resultMethod + " for " + url + " " + (e == null ? "succeeded" : "failed") + " after " + (nanos / 1000000) + "ms");
+        });
+    }
+
+    private static @NotNull CompletableFuture<JSONRequest> probe(@NotNull URL url, @NotNull String method, @Nullable Transport transport, @NotNull Cancellation cancellation) {
+        final @Nullable HedgingPolicy hedgingPolicy = HedgingPolicy.getDefault();
+
+        // Sessions created together probe the same endpoint, so we let them share the probe.
+        return SingleFlight.getDefault().execute(new SingleFlight.Key<>(url, method, null, DriverSelector.class), () -> {
+            if (hedgingPolicy == null)
+                return probeAttempt(url, method, transport, cancellation);
+
+            // The probes are idempotent, so we can hedge them.
+            return hedgingPolicy.execute(method + " " + HedgingPolicy.key(url), () -> probeAttempt(url, method, transport, cancellation));
+        });
     }
 
-    @Contract("_, _, _, _ -> new")
-    private static @NotNull Result getSupportedVersionsFromYbridV2Server(@NotNull MediaEndpoint mediaEndpoint, @Nullable Path pathSuffix, @NotNull String method, @NotNull String resultMethod) throws IOException, URISyntaxException {
+    private static @NotNull CompletableFuture<JSONRequest> probeAttempt(@NotNull URL url, @NotNull String method, @Nullable Transport transport, @NotNull Cancellation cancellation) {
+        final @NotNull JSONRequest request = new JSONRequest(url, method);
+        request.setTransport(transport);
+        // This may run on another thread, e.g. when hedging, so the cancellation is not taken from the current thread.
+        request.setCancellation(cancellation);
+        return request.performAsync().thenApply(body -> request);
+    }
+
+    @Contract("_, _ -> new")
+    private static @NotNull Result getSupportedVersions(@NotNull JSONRequest request, @NotNull String resultMethod) {
         final EnumSet<MediaProtocol> ret = EnumSet.noneOf(MediaProtocol.class);
-        final @NotNull Builder builder = new Builder(mediaEndpoint.getURI());
-        final @NotNull JSONRequest request;
+        final @NotNull JSONObject responseBody = Objects.requireNonNull(request.getResponseBody());
         final @NotNull JSONArray supportedVersions;
         @Nullable URI baseURI = null;
 
-        if (pathSuffix != null)
-            builder.appendPath(pathSuffix);
-
-        request = new JSONRequest(builder.toURL(), method);
-        request.perform();
-
-        supportedVersions = Objects.requireNonNull(request.getResponseBody()).getJSONObject("__responseHeader").getJSONArray("supportedVersions");
+        supportedVersions = responseBody.getJSONObject("__responseHeader").getJSONArray("supportedVersions");
         for (int i = 0; i < supportedVersions.length(); i++) {
             ret.add(MediaProtocol.fromWire(supportedVersions.getString(i)));
         }
 
         try {
-            baseURI = URI.create(getBaseURI(request.getResponseBody().getJSONObject("__responseObject")));
+            baseURI = URI.create(getBaseURI(responseBody.getJSONObject("__responseObject")));
         } catch (Throwable ignored) {
         }
 
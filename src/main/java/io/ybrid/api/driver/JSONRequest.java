@@ -22,34 +22,46 @@
 
 package io.ybrid.api.driver;
 
+import io.ybrid.api.driver.http.Response;
+import io.ybrid.api.driver.http.TransferStatistics;
+import io.ybrid.api.trace.TransactionTrace;
+import io.ybrid.api.util.LimitedInputStream;
 import io.ybrid.api.util.MediaType;
 import io.ybrid.api.util.QualityMap.MediaTypeMap;
 import io.ybrid.api.util.QualityMap.Quality;
-import io.ybrid.api.util.Utils;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Logger;
 
 /**
  * This helper class allows to make request to an {@link URL} expecting a JSON document in return.
  * This class takes care of handling transformation and parsing as well as all network activity.
  *
- * This class only performs I/O operations in {@link #perform()}.
+ * This class only performs I/O operations in {@link #perform()}, and {@link #performAsync()}.
  */
 @ApiStatus.Internal
 public final class JSONRequest extends Request {
     static private final long serialVersionUID = -7211568165710281552L;
     static final Logger LOGGER = Logger.getLogger(JSONRequest.class.getName());
     static private final @NotNull MediaTypeMap acceptableMediaTypes = new MediaTypeMap();
+    /**
+     * The default maximum size of response bodies for JSON requests.
+     */
+    static public final long DEFAULT_MAX_RESPONSE_BODY_SIZE = 4L * 1024 * 1024;
 
     static {
         acceptableMediaTypes.put(new MediaType("application/vnd.nacamar.ybrid+json; version=v2"), Quality.MOST_ACCEPTABLE);
@@ -57,11 +69,13 @@ public final class JSONRequest extends Request {
         acceptableMediaTypes.put(MediaType.MEDIA_TYPE_ANY, Quality.NOT_ACCEPTABLE);
     }
 
-    private @Nullable String responseBody = null;
+    private transient @Nullable Object responseBody = null;
+    private transient @Nullable TransferStatistics transferStatistics = null;
+    private int statusCode = -1;
 
     @SuppressWarnings("RedundantIfStatement")
-    private static boolean isAcceptable(@NotNull HttpURLConnection connection) {
-        String contentType = connection.getContentType();
+    private static boolean isAcceptable(@NotNull Response response) {
+        String contentType = response.getContentType();
 
         if (contentType == null)
             return false;
@@ -87,6 +101,8 @@ public final class JSONRequest extends Request {
     @SuppressWarnings("unused")
     public JSONRequest(@NotNull Request request) {
         super(request);
+        setMaxResponseBodySize(DEFAULT_MAX_RESPONSE_BODY_SIZE);
+        setCompressionAccepted(true);
     }
 
     /**
@@ -97,6 +113,8 @@ public final class JSONRequest extends Request {
      */
     public JSONRequest(@NotNull URL url, @NotNull String requestMethod) throws IllegalArgumentException {
         super(url, requestMethod);
+        setMaxResponseBodySize(DEFAULT_MAX_RESPONSE_BODY_SIZE);
+        setCompressionAccepted(true);
     }
 
     /**
@@ -109,44 +127,128 @@ public final class JSONRequest extends Request {
      */
     public JSONRequest(@NotNull URL url, @NotNull String requestMethod, @Nullable Map<String, String> requestBody) throws IllegalArgumentException {
         super(url, requestMethod, requestBody);
+        setMaxResponseBodySize(DEFAULT_MAX_RESPONSE_BODY_SIZE);
+        setCompressionAccepted(true);
+    }
+
+    private synchronized <T> @Nullable T handleResponse(@NotNull Response response, @NotNull ResponseDecoder<T> decoder, @NotNull TransactionTrace trace) throws IOException {
+        final boolean success;
+        @Nullable T decoded = null;
+
+        try {
+            statusCode = response.getStatusCode();
+            success = statusCode == HttpURLConnection.HTTP_OK;
+
+            if (success) {
+                LOGGER.info("JSONRequest to " + url + " returned " + response);
+            } else {
+                LOGGER.warning("JSONRequest to " + url + " failed with " + response);
+            }
+
+            if (isAcceptable(response)) {
+                final long start = System.nanoTime();
+
+                try {
+                    decoded = decoder.decode(new JSONTokener(new InputStreamReader(LimitedInputStream.wrap(response.getBody(), getMaxResponseBodySize()), StandardCharsets.UTF_8)));
+                } catch (JSONException e) {
+                    // The tokener wraps errors reading the body such as exceeding the maximum size.
+                    if (e.getCause() instanceof IOException)
+                        throw (IOException) e.getCause();
+                    // Error responses may carry bodies we can not decode. This is not fatal as the request failed anyway.
+                    if (success)
+                        throw e;
+                    LOGGER.warning("JSONRequest to " + url + " returned undecodable error body: " + e);
+                } finally {
+                    trace.addParseTime(System.nanoTime() - start);
+                }
+            }
+        } finally {
+            response.close();
+        }
+
+        responseBody = decoded;
+        transferStatistics = response.getTransferStatistics();
+
+        return success ? decoded : null;
     }
 
     @Override
     public synchronized boolean perform() throws IOException {
-        final @NotNull HttpURLConnection connection;
-        final boolean success;
-        final boolean acceptable;
+        return perform(ResponseDecoder.JSON_OBJECT) != null;
+    }
 
+    /**
+     * Performs the request and decodes the response using the given decoder.
+     * <P>
+     * The body is decoded directly from the stream without building an intermediate representation.
+     * If the decoder returns a {@link JSONObject} it is also available via {@link #getResponseBody()}.
+     *
+     * @param decoder The decoder to use.
+     * @param <T> The type of the decoded response.
+     * @return The decoded response or {@code null} if the request was not successful.
+     * @throws IOException Thrown on I/O-Error.
+     */
+    public synchronized <T> @Nullable T perform(@NotNull ResponseDecoder<T> decoder) throws IOException {
         // We set this to null early, so we can just throw an exception in this method at will.
         responseBody = null;
+        statusCode = -1;
 
-        connection = (HttpURLConnection) createRequest(acceptableMediaTypes);
+        return handleResponse(execute(acceptableMediaTypes), decoder, TransactionTrace.current());
+    }
+
+    /**
+     * Performs the request without blocking the calling thread.
+     * <P>
+     * The returned future completes with the response body if the request was successful
+     * or with {@code null} if it was not (the same cases in which {@link #perform()} returns {@code false}).
+     * It completes exceptionally on I/O-Errors.
+     * After completion the response is also available via {@link #getResponseBody()}.
+     *
+     * @return The future for the response body.
+     */
+    public @NotNull CompletableFuture<@Nullable JSONObject> performAsync() {
+        return performAsync(ResponseDecoder.JSON_OBJECT);
+    }
 
-        success = connection.getResponseCode() == HttpURLConnection.HTTP_OK;
-        acceptable = isAcceptable(connection);
+    /**
+     * Asynchronous version of {@link #perform(ResponseDecoder)}.
+     *
+     * @param decoder The decoder to use.
+     * @param <T> The type of the decoded response.
+     * @return The future for the decoded response.
+     * @see #performAsync()
+     */
+    public <T> @NotNull CompletableFuture<@Nullable T> performAsync(@NotNull ResponseDecoder<T> decoder) {
+        final @NotNull TransactionTrace trace = TransactionTrace.current();
 
-        if (success) {
-            LOGGER.info("JSONRequest to " + url + " returned " + connection.getResponseCode() + " " + connection.getResponseMessage() + " [" + connection.getContentType() + "]");
-        } else {
-            LOGGER.warning("JSONRequest to " + url + " failed with " + connection.getResponseCode() + " " + connection.getResponseMessage() + " [" + connection.getContentType() + "]");
+        synchronized (this) {
+            responseBody = null;
+            statusCode = -1;
         }
 
-        if (acceptable) {
-            final @NotNull InputStream inputStream;
-
-            if (success) {
-                inputStream = connection.getInputStream();
-            } else {
-                inputStream = connection.getErrorStream();
+        return executeAsync(acceptableMediaTypes).thenApply(response -> {
+            try {
+                return handleResponse(response, decoder, trace);
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
+        });
+    }
 
-            responseBody = Utils.slurpToString(inputStream);
-            inputStream.close();
-        }
-
-        connection.disconnect();
+    /**
+     * Returns the status code of the last request.
+     * @return The status code or {@code -1} if there was no response.
+     */
+    public synchronized int getStatusCode() {
+        return statusCode;
+    }
 
-        return success && acceptable;
+    /**
+     * Returns the transfer statistics of the last request.
+     * @return The statistics or {@code null} if there was no response yet.
+     */
+    public synchronized @Nullable TransferStatistics getTransferStatistics() {
+        return transferStatistics;
     }
 
     /**
@@ -154,6 +256,8 @@ public final class JSONRequest extends Request {
      * @return The response or null.
      */
     public synchronized @Nullable JSONObject getResponseBody() {
-        return Utils.transform(responseBody, JSONObject::new);
+        if (responseBody instanceof JSONObject)
+            return (JSONObject) responseBody;
+        return null;
     }
 }
@@ -22,13 +22,14 @@
 
 package io.ybrid.api.driver;
 
+import io.ybrid.api.driver.http.Response;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
-import java.net.URLConnection;
 
 @ApiStatus.Internal
 public class PingRequest extends Request {
@@ -45,9 +46,10 @@ public class PingRequest extends Request {
 
     @Override
     public boolean perform() throws IOException {
-        final @NotNull URLConnection connection = createRequest(null);
-        connection.connect();
-        connection.getInputStream().close();
+        try (final @NotNull Response response = execute(null)) {
+            if (response.getStatusCode() >= HttpURLConnection.HTTP_BAD_REQUEST)
+                throw new IOException("Ping to " + url + " failed with " + response);
+        }
         return true;
     }
 
@@ -22,7 +22,15 @@
 
 package io.ybrid.api.driver;
 
+import io.ybrid.api.driver.http.Response;
+import io.ybrid.api.driver.http.Transport;
+import io.ybrid.api.driver.http.TransportManager;
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
 import io.ybrid.api.util.QualityMap.MediaTypeMap;
+import io.ybrid.api.util.Utils;
 import io.ybrid.api.util.XWWWFormUrlEncodedBuilder;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
@@ -30,25 +38,36 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.Serializable;
-import java.net.HttpURLConnection;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Logger;
 
 @ApiStatus.Internal
 abstract public class Request implements Serializable {
     static private final long serialVersionUID = 5427230184745202352L;
     static private final Logger LOGGER = Logger.getLogger(Request.class.getName());
-    static private final int TIMEOUT = 3*1000;
+    static private final @NotNull Duration TIMEOUT = Duration.ofSeconds(3);
+    static private final @NotNull Duration MINIMUM_TIMEOUT = Duration.ofMillis(1);
 
     protected final @NotNull URL url;
     protected final @NotNull String requestMethod;
     protected final @Nullable String requestBodyContentType;
     protected final byte[] requestBody;
+    private transient @Nullable Transport transport = null;
+    private long maxResponseBodySize = -1;
+    private boolean compressionAccepted = false;
+    private @Nullable Boolean idempotent = null;
+    private @Nullable Deadline deadline = Deadline.current();
+    private transient @Nullable Cancellation cancellation = Cancellation.current();
+    private @Nullable Duration timeout = null;
+    private boolean streaming = false;
+    private boolean longLived = false;
 
     /**
      * Performs the actual request.
@@ -147,30 +166,310 @@ abstract public class Request implements Serializable {
         return url;
     }
 
-    protected @NotNull URLConnection createRequest(@Nullable MediaTypeMap accepted) throws IOException {
-        final @NotNull URLConnection connection = url.openConnection();
+    /**
+     * Gets the request method.
+     * @return The request method.
+     */
+    @Contract(pure = true)
+    public @NotNull String getRequestMethod() {
+        return requestMethod;
+    }
+
+    /**
+     * Gets the content type of the request body.
+     * @return The content type or {@code null} if there is no body.
+     */
+    @Contract(pure = true)
+    public @Nullable String getRequestBodyContentType() {
+        return requestBodyContentType;
+    }
+
+    /**
+     * Gets the request body.
+     * The returned array must not be altered.
+     * @return The request body or {@code null}.
+     */
+    @Contract(pure = true)
+    public byte[] getRequestBody() {
+        return requestBody;
+    }
+
+    /**
+     * Gets the timeout to be used for connecting as well as reading.
+     * If this request has a deadline the timeout is limited to the time remaining.
+     * @return The timeout.
+     */
+    public @NotNull Duration getTimeout() {
+        final @Nullable Deadline deadline = this.deadline;
+        final @NotNull Duration base = this.timeout != null ? this.timeout : TIMEOUT;
+
+        if (deadline == null)
+            return base;
+
+        final @NotNull Duration timeout = deadline.limit(base);
+
+        // A timeout of zero means infinite for most transports.
+        return timeout.compareTo(MINIMUM_TIMEOUT) < 0 ? MINIMUM_TIMEOUT : timeout;
+    }
+
+    /**
+     * Sets the timeout used for connecting as well as reading.
+     * This is useful for requests that are expected to be held open by the server.
+     *
+     * @param timeout The timeout or {@code null} to use the default.
+     */
+    public void setTimeout(@Nullable Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets whether the response is a stream that is read while it arrives, such as an event stream.
+     * @return Whether the response is streaming.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
 
-        if (connection instanceof HttpURLConnection) {
-            ((HttpURLConnection) connection).setRequestMethod(requestMethod);
+    /**
+     * Sets whether the response is a stream that is read while it arrives, such as an event stream.
+     * Connections of streaming responses are not kept alive so closing them never blocks.
+     *
+     * @param streaming Whether the response is streaming.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Gets whether the server holds this request open for a long time, such as an event stream or a long poll.
+     * @return Whether the request is long-lived.
+     */
+    public boolean isLongLived() {
+        return longLived;
+    }
+
+    /**
+     * Sets whether the server holds this request open for a long time, such as an event stream or a long poll.
+     * Long-lived requests do not take a lease from the {@link io.ybrid.api.driver.http.ConnectionPool}
+     * and are not counted by a {@link io.ybrid.api.driver.http.LimitingTransport}, as they would hold
+     * a slot for as long as they are open.
+     *
+     * @param longLived Whether the request is long-lived.
+     */
+    public void setLongLived(boolean longLived) {
+        this.longLived = longLived;
+    }
+
+    /**
+     * Gets the deadline of this request.
+     * By default this is the deadline bound to the thread that created the request.
+     * @return The deadline or {@code null}.
+     * @see Deadline#current()
+     */
+    public @Nullable Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Sets the deadline of this request.
+     * @param deadline The deadline or {@code null}.
+     */
+    public void setDeadline(@Nullable Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Gets the cancellation of this request.
+     * By default this is the cancellation bound to the thread that created the request.
+     * @return The cancellation or {@code null}.
+     * @see Cancellation#current()
+     */
+    public @Nullable Cancellation getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Sets the cancellation of this request.
+     * @param cancellation The cancellation or {@code null}.
+     */
+    public void setCancellation(@Nullable Cancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Registers a callback that aborts this request once it is canceled.
+     * This is used by {@link Transport}s to abort connections in flight.
+     *
+     * @param abort The callback.
+     * @return The registration. It must be closed once the request is no longer in flight.
+     * @see #getCancellation()
+     */
+    public @NotNull Cancellation.Registration onCancel(@NotNull Runnable abort) {
+        return Cancellation.register(cancellation, abort);
+    }
+
+    /**
+     * Gets the maximum size of the response body in bytes.
+     * @return The maximum size or {@code -1} if there is no limit.
+     */
+    public long getMaxResponseBodySize() {
+        return maxResponseBodySize;
+    }
+
+    /**
+     * Sets the maximum size of the response body in bytes.
+     * Bodies exceeding this size will result in an {@link IOException} when read.
+     * @param maxResponseBodySize The maximum size or {@code -1} to disable the limit.
+     */
+    public void setMaxResponseBodySize(long maxResponseBodySize) {
+        this.maxResponseBodySize = maxResponseBodySize;
+    }
+
+    /**
+     * Gets whether the response may be compressed.
+     * @return Whether compressed responses are accepted.
+     */
+    public boolean isCompressionAccepted() {
+        return compressionAccepted;
+    }
+
+    /**
+     * Sets whether the response may be compressed.
+     * If set the transport will negotiate a content encoding such as gzip and decode the body transparently.
+     * @param compressionAccepted Whether compressed responses are accepted.
+     */
+    public void setCompressionAccepted(boolean compressionAccepted) {
+        this.compressionAccepted = compressionAccepted;
+    }
+
+    /**
+     * Gets whether this request is idempotent.
+     * If not set explicitly this is derived from the request method.
+     * Only idempotent requests are retried after they may have reached the server.
+     * @return Whether the request is idempotent.
+     */
+    public boolean isIdempotent() {
+        final @Nullable Boolean ret = idempotent;
+
+        if (ret != null)
+            return ret;
+
+        switch (requestMethod) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "PUT":
+            case "DELETE":
+                return true;
+            default:
+                return false;
         }
+    }
+
+    /**
+     * Sets whether this request is idempotent.
+     * @param idempotent Whether the request is idempotent or {@code null} to derive it from the request method.
+     */
+    public void setIdempotent(@Nullable Boolean idempotent) {
+        this.idempotent = idempotent;
+    }
 
-        if (accepted != null)
-            connection.setRequestProperty("Accept", accepted.toHTTPHeaderLikeString());
+    /**
+     * Gets the {@link Transport} used to perform this request.
+     * If none has been set the default transport is returned.
+     * @return The transport.
+     * @see TransportManager#getDefault()
+     */
+    public @NotNull Transport getTransport() {
+        final @Nullable Transport ret = transport;
 
-        connection.setRequestProperty("Accept-Charset", "utf-8, *; q=0");
-        connection.setDoInput(true);
-        connection.setDoOutput(requestBody != null);
-        connection.setConnectTimeout(TIMEOUT);
-        connection.setReadTimeout(TIMEOUT);
+        if (ret != null)
+            return ret;
 
-        if (requestBody != null) {
-            connection.setRequestProperty("Content-Type", requestBodyContentType);
+        return TransportManager.getDefault();
+    }
 
-            final @NotNull OutputStream outputStream = connection.getOutputStream();
-            outputStream.write(requestBody);
-            outputStream.close();
+    /**
+     * Sets the {@link Transport} used to perform this request.
+     * @param transport The transport to use or {@code null} to use the default.
+     */
+    public void setTransport(@Nullable Transport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Executes the request using the {@link Transport} of this request.
+     * @param accepted The accepted media types or {@code null} if no {@code Accept:}-header should be sent.
+     * @return The response. The caller must close it.
+     * @throws IOException Thrown on any I/O-Error.
+     */
+    protected @NotNull Response execute(@Nullable MediaTypeMap accepted) throws IOException {
+        final @Nullable Deadline deadline = this.deadline;
+        final @Nullable Cancellation cancellation = this.cancellation;
+
+        if (deadline != null)
+            deadline.assertNotExpired();
+        if (cancellation != null)
+            cancellation.assertNotCanceled();
+
+        try {
+            return getTransport().execute(this, accepted);
+        } catch (IOException e) {
+            throw translateException(e);
         }
+    }
+
+    /**
+     * Executes the request using the {@link Transport} of this request without blocking the calling thread.
+     * @param accepted The accepted media types or {@code null} if no {@code Accept:}-header should be sent.
+     * @return The future for the response. The caller must close it.
+     * @see Transport#executeAsync(Request, MediaTypeMap)
+     */
+    protected @NotNull CompletableFuture<Response> executeAsync(@Nullable MediaTypeMap accepted) {
+        final @Nullable Deadline deadline = this.deadline;
+        final @Nullable Cancellation cancellation = this.cancellation;
+        final @NotNull CompletableFuture<Response> future;
+        final @NotNull Cancellation.Registration registration;
+
+        if (deadline != null && deadline.isExpired())
+            return Utils.failedFuture(new DeadlineExceededException(deadline));
+        if (cancellation != null && cancellation.isCanceled())
+            return Utils.failedFuture(new CanceledException());
+
+        future = getTransport().executeAsync(this, accepted);
+        registration = onCancel(() -> future.cancel(true));
+
+        return future.handle((response, e) -> {
+            registration.close();
+
+            if (e == null)
+                return response;
+
+            if (e instanceof CompletionException && e.getCause() != null)
+                e = e.getCause();
+
+            if (e instanceof CancellationException && cancellation != null && cancellation.isCanceled())
+                throw new CompletionException(new CanceledException(e));
+
+            if (e instanceof IOException)
+                throw new CompletionException(translateException((IOException) e));
+
+            throw new CompletionException(e);
+        });
+    }
+
+    private @NotNull IOException translateException(@NotNull IOException e) {
+        final @Nullable Deadline deadline = this.deadline;
+        final @Nullable Cancellation cancellation = this.cancellation;
+
+        // Errors caused by aborting a canceled request are reported as such.
+        if (cancellation != null && cancellation.isCanceled() && !(e instanceof CanceledException))
+            return new CanceledException(e);
+
+        // Timeouts caused by the deadline are reported as such.
+        if (deadline != null && deadline.isExpired() && !(e instanceof DeadlineExceededException))
+            return new DeadlineExceededException(deadline, e);
 
-        return connection;
+        return e;
     }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * A ResponseDecoder decodes the body of a {@link JSONRequest} directly from the stream.
+ * <P>
+ * This allows callers to build their own representation of a response without first
+ * building a full {@link JSONObject} tree of it. The static helpers of this interface can be used
+ * to walk objects member by member and to skip members that are of no interest.
+ *
+ * @param <T> The type of the decoded response.
+ */
+@ApiStatus.Internal
+@FunctionalInterface
+public interface ResponseDecoder<T> {
+    /**
+     * Decoder returning the response as a {@link JSONObject}.
+     */
+    @NotNull ResponseDecoder<JSONObject> JSON_OBJECT = JSONObject::new;
+
+    /**
+     * Handler for members of an object as used by {@link #forEachMember(JSONTokener, MemberHandler)}.
+     */
+    @FunctionalInterface
+    interface MemberHandler {
+        /**
+         * Called for each member of an object.
+         * The handler must consume the value of the member from the tokener
+         * e.g. by calling {@link JSONTokener#nextValue()} or {@link #skipValue(JSONTokener)}.
+         *
+         * @param key The key of the member.
+         * @param tokener The tokener positioned at the value of the member.
+         * @throws JSONException Thrown on syntax errors.
+         */
+        void onMember(@NotNull String key, @NotNull JSONTokener tokener) throws JSONException;
+    }
+
+    /**
+     * Decodes a response.
+     *
+     * @param tokener The tokener to read the response from.
+     * @return The decoded response.
+     * @throws JSONException Thrown if the response could not be decoded.
+     */
+    @Nullable T decode(@NotNull JSONTokener tokener) throws JSONException;
+
+    /**
+     * Reads an object from the tokener calling the given handler for each member.
+     *
+     * @param tokener The tokener to read from.
+     * @param handler The handler to call for each member.
+     * @throws JSONException Thrown on syntax errors.
+     */
+    static void forEachMember(@NotNull JSONTokener tokener, @NotNull MemberHandler handler) throws JSONException {
+        if (tokener.nextClean() != '{')
+            throw tokener.syntaxError("A JSONObject text must begin with '{'");
+
+        while (true) {
+            final @NotNull String key;
+            char c = tokener.nextClean();
+
+            switch (c) {
+                case 0:
+                    throw tokener.syntaxError("A JSONObject text must end with '}'");
+                case '}':
+                    return;
+                case '"':
+                case '\'':
+                    key = tokener.nextString(c);
+                    break;
+                default:
+                    tokener.back();
+                    key = tokener.nextValue().toString();
+                    break;
+            }
+
+            if (tokener.nextClean() != ':')
+                throw tokener.syntaxError("Expected a ':' after a key");
+
+            handler.onMember(key, tokener);
+
+            switch (tokener.nextClean()) {
+                case ',':
+                    if (tokener.nextClean() == '}')
+                        return;
+                    tokener.back();
+                    break;
+                case '}':
+                    return;
+                default:
+                    throw tokener.syntaxError("Expected a ',' or '}'");
+            }
+        }
+    }
+
+    /**
+     * Skips the next value of the tokener without building any representation of it.
+     *
+     * @param tokener The tokener to read from.
+     * @throws JSONException Thrown on syntax errors.
+     */
+    static void skipValue(@NotNull JSONTokener tokener) throws JSONException {
+        int depth = 0;
+
+        do {
+            final char c = tokener.nextClean();
+
+            switch (c) {
+                case 0:
+                    throw tokener.syntaxError("Unexpected end of input");
+                case '"':
+                case '\'':
+                    tokener.nextString(c);
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    break;
+                case ',':
+                case ':':
+                    break;
+                default:
+                    tokener.back();
+                    tokener.nextValue();
+                    break;
+            }
+        } while (depth > 0);
+    }
+}
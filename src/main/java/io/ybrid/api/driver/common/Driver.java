@@ -23,13 +23,27 @@
 package io.ybrid.api.driver.common;
 
 import io.ybrid.api.*;
+import io.ybrid.api.bouquet.Bouquet;
 import io.ybrid.api.bouquet.Service;
 import io.ybrid.api.driver.CapabilitySet;
 import io.ybrid.api.driver.JSONRequest;
+import io.ybrid.api.driver.ResponseDecoder;
+import io.ybrid.api.driver.http.CircuitBreaker;
+import io.ybrid.api.driver.http.CircuitOpenException;
+import io.ybrid.api.driver.http.HedgingPolicy;
+import io.ybrid.api.driver.http.RetryPolicy;
+import io.ybrid.api.driver.http.SingleFlight;
+import io.ybrid.api.metadata.Metadata;
 import io.ybrid.api.metadata.source.SourceMetadata;
 import io.ybrid.api.session.Command;
 import io.ybrid.api.session.Session;
+import io.ybrid.api.session.SessionSnapshot;
+import io.ybrid.api.session.SessionState;
 import io.ybrid.api.transaction.Request;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
+import io.ybrid.api.util.Utils;
 import io.ybrid.api.util.uri.Builder;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
@@ -37,12 +51,19 @@ import org.jetbrains.annotations.Nullable;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.EnumSet;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,11 +73,16 @@ public abstract class Driver implements io.ybrid.api.driver.Driver {
     protected final Session session;
     protected final @NotNull URI baseURI;
     protected final CapabilitySet capabilities = new CapabilitySet();
-    private final EnumSet<SubInfo> changed = EnumSet.noneOf(SubInfo.class);
-    protected boolean connected = false;
-    private boolean valid = true;
+    private final Set<SubInfo> changed = ConcurrentHashMap.newKeySet();
+    protected volatile boolean connected = false;
+    private volatile boolean valid = true;
+    private volatile @NotNull SessionState state = SessionState.INITIAL;
     protected String token;
     protected Service currentService;
+    private volatile @NotNull RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private volatile @NotNull CircuitBreaker circuitBreaker = CircuitBreaker.getDefault();
+    private volatile @Nullable HedgingPolicy hedgingPolicy = HedgingPolicy.getDefault();
+    private volatile @Nullable SingleFlight singleFlight = SingleFlight.getDefault();
 
     protected Driver(@NotNull Session session, @NotNull URI baseURI) {
         this.session = session;
@@ -90,6 +116,42 @@ public abstract class Driver implements io.ybrid.api.driver.Driver {
         return currentService;
     }
 
+    @Override
+    public @NotNull SessionState getState() {
+        return state;
+    }
+
+    /**
+     * Publishes a new {@link SessionState} reflecting the current state of this driver.
+     * Drivers must call this after each change has been fully applied, e.g. after a response has been processed.
+     * Readers will only see the state as published here, never any intermediate state.
+     */
+    protected synchronized void publishState() {
+        final @NotNull SessionState old = state;
+        @Nullable Bouquet bouquet;
+
+        try {
+            bouquet = getBouquet();
+        } catch (IllegalArgumentException e) {
+            // There is no valid bouquet before the server told us about it.
+            bouquet = old.getBouquet();
+        }
+
+        state = new SessionState(old.getVersion() + 1, session.getChangeTracker().getCursor(), isConnected(), isValid(), capabilities,
+                getCurrentService(), bouquet, getPlayoutInfo(), getCurrentMetadata(), getCurrentItemValidity());
+        session.onStatePublished();
+    }
+
+    /**
+     * Gets the current metadata as known by this driver.
+     * This is used when publishing the state. The default implementation returns {@code null}.
+     *
+     * @return The current metadata or {@code null}.
+     */
+    protected @Nullable Metadata getCurrentMetadata() {
+        return null;
+    }
+
     @Override
     public void clearChanged(@NotNull SubInfo what) {
         changed.remove(what);
@@ -97,6 +159,7 @@ public abstract class Driver implements io.ybrid.api.driver.Driver {
 
     protected void setChanged(@NotNull SubInfo what) {
         changed.add(what);
+        session.getChangeTracker().markChanged(what);
     }
 
     @Override
@@ -120,10 +183,8 @@ public abstract class Driver implements io.ybrid.api.driver.Driver {
         }
     }
 
-    @Nullable
-    protected JSONObject request(@NotNull URL url, @Nullable Map<String, String> body) throws IOException {
-        final JSONObject jsonObject;
-        final JSONRequest request;
+    private @NotNull JSONRequest createRequest(@NotNull URL url, @Nullable Map<String, String> body, @Nullable Deadline deadline, @Nullable Cancellation cancellation) {
+        final @NotNull JSONRequest request;
 
         if (body != null) {
             if (session.getActiveWorkarounds().get(Workaround.WORKAROUND_POST_BODY_AS_QUERY_STRING).toBool(false)) {
@@ -135,15 +196,275 @@ public abstract class Driver implements io.ybrid.api.driver.Driver {
             request = new JSONRequest(url, "POST");
         }
 
-        if (request.perform()) {
-            jsonObject = request.getResponseBody();
+        request.setIdempotent(isIdempotent(url));
+        request.setDeadline(deadline);
+        // Attempts may be created on other threads, so this is not taken from the current thread.
+        request.setCancellation(cancellation);
+        request.setTransport(session.getTransport());
+        return request;
+    }
+
+    /**
+     * Gets the {@link RetryPolicy} used by this driver.
+     * @return The retry policy.
+     */
+    public @NotNull RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the {@link RetryPolicy} used by this driver.
+     * @param retryPolicy The retry policy.
+     */
+    public void setRetryPolicy(@NotNull RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Gets the {@link CircuitBreaker} used by this driver.
+     * @return The circuit breaker.
+     */
+    public @NotNull CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Sets the {@link CircuitBreaker} used by this driver.
+     * By default all drivers share {@link CircuitBreaker#getDefault()}.
+     * @param circuitBreaker The circuit breaker.
+     */
+    public void setCircuitBreaker(@NotNull CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Gets the {@link HedgingPolicy} used by this driver.
+     * @return The hedging policy or {@code null} if hedging is disabled.
+     */
+    public @Nullable HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Sets the {@link HedgingPolicy} used by this driver.
+     * Hedging is only applied to idempotent requests.
+     * @param hedgingPolicy The hedging policy or {@code null} to disable hedging.
+     * @see #isIdempotent(URL)
+     */
+    public void setHedgingPolicy(@Nullable HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * Gets the {@link SingleFlight} used by this driver.
+     * @return The single flight or {@code null} if coalescing is disabled.
+     */
+    public @Nullable SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Sets the {@link SingleFlight} used by this driver.
+     * Identical concurrent idempotent requests share a single request.
+     * By default all drivers share {@link SingleFlight#getDefault()}.
+     * @param singleFlight The single flight or {@code null} to disable coalescing.
+     * @see #isIdempotent(URL)
+     */
+    public void setSingleFlight(@Nullable SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * Returns whether requests to the given URL are idempotent.
+     * Idempotent requests are retried even if they might have reached the server.
+     * The default implementation returns {@code false}.
+     *
+     * @param url The URL to check.
+     * @return Whether requests to the URL are idempotent.
+     */
+    protected boolean isIdempotent(@NotNull URL url) {
+        return false;
+    }
+
+    private static void report(@NotNull CircuitBreaker.Permit permit, int statusCode, @Nullable IOException exception) {
+        if (exception != null || statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR || RetryPolicy.isRetryableStatus(statusCode)) {
+            permit.failure();
         } else {
-            jsonObject = null;
+            permit.success();
         }
+    }
+
+    private static @Nullable IOException getIOException(@Nullable Throwable e) {
+        if (e instanceof CompletionException)
+            e = e.getCause();
+        if (e instanceof IOException)
+            return (IOException) e;
+        return null;
+    }
 
-        if (LOGGER.isLoggable(Level.FINE))
-            LOGGER.fine("request: url=" + request.getUrl() + ", jsonObject=" + jsonObject);
-        return jsonObject;
+    private <T> @NotNull SingleFlight.Key<@Nullable T> singleFlightKey(@NotNull URL url, @Nullable Map<String, String> body, @NotNull ResponseDecoder<T> decoder) {
+        return SingleFlight.Key.of(createRequest(url, body, null, null), decoder);
+    }
+
+    private static boolean hasTimeFor(@Nullable Deadline deadline, @NotNull Duration backoff) {
+        return deadline == null || deadline.getRemaining().compareTo(backoff) > 0;
+    }
+
+    private static void logRetry(@NotNull JSONRequest request, int attempt, @NotNull Duration backoff, @Nullable IOException exception) {
+        LOGGER.warning("Request to " + request.getUrl() + " failed (attempt " + attempt + ", status " + request.getStatusCode() +
+                (exception == null ? "" : ", " + exception) + "), retrying in " + backoff.toMillis() + "ms");
+    }
+
+    /**
+     * Performs a request and decodes the response using the given decoder.
+     * <P>
+     * Failed requests are retried according to the {@link RetryPolicy} of this driver.
+     * Idempotent requests are hedged if a {@link HedgingPolicy} is set.
+     * Identical concurrent idempotent requests are coalesced if a {@link SingleFlight} is set.
+     * Requests to hosts whose circuit is open fail with a {@link CircuitOpenException}.
+     *
+     * @param url The URL to request.
+     * @param body The request body or {@code null}.
+     * @param decoder The decoder to use.
+     * @param <T> The type of the decoded response.
+     * @return The decoded response or {@code null} if the request was not successful.
+     * @throws IOException Thrown on I/O-Error.
+     */
+    protected <T> @Nullable T request(@NotNull URL url, @Nullable Map<String, String> body, @NotNull ResponseDecoder<T> decoder) throws IOException {
+        final @Nullable SingleFlight singleFlight = this.singleFlight;
+
+        if (singleFlight != null && isIdempotent(url))
+            return singleFlight.call(singleFlightKey(url, body, decoder), () -> requestUncoalesced(url, body, decoder));
+
+        return requestUncoalesced(url, body, decoder);
+    }
+
+    private <T> @Nullable T requestUncoalesced(@NotNull URL url, @Nullable Map<String, String> body, @NotNull ResponseDecoder<T> decoder) throws IOException {
+        final @Nullable HedgingPolicy hedgingPolicy = this.hedgingPolicy;
+
+        // Hedging requires the asynchronous path to run attempts in parallel.
+        if (hedgingPolicy != null && isIdempotent(url)) {
+            final @NotNull RetryPolicy retryPolicy = this.retryPolicy;
+            final @NotNull CircuitBreaker circuitBreaker = this.circuitBreaker;
+            final @Nullable Deadline deadline = Deadline.current();
+            final @Nullable Cancellation cancellation = Cancellation.current();
+
+            return Utils.getIO(hedgingPolicy.execute(HedgingPolicy.key(url), () -> requestAsync(url, body, decoder, retryPolicy, circuitBreaker, deadline, cancellation, 1)));
+        }
+
+        return requestWithRetry(url, body, decoder);
+    }
+
+    private <T> @Nullable T requestWithRetry(@NotNull URL url, @Nullable Map<String, String> body, @NotNull ResponseDecoder<T> decoder) throws IOException {
+        final @NotNull RetryPolicy retryPolicy = this.retryPolicy;
+        final @NotNull CircuitBreaker circuitBreaker = this.circuitBreaker;
+        final @Nullable Deadline deadline = Deadline.current();
+        final @Nullable Cancellation cancellation = Cancellation.current();
+
+        for (int attempt = 1; ; attempt++) {
+            final JSONRequest request = createRequest(url, body, deadline, cancellation);
+            final @NotNull CircuitBreaker.Permit permit = circuitBreaker.acquire(request.getUrl());
+            @Nullable T response = null;
+            @Nullable IOException exception = null;
+            final @NotNull Duration backoff;
+
+            try {
+                response = request.perform(decoder);
+            } catch (IOException e) {
+                exception = e;
+            } finally {
+                report(permit, request.getStatusCode(), exception);
+            }
+
+            if (response != null || !retryPolicy.shouldRetry(request, attempt, request.getStatusCode(), exception)) {
+                if (exception != null)
+                    throw exception;
+
+                if (LOGGER.isLoggable(Level.FINE))
+                    LOGGER.fine("request: url=" + request.getUrl() + ", response=" + response);
+                return response;
+            }
+
+            backoff = retryPolicy.getBackoff(attempt);
+            if (!hasTimeFor(deadline, backoff)) {
+                if (exception != null)
+                    throw new DeadlineExceededException(Objects.requireNonNull(deadline), exception);
+                return null;
+            }
+
+            logRetry(request, attempt, backoff, exception);
+
+            try {
+                Thread.sleep(backoff.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.toString());
+            }
+        }
+    }
+
+    @Nullable
+    protected JSONObject request(@NotNull URL url, @Nullable Map<String, String> body) throws IOException {
+        return request(url, body, ResponseDecoder.JSON_OBJECT);
+    }
+
+    private <T> @NotNull CompletableFuture<@Nullable T> requestAsync(@NotNull URL url, @Nullable Map<String, String> body, @NotNull ResponseDecoder<T> decoder, @NotNull RetryPolicy retryPolicy, @NotNull CircuitBreaker circuitBreaker, @Nullable Deadline deadline, @Nullable Cancellation cancellation, int attempt) {
+        final JSONRequest request = createRequest(url, body, deadline, cancellation);
+        final @NotNull CircuitBreaker.Permit permit;
+        final @NotNull CompletableFuture<@Nullable T> ret = new CompletableFuture<>();
+
+        try {
+            permit = circuitBreaker.acquire(request.getUrl());
+        } catch (CircuitOpenException e) {
+            return Utils.failedFuture(e);
+        }
+
+        request.performAsync(decoder).whenComplete((response, e) -> {
+            final @Nullable IOException exception = getIOException(e);
+            final @NotNull Duration backoff;
+
+            report(permit, request.getStatusCode(), exception);
+
+            if (e != null && exception == null) {
+                ret.completeExceptionally(e);
+                return;
+            }
+
+            if (response != null || !retryPolicy.shouldRetry(request, attempt, request.getStatusCode(), exception)) {
+                if (exception != null) {
+                    ret.completeExceptionally(exception);
+                } else {
+                    if (LOGGER.isLoggable(Level.FINE))
+                        LOGGER.fine("request: url=" + request.getUrl() + ", response=" + response);
+                    ret.complete(response);
+                }
+                return;
+            }
+
+            backoff = retryPolicy.getBackoff(attempt);
+            if (!hasTimeFor(deadline, backoff)) {
+                if (exception != null) {
+                    ret.completeExceptionally(new DeadlineExceededException(Objects.requireNonNull(deadline), exception));
+                } else {
+                    ret.complete(null);
+                }
+                return;
+            }
+
+            logRetry(request, attempt, backoff, exception);
+
+            RetryPolicy.delay(backoff)
+                    .thenCompose(v -> requestAsync(url, body, decoder, retryPolicy, circuitBreaker, deadline, cancellation, attempt + 1))
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            ret.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                        } else {
+                            ret.complete(result);
+                        }
+                    });
+        });
+
+        return ret;
     }
 
     @Override
@@ -152,6 +473,7 @@ public abstract class Driver implements io.ybrid.api.driver.Driver {
             case DISCONNECT:
                 connected = false;
                 capabilities.remove(Capability.AUDIO_TRANSPORT);
+                publishState();
                 break;
             case SWAP_SERVICE:
                 if (request.getArgumentNotNull(0).equals(getCurrentService()))
@@ -173,6 +495,39 @@ public abstract class Driver implements io.ybrid.api.driver.Driver {
         return connected;
     }
 
+    /**
+     * Exports the state common to all drivers.
+     * Drivers must override this to set the protocol and any additional state.
+     *
+     * @param builder The builder to export to.
+     */
+    @Override
+    public void exportState(@NotNull SessionSnapshot.Builder builder) {
+        final @Nullable Service service = getCurrentService();
+
+        builder.setBaseURI(baseURI);
+        builder.setToken(token);
+        builder.setCurrentService(service == null ? null : service.getIdentifier().toString());
+    }
+
+    /**
+     * Restores the state of this driver.
+     * The default implementation connects as there is no server-side session to restore.
+     *
+     * @param snapshot The snapshot to restore from.
+     * @throws IOException Thrown on I/O-Error.
+     */
+    @Override
+    public void restoreState(@NotNull SessionSnapshot snapshot) throws IOException {
+        try {
+            executeRequest(Command.CONNECT.makeRequest());
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException(e);
+        }
+    }
+
     @Override
     public boolean isValid() {
         return valid;
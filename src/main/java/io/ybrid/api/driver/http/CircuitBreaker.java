@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * This implements a per-host circuit breaker.
+ * <P>
+ * After {@code failureThreshold} consecutive failures to a host the circuit opens and further requests
+ * to that host are rejected with a {@link CircuitOpenException} without touching the network.
+ * After the open duration has passed a single probe request is permitted (half open).
+ * If it succeeds the circuit closes again, otherwise it is opened again.
+ * <P>
+ * The open duration is randomized slightly so that clients do not probe a recovering host in lockstep.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Internal
+public final class CircuitBreaker {
+    static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    /**
+     * The default number of consecutive failures after which the circuit opens.
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    /**
+     * The default duration the circuit stays open before a probe is permitted.
+     */
+    public static final @NotNull Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(10);
+
+    private static final double OPEN_DURATION_JITTER = 0.2;
+    private static volatile CircuitBreaker defaultCircuitBreaker = null;
+
+    private final @NotNull Map<String, Host> hosts = new ConcurrentHashMap<>();
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    /**
+     * The state of the circuit for a host.
+     */
+    public enum State {
+        /**
+         * Requests are permitted.
+         */
+        CLOSED,
+        /**
+         * Requests are rejected.
+         */
+        OPEN,
+        /**
+         * A single probe request is permitted to test whether the host recovered.
+         */
+        HALF_OPEN;
+    }
+
+    /**
+     * A permit to send a single request.
+     * The result of the request must be reported using {@link #success()} or {@link #failure()}.
+     */
+    public final class Permit {
+        private final @NotNull Host host;
+        private final boolean probe;
+        private final @NotNull AtomicBoolean reported = new AtomicBoolean(false);
+
+        private Permit(@NotNull Host host, boolean probe) {
+            this.host = host;
+            this.probe = probe;
+        }
+
+        /**
+         * Reports that the request succeeded or failed for reasons not related to the host's health.
+         */
+        public void success() {
+            if (reported.compareAndSet(false, true))
+                host.onSuccess(probe);
+        }
+
+        /**
+         * Reports that the request failed because of the host, e.g. an I/O-Error or a server error.
+         */
+        public void failure() {
+            if (reported.compareAndSet(false, true))
+                host.onFailure(probe);
+        }
+    }
+
+    private final class Host {
+        private final @NotNull String key;
+        private @NotNull State state = State.CLOSED;
+        private int failures = 0;
+        private long openUntil = 0;
+        private long rejected = 0;
+
+        private Host(@NotNull String key) {
+            this.key = key;
+        }
+
+        private synchronized @NotNull Permit acquire() throws CircuitOpenException {
+            switch (state) {
+                case CLOSED:
+                    return new Permit(this, false);
+                case OPEN:
+                    if (System.nanoTime() - openUntil >= 0) {
+                        setState(State.HALF_OPEN);
+                        return new Permit(this, true);
+                    }
+                    break;
+                case HALF_OPEN:
+                    // The probe is still in flight.
+                    break;
+            }
+
+            rejected++;
+            throw new CircuitOpenException(key);
+        }
+
+        private synchronized void onSuccess(boolean probe) {
+            failures = 0;
+            if (probe || state != State.CLOSED)
+                setState(State.CLOSED);
+        }
+
+        private synchronized void onFailure(boolean probe) {
+            failures++;
+            if (probe || (state == State.CLOSED && failures >= failureThreshold)) {
+                final double jitter = 1. + OPEN_DURATION_JITTER * (2. * ThreadLocalRandom.current().nextDouble() - 1.);
+                openUntil = System.nanoTime() + (long) (openDurationNanos * jitter);
+                setState(State.OPEN);
+            }
+        }
+
+        private void setState(@NotNull State state) {
+            if (this.state == state)
+                return;
+
+            LOGGER.warning("Circuit for " + key + " changed from " + this.state + " to " + state + " (failures=" + failures + ")");
+            this.state = state;
+        }
+
+        private synchronized @NotNull State getState() {
+            if (state == State.OPEN && System.nanoTime() - openUntil >= 0)
+                return State.HALF_OPEN;
+            return state;
+        }
+
+        private synchronized long getRejected() {
+            return rejected;
+        }
+    }
+
+    /**
+     * Creates a new circuit breaker with default settings.
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION);
+    }
+
+    /**
+     * Creates a new circuit breaker.
+     *
+     * @param failureThreshold The number of consecutive failures after which the circuit opens.
+     * @param openDuration The duration the circuit stays open before a probe is permitted.
+     */
+    public CircuitBreaker(int failureThreshold, @NotNull Duration openDuration) {
+        if (failureThreshold < 1)
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Gets the default circuit breaker shared by all drivers.
+     * @return The default circuit breaker.
+     */
+    public static @NotNull CircuitBreaker getDefault() {
+        CircuitBreaker ret = defaultCircuitBreaker;
+
+        if (ret == null) {
+            synchronized (CircuitBreaker.class) {
+                ret = defaultCircuitBreaker;
+                if (ret == null) {
+                    ret = new CircuitBreaker();
+                    defaultCircuitBreaker = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private @NotNull Host getHost(@NotNull String key) {
+        return hosts.computeIfAbsent(key, Host::new);
+    }
+
+    /**
+     * Acquires a permit to send a request to the host of the given URL.
+     *
+     * @param url The URL to request.
+     * @return The permit.
+     * @throws CircuitOpenException Thrown if the circuit for the host is open.
+     */
+    public @NotNull Permit acquire(@NotNull URL url) throws CircuitOpenException {
+        return getHost(ConnectionPool.key(url)).acquire();
+    }
+
+    /**
+     * Gets the state of the circuit for the given host.
+     *
+     * @param uri The URI of the host.
+     * @return The state.
+     */
+    public @NotNull State getState(@NotNull URI uri) {
+        final Host host = hosts.get(ConnectionPool.key(uri));
+
+        if (host == null)
+            return State.CLOSED;
+
+        return host.getState();
+    }
+
+    /**
+     * Gets the state of the circuits of all hosts known to this circuit breaker.
+     * @return The states by host key.
+     */
+    @Contract(" -> new")
+    public @NotNull Map<String, State> getStates() {
+        final @NotNull Map<String, State> ret = new HashMap<>();
+
+        for (final @NotNull Map.Entry<String, Host> entry : hosts.entrySet())
+            ret.put(entry.getKey(), entry.getValue().getState());
+
+        return ret;
+    }
+
+    /**
+     * Gets the number of requests to the given host that have been rejected.
+     *
+     * @param uri The URI of the host.
+     * @return The number of rejected requests.
+     */
+    public long getRejected(@NotNull URI uri) {
+        final Host host = hosts.get(ConnectionPool.key(uri));
+
+        if (host == null)
+            return 0;
+
+        return host.getRejected();
+    }
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.Request;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a bounded per-host pool of keep-alive connections.
+ * <P>
+ * Hosts are identified by scheme, hostname, and port. This is the same for all requests sent to a driver's base URI.
+ * A request must acquire a {@link Lease} before it opens a connection and release it after the response
+ * has been consumed. If the connection can be kept alive its slot is returned to the pool as idle.
+ * The next lease for the same host takes over the idle slot and is counted as warm.
+ * Idle slots are evicted after the idle timeout. This should not be longer than the time the underlying
+ * transport keeps connections alive.
+ * <P>
+ * The pool does not own the sockets, the transport does. Warm and cold leases are therefore only an estimate
+ * of how many connections were reused. This requires a transport that uses one connection per request in flight
+ * such as {@link URLConnectionTransport}. Transports that multiplex requests on shared connections,
+ * such as {@link HttpClientTransport}, must not use a pool.
+ * <P>
+ * At most {@code maxPerHost} connections per host are leased at any time.
+ * Requests exceeding this limit wait for a connection to become available.
+ * At most {@code maxIdlePerHost} connections per host are kept idle, further connections are evicted.
+ * <P>
+ * {@link Request#isLongLived() Long-lived} requests such as event streams get a lease that is not counted,
+ * as they would otherwise hold a slot for as long as the server keeps them open.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Internal
+public final class ConnectionPool {
+    /**
+     * The default maximum number of connections per host.
+     */
+    public static final int DEFAULT_MAX_PER_HOST = 64;
+    /**
+     * The default maximum number of idle connections per host.
+     * This matches the default of {@code http.maxConnections}.
+     */
+    public static final int DEFAULT_MAX_IDLE_PER_HOST = 5;
+    /**
+     * The default idle timeout.
+     * This matches the default keep-alive timeout of {@link java.net.HttpURLConnection}.
+     */
+    public static final @NotNull Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final @NotNull Map<String, Host> hosts = new ConcurrentHashMap<>();
+    private final int maxPerHost;
+    private final int maxIdlePerHost;
+    private final long idleTimeoutNanos;
+    /* The lease handed out to long-lived requests. Releasing it has no effect. */
+    private final @NotNull Lease unpooled = new Lease(null, false);
+
+    /**
+     * This class holds the statistics of a pool or a single host.
+     */
+    public static final class Statistics {
+        private final long warmLeases;
+        private final long coldLeases;
+        private final long evictions;
+        private final int leased;
+        private final int idle;
+
+        private Statistics(long warmLeases, long coldLeases, long evictions, int leased, int idle) {
+            this.warmLeases = warmLeases;
+            this.coldLeases = coldLeases;
+            this.evictions = evictions;
+            this.leased = leased;
+            this.idle = idle;
+        }
+
+        /**
+         * Gets the number of leases that took over an idle slot.
+         * This estimates the number of requests that reused a connection.
+         * @return The number of warm leases.
+         * @see ConnectionPool
+         */
+        @Contract(pure = true)
+        public long getWarmLeases() {
+            return warmLeases;
+        }
+
+        /**
+         * Gets the number of leases that found no idle slot.
+         * This estimates the number of requests that required a new connection.
+         * @return The number of cold leases.
+         * @see ConnectionPool
+         */
+        @Contract(pure = true)
+        public long getColdLeases() {
+            return coldLeases;
+        }
+
+        /**
+         * Gets the number of idle connections that were evicted because of the idle timeout or idle limit.
+         * @return The number of evictions.
+         */
+        @Contract(pure = true)
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Gets the number of currently leased connections.
+         * @return The number of leased connections.
+         */
+        @Contract(pure = true)
+        public int getLeased() {
+            return leased;
+        }
+
+        /**
+         * Gets the number of currently idle connections.
+         * @return The number of idle connections.
+         */
+        @Contract(pure = true)
+        public int getIdle() {
+            return idle;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "warmLeases=" + warmLeases +
+                    ", coldLeases=" + coldLeases +
+                    ", evictions=" + evictions +
+                    ", leased=" + leased +
+                    ", idle=" + idle +
+                    '}';
+        }
+    }
+
+    /**
+     * A lease on a connection to a host.
+     */
+    public final class Lease {
+        private final @Nullable Host host;
+        private final boolean warm;
+        private final @NotNull AtomicBoolean released = new AtomicBoolean(false);
+
+        private Lease(@Nullable Host host, boolean warm) {
+            this.host = host;
+            this.warm = warm;
+        }
+
+        /**
+         * Returns whether this lease took over an idle slot.
+         * This is an estimate of whether the transport will reuse a connection.
+         * @return Whether this lease is warm.
+         * @see ConnectionPool
+         */
+        @Contract(pure = true)
+        public boolean isWarm() {
+            return warm;
+        }
+
+        /**
+         * Releases this lease. Calling this more than once has no effect.
+         * @param reusable Whether the connection was left in a state that allows it to be reused.
+         */
+        public void release(boolean reusable) {
+            if (host != null && released.compareAndSet(false, true))
+                host.release(reusable);
+        }
+    }
+
+    private final class Host {
+        private final @NotNull Deque<Long> idle = new ArrayDeque<>();
+        private final @NotNull Deque<CompletableFuture<Lease>> waiters = new ArrayDeque<>();
+        private final @NotNull AtomicLong warmLeases = new AtomicLong();
+        private final @NotNull AtomicLong coldLeases = new AtomicLong();
+        private final @NotNull AtomicLong evictions = new AtomicLong();
+        private int leased = 0;
+
+        private void evictIdle(long now) {
+            // The oldest idle connections are at the end of the deque.
+            while (!idle.isEmpty() && now - idle.peekLast() >= idleTimeoutNanos) {
+                idle.removeLast();
+                evictions.incrementAndGet();
+            }
+        }
+
+        synchronized @NotNull CompletableFuture<Lease> acquire() {
+            evictIdle(System.nanoTime());
+
+            if (leased < maxPerHost) {
+                final boolean warm = !idle.isEmpty();
+
+                leased++;
+                if (warm) {
+                    idle.removeFirst();
+                    warmLeases.incrementAndGet();
+                } else {
+                    coldLeases.incrementAndGet();
+                }
+                return CompletableFuture.completedFuture(new Lease(this, warm));
+            }
+
+            final @NotNull CompletableFuture<Lease> waiter = new CompletableFuture<>();
+            waiters.addLast(waiter);
+            return waiter;
+        }
+
+        synchronized void release(boolean reusable) {
+            leased--;
+
+            while (!waiters.isEmpty()) {
+                final @NotNull CompletableFuture<Lease> waiter = waiters.removeFirst();
+                final @NotNull Lease lease = new Lease(this, reusable);
+
+                leased++;
+                if (waiter.complete(lease)) {
+                    if (reusable) {
+                        warmLeases.incrementAndGet();
+                    } else {
+                        coldLeases.incrementAndGet();
+                    }
+                    return;
+                }
+                leased--;
+            }
+
+            if (reusable) {
+                idle.addFirst(System.nanoTime());
+                if (idle.size() > maxIdlePerHost) {
+                    idle.removeLast();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+
+        synchronized @NotNull Statistics getStatistics() {
+            evictIdle(System.nanoTime());
+            return new Statistics(warmLeases.get(), coldLeases.get(), evictions.get(), leased, idle.size());
+        }
+    }
+
+    /**
+     * Creates a new pool with the default settings.
+     */
+    public ConnectionPool() {
+        this(DEFAULT_MAX_PER_HOST, DEFAULT_MAX_IDLE_PER_HOST, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Creates a new pool.
+     * @param maxPerHost The maximum number of leased connections per host.
+     * @param maxIdlePerHost The maximum number of idle connections per host.
+     * @param idleTimeout The time after which idle connections are evicted.
+     */
+    public ConnectionPool(int maxPerHost, int maxIdlePerHost, @NotNull Duration idleTimeout) {
+        if (maxPerHost < 1)
+            throw new IllegalArgumentException("maxPerHost must be at least 1: " + maxPerHost);
+        if (maxIdlePerHost < 0)
+            throw new IllegalArgumentException("maxIdlePerHost must not be negative: " + maxIdlePerHost);
+        this.maxPerHost = maxPerHost;
+        this.maxIdlePerHost = maxIdlePerHost;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    private static @NotNull String key(@NotNull String scheme, @Nullable String host, int port) {
+        scheme = scheme.toLowerCase(Locale.ROOT);
+
+        if (port < 0) {
+            switch (scheme) {
+                case "http":
+                    port = 80;
+                    break;
+                case "https":
+                    port = 443;
+                    break;
+            }
+        }
+
+        return scheme + "://" + (host == null ? "" : host.toLowerCase(Locale.ROOT)) + ":" + port;
+    }
+
+    /**
+     * Gets the key used to identify a host.
+     * @param url The URL to get the key for.
+     * @return The key.
+     */
+    @Contract(pure = true)
+    public static @NotNull String key(@NotNull URL url) {
+        return key(url.getProtocol(), url.getHost(), url.getPort());
+    }
+
+    /**
+     * Gets the key used to identify a host.
+     * @param uri The URI to get the key for.
+     * @return The key.
+     */
+    @Contract(pure = true)
+    public static @NotNull String key(@NotNull URI uri) {
+        return key(uri.getScheme(), uri.getHost(), uri.getPort());
+    }
+
+    private @NotNull Host getHost(@NotNull String key) {
+        return hosts.computeIfAbsent(key, k -> new Host());
+    }
+
+    /**
+     * Acquires a lease for a connection to the host of the given URL without blocking.
+     * The returned future completes once a connection is available.
+     *
+     * @param url The URL to connect to.
+     * @return The future for the lease.
+     */
+    public @NotNull CompletableFuture<Lease> acquireAsync(@NotNull URL url) {
+        return getHost(key(url)).acquire();
+    }
+
+    /**
+     * Acquires a lease for the given request without blocking.
+     * Long-lived requests get a lease that is not counted.
+     *
+     * @param request The request to acquire a lease for.
+     * @return The future for the lease.
+     * @see #acquireAsync(URL)
+     */
+    public @NotNull CompletableFuture<Lease> acquireAsync(@NotNull Request request) {
+        if (request.isLongLived())
+            return CompletableFuture.completedFuture(unpooled);
+        return acquireAsync(request.getUrl());
+    }
+
+    /**
+     * Acquires a lease for the given request.
+     * Long-lived requests get a lease that is not counted. Other requests wait at most for their timeout.
+     *
+     * @param request The request to acquire a lease for.
+     * @return The lease.
+     * @throws IOException Thrown if no connection became available in time or the thread was interrupted.
+     * @see #acquire(URL, Duration)
+     */
+    public @NotNull Lease acquire(@NotNull Request request) throws IOException {
+        if (request.isLongLived())
+            return unpooled;
+        return acquire(request.getUrl(), request.getTimeout());
+    }
+
+    /**
+     * Acquires a lease for a connection to the host of the given URL.
+     * This blocks until a connection is available or the timeout is reached.
+     *
+     * @param url The URL to connect to.
+     * @param timeout The maximum time to wait.
+     * @return The lease.
+     * @throws IOException Thrown if no connection became available in time or the thread was interrupted.
+     */
+    public @NotNull Lease acquire(@NotNull URL url, @NotNull Duration timeout) throws IOException {
+        final @NotNull CompletableFuture<Lease> future = acquireAsync(url);
+
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            cancel(future);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.toString());
+        } catch (TimeoutException | CancellationException e) {
+            cancel(future);
+            throw new IOException("No connection to " + key(url) + " became available within " + timeout);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static void cancel(@NotNull CompletableFuture<Lease> future) {
+        // If the future was completed concurrently we must return the lease.
+        if (!future.cancel(false)) {
+            // The lease was never used, so it tells nothing about whether a connection can be reused.
+            future.thenAccept(lease -> lease.release(false));
+        }
+    }
+
+    /**
+     * Evicts all idle connections that reached the idle timeout.
+     */
+    public void evictIdle() {
+        final long now = System.nanoTime();
+
+        for (final @NotNull Host host : hosts.values()) {
+            //noinspection SynchronizationOnLocalVariableOrMethodParameter
+            synchronized (host) {
+                host.evictIdle(now);
+            }
+        }
+    }
+
+    /**
+     * Gets the statistics for a single host.
+     * @param uri The URI of the host, e.g. a driver's base URI.
+     * @return The statistics.
+     */
+    public @NotNull Statistics getStatistics(@NotNull URI uri) {
+        return getHost(key(uri)).getStatistics();
+    }
+
+    /**
+     * Gets the statistics for all hosts.
+     * @return The statistics by host key.
+     * @see #key(URI)
+     */
+    public @NotNull Map<String, Statistics> getStatisticsByHost() {
+        final @NotNull Map<String, Statistics> ret = new HashMap<>();
+
+        for (final @NotNull Map.Entry<String, Host> entry : hosts.entrySet())
+            ret.put(entry.getKey(), entry.getValue().getStatistics());
+
+        return ret;
+    }
+
+    /**
+     * Gets the statistics summed over all hosts.
+     * @return The statistics.
+     */
+    public @NotNull Statistics getStatistics() {
+        long warmLeases = 0;
+        long coldLeases = 0;
+        long evictions = 0;
+        int leased = 0;
+        int idle = 0;
+
+        for (final @NotNull Statistics statistics : getStatisticsByHost().values()) {
+            warmLeases += statistics.getWarmLeases();
+            coldLeases += statistics.getColdLeases();
+            evictions += statistics.getEvictions();
+            leased += statistics.getLeased();
+            idle += statistics.getIdle();
+        }
+
+        return new Statistics(warmLeases, coldLeases, evictions, leased, idle);
+    }
+}
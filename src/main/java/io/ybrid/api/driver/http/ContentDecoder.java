@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * This helper removes the content encoding from response bodies while counting the transferred bytes.
+ */
+final class ContentDecoder {
+    /**
+     * The value for the {@code Accept-Encoding:}-header for requests accepting compression.
+     */
+    static final @NotNull String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final @NotNull TransferStatistics statistics;
+        private final boolean wire;
+        private final boolean body;
+
+        private CountingInputStream(@NotNull InputStream in, @NotNull TransferStatistics statistics, boolean wire, boolean body) {
+            super(in);
+            this.statistics = statistics;
+            this.wire = wire;
+            this.body = body;
+        }
+
+        private void count(long count) {
+            if (count <= 0)
+                return;
+            if (wire)
+                statistics.addWireBytes(count);
+            if (body)
+                statistics.addBodyBytes(count);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int ret = super.read();
+            if (ret >= 0)
+                count(1);
+            return ret;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int ret = super.read(b, off, len);
+            count(ret);
+            return ret;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long ret = super.skip(n);
+            count(ret);
+            return ret;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private ContentDecoder() {
+    }
+
+    private static boolean isZlibHeader(int cmf, int flg) {
+        return (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+    }
+
+    private static @NotNull InputStream inflate(@NotNull InputStream in) throws IOException {
+        final @NotNull PushbackInputStream pushbackInputStream = new PushbackInputStream(in, 2);
+        final int cmf = pushbackInputStream.read();
+        final int flg;
+
+        if (cmf < 0)
+            return pushbackInputStream;
+
+        flg = pushbackInputStream.read();
+        if (flg >= 0)
+            pushbackInputStream.unread(flg);
+        pushbackInputStream.unread(cmf);
+
+        // RFC 9110 defines deflate as zlib format but some servers send raw deflate data.
+        return new InflaterInputStream(pushbackInputStream, new Inflater(flg < 0 || !isZlibHeader(cmf, flg)), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps the raw body of a response to remove the given content encoding.
+     * Unknown encodings are passed as is.
+     *
+     * @param raw The raw body as read from the network.
+     * @param contentEncoding The value of the {@code Content-Encoding:}-header or {@code null}.
+     * @param statistics The statistics to update while the body is read.
+     * @return The decoded body.
+     * @throws IOException Thrown on I/O-Error while reading the encoding's header.
+     */
+    static @NotNull InputStream decode(@NotNull InputStream raw, @Nullable String contentEncoding, @NotNull TransferStatistics statistics) throws IOException {
+        final @NotNull String encoding = contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        final @NotNull InputStream wire;
+
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                wire = new CountingInputStream(raw, statistics, true, false);
+                statistics.setContentEncoding(encoding);
+                return new CountingInputStream(new GZIPInputStream(wire, BUFFER_SIZE), statistics, false, true);
+            case "deflate":
+                wire = new CountingInputStream(raw, statistics, true, false);
+                statistics.setContentEncoding(encoding);
+                return new CountingInputStream(inflate(wire), statistics, false, true);
+            default:
+                return new CountingInputStream(raw, statistics, true, true);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.util.Cancellation;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * This class implements request hedging for idempotent requests.
+ * <P>
+ * If the first attempt of a request has not completed within an adaptive threshold a second attempt is sent.
+ * The first attempt to complete successfully wins and the other one is cancelled.
+ * The threshold is the configured percentile (e.g. the p95) of the latencies recently observed for the
+ * same operation, limited to the configured minimum and maximum delay.
+ * Only a small fraction of requests will therefore result in a second attempt.
+ * <P>
+ * Hedging is disabled by default. It can be enabled globally using {@link #setDefault(HedgingPolicy)}.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Internal
+public final class HedgingPolicy {
+    static final Logger LOGGER = Logger.getLogger(HedgingPolicy.class.getName());
+
+    /**
+     * The default percentile used as threshold.
+     */
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    /**
+     * The default minimum delay before a second attempt is sent.
+     */
+    public static final @NotNull Duration DEFAULT_MIN_DELAY = Duration.ofMillis(50);
+    /**
+     * The default maximum delay before a second attempt is sent.
+     * This is also used as long as there are not enough samples.
+     */
+    public static final @NotNull Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+
+    private static final int MIN_SAMPLES = 16;
+    private static volatile @Nullable HedgingPolicy defaultPolicy = null;
+
+    private final double percentile;
+    private final @NotNull Duration minDelay;
+    private final @NotNull Duration maxDelay;
+    private final @NotNull Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+    private final @NotNull AtomicLong requests = new AtomicLong();
+    private final @NotNull AtomicLong hedgesFired = new AtomicLong();
+    private final @NotNull AtomicLong hedgesWon = new AtomicLong();
+
+    private final class Hedge<T> {
+        private final @NotNull LatencyTracker tracker;
+        private final @NotNull Supplier<CompletableFuture<T>> attempt;
+        private final @NotNull CompletableFuture<T> result = new CompletableFuture<>();
+        private final @Nullable Cancellation cancellation = Cancellation.current();
+        private final long start = System.nanoTime();
+        private @Nullable CompletableFuture<T> primary;
+        private @Nullable CompletableFuture<T> secondary;
+        private int launched = 0;
+        private int failed = 0;
+        private boolean decided = false;
+
+        private Hedge(@NotNull LatencyTracker tracker, @NotNull Supplier<CompletableFuture<T>> attempt) {
+            this.tracker = tracker;
+            this.attempt = attempt;
+        }
+
+        private void start(@NotNull Duration delay) {
+            final @NotNull CompletableFuture<T> future;
+
+            synchronized (this) {
+                launched++;
+                future = primary = attempt.get();
+            }
+            future.whenComplete((value, error) -> onComplete(false, value, error));
+
+            Timers.delay(delay).thenRun(this::fire);
+            result.whenComplete((value, error) -> cancelAll());
+        }
+
+        private void fire() {
+            final @NotNull CompletableFuture<T> future;
+
+            synchronized (this) {
+                if (decided || result.isDone() || primary == null || primary.isDone())
+                    return;
+                if (cancellation != null && cancellation.isCanceled())
+                    return;
+                launched++;
+                hedgesFired.incrementAndGet();
+                LOGGER.fine("Attempt did not complete in time, sending hedged request");
+                future = secondary = startHedged();
+            }
+
+            future.whenComplete((value, error) -> onComplete(true, value, error));
+        }
+
+        /**
+         * Starts the hedged attempt. This runs on a timer thread, so the cancellation of the caller is bound to it
+         * for requests created by the attempt.
+         */
+        private @NotNull CompletableFuture<T> startHedged() {
+            if (cancellation == null)
+                return attempt.get();
+
+            final @NotNull Cancellation.Scope scope = cancellation.enter();
+            try {
+                return attempt.get();
+            } finally {
+                scope.close();
+            }
+        }
+
+        private void onComplete(boolean hedged, @Nullable T value, @Nullable Throwable error) {
+            synchronized (this) {
+                if (decided)
+                    return;
+
+                if (error == null) {
+                    decided = true;
+                    tracker.recordNanos(System.nanoTime() - start);
+                    if (hedged)
+                        hedgesWon.incrementAndGet();
+                } else {
+                    failed++;
+                    // We only fail if no other attempt could still succeed.
+                    if (failed < launched)
+                        return;
+                    decided = true;
+                }
+            }
+
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+
+            result.completeExceptionally(error);
+        }
+
+        private synchronized void cancelAll() {
+            if (primary != null)
+                primary.cancel(false);
+            if (secondary != null)
+                secondary.cancel(false);
+        }
+    }
+
+    /**
+     * Creates a new policy with default settings.
+     */
+    public HedgingPolicy() {
+        this(DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Creates a new policy.
+     *
+     * @param percentile The percentile of recent latencies after which a second attempt is sent.
+     * @param minDelay The minimum delay before a second attempt is sent.
+     * @param maxDelay The maximum delay before a second attempt is sent.
+     */
+    public HedgingPolicy(double percentile, @NotNull Duration minDelay, @NotNull Duration maxDelay) {
+        if (percentile <= 0 || percentile > 1)
+            throw new IllegalArgumentException("percentile must be in range (0, 1]");
+        if (minDelay.compareTo(maxDelay) > 0)
+            throw new IllegalArgumentException("minDelay must not be larger than maxDelay");
+
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Gets the default policy.
+     * @return The default policy or {@code null} if hedging is disabled by default.
+     */
+    public static @Nullable HedgingPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Sets the default policy.
+     * @param policy The default policy or {@code null} to disable hedging by default.
+     */
+    public static void setDefault(@Nullable HedgingPolicy policy) {
+        defaultPolicy = policy;
+    }
+
+    /**
+     * Gets the key used to group latencies of requests to the given URL.
+     * @param url The URL.
+     * @return The key.
+     */
+    @Contract(pure = true)
+    public static @NotNull String key(@NotNull URL url) {
+        return ConnectionPool.key(url) + url.getPath();
+    }
+
+    private @NotNull LatencyTracker getTracker(@NotNull String key) {
+        return trackers.computeIfAbsent(key, k -> new LatencyTracker());
+    }
+
+    /**
+     * Gets the current delay before a second attempt is sent for the given operation.
+     *
+     * @param key The key of the operation.
+     * @return The delay.
+     */
+    public @NotNull Duration getDelay(@NotNull String key) {
+        final @NotNull LatencyTracker tracker = getTracker(key);
+        final @Nullable Duration threshold;
+
+        if (tracker.getSize() < MIN_SAMPLES)
+            return maxDelay;
+
+        threshold = tracker.getPercentile(percentile);
+        if (threshold == null || threshold.compareTo(maxDelay) > 0)
+            return maxDelay;
+        if (threshold.compareTo(minDelay) < 0)
+            return minDelay;
+        return threshold;
+    }
+
+    /**
+     * Executes an operation with hedging.
+     * <P>
+     * The supplier is called for every attempt and must return a new future each time.
+     * Attempts that lose are cancelled.
+     *
+     * @param key The key of the operation, e.g. as returned by {@link #key(URL)}.
+     * @param attempt The supplier for attempts.
+     * @param <T> The type of the result.
+     * @return The future for the result of the first successful attempt.
+     */
+    public <T> @NotNull CompletableFuture<T> execute(@NotNull String key, @NotNull Supplier<CompletableFuture<T>> attempt) {
+        final @NotNull Hedge<T> hedge = new Hedge<>(getTracker(key), attempt);
+
+        requests.incrementAndGet();
+        hedge.start(getDelay(key));
+        return hedge.result;
+    }
+
+    /**
+     * Gets the number of operations executed with this policy.
+     * @return The number of operations.
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of second attempts sent.
+     * @return The number of hedges fired.
+     */
+    public long getHedgesFired() {
+        return hedgesFired.get();
+    }
+
+    /**
+     * Gets the number of second attempts that completed before the first one.
+     * @return The number of hedges won.
+     */
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    /**
+     * Gets the latency tracker for the given operation.
+     * @param key The key of the operation.
+     * @return The tracker.
+     */
+    public @NotNull LatencyTracker getLatencyTracker(@NotNull String key) {
+        return getTracker(key);
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingPolicy{" +
+                "percentile=" + percentile +
+                ", minDelay=" + minDelay +
+                ", maxDelay=" + maxDelay +
+                ", requests=" + getRequests() +
+                ", hedgesFired=" + getHedgesFired() +
+                ", hedgesWon=" + getHedgesWon() +
+                "}";
+    }
+}
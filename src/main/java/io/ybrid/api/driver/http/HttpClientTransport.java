@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.Request;
+import io.ybrid.api.trace.RequestTrace;
+import io.ybrid.api.trace.Tracer;
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.QualityMap.MediaTypeMap;
+import io.ybrid.api.util.Utils;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+
+/**
+ * This implements a {@link Transport} based on {@code java.net.http.HttpClient}.
+ * <P>
+ * All requests share a single client and therefore its connections. Requests to {@code https} servers
+ * use HTTP/2 if supported by the server so that all requests to the same host are multiplexed on a single
+ * connection. {@link #executeAsync(Request, MediaTypeMap)} does not block any thread while waiting for the server.
+ * <P>
+ * This class must only be loaded on platforms providing {@code java.net.http}.
+ * URLs not using {@code http} or {@code https} are passed to a {@link URLConnectionTransport}.
+ * <P>
+ * The client resolves names and connects internally. Traces of requests therefore include both in the
+ * time to the first byte. Asynchronous requests read the full body before they complete so
+ * the body is included as well.
+ * <P>
+ * The client manages and reuses its connections itself. This transport therefore does not use a {@link ConnectionPool}
+ * and does not limit the number of requests per host.
+ */
+@ApiStatus.Internal
+public class HttpClientTransport implements Transport {
+    private static final @NotNull Duration CONNECT_TIMEOUT = Duration.ofSeconds(3);
+
+    private final @NotNull Transport fallback = new URLConnectionTransport();
+    private final @NotNull HttpClient client;
+
+    /**
+     * Creates a new transport using a default client.
+     */
+    public HttpClientTransport() {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build());
+    }
+
+    /**
+     * Creates a new transport using the given client.
+     * @param client The client to use.
+     */
+    public HttpClientTransport(@NotNull HttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Collects the body into a byte array while enforcing a maximum size.
+     * The exchange is aborted as soon as the body exceeds the maximum so that it is never buffered in full.
+     */
+    private static final class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+        private final @NotNull HttpResponse.BodySubscriber<byte[]> delegate = HttpResponse.BodySubscribers.ofByteArray();
+        private final long maxLength;
+        private @Nullable Flow.Subscription subscription = null;
+        private long length = 0;
+        private boolean exceeded = false;
+
+        LimitedBodySubscriber(long maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public @NotNull CompletionStage<byte[]> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(@NotNull Flow.Subscription subscription) {
+            this.subscription = subscription;
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(@NotNull List<ByteBuffer> item) {
+            if (exceeded)
+                return;
+
+            for (final @NotNull ByteBuffer buffer : item)
+                length += buffer.remaining();
+
+            if (length > maxLength) {
+                exceeded = true;
+                Objects.requireNonNull(subscription).cancel();
+                delegate.onError(new IOException("Body exceeds maximum size of " + maxLength + " bytes"));
+                return;
+            }
+
+            delegate.onNext(item);
+        }
+
+        @Override
+        public void onError(@NotNull Throwable throwable) {
+            if (!exceeded)
+                delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (!exceeded)
+                delegate.onComplete();
+        }
+    }
+
+    private static @NotNull HttpResponse.BodyHandler<byte[]> ofByteArray(long maxLength) {
+        if (maxLength < 0)
+            return HttpResponse.BodyHandlers.ofByteArray();
+        return responseInfo -> new LimitedBodySubscriber(maxLength);
+    }
+
+    private static boolean isSupported(@NotNull Request request) {
+        final @NotNull String protocol = request.getUrl().getProtocol();
+        return protocol.equals("http") || protocol.equals("https");
+    }
+
+    private static @Nullable String getContentEncoding(@NotNull HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding").orElse(null);
+    }
+
+    protected @NotNull HttpRequest buildRequest(@NotNull Request request, @Nullable MediaTypeMap accepted) throws IOException {
+        final @NotNull HttpRequest.Builder builder;
+        final byte[] requestBody = request.getRequestBody();
+
+        try {
+            builder = HttpRequest.newBuilder(request.getUrl().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+
+        // Plain text HTTP/2 would require an upgrade on every new connection that not all servers handle well.
+        if (request.getUrl().getProtocol().equals("http"))
+            builder.version(HttpClient.Version.HTTP_1_1);
+
+        builder.timeout(request.getTimeout());
+
+        if (accepted != null)
+            builder.header("Accept", accepted.toHTTPHeaderLikeString());
+
+        builder.header("Accept-Charset", "utf-8, *; q=0");
+
+        if (request.isCompressionAccepted())
+            builder.header("Accept-Encoding", ContentDecoder.ACCEPT_ENCODING);
+
+        if (requestBody != null) {
+            builder.header("Content-Type", request.getRequestBodyContentType());
+            builder.method(request.getRequestMethod(), HttpRequest.BodyPublishers.ofByteArray(requestBody));
+        } else {
+            builder.method(request.getRequestMethod(), HttpRequest.BodyPublishers.noBody());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Sends the request and waits for the response headers.
+     * Unlike {@link HttpClient#send(HttpRequest, HttpResponse.BodyHandler)} this can be aborted by canceling the request.
+     */
+    private @NotNull HttpResponse<InputStream> send(@NotNull Request request, @NotNull HttpRequest httpRequest) throws IOException {
+        final @NotNull CompletableFuture<HttpResponse<InputStream>> future = client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        final @NotNull Cancellation.Registration registration = request.onCancel(() -> future.cancel(true));
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.toString());
+        } catch (CancellationException e) {
+            throw new CanceledException(e);
+        } catch (ExecutionException e) {
+            final @NotNull Throwable cause = e.getCause() == null ? e : e.getCause();
+
+            if (cause instanceof CancellationException)
+                throw new CanceledException(cause);
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException(cause);
+        } finally {
+            registration.close();
+        }
+    }
+
+    @Override
+    public @NotNull Response execute(@NotNull Request request, @Nullable MediaTypeMap accepted) throws IOException {
+        final @NotNull HttpResponse<InputStream> response;
+        final @NotNull TransferStatistics transferStatistics = new TransferStatistics();
+        final @NotNull InputStream body;
+        final @NotNull Cancellation.Registration registration;
+        final @NotNull RequestTrace trace;
+
+        if (!isSupported(request))
+            return fallback.execute(request, accepted);
+
+        trace = Tracer.getDefault().beginRequest(request.getRequestMethod(), request.getUrl(), getClass().getSimpleName());
+
+        try {
+            response = send(request, buildRequest(request, accepted));
+        } catch (IOException | RuntimeException e) {
+            trace.failed(e);
+            throw e;
+        }
+
+        trace.responseReceived(response.statusCode());
+
+        // Closing the body from another thread aborts the exchange.
+        registration = request.onCancel(() -> {
+            try {
+                response.body().close();
+            } catch (IOException ignored) {
+            }
+        });
+
+        // The client returns the connection to its own pool once the body has been fully read.
+        body = new KeepAliveInputStream(response.body(), !request.isStreaming(), reusable -> {
+            registration.close();
+            trace.complete(transferStatistics.getWireBytes());
+        });
+
+        try {
+            return new Response(response.statusCode(), null, response.headers().map(), ContentDecoder.decode(body, getContentEncoding(response), transferStatistics), null, transferStatistics);
+        } catch (IOException | RuntimeException e) {
+            body.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Response> executeAsync(@NotNull Request request, @Nullable MediaTypeMap accepted) {
+        final @NotNull HttpRequest httpRequest;
+        final @NotNull RequestTrace trace;
+        final @NotNull CompletableFuture<HttpResponse<byte[]>> exchange;
+        final @NotNull Cancellation.Registration registration;
+        final @NotNull CompletableFuture<Response> ret;
+
+        if (!isSupported(request))
+            return fallback.executeAsync(request, accepted);
+
+        try {
+            httpRequest = buildRequest(request, accepted);
+        } catch (IOException e) {
+            return Utils.failedFuture(e);
+        }
+
+        trace = Tracer.getDefault().beginRequest(request.getRequestMethod(), request.getUrl(), getClass().getSimpleName());
+
+        exchange = client.sendAsync(httpRequest, ofByteArray(request.getMaxResponseBodySize()));
+        // Canceling the future returned by the client aborts the exchange.
+        registration = request.onCancel(() -> exchange.cancel(true));
+
+        ret = exchange
+                .whenComplete((response, e) -> {
+                    if (e == null) {
+                        trace.responseReceived(response.statusCode());
+                        trace.complete(response.body().length);
+                    } else {
+                        trace.failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    }
+                })
+                .thenApply(response -> {
+                    try {
+                        final @NotNull TransferStatistics transferStatistics = new TransferStatistics();
+                        final @NotNull InputStream body = ContentDecoder.decode(new ByteArrayInputStream(response.body()), getContentEncoding(response), transferStatistics);
+
+                        return new Response(response.statusCode(), null, response.headers().map(), body, null, transferStatistics);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+
+        ret.whenComplete((response, e) -> {
+            registration.close();
+            // Canceling the returned future must abort the exchange as well.
+            if (ret.isCancelled())
+                exchange.cancel(true);
+        });
+
+        return ret;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This stream tracks whether the body of a response has been fully consumed.
+ * On close it drains small remainders so the connection can be kept alive and calls the given callback
+ * with whether the connection can be reused.
+ * Draining is skipped for {@link io.ybrid.api.driver.Request#isStreaming() streaming} responses
+ * as they may block indefinitely.
+ */
+final class KeepAliveInputStream extends FilterInputStream {
+    private static final int MAX_DRAIN = 8192;
+
+    interface OnClose {
+        void onClose(boolean reusable) throws IOException;
+    }
+
+    private final @NotNull OnClose onClose;
+    private final boolean drain;
+    private boolean eof = false;
+    private boolean failed = false;
+    private boolean closed = false;
+
+    KeepAliveInputStream(@NotNull InputStream in, boolean drain, @NotNull OnClose onClose) {
+        super(in);
+        this.drain = drain;
+        this.onClose = onClose;
+    }
+
+    private int track(int ret) {
+        if (ret == -1)
+            eof = true;
+        return ret;
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            return track(super.read());
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        try {
+            return track(super.read(b, off, len));
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    private void drain() {
+        final byte[] buffer = new byte[512];
+        int left = MAX_DRAIN;
+
+        try {
+            while (!eof && left > 0)
+                left -= Math.max(0, read(buffer, 0, Math.min(buffer.length, left)));
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        if (drain && !failed)
+            drain();
+
+        try {
+            super.close();
+        } finally {
+            onClose.onClose(eof && !failed);
+        }
+    }
+}
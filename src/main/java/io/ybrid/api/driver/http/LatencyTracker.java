@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * This class keeps track of the most recent latencies of an operation and calculates percentiles of them.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Internal
+public final class LatencyTracker {
+    /**
+     * The default number of samples kept.
+     */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    private final long[] samples;
+    private int next = 0;
+    private int size = 0;
+    private long count = 0;
+
+    /**
+     * Creates a new tracker keeping {@link #DEFAULT_CAPACITY} samples.
+     */
+    public LatencyTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new tracker.
+     * @param capacity The number of most recent samples to keep.
+     */
+    public LatencyTracker(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1");
+        samples = new long[capacity];
+    }
+
+    /**
+     * Records a new sample.
+     * @param latency The latency of the operation.
+     */
+    public void record(@NotNull Duration latency) {
+        recordNanos(latency.toNanos());
+    }
+
+    /**
+     * Records a new sample.
+     * @param nanos The latency of the operation in nanoseconds.
+     */
+    public synchronized void recordNanos(long nanos) {
+        samples[next] = Math.max(0, nanos);
+        next = (next + 1) % samples.length;
+        if (size < samples.length)
+            size++;
+        count++;
+    }
+
+    /**
+     * Gets the number of samples currently kept.
+     * @return The number of samples.
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the total number of samples recorded.
+     * @return The number of samples.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets a percentile of the kept samples.
+     *
+     * @param percentile The percentile in range {@code [0, 1]}, e.g. {@code 0.95}.
+     * @return The percentile or {@code null} if there are no samples.
+     */
+    @Contract(pure = true)
+    public @Nullable Duration getPercentile(double percentile) {
+        final long[] sorted;
+        final int index;
+
+        if (percentile < 0 || percentile > 1)
+            throw new IllegalArgumentException("percentile must be in range [0, 1]");
+
+        synchronized (this) {
+            if (size == 0)
+                return null;
+            sorted = Arrays.copyOf(samples, size);
+        }
+
+        Arrays.sort(sorted);
+        index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(sorted.length - 1, index))]);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyTracker{" +
+                "count=" + getCount() +
+                ", p50=" + getPercentile(0.5) +
+                ", p95=" + getPercentile(0.95) +
+                "}";
+    }
+}
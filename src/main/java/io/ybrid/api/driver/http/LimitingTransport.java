@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.Request;
+import io.ybrid.api.util.QualityMap.MediaTypeMap;
+import io.ybrid.api.util.Utils;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This {@link Transport} limits the number of requests in flight on another transport.
+ * <P>
+ * Requests that exceed the limit wait for a slot for at most their timeout.
+ * A slot is held until the body of the response has been closed.
+ * {@link Request#isLongLived() Long-lived} requests are passed through without taking a slot.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Internal
+public final class LimitingTransport implements Transport {
+    private final @NotNull Transport delegate;
+    private final int maxInFlight;
+    private final @NotNull Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+    private final @NotNull AtomicLong executed = new AtomicLong();
+    private final @NotNull AtomicLong queued = new AtomicLong();
+    private final @NotNull AtomicLong rejected = new AtomicLong();
+    private int inFlight = 0;
+
+    private final class Permit {
+        private final @NotNull AtomicBoolean released = new AtomicBoolean(false);
+
+        void release() {
+            if (released.compareAndSet(false, true))
+                LimitingTransport.this.release();
+        }
+    }
+
+    /**
+     * Creates a new transport.
+     *
+     * @param delegate The transport to perform the requests.
+     * @param maxInFlight The maximum number of requests in flight.
+     */
+    public LimitingTransport(@NotNull Transport delegate, int maxInFlight) {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+        this.delegate = delegate;
+        this.maxInFlight = maxInFlight;
+    }
+
+    private synchronized @NotNull CompletableFuture<Permit> acquire() {
+        if (inFlight < maxInFlight) {
+            inFlight++;
+            return CompletableFuture.completedFuture(new Permit());
+        }
+
+        final @NotNull CompletableFuture<Permit> waiter = new CompletableFuture<>();
+        queued.incrementAndGet();
+        waiters.addLast(waiter);
+        return waiter;
+    }
+
+    private synchronized void release() {
+        while (!waiters.isEmpty()) {
+            if (waiters.removeFirst().complete(new Permit()))
+                return;
+        }
+
+        inFlight--;
+    }
+
+    private synchronized boolean cancel(@NotNull CompletableFuture<Permit> waiter) {
+        // If the waiter is no longer queued it was completed by release() and now holds a slot.
+        if (!waiters.remove(waiter))
+            return false;
+        rejected.incrementAndGet();
+        return true;
+    }
+
+    private @NotNull IOException newRejectedException(@NotNull Duration timeout) {
+        return new IOException("No request slot became available within " + timeout + " (limit " + maxInFlight + ")");
+    }
+
+    @Override
+    public @NotNull Response execute(@NotNull Request request, @Nullable MediaTypeMap accepted) throws IOException {
+        final @NotNull Duration timeout = request.getTimeout();
+        final @NotNull CompletableFuture<Permit> future;
+        final @NotNull Permit permit;
+        final @NotNull Response response;
+
+        if (request.isLongLived())
+            return delegate.execute(request, accepted);
+
+        future = acquire();
+
+        try {
+            permit = future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            if (!cancel(future))
+                future.join().release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.toString());
+        } catch (TimeoutException e) {
+            if (!cancel(future))
+                future.join().release();
+            throw newRejectedException(timeout);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        executed.incrementAndGet();
+        try {
+            response = delegate.execute(request, accepted);
+        } catch (Throwable e) {
+            permit.release();
+            throw e;
+        }
+
+        return new Response(response.getStatusCode(), response.getStatusMessage(), response.getHeaders(), response.getBody(), () -> {
+            try {
+                response.close();
+            } finally {
+                permit.release();
+            }
+        }, response.getTransferStatistics());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Response> executeAsync(@NotNull Request request, @Nullable MediaTypeMap accepted) {
+        final @NotNull Duration timeout = request.getTimeout();
+        final @NotNull CompletableFuture<Permit> future;
+
+        if (request.isLongLived())
+            return delegate.executeAsync(request, accepted);
+
+        future = acquire();
+
+        if (!future.isDone()) {
+            Timers.delay(timeout).thenRun(() -> {
+                if (cancel(future))
+                    future.completeExceptionally(newRejectedException(timeout));
+            });
+        }
+
+        return future.thenCompose(permit -> {
+            final @NotNull CompletableFuture<Response> ret;
+
+            executed.incrementAndGet();
+            try {
+                ret = delegate.executeAsync(request, accepted);
+            } catch (Throwable e) {
+                permit.release();
+                return Utils.failedFuture(e);
+            }
+
+            // Asynchronous responses are buffered, so the slot can be released once the response is complete.
+            return ret.whenComplete((response, e) -> permit.release());
+        });
+    }
+
+    @Override
+    public @Nullable ConnectionPool getConnectionPool() {
+        return delegate.getConnectionPool();
+    }
+
+    /**
+     * Gets the transport performing the requests.
+     * @return The transport.
+     */
+    @Contract(pure = true)
+    public @NotNull Transport getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Gets the maximum number of requests in flight.
+     * @return The limit.
+     */
+    @Contract(pure = true)
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Gets the number of requests currently in flight.
+     * @return The number of requests.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Gets the number of requests currently waiting for a slot.
+     * @return The number of requests.
+     */
+    public synchronized int getWaiting() {
+        return waiters.size();
+    }
+
+    /**
+     * Gets the number of requests that were performed.
+     * @return The number of requests.
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * Gets the number of requests that had to wait for a slot.
+     * @return The number of requests.
+     */
+    public long getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Gets the number of requests that failed because no slot became available in time.
+     * @return The number of requests.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "LimitingTransport{" +
+                "delegate=" + delegate +
+                ", maxInFlight=" + maxInFlight +
+                ", inFlight=" + getInFlight() +
+                ", waiting=" + getWaiting() +
+                "}";
+    }
+}
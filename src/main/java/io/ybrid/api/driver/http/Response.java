@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.util.Utils;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class represents the response to a {@link io.ybrid.api.driver.Request} as returned by a {@link Transport}.
+ * <P>
+ * The response must be closed after use so the transport can release the underlying resources.
+ */
+@ApiStatus.Internal
+public final class Response implements Closeable {
+    private final int statusCode;
+    private final @Nullable String statusMessage;
+    private final @NotNull Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final @NotNull InputStream body;
+    private final @Nullable Closeable onClose;
+    private final @NotNull TransferStatistics transferStatistics;
+
+    /**
+     * Main constructor.
+     *
+     * @param statusCode The HTTP status code.
+     * @param statusMessage The HTTP status message or {@code null}.
+     * @param headers The response headers. Keys that are {@code null} are ignored.
+     * @param body The response body.
+     * @param onClose Called after the body has been closed or {@code null}.
+     */
+    public Response(int statusCode, @Nullable String statusMessage, @Nullable Map<String, List<String>> headers, @NotNull InputStream body, @Nullable Closeable onClose) {
+        this(statusCode, statusMessage, headers, body, onClose, new TransferStatistics());
+    }
+
+    /**
+     * Creates a response updating the given transfer statistics.
+     * This is used by transports that count the bytes of the body themselves.
+     *
+     * @param statusCode The HTTP status code.
+     * @param statusMessage The HTTP status message or {@code null}.
+     * @param headers The response headers. Keys that are {@code null} are ignored.
+     * @param body The response body.
+     * @param onClose Called after the body has been closed or {@code null}.
+     * @param transferStatistics The statistics for the body.
+     */
+    public Response(int statusCode, @Nullable String statusMessage, @Nullable Map<String, List<String>> headers, @NotNull InputStream body, @Nullable Closeable onClose, @NotNull TransferStatistics transferStatistics) {
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.body = body;
+        this.onClose = onClose;
+        this.transferStatistics = transferStatistics;
+
+        if (headers != null) {
+            for (final @NotNull Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                if (entry.getKey() != null)
+                    this.headers.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Gets the HTTP status code.
+     * @return The status code.
+     */
+    @Contract(pure = true)
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets the HTTP status message.
+     * @return The status message or {@code null}.
+     */
+    @Contract(pure = true)
+    public @Nullable String getStatusMessage() {
+        return statusMessage;
+    }
+
+    /**
+     * Gets all headers of the response.
+     * @return The headers, keys are case-insensitive.
+     */
+    @Contract(pure = true)
+    public @NotNull Map<String, List<String>> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Gets the first value of a header.
+     * @param name The name of the header.
+     * @return The value or {@code null}.
+     */
+    @Contract(pure = true)
+    public @Nullable String getHeader(@NotNull String name) {
+        final @Nullable List<String> values = headers.get(name);
+
+        if (values == null || values.isEmpty())
+            return null;
+
+        return values.get(0);
+    }
+
+    /**
+     * Gets the content type of the response.
+     * @return The content type or {@code null}.
+     */
+    @Contract(pure = true)
+    public @Nullable String getContentType() {
+        return getHeader("Content-Type");
+    }
+
+    /**
+     * Gets the content length of the response as announced by the server.
+     * @return The content length or {@code -1} if unknown.
+     */
+    @Contract(pure = true)
+    public long getContentLength() {
+        final @Nullable String value = getHeader("Content-Length");
+
+        if (value == null)
+            return -1;
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the statistics on the bytes transferred for the body.
+     * The values are updated while the body is read.
+     * @return The statistics.
+     */
+    @Contract(pure = true)
+    public @NotNull TransferStatistics getTransferStatistics() {
+        return transferStatistics;
+    }
+
+    /**
+     * Gets the body of the response.
+     * @return The body.
+     */
+    @Contract(pure = true)
+    public @NotNull InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Reads the full body into memory and returns a response that no longer depends on the network.
+     * This response is closed by this call.
+     *
+     * @return The new response.
+     * @throws IOException Thrown on I/O-Error while reading the body.
+     */
+    @Contract("-> new")
+    public @NotNull Response buffer() throws IOException {
+        return buffer(-1);
+    }
+
+    /**
+     * Reads the full body into memory and returns a response that no longer depends on the network.
+     * The buffer is presized using the {@code Content-Length} if known.
+     * This response is closed by this call.
+     *
+     * @param maxLength The maximum size of the body in bytes or {@code -1} for no limit.
+     * @return The new response.
+     * @throws IOException Thrown on I/O-Error while reading the body or if the body exceeds {@code maxLength}.
+     */
+    @Contract("_ -> new")
+    public @NotNull Response buffer(long maxLength) throws IOException {
+        try {
+            return new Response(statusCode, statusMessage, headers, Utils.slurpToInputStream(body, getContentLength(), maxLength), null, transferStatistics);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            body.close();
+        } finally {
+            if (onClose != null)
+                onClose.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return statusCode + (statusMessage != null ? " " + statusMessage : "") + " [" + getContentType() + "]";
+    }
+}
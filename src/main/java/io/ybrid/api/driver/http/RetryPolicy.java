@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.Request;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class decides whether and when a failed request is retried.
+ * <P>
+ * Requests are only retried if they failed with an I/O-Error or with a status code indicating
+ * a temporary server side problem. Requests that are not idempotent are only retried if they
+ * failed to connect, as in that case the server can not have processed them.
+ * <P>
+ * The delay between attempts grows exponentially and is randomized (jitter) so that many clients
+ * failing at the same time do not retry in lockstep.
+ * <P>
+ * Instances of this class are immutable.
+ */
+@ApiStatus.Internal
+public final class RetryPolicy {
+    /**
+     * A policy that never retries.
+     */
+    public static final @NotNull RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 1.);
+    /**
+     * The default policy: up to three attempts with an initial delay of 250ms.
+     */
+    public static final @NotNull RetryPolicy DEFAULT = new RetryPolicy(3, Duration.ofMillis(250), Duration.ofSeconds(4), 1.);
+
+    private final int maxAttempts;
+    private final @NotNull Duration initialBackoff;
+    private final @NotNull Duration maxBackoff;
+    private final double jitter;
+
+    /**
+     * Main constructor.
+     *
+     * @param maxAttempts The maximum number of attempts including the first one.
+     * @param initialBackoff The delay before the first retry. The delay doubles with every further retry.
+     * @param maxBackoff The maximum delay between two attempts.
+     * @param jitter The fraction of the delay that is randomized. {@code 0} disables jitter, {@code 1} results in full jitter.
+     */
+    public RetryPolicy(int maxAttempts, @NotNull Duration initialBackoff, @NotNull Duration maxBackoff, double jitter) {
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        if (jitter < 0 || jitter > 1)
+            throw new IllegalArgumentException("jitter must be in range [0, 1]");
+
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Gets the maximum number of attempts including the first one.
+     * @return The maximum number of attempts.
+     */
+    @Contract(pure = true)
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Checks whether a status code indicates a temporary problem of the server.
+     *
+     * @param statusCode The status code.
+     * @return Whether the status code indicates a temporary problem.
+     */
+    @Contract(pure = true)
+    public static boolean isRetryableStatus(int statusCode) {
+        switch (statusCode) {
+            case 429: // Too Many Requests
+            case HttpURLConnection.HTTP_BAD_GATEWAY:
+            case HttpURLConnection.HTTP_UNAVAILABLE:
+            case HttpURLConnection.HTTP_GATEWAY_TIMEOUT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks whether an exception indicates the request was never sent to the server.
+     *
+     * @param e The exception.
+     * @return Whether the request was not sent.
+     */
+    @Contract(pure = true)
+    public static boolean isNotSent(@NotNull IOException e) {
+        return e instanceof ConnectException || e instanceof NoRouteToHostException ||
+                e instanceof UnknownHostException || e instanceof CircuitOpenException;
+    }
+
+    /**
+     * Checks whether a request should be retried after a failed attempt.
+     *
+     * @param request The request.
+     * @param attempt The number of the attempt that failed, starting at 1.
+     * @param statusCode The status code returned or {@code -1} if there was none.
+     * @param exception The exception thrown by the attempt or {@code null}.
+     * @return Whether to retry.
+     */
+    public boolean shouldRetry(@NotNull Request request, int attempt, int statusCode, @Nullable IOException exception) {
+        if (attempt >= maxAttempts)
+            return false;
+
+        if (exception != null) {
+            // There is no point in retrying if we were interrupted or the circuit is open.
+            if (exception instanceof InterruptedIOException && !(exception instanceof SocketTimeoutException))
+                return false;
+            if (exception instanceof CircuitOpenException)
+                return false;
+            return request.isIdempotent() || isNotSent(exception);
+        }
+
+        return request.isIdempotent() && isRetryableStatus(statusCode);
+    }
+
+    /**
+     * Gets the delay before the next attempt.
+     *
+     * @param attempt The number of the attempt that failed, starting at 1.
+     * @return The delay.
+     */
+    public @NotNull Duration getBackoff(int attempt) {
+        final long initial = initialBackoff.toNanos();
+        final long max = maxBackoff.toNanos();
+        long backoff = Math.min(initial, max);
+
+        for (int i = 1; i < attempt && backoff < max; i++)
+            backoff = backoff > max / 2 ? max : backoff * 2;
+
+        final long randomized = backoff - (long) (backoff * jitter * ThreadLocalRandom.current().nextDouble());
+
+        return Duration.ofNanos(Math.max(0, randomized));
+    }
+
+    /**
+     * Returns a future that completes after the given delay.
+     * This is used to wait between asynchronous attempts without blocking a thread.
+     *
+     * @param delay The delay.
+     * @return The future.
+     */
+    public static @NotNull CompletableFuture<Void> delay(@NotNull Duration delay) {
+        return Timers.delay(delay);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", jitter=" + jitter +
+                "}";
+    }
+}
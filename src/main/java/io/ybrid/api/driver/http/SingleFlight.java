@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.Request;
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * This class coalesces identical concurrent requests.
+ * <P>
+ * If a request is started while an identical request is still in flight the new caller does not
+ * send a request of its own but shares the result of the one in flight.
+ * Requests are identical if they have the same {@link Key}.
+ * <P>
+ * Callers sharing a result wait at most until their own {@link Deadline#current() deadline} and can be
+ * {@link Cancellation#current() canceled} on their own. If the call fails because the deadline or cancellation
+ * of the caller performing it applied, the others perform the call again instead of sharing that failure.
+ * <P>
+ * This must only be used for idempotent requests.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Internal
+public final class SingleFlight {
+    private static final @NotNull SingleFlight defaultSingleFlight = new SingleFlight();
+
+    private final @NotNull Map<Key<?>, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final @NotNull AtomicLong executed = new AtomicLong();
+    private final @NotNull AtomicLong collapsed = new AtomicLong();
+
+    /**
+     * A call performing the actual request.
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        /**
+         * Performs the call.
+         * @return The result.
+         * @throws IOException Thrown on I/O-Error.
+         */
+        T call() throws IOException;
+    }
+
+    /**
+     * The key identifying identical requests.
+     * It consists of the URL, the request method, the request body, and an optional discriminator
+     * such as the decoder used for the result.
+     * Keys that are equal must be used with calls of the same result type. The discriminator ensures this
+     * for calls that differ in the type of the result.
+     *
+     * @param <T> The type of the result of calls using this key.
+     */
+    public static final class Key<T> {
+        private final @NotNull String url;
+        private final @NotNull String method;
+        private final byte[] body;
+        private final @Nullable Object discriminator;
+        private final int hashCode;
+
+        /**
+         * Main constructor.
+         *
+         * @param url The URL of the request.
+         * @param method The request method.
+         * @param body The request body or {@code null}.
+         * @param discriminator Any additional object that must be equal for requests to be identical or {@code null}.
+         */
+        public Key(@NotNull URL url, @NotNull String method, byte[] body, @Nullable Object discriminator) {
+            this.url = url.toString();
+            this.method = method;
+            this.body = body;
+            this.discriminator = discriminator;
+            this.hashCode = Objects.hash(this.url, method, Arrays.hashCode(body), discriminator);
+        }
+
+        /**
+         * Creates a key for the given request.
+         *
+         * @param request The request.
+         * @param discriminator Any additional object that must be equal for requests to be identical or {@code null}.
+         * @return The new key.
+         */
+        @Contract("_, _ -> new")
+        public static <T> @NotNull Key<T> of(@NotNull Request request, @Nullable Object discriminator) {
+            return new Key<>(request.getUrl(), request.getRequestMethod(), request.getRequestBody(), discriminator);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final @NotNull Key<?> key = (Key<?>) o;
+            return hashCode == key.hashCode &&
+                    url.equals(key.url) &&
+                    method.equals(key.method) &&
+                    Arrays.equals(body, key.body) &&
+                    Objects.equals(discriminator, key.discriminator);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "url=" + url +
+                    ", method=" + method +
+                    ", body.hashCode=" + Arrays.hashCode(body) +
+                    "}";
+        }
+    }
+
+    /**
+     * Gets the default instance shared by all drivers.
+     * @return The default instance.
+     */
+    public static @NotNull SingleFlight getDefault() {
+        return defaultSingleFlight;
+    }
+
+    /**
+     * Registers the given future as in flight for the key unless another one is.
+     *
+     * @param key The key.
+     * @param future The future of the new call.
+     * @param <T> The type of the result.
+     * @return The future of the call in flight or {@code null} if the given future has been registered.
+     */
+    private <T> @Nullable CompletableFuture<T> putIfAbsent(@NotNull Key<T> key, @NotNull CompletableFuture<T> future) {
+        // Equal keys are used with calls of the same result type, see Key.
+        @SuppressWarnings("unchecked")
+        final @Nullable CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, future);
+
+        return existing;
+    }
+
+    /**
+     * Checks whether a call failed because of the deadline or cancellation of the caller performing it.
+     * Such failures must not be shared with other callers.
+     */
+    private static boolean isPrivateFailure(@Nullable Throwable e) {
+        return CanceledException.isCausedBy(e) || DeadlineExceededException.isCausedBy(e);
+    }
+
+    private static @NotNull IOException toIOException(@NotNull Throwable cause) {
+        if (cause instanceof IOException)
+            return (IOException) cause;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        return new IOException(cause);
+    }
+
+    /**
+     * Waits for the result of a call performed by another caller.
+     * The wait is bounded by the deadline and cancellation of the current caller.
+     *
+     * @return The result.
+     * @throws IOException Thrown on I/O-Error of the call or if this caller's deadline passed or it was canceled.
+     */
+    private static <T> T follow(@NotNull CompletableFuture<T> leader) throws IOException {
+        final @Nullable Deadline deadline = Deadline.current();
+        final @Nullable Cancellation cancellation = Cancellation.current();
+        // Canceling this copy does not affect the call.
+        final @NotNull CompletableFuture<T> future = leader.thenApply(result -> result);
+        final @NotNull Cancellation.Registration registration = Cancellation.register(cancellation, () -> future.cancel(false));
+
+        try {
+            if (deadline == null)
+                return future.get();
+            return future.get(deadline.getRemaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.toString());
+        } catch (CancellationException e) {
+            throw new CanceledException(e);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(Objects.requireNonNull(deadline), e);
+        } catch (ExecutionException e) {
+            throw toIOException(e.getCause() == null ? e : e.getCause());
+        } finally {
+            registration.close();
+        }
+    }
+
+    /**
+     * Performs a call unless an identical call is in flight, in which case its result is shared.
+     * This blocks until the result is available.
+     *
+     * @param key The key of the call.
+     * @param call The call.
+     * @param <T> The type of the result.
+     * @return The result.
+     * @throws IOException Thrown on I/O-Error of the call.
+     */
+    public <T> T call(@NotNull Key<T> key, @NotNull Call<T> call) throws IOException {
+        while (true) {
+            final @NotNull CompletableFuture<T> future = new CompletableFuture<>();
+            final @Nullable CompletableFuture<T> existing = putIfAbsent(key, future);
+
+            if (existing == null)
+                return lead(key, future, call);
+
+            collapsed.incrementAndGet();
+            try {
+                return follow(existing);
+            } catch (IOException | RuntimeException e) {
+                final @Nullable Cancellation cancellation = Cancellation.current();
+                final @Nullable Deadline deadline = Deadline.current();
+
+                // Retry only if the failure was the other caller's and not ours.
+                if (!isPrivateFailure(e) || (cancellation != null && cancellation.isCanceled()) || (deadline != null && deadline.isExpired()))
+                    throw e;
+            }
+        }
+    }
+
+    private <T> T lead(@NotNull Key<T> key, @NotNull CompletableFuture<T> future, @NotNull Call<T> call) throws IOException {
+        executed.incrementAndGet();
+        try {
+            final T result = call.call();
+            inFlight.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #call(Key, Call)}.
+     * <P>
+     * Cancelling the returned future does not cancel the shared request.
+     *
+     * @param key The key of the call.
+     * @param call The supplier starting the call.
+     * @param <T> The type of the result.
+     * @return The future for the result.
+     */
+    public <T> @NotNull CompletableFuture<T> execute(@NotNull Key<T> key, @NotNull Supplier<CompletableFuture<T>> call) {
+        final @NotNull CompletableFuture<T> future = new CompletableFuture<>();
+        final @Nullable CompletableFuture<T> existing = putIfAbsent(key, future);
+
+        if (existing != null) {
+            final @Nullable Deadline deadline = Deadline.current();
+            final @NotNull CompletableFuture<T> ret = new CompletableFuture<>();
+            final @NotNull Cancellation.Registration registration =
+                    Cancellation.register(Cancellation.current(), () -> ret.completeExceptionally(new CanceledException()));
+
+            collapsed.incrementAndGet();
+            ret.whenComplete((result, e) -> registration.close());
+            if (deadline != null)
+                Timers.delay(deadline.getRemaining()).thenRun(() -> ret.completeExceptionally(new DeadlineExceededException(deadline)));
+
+            existing.whenComplete((result, e) -> {
+                if (ret.isDone())
+                    return;
+                if (e == null) {
+                    ret.complete(result);
+                } else if (isPrivateFailure(e)) {
+                    // The other caller's deadline or cancellation does not apply to us.
+                    // Our own ones are enforced by ret.
+                    execute(key, call).whenComplete((retried, retryError) -> {
+                        if (retryError == null) {
+                            ret.complete(retried);
+                        } else {
+                            ret.completeExceptionally(retryError);
+                        }
+                    });
+                } else {
+                    ret.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                }
+            });
+            return ret;
+        }
+
+        executed.incrementAndGet();
+        try {
+            call.get().whenComplete((result, e) -> {
+                inFlight.remove(key, future);
+                if (e == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Throwable e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+
+        return future.thenApply(result -> result);
+    }
+
+    /**
+     * Gets the number of calls that were actually performed.
+     * @return The number of calls.
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * Gets the number of calls that shared the result of an identical call in flight.
+     * @return The number of collapsed calls.
+     */
+    public long getCollapsed() {
+        return collapsed.get();
+    }
+
+    /**
+     * Gets the number of calls currently in flight.
+     * @return The number of calls.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{" +
+                "executed=" + getExecuted() +
+                ", collapsed=" + getCollapsed() +
+                ", inFlight=" + getInFlight() +
+                "}";
+    }
+}
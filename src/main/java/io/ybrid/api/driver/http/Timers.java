@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This helper provides delays for asynchronous operations without blocking threads.
+ */
+@ApiStatus.Internal
+public final class Timers {
+    private static final class Holder {
+        private static final @NotNull ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final @NotNull Thread thread = new Thread(runnable, "HTTP Timers");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Timers() {
+    }
+
+    /**
+     * Returns a future that completes after the given delay.
+     *
+     * @param delay The delay.
+     * @return The future.
+     */
+    public static @NotNull CompletableFuture<Void> delay(@NotNull Duration delay) {
+        final @NotNull CompletableFuture<Void> ret = new CompletableFuture<>();
+
+        if (delay.isZero() || delay.isNegative()) {
+            ret.complete(null);
+        } else {
+            Holder.EXECUTOR.schedule(() -> ret.complete(null), delay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class counts the bytes transferred for the body of a single {@link Response}.
+ * <P>
+ * It counts the bytes as received from the network ({@link #getWireBytes()}) as well as
+ * the bytes after removing any content encoding such as gzip ({@link #getBodyBytes()}).
+ */
+@ApiStatus.Internal
+public final class TransferStatistics {
+    private final @NotNull AtomicLong wireBytes = new AtomicLong();
+    private final @NotNull AtomicLong bodyBytes = new AtomicLong();
+    private volatile @Nullable String contentEncoding = null;
+
+    void addWireBytes(long count) {
+        wireBytes.addAndGet(count);
+    }
+
+    void addBodyBytes(long count) {
+        bodyBytes.addAndGet(count);
+    }
+
+    void setContentEncoding(@Nullable String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * Gets the number of bytes read from the network so far.
+     * @return The number of bytes.
+     */
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    /**
+     * Gets the number of bytes of the decoded body read so far.
+     * @return The number of bytes.
+     */
+    public long getBodyBytes() {
+        return bodyBytes.get();
+    }
+
+    /**
+     * Gets the content encoding that was removed from the body.
+     * @return The content encoding or {@code null} if the body was not encoded.
+     */
+    @Contract(pure = true)
+    public @Nullable String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferStatistics{" +
+                "wireBytes=" + getWireBytes() +
+                ", bodyBytes=" + getBodyBytes() +
+                ", contentEncoding=" + getContentEncoding() +
+                "}";
+    }
+}
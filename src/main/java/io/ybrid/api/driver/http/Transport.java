@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.Request;
+import io.ybrid.api.util.QualityMap.MediaTypeMap;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * This interface is implemented by transports that can perform {@link Request}s.
+ * <P>
+ * Implementations must be thread-safe as a single instance is normally shared by all requests.
+ *
+ * @see TransportManager
+ */
+@ApiStatus.Internal
+public interface Transport {
+    /**
+     * Performs the given request and blocks until the response header has been received.
+     * The body of the returned {@link Response} may still be read from the network.
+     *
+     * @param request The request to perform.
+     * @param accepted The media types accepted for the response or {@code null}.
+     * @return The response. The caller must close it.
+     * @throws IOException Thrown on any I/O-Error.
+     */
+    @NotNull Response execute(@NotNull Request request, @Nullable MediaTypeMap accepted) throws IOException;
+
+    /**
+     * Gets the {@link ConnectionPool} used by this transport.
+     * @return The pool or {@code null} if this transport does not use one.
+     */
+    default @Nullable ConnectionPool getConnectionPool() {
+        return null;
+    }
+
+    /**
+     * Performs the given request without blocking the calling thread.
+     * The returned future completes once the full response has been received.
+     * <P>
+     * The default implementation runs {@link #execute(Request, MediaTypeMap)} in the common pool.
+     * Implementations with support for non-blocking I/O should override this.
+     *
+     * @param request The request to perform.
+     * @param accepted The media types accepted for the response or {@code null}.
+     * @return The future for the response.
+     */
+    default @NotNull CompletableFuture<Response> executeAsync(@NotNull Request request, @Nullable MediaTypeMap accepted) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(request, accepted).buffer(request.getMaxResponseBodySize());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+}
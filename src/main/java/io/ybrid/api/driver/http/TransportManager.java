@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class manages the default {@link Transport}.
+ * <P>
+ * If the runtime provides {@code java.net.http.HttpClient} it is used as the default as it supports
+ * HTTP/2 multiplexing and non-blocking I/O. Otherwise a {@link java.net.HttpURLConnection} based transport is used.
+ */
+@ApiStatus.Internal
+public final class TransportManager {
+    static final Logger LOGGER = Logger.getLogger(TransportManager.class.getName());
+
+    private static final @NotNull String HTTP_CLIENT_TRANSPORT = "io.ybrid.api.driver.http.HttpClientTransport";
+
+    private static volatile Transport defaultTransport = null;
+
+    private TransportManager() {
+    }
+
+    private static @NotNull Transport createDefault() {
+        // We must not link HttpClientTransport directly as it depends on java.net.http which is not available on all platforms.
+        try {
+            return Class.forName(HTTP_CLIENT_TRANSPORT).asSubclass(Transport.class).getDeclaredConstructor().newInstance();
+        } catch (Throwable e) {
+            if (LOGGER.isLoggable(Level.INFO))
+                LOGGER.info("HttpClient based transport is not available, falling back to HttpURLConnection: " + e);
+            return new URLConnectionTransport();
+        }
+    }
+
+    /**
+     * Gets the default {@link Transport}.
+     * @return The default transport.
+     */
+    public static @NotNull Transport getDefault() {
+        Transport transport = defaultTransport;
+
+        if (transport != null)
+            return transport;
+
+        synchronized (TransportManager.class) {
+            if (defaultTransport == null)
+                defaultTransport = createDefault();
+            return defaultTransport;
+        }
+    }
+
+    /**
+     * Sets the default {@link Transport}.
+     * This only affects requests that have not been assigned a transport explicitly.
+     *
+     * @param transport The new default transport.
+     */
+    public static void setDefault(@NotNull Transport transport) {
+        defaultTransport = transport;
+    }
+}
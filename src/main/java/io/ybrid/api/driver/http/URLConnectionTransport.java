@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.Request;
+import io.ybrid.api.trace.RequestTrace;
+import io.ybrid.api.trace.Tracer;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.QualityMap.MediaTypeMap;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URLConnection;
+
+/**
+ * This implements a {@link Transport} based on {@link URLConnection}.
+ * It is available on all platforms but performs blocking I/O only.
+ */
+@ApiStatus.Internal
+public class URLConnectionTransport implements Transport {
+    private final @NotNull ConnectionPool connectionPool;
+
+    protected @NotNull URLConnection openConnection(@NotNull Request request, @Nullable MediaTypeMap accepted) throws IOException {
+        final @NotNull URLConnection connection = request.getUrl().openConnection();
+        final byte[] requestBody = request.getRequestBody();
+        final int timeout = (int) request.getTimeout().toMillis();
+
+        if (connection instanceof HttpURLConnection) {
+            ((HttpURLConnection) connection).setRequestMethod(request.getRequestMethod());
+        }
+
+        if (accepted != null)
+            connection.setRequestProperty("Accept", accepted.toHTTPHeaderLikeString());
+
+        connection.setRequestProperty("Accept-Charset", "utf-8, *; q=0");
+
+        if (request.isCompressionAccepted())
+            connection.setRequestProperty("Accept-Encoding", ContentDecoder.ACCEPT_ENCODING);
+        connection.setDoInput(true);
+        connection.setDoOutput(requestBody != null);
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+
+        if (requestBody != null) {
+            connection.setRequestProperty("Content-Type", request.getRequestBodyContentType());
+
+            final @NotNull OutputStream outputStream = connection.getOutputStream();
+            outputStream.write(requestBody);
+            outputStream.close();
+        }
+
+        return connection;
+    }
+
+    /**
+     * Creates a new transport using a new {@link ConnectionPool} with default settings.
+     */
+    public URLConnectionTransport() {
+        this(new ConnectionPool());
+    }
+
+    /**
+     * Creates a new transport using the given {@link ConnectionPool}.
+     * @param connectionPool The pool to use.
+     */
+    public URLConnectionTransport(@NotNull ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public @NotNull ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Resolves the name of the host so that name resolution can be traced separately from connecting.
+     * The connection will find the addresses in the cache of {@link InetAddress}.
+     */
+    private static void resolve(@NotNull Request request, @NotNull RequestTrace trace) {
+        try {
+            //noinspection ResultOfMethodCallIgnored
+            InetAddress.getAllByName(request.getUrl().getHost());
+        } catch (IOException ignored) {
+            // The connection will report this.
+        }
+        trace.resolved();
+    }
+
+    private @NotNull Response execute(@NotNull Request request, @Nullable MediaTypeMap accepted, @NotNull ConnectionPool.Lease lease, @NotNull RequestTrace trace) throws IOException {
+        final @NotNull HttpURLConnection connection;
+        final @NotNull Cancellation.Registration registration;
+
+        if (trace.isRecording())
+            resolve(request, trace);
+
+        connection = (HttpURLConnection) openConnection(request, accepted);
+        // Disconnecting from another thread aborts any blocking read.
+        registration = request.onCancel(connection::disconnect);
+
+        try {
+            final int statusCode;
+
+            connection.connect();
+            trace.connected();
+            statusCode = connection.getResponseCode();
+            trace.responseReceived(statusCode);
+            final @NotNull TransferStatistics transferStatistics = new TransferStatistics();
+            @Nullable InputStream body;
+
+            if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                body = connection.getErrorStream();
+            } else {
+                body = connection.getInputStream();
+            }
+
+            if (body == null)
+                body = new ByteArrayInputStream(new byte[0]);
+
+            // We do not disconnect if the body was fully read. This allows the connection to be kept alive.
+            body = new KeepAliveInputStream(body, !request.isStreaming(), reusable -> {
+                registration.close();
+                trace.complete(transferStatistics.getWireBytes());
+                if (!reusable)
+                    connection.disconnect();
+                lease.release(reusable);
+            });
+
+            return new Response(statusCode, connection.getResponseMessage(), connection.getHeaderFields(), ContentDecoder.decode(body, connection.getContentEncoding(), transferStatistics), null, transferStatistics);
+        } catch (IOException | RuntimeException e) {
+            registration.close();
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    @Override
+    public @NotNull Response execute(@NotNull Request request, @Nullable MediaTypeMap accepted) throws IOException {
+        final @NotNull String protocol = request.getUrl().getProtocol();
+
+        if (protocol.equals("http") || protocol.equals("https")) {
+            final @NotNull ConnectionPool.Lease lease = connectionPool.acquire(request);
+            final @NotNull RequestTrace trace = Tracer.getDefault().beginRequest(request.getRequestMethod(), request.getUrl(), getClass().getSimpleName());
+
+            try {
+                return execute(request, accepted, lease, trace);
+            } catch (IOException | RuntimeException e) {
+                trace.failed(e);
+                lease.release(false);
+                throw e;
+            }
+        } else {
+            final @NotNull URLConnection connection = openConnection(request, accepted);
+
+            connection.connect();
+            return new Response(HttpURLConnection.HTTP_OK, "OK", connection.getHeaderFields(), connection.getInputStream(), null);
+        }
+    }
+}
@@ -22,7 +22,9 @@
 
 package io.ybrid.api.driver.icy;
 
+import io.ybrid.api.MediaProtocol;
 import io.ybrid.api.session.Session;
+import io.ybrid.api.session.SessionSnapshot;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
@@ -36,6 +38,12 @@ public class Driver extends io.ybrid.api.driver.plain.Driver {
         super(session, baseURI);
     }
 
+    @Override
+    public void exportState(@NotNull SessionSnapshot.Builder builder) {
+        super.exportState(builder);
+        builder.setProtocol(MediaProtocol.ICY);
+    }
+
     @Override
     public @NotNull URI getStreamURI() throws MalformedURLException, URISyntaxException {
         return guessPlaybackURI("icyx").toURI();
@@ -23,11 +23,13 @@
 package io.ybrid.api.driver.plain;
 
 import io.ybrid.api.Capability;
+import io.ybrid.api.MediaProtocol;
 import io.ybrid.api.session.Session;
 import io.ybrid.api.SubInfo;
 import io.ybrid.api.bouquet.Bouquet;
 import io.ybrid.api.bouquet.SimpleService;
 import io.ybrid.api.session.Command;
+import io.ybrid.api.session.SessionSnapshot;
 import io.ybrid.api.transaction.Request;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
@@ -47,6 +49,7 @@ public class Driver extends io.ybrid.api.driver.common.Driver {
         setChanged(SubInfo.BOUQUET);
         setChanged(SubInfo.PLAYOUT);
         setChanged(SubInfo.METADATA);
+        publishState();
     }
 
     @Override
@@ -56,6 +59,7 @@ public class Driver extends io.ybrid.api.driver.common.Driver {
                 connected = true;
                 capabilities.add(Capability.AUDIO_TRANSPORT);
                 setChanged(SubInfo.CAPABILITIES);
+                publishState();
                 break;
             case REFRESH:
                 // no-op.
@@ -65,6 +69,12 @@ public class Driver extends io.ybrid.api.driver.common.Driver {
         }
     }
 
+    @Override
+    public void exportState(@NotNull SessionSnapshot.Builder builder) {
+        super.exportState(builder);
+        builder.setProtocol(MediaProtocol.PLAIN);
+    }
+
     @Override
     public @NotNull URI getStreamURI() throws MalformedURLException, URISyntaxException {
         return guessPlaybackURI("http").toURI();
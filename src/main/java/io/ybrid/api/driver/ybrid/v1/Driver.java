@@ -28,9 +28,11 @@ import io.ybrid.api.bouquet.SimpleService;
 import io.ybrid.api.driver.ybrid.common.Metadata;
 import io.ybrid.api.driver.ybrid.common.SwapInfo;
 import io.ybrid.api.metadata.InvalidMetadata;
+import io.ybrid.api.metadata.SimpleMetadata;
 import io.ybrid.api.metadata.Sync;
 import io.ybrid.api.session.Command;
 import io.ybrid.api.session.Session;
+import io.ybrid.api.session.SessionSnapshot;
 import io.ybrid.api.transaction.Request;
 import io.ybrid.api.util.Identifier;
 import io.ybrid.api.util.TriState;
@@ -46,6 +48,7 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.time.Duration;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -59,6 +62,7 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
     private static final Logger LOGGER = Logger.getLogger(Driver.class.getName());
 
     private io.ybrid.api.metadata.Metadata metadata;
+    private @Nullable JSONObject rawMetadata;
     private PlayoutInfo playoutInfo;
     private @NotNull Builder baseURI;
 
@@ -77,9 +81,18 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
 
         setChanged(SubInfo.BOUQUET);
         setChanged(SubInfo.METADATA);
+        publishState();
     }
 
-    private JSONObject request(@NotNull String command, @Nullable Map<String, String> parameters) throws IOException {
+    @Override
+    protected boolean isIdempotent(@NotNull URL url) {
+        final @NotNull String path = url.getPath();
+
+        // Those commands only read the state of the session and can safely be retried.
+        return path.endsWith("/ctrl/show-meta") || path.endsWith("/ctrl/is-session-valid");
+    }
+
+    private @NotNull URL getUrl(@NotNull String command) throws IOException {
         final @NotNull Builder builder = baseURI.clone();
 
         try {
@@ -89,6 +102,10 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
             throw new IOException(e);
         }
 
+        return builder.toURL();
+    }
+
+    private @Nullable Map<String, String> withToken(@Nullable Map<String, String> parameters) {
         if (token != null) {
             if (parameters == null) {
                 parameters = new HashMap<>();
@@ -98,7 +115,11 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
             parameters.put("sessionId", token);
         }
 
-        return request(builder.toURL(), parameters);
+        return parameters;
+    }
+
+    private JSONObject request(@NotNull String command, @Nullable Map<String, String> parameters) throws IOException {
+        return request(getUrl(command), withToken(parameters));
     }
 
     private JSONObject request(@NotNull String command) throws IOException {
@@ -107,15 +128,17 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
 
 
     private void updateMetadata() throws IOException, URISyntaxException {
-        final JSONObject json;
-
         assertConnected();
 
-        json = request("show-meta");
+        handleMetadata(request("show-meta"));
+    }
+
+    private void handleMetadata(@Nullable JSONObject json) throws IOException, URISyntaxException {
         if (json == null)
             throw new IOException("No valid reply from server");
 
         metadata = new Metadata(getCurrentService(), json);
+        rawMetadata = json;
         setChanged(SubInfo.METADATA);
         setChanged(SubInfo.BOUQUET);
 
@@ -148,21 +171,74 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
             playoutInfo = new io.ybrid.api.driver.common.PlayoutInfo(swapInfo, Duration.ofMillis(timeToNextItem), null);
             setChanged(SubInfo.PLAYOUT);
         }
+
+        publishState();
     }
 
-    private void updateValidity() throws IOException {
-        final JSONObject json;
+    private @NotNull Map<String, String> getValidityParameters() {
         final @NotNull Map<String, String> parameters = new HashMap<>();
 
+        parameters.put("sessionToCheckId", token);
+        return parameters;
+    }
+
+    private void updateValidity() throws IOException {
         assertConnected();
 
-        parameters.put("sessionToCheckId", token);
-        json = request("is-session-valid", parameters);
+        handleValidity(request("is-session-valid", getValidityParameters()));
+    }
+
+    private void handleValidity(@Nullable JSONObject json) throws IOException {
         if (json == null)
             throw new IOException("No valid reply from server");
 
         if (!json.getBoolean("valid"))
             setInvalid();
+
+        publishState();
+    }
+
+    /**
+     * Gets the set of {@link SubInfo} to refresh for the given argument.
+     * @param arg The argument of the {@link Command#REFRESH} request.
+     * @return The set of infos to refresh or {@code null} if there is nothing to do.
+     */
+    private static @Nullable EnumSet<SubInfo> getRefreshInfos(@NotNull Object arg) {
+        final @NotNull EnumSet<SubInfo> infos;
+
+        if ((arg instanceof Identifier) && ((Identifier) arg).typeIsA(Sync.class)) {
+            return EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT);
+        }
+
+        //noinspection unchecked
+        infos = EnumSet.copyOf((EnumSet<SubInfo>) arg);
+
+        infos.remove(SubInfo.BOUQUET);
+
+        if (infos.isEmpty())
+            return null;
+
+        return infos;
+    }
+
+    private void refreshSync(@NotNull Object arg) {
+        if (arg instanceof Sync) {
+            final @NotNull Sync.Builder builder = new Sync.Builder(session.getSource(), (Sync)arg);
+
+            builder.autoFill();
+            builder.setCurrentTrack(metadata.getCurrentItem());
+            builder.setNextTrack(metadata.getNextItem());
+            builder.setTemporalValidity(getPlayoutInfo().getTemporalValidity());
+
+            session.getMetadataMixer().accept(builder.build());
+        }
+    }
+
+    private @NotNull Map<String, String> getSwapParameters(@NotNull Request<Command> request) {
+        final @NotNull Map<String, String> parameters = new HashMap<>();
+
+        parameters.put("mode", ((SwapMode)request.getArgumentNotNull(0)).getOnWire());
+        return parameters;
     }
 
     @Override
@@ -173,20 +249,10 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
                 break;
             case REFRESH: {
                 final @NotNull Object arg = request.getArgumentNotNull(0);
-                final @NotNull EnumSet<SubInfo> infos;
-
-                if ((arg instanceof Identifier) && ((Identifier) arg).typeIsA(Sync.class)) {
-                    infos = EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT);
-                } else {
-                    //noinspection unchecked
-                    infos = EnumSet.copyOf((EnumSet<SubInfo>) arg);
-
-                    infos.remove(SubInfo.BOUQUET);
+                final @Nullable EnumSet<SubInfo> infos = getRefreshInfos(arg);
 
-                    if (infos.isEmpty())
-                        return;
-
-                }
+                if (infos == null)
+                    return;
 
                 if (infos.contains(SubInfo.VALIDITY)) {
                     updateValidity();
@@ -197,27 +263,13 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
                     updateMetadata();
                 }
 
-                if (arg instanceof Sync) {
-                    final @NotNull Sync.Builder builder = new Sync.Builder(session.getSource(), (Sync)arg);
-
-                    builder.autoFill();
-                    builder.setCurrentTrack(metadata.getCurrentItem());
-                    builder.setNextTrack(metadata.getNextItem());
-                    builder.setTemporalValidity(getPlayoutInfo().getTemporalValidity());
-
-                    session.getMetadataMixer().accept(builder.build());
-                }
+                refreshSync(arg);
                 break;
             }
             case SWAP_ITEM:
-                final Map<String, String> parameters;
-
                 assertConnected();
 
-                parameters = new HashMap<>();
-                parameters.put("mode", ((SwapMode)request.getArgumentNotNull(0)).getOnWire());
-
-                request("swap", parameters);
+                request("swap", getSwapParameters(request));
             break;
             default:
                 super.executeRequest(request);
@@ -234,6 +286,62 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
         return playoutInfo;
     }
 
+    @Override
+    public synchronized void exportState(@NotNull SessionSnapshot.Builder builder) {
+        super.exportState(builder);
+        builder.setProtocol(MediaProtocol.YBRID_V1);
+        builder.setBaseURI(baseURI.toURI());
+        builder.setMetadata(rawMetadata);
+    }
+
+    @Override
+    public synchronized void restoreState(@NotNull SessionSnapshot snapshot) throws IOException {
+        final @Nullable String token = snapshot.getToken();
+        final @Nullable JSONObject metadata = snapshot.getMetadata();
+
+        if (token == null)
+            throw new IOException("Snapshot has no session token");
+
+        this.token = token;
+        connected = true;
+
+        try {
+            // A single request both validates the session and tells us whether the server still knows it.
+            updateValidity();
+            if (!isValid())
+                throw new IOException("Session is no longer valid");
+
+            if (metadata != null)
+                handleMetadata(metadata);
+        } catch (IOException | RuntimeException e) {
+            connected = false;
+            publishState();
+            throw e;
+        } catch (URISyntaxException e) {
+            connected = false;
+            publishState();
+            throw new IOException(e);
+        }
+
+        capabilities.add(Capability.AUDIO_TRANSPORT);
+        publishState();
+    }
+
+    @Override
+    protected @Nullable io.ybrid.api.metadata.Metadata getCurrentMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public @NotNull TemporalValidity getCurrentItemValidity() {
+        final io.ybrid.api.metadata.Metadata metadata = this.metadata;
+
+        if (metadata instanceof SimpleMetadata)
+            return ((SimpleMetadata) metadata).getTemporalValidity();
+
+        return TemporalValidity.INDEFINITELY_VALID;
+    }
+
     @Override
     public @NotNull URI getStreamURI() throws IllegalArgumentException, URISyntaxException {
         final @NotNull Builder builder = baseURI.clone();
@@ -249,14 +357,16 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
     }
 
     public void connect() throws IOException {
-        final @NotNull WorkaroundMap workarounds = session.getActiveWorkarounds();
-        JSONObject response;
-        String token;
-
         if (isConnected())
             return;
 
-        response = request("create-session");
+        handleConnect(request("create-session"));
+    }
+
+    private void handleConnect(@Nullable JSONObject response) throws IOException {
+        final @NotNull WorkaroundMap workarounds = session.getActiveWorkarounds();
+        String token;
+
         if (response == null)
             throw new IOException("No valid response from server. BAD.");
 
@@ -315,6 +425,7 @@ public final class Driver extends io.ybrid.api.driver.common.Driver {
 
         connected = true;
         capabilities.add(Capability.AUDIO_TRANSPORT);
+        publishState();
     }
 
 }
@@ -29,6 +29,7 @@ import io.ybrid.api.metadata.ItemType;
 import io.ybrid.api.metadata.Sync;
 import io.ybrid.api.session.Command;
 import io.ybrid.api.session.Session;
+import io.ybrid.api.session.SessionSnapshot;
 import io.ybrid.api.transaction.Request;
 import io.ybrid.api.util.ClockManager;
 import io.ybrid.api.util.Identifier;
@@ -70,7 +71,10 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
 
     private static final Duration MINIMUM_BETWEEN_SESSION_INFO = Duration.ofMillis(300);
 
+    /* Guarded by this. Responses and pushed updates are both applied while holding the lock. */
     private final State state;
+    private volatile @NotNull PushMode pushMode = PushMode.getDefault();
+    private volatile @Nullable PushChannel pushChannel = null;
 
     public Driver(@NotNull Session session, @NotNull URI baseURI) {
         super(session, baseURI);
@@ -81,14 +85,68 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
 
         session.getActiveWorkarounds().enableIfAutomatic(Workaround.WORKAROUND_POST_BODY_AS_QUERY_STRING);
         session.getActiveWorkarounds().enableIfAutomatic(Workaround.WORKAROUND_BAD_PACKED_RESPONSE);
+        publishState();
+    }
+
+    @Override
+    protected boolean isIdempotent(@NotNull URL url) {
+        // session/info only reads the state of the session and can safely be retried.
+        return url.getPath().endsWith(COMMAND_SESSION_INFO.toRawPath());
+    }
+
+    private synchronized @NotNull URI getBaseURI() {
+        return state.getBaseURI();
     }
 
     private @NotNull URL getUrl(@NotNull Path command) throws IOException {
         try {
-            final @NotNull Builder builder = new Builder(state.getBaseURI());
+            final @NotNull Builder builder = new Builder(getBaseURI());
+
+            builder.appendPath(COMMAND_PREFIX);
+            builder.appendPath(command);
+
+            return builder.toURL();
+        } catch (MalformedURLException | URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Gets the mode used to receive updates pushed by the server.
+     * @return The push mode.
+     */
+    public @NotNull PushMode getPushMode() {
+        return pushMode;
+    }
+
+    /**
+     * Sets the mode used to receive updates pushed by the server.
+     * This takes effect on the next connect.
+     *
+     * @param pushMode The push mode.
+     */
+    public void setPushMode(@NotNull PushMode pushMode) {
+        this.pushMode = pushMode;
+    }
+
+    /**
+     * Checks whether updates are currently pushed by the server.
+     * While this is the case no session info is requested to refresh the state.
+     *
+     * @return Whether push is active.
+     */
+    public boolean isPushActive() {
+        final @Nullable PushChannel channel = pushChannel;
+        return channel != null && channel.isActive();
+    }
+
+    @NotNull URL getPushUrl(@NotNull Path command, @NotNull Map<String, String> parameters) throws IOException {
+        try {
+            final @NotNull Builder builder = new Builder(getBaseURI());
 
             builder.appendPath(COMMAND_PREFIX);
             builder.appendPath(command);
+            builder.setQuery(withToken(parameters));
 
             return builder.toURL();
         } catch (MalformedURLException | URISyntaxException e) {
@@ -96,13 +154,54 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
         }
     }
 
+    synchronized void acceptPush(@NotNull Response response) {
+        if (!isConnected())
+            return;
+
+        state.accept(response);
+        if (response.isKnownInvalid()) {
+            setInvalid();
+            stopPush();
+        }
+
+        handleUpdates();
+        publishState();
+    }
+
+    synchronized void onPushFallback(@NotNull PushChannel channel, @NotNull String reason) {
+        LOGGER.warning("Push (" + channel.getMode() + ") not available, falling back to polling: " + reason);
+        if (pushChannel == channel)
+            pushChannel = null;
+    }
+
+    private synchronized void startPush() {
+        final @NotNull PushMode mode = pushMode;
+        final @NotNull PushChannel channel;
+
+        if (mode == PushMode.DISABLED || pushChannel != null)
+            return;
+
+        channel = new PushChannel(this, mode, session.getTransport());
+        pushChannel = channel;
+        channel.start();
+    }
+
+    private synchronized void stopPush() {
+        final @Nullable PushChannel channel = pushChannel;
+
+        pushChannel = null;
+        if (channel != null)
+            channel.close();
+    }
+
     @Override
-    public @NotNull URI getStreamURI() {
+    public synchronized @NotNull URI getStreamURI() {
         return state.getPlaybackURI();
     }
 
     private void handleUpdates() {
-        if (state.hasChanged(SubInfo.BOUQUET)) {
+        // Getters of the state do not clear its flags, so we consume them here.
+        if (state.takeChanged(SubInfo.BOUQUET)) {
             Bouquet bouquet = state.getBouquet();
             if (bouquet.getServices().size() > 1) {
                 capabilities.add(Capability.SWAP_SERVICE);
@@ -113,7 +212,7 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
             setChanged(SubInfo.BOUQUET);
         }
 
-        if (state.hasChanged(SubInfo.PLAYOUT)) {
+        if (state.takeChanged(SubInfo.PLAYOUT)) {
             PlayoutInfo playoutInfo = state.getPlayoutInfo();
             if (Objects.requireNonNull(state.getSwapInfo()).canSwap()) {
                 capabilities.add(Capability.SWAP_ITEM);
@@ -132,14 +231,11 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
             setChanged(SubInfo.PLAYOUT);
         }
 
-        if (state.hasChanged(SubInfo.METADATA))
+        if (state.takeChanged(SubInfo.METADATA))
             setChanged(SubInfo.METADATA);
     }
 
-    @Nullable
-    private Response v2request(@NotNull Path command, @Nullable Map<String, String> parameters) throws IOException {
-        Response response = null;
-
+    private @Nullable Map<String, String> withToken(@Nullable Map<String, String> parameters) {
         if (token != null) {
             if (parameters == null) {
                 parameters = new HashMap<>();
@@ -149,30 +245,40 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
             parameters.put("session-id", token);
         }
 
+        return parameters;
+    }
 
+    @Nullable
+    private synchronized Response handleResponse(@Nullable Response response) {
         try {
-            response = new Response(Objects.requireNonNull(request(getUrl(command), parameters)));
-
-            try {
-                state.accept(response);
-
-                if (!response.getValid())
-                    setInvalid();
-            } catch (Exception e) {
-                if (session.getActiveWorkarounds().get(Workaround.WORKAROUND_BAD_PACKED_RESPONSE).toBool(false)) {
-                    LOGGER.warning("Invalid response from server but ignored by enabled WORKAROUND_BAD_PACKED_RESPONSE");
-                } else {
-                    LOGGER.severe("Invalid response from server.");
-                    throw e;
+            if (response != null) {
+                try {
+                    state.accept(response);
+
+                    if (!response.getValid())
+                        setInvalid();
+                } catch (Exception e) {
+                    if (session.getActiveWorkarounds().get(Workaround.WORKAROUND_BAD_PACKED_RESPONSE).toBool(false)) {
+                        LOGGER.warning("Invalid response from server but ignored by enabled WORKAROUND_BAD_PACKED_RESPONSE");
+                    } else {
+                        LOGGER.severe("Invalid response from server.");
+                        throw e;
+                    }
                 }
             }
         } catch (NullPointerException ignored) {
         }
 
         handleUpdates();
+        publishState();
         return response;
     }
 
+    @Nullable
+    private Response v2request(@NotNull Path command, @Nullable Map<String, String> parameters) throws IOException {
+        return handleResponse(request(getUrl(command), withToken(parameters), Response.DECODER));
+    }
+
     @Nullable
     private Response v2request(@NotNull Path command) throws IOException {
         return v2request(command, null);
@@ -183,49 +289,182 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
 
         assertConnected();
 
-        lastUpdate = state.getLastUpdated(what);
+        // The state is kept up to date by the server.
+        if (isPushActive())
+            return false;
+
+        synchronized (this) {
+            lastUpdate = state.getLastUpdated(what);
+        }
         return lastUpdate == null || !lastUpdate.plus(MINIMUM_BETWEEN_SESSION_INFO).isAfter(ClockManager.now());
     }
 
-    public void connect() throws IOException {
-        final @Nullable Response response;
+    private void handleConnect(@Nullable Response response) throws IOException {
+        if (response == null)
+            throw new IOException("No valid response from server. BAD.");
+
+        token = response.getToken();
+
+        connected = true;
+
+        capabilities.add(Capability.AUDIO_TRANSPORT);
+        capabilities.add(Capability.SKIP_BACKWARDS);
+        setChanged(SubInfo.CAPABILITIES);
+        publishState();
+        startPush();
+    }
 
+    public void connect() throws IOException {
         if (isConnected())
             return;
 
         if (!isValid())
             throw new IOException("Session is not valid.");
 
-        response = v2request(COMMAND_SESSION_CREATE);
+        handleConnect(v2request(COMMAND_SESSION_CREATE));
+    }
 
-        if (response == null)
-            throw new IOException("No valid response from server. BAD.");
+    @Override
+    public synchronized void exportState(@NotNull SessionSnapshot.Builder builder) {
+        super.exportState(builder);
+        builder.setProtocol(MediaProtocol.YBRID_V2_BETA);
+        builder.setBaseURI(state.getBaseURI());
+        builder.setPlaybackURI(state.getPlaybackURI());
+        builder.setMetadata(state.getRawMetadata());
+    }
 
-        token = response.getToken();
+    @Override
+    public synchronized void restoreState(@NotNull SessionSnapshot snapshot) throws IOException {
+        final @Nullable String token = snapshot.getToken();
+
+        if (token == null)
+            throw new IOException("Snapshot has no session token");
 
+        this.token = token;
+        state.restore(token, snapshot.getPlaybackURI());
         connected = true;
 
+        // The session info validates the session and updates all of the state, including the metadata.
+        try {
+            if (v2request(COMMAND_SESSION_INFO) == null)
+                throw new IOException("No valid response from server");
+            if (!isValid())
+                throw new IOException("Session is no longer valid");
+        } catch (IOException | RuntimeException e) {
+            connected = false;
+            publishState();
+            throw e;
+        }
+
         capabilities.add(Capability.AUDIO_TRANSPORT);
         capabilities.add(Capability.SKIP_BACKWARDS);
         setChanged(SubInfo.CAPABILITIES);
+        publishState();
+        startPush();
     }
 
     @Override
     @Contract(pure = true)
-    public @NotNull Service getCurrentService() {
+    public synchronized @NotNull Service getCurrentService() {
         return state.getCurrentService();
     }
 
     @Override
-    public @NotNull Bouquet getBouquet() {
+    public synchronized @NotNull Bouquet getBouquet() {
         return state.getBouquet();
     }
 
     @Override
-    public @NotNull PlayoutInfo getPlayoutInfo() {
+    public synchronized @NotNull PlayoutInfo getPlayoutInfo() {
         return state.getPlayoutInfo();
     }
 
+    @Override
+    protected synchronized @Nullable io.ybrid.api.metadata.Metadata getCurrentMetadata() {
+        return state.getCurrentMetadata();
+    }
+
+    @Override
+    public synchronized @NotNull TemporalValidity getCurrentItemValidity() {
+        return state.getCurrentItemValidity();
+    }
+
+    private static @NotNull EnumSet<SubInfo> getRefreshInfos(@NotNull Object arg) {
+        if ((arg instanceof Identifier) && ((Identifier) arg).typeIsA(Sync.class)) {
+            return EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT);
+        } else {
+            //noinspection unchecked
+            return (EnumSet<SubInfo>) arg;
+        }
+    }
+
+    private void disconnectCapabilities() {
+        stopPush();
+        capabilities.remove(Capability.SKIP_BACKWARDS);
+        capabilities.remove(Capability.AUDIO_TRANSPORT);
+        setChanged(SubInfo.CAPABILITIES);
+        publishState();
+    }
+
+    /**
+     * Gets the path of the command for requests that map to a single server call.
+     * @param request The request.
+     * @return The path or {@code null} if the request does not map to a single server call.
+     */
+    private static @Nullable Path getCommandPath(@NotNull Request<Command> request) {
+        switch (request.getCommand()) {
+            case WIND_TO_LIVE:
+                return COMMAND_PLAYOUT_WIND_BACK_TO_LIVE;
+            case WIND_TO:
+            case WIND_BY:
+                return COMMAND_PLAYOUT_WIND;
+            case SKIP_FORWARD:
+                return COMMAND_PLAYOUT_SKIP_FORWARDS;
+            case SKIP_BACKWARD:
+                return COMMAND_PLAYOUT_SKIP_BACKWARDS;
+            case SWAP_ITEM:
+                return COMMAND_PLAYOUT_SWAP_ITEM;
+            case SWAP_SERVICE:
+                return COMMAND_PLAYOUT_SWAP_SERVICE;
+            case SWAP_TO_MAIN_SERVICE:
+                return COMMAND_PLAYOUT_BACK_TO_MAIN;
+            default:
+                return null;
+        }
+    }
+
+    private static @Nullable Map<String, String> getCommandParameters(@NotNull Request<Command> request) {
+        final @NotNull HashMap<String, String> parameters = new HashMap<>();
+
+        switch (request.getCommand()) {
+            case WIND_TO:
+                parameters.put("ts", String.valueOf(((Instant)request.getArgumentNotNull(0)).toEpochMilli()));
+                break;
+            case WIND_BY:
+                parameters.put("duration", String.valueOf(((Duration)request.getArgumentNotNull(0)).toMillis()));
+                break;
+            case SKIP_FORWARD:
+            case SKIP_BACKWARD: {
+                final @Nullable ItemType itemType = (ItemType) request.getArgumentNullable(0);
+
+                if (itemType != null) {
+                    parameters.put("item-type", itemType.name());
+                }
+                break;
+            }
+            case SWAP_ITEM:
+                parameters.put("mode", ((SwapMode)request.getArgumentNotNull(0)).getOnWire());
+                break;
+            case SWAP_SERVICE:
+                parameters.put("service-id", ((Service)request.getArgumentNotNull(0)).getIdentifier().toString());
+                break;
+            default:
+                return null;
+        }
+
+        return parameters;
+    }
+
     @Override
     public void executeRequest(@NotNull Request<Command> request) throws Throwable {
         switch (request.getCommand()) {
@@ -233,9 +472,7 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
                 connect();
                 break;
             case DISCONNECT:
-                capabilities.remove(Capability.SKIP_BACKWARDS);
-                capabilities.remove(Capability.AUDIO_TRANSPORT);
-                setChanged(SubInfo.CAPABILITIES);
+                disconnectCapabilities();
 
                 try {
                     v2request(COMMAND_SESSION_CLOSE);
@@ -245,68 +482,29 @@ final public class Driver extends io.ybrid.api.driver.common.Driver {
                 break;
             case REFRESH: {
                 final @NotNull Object arg = request.getArgumentNotNull(0);
-                final @NotNull EnumSet<SubInfo> infos;
 
-                if ((arg instanceof Identifier) && ((Identifier) arg).typeIsA(Sync.class)) {
-                    infos = EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT);
-                } else {
-                    //noinspection unchecked
-                    infos = (EnumSet<SubInfo>) arg;
-                }
-
-                for (SubInfo subInfo : infos) {
+                for (SubInfo subInfo : getRefreshInfos(arg)) {
                     if (shouldRequestSessionInfo(subInfo)) {
                         v2request(COMMAND_SESSION_INFO);
                     }
                 }
 
-                if (arg instanceof Sync)
-                    state.refresh((Sync) arg);
-                break;
-            }
-            case WIND_TO_LIVE:
-                v2request(COMMAND_PLAYOUT_WIND_BACK_TO_LIVE);
-                break;
-            case WIND_TO: {
-                HashMap<String, String> parameters = new HashMap<>();
-                parameters.put("ts", String.valueOf(((Instant)request.getArgumentNotNull(0)).toEpochMilli()));
-                v2request(COMMAND_PLAYOUT_WIND, parameters);
-                break;
-            }
-            case WIND_BY: {
-                HashMap<String, String> parameters = new HashMap<>();
-                parameters.put("duration", String.valueOf(((Duration)request.getArgumentNotNull(0)).toMillis()));
-                v2request(COMMAND_PLAYOUT_WIND, parameters);
+                if (arg instanceof Sync) {
+                    synchronized (this) {
+                        state.refresh((Sync) arg);
+                    }
+                }
                 break;
             }
-            case SKIP_FORWARD:
-            case SKIP_BACKWARD: {
-                HashMap<String, String> parameters = new HashMap<>();
-                final @Nullable ItemType itemType = (ItemType) request.getArgumentNullable(0);
+            default: {
+                final @Nullable Path path = getCommandPath(request);
 
-                if (itemType != null) {
-                    parameters.put("item-type", itemType.name());
+                if (path == null) {
+                    super.executeRequest(request);
+                } else {
+                    v2request(path, getCommandParameters(request));
                 }
-                v2request(request.getCommand() == Command.SKIP_FORWARD ? COMMAND_PLAYOUT_SKIP_FORWARDS : COMMAND_PLAYOUT_SKIP_BACKWARDS, parameters);
-                break;
             }
-            case SWAP_ITEM: {
-                HashMap<String, String> parameters = new HashMap<>();
-                parameters.put("mode", ((SwapMode)request.getArgumentNotNull(0)).getOnWire());
-                v2request(COMMAND_PLAYOUT_SWAP_ITEM, parameters);
-                break;
-            }
-            case SWAP_SERVICE: {
-                HashMap<String, String> parameters = new HashMap<>();
-                parameters.put("service-id", ((Service)request.getArgumentNotNull(0)).getIdentifier().toString());
-                v2request(COMMAND_PLAYOUT_SWAP_SERVICE, parameters);
-                break;
-            }
-            case SWAP_TO_MAIN_SERVICE:
-                v2request(COMMAND_PLAYOUT_BACK_TO_MAIN);
-                break;
-            default:
-                super.executeRequest(request);
         }
     }
 }
@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.ybrid.v2;
+
+import io.ybrid.api.driver.JSONRequest;
+import io.ybrid.api.driver.Request;
+import io.ybrid.api.driver.ResponseDecoder;
+import io.ybrid.api.driver.http.Timers;
+import io.ybrid.api.driver.http.Transport;
+import io.ybrid.api.util.MediaType;
+import io.ybrid.api.util.QualityMap.MediaTypeMap;
+import io.ybrid.api.util.QualityMap.Quality;
+import io.ybrid.api.util.uri.Path;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives session updates pushed by the server and feeds them into the {@link Driver}.
+ * <P>
+ * Each update is a response envelope as returned by the session info.
+ * It may contain only the parts of the {@code __responseObject} that changed.
+ * <P>
+ * In {@link PushMode#SERVER_SENT_EVENTS} mode a thread of a pool shared by all channels reads a {@code text/event-stream}
+ * from {@link #COMMAND_SESSION_EVENTS}. Each event's data is one update.
+ * The server must send a comment at least every {@link #EVENT_STREAM_TIMEOUT} to keep the stream alive.
+ * This is enforced by a watchdog as not all transports apply the timeout of a request to reading its body.
+ * A stream that went silent is closed and counts as a failure.
+ * <P>
+ * In {@link PushMode#LONG_POLL} mode {@link #COMMAND_SESSION_WAIT} is requested asynchronously in a loop.
+ * The server holds the request until there is an update or {@link #LONG_POLL_WAIT} has passed.
+ * It answers with an update, or with an empty {@code __responseObject} or status 204 if nothing changed.
+ * <P>
+ * If the server does not support push or the channel fails {@link #MAX_FAILURES} times in a row
+ * the driver is told to fall back to polling.
+ * <P>
+ * Both kinds of requests are {@link Request#isLongLived() long-lived}, so they are not limited
+ * by the connection pool or the request limit of a {@link io.ybrid.api.session.SessionPool}.
+ */
+final class PushChannel implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(PushChannel.class.getName());
+
+    static final @NotNull Path COMMAND_SESSION_EVENTS = Path.create("/session/events");
+    static final @NotNull Path COMMAND_SESSION_WAIT = Path.create("/session/wait");
+
+    static final int MAX_FAILURES = 3;
+    static final @NotNull Duration EVENT_STREAM_TIMEOUT = Duration.ofSeconds(45);
+    static final @NotNull Duration LONG_POLL_WAIT = Duration.ofSeconds(25);
+    private static final @NotNull Duration LONG_POLL_TIMEOUT = LONG_POLL_WAIT.plusSeconds(10);
+    private static final @NotNull Duration BACKOFF = Duration.ofMillis(500);
+    private static final @NotNull MediaTypeMap EVENT_STREAM_TYPES = new MediaTypeMap();
+
+    static {
+        EVENT_STREAM_TYPES.put(new MediaType("text/event-stream"), Quality.MOST_ACCEPTABLE);
+        EVENT_STREAM_TYPES.put(MediaType.MEDIA_TYPE_ANY, Quality.NOT_ACCEPTABLE);
+    }
+
+    private static final class Holder {
+        private static final @NotNull AtomicInteger threadCounter = new AtomicInteger();
+        private static final @NotNull ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            final @NotNull Thread thread = new Thread(runnable, "Ybrid push " + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final @NotNull Driver driver;
+    private final @NotNull PushMode mode;
+    private final @Nullable Transport transport;
+    private final @NotNull Duration idleTimeout;
+    private final @NotNull AtomicLong received = new AtomicLong();
+    private volatile boolean closed = false;
+    private volatile boolean active = false;
+    private volatile int failures = 0;
+    private volatile @Nullable Future<?> task = null;
+    private volatile @Nullable io.ybrid.api.driver.http.Response stream = null;
+    private volatile long lastReceived = 0;
+    private volatile @Nullable CompletableFuture<?> pending = null;
+
+    /**
+     * Thrown if the server does not support the requested push mode.
+     */
+    private static final class UnsupportedPushException extends IOException {
+        private static final long serialVersionUID = -2411839553337212370L;
+
+        UnsupportedPushException(@NotNull String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Request for the event stream.
+     * Performing it opens the stream. The response is then read by the caller while it arrives.
+     */
+    private static final class EventStreamRequest extends Request {
+        private static final long serialVersionUID = 6329162618870358413L;
+
+        private transient @Nullable io.ybrid.api.driver.http.Response response = null;
+
+        EventStreamRequest(@NotNull URL url, @NotNull Duration timeout) {
+            super(url, "GET");
+            setTimeout(timeout);
+            setStreaming(true);
+            setLongLived(true);
+            setDeadline(null);
+        }
+
+        /**
+         * Opens the event stream.
+         * On success the stream is available via {@link #getResponse()} and must be closed by the caller.
+         *
+         * @return Always {@code true}. Failures are reported as exceptions.
+         * @throws IOException Thrown on I/O-Error or if the server does not send an event stream.
+         */
+        @Override
+        public boolean perform() throws IOException {
+            final @NotNull io.ybrid.api.driver.http.Response response = execute(EVENT_STREAM_TYPES);
+            final @Nullable String contentType = response.getContentType();
+
+            try {
+                checkStatus(response.getStatusCode());
+                if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("text/event-stream"))
+                    throw new UnsupportedPushException("Server sent unexpected content type: " + contentType);
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                throw e;
+            }
+
+            this.response = response;
+            return true;
+        }
+
+        /**
+         * Gets the stream opened by {@link #perform()}.
+         * @return The response.
+         */
+        @NotNull io.ybrid.api.driver.http.Response getResponse() {
+            return Objects.requireNonNull(response);
+        }
+    }
+
+    PushChannel(@NotNull Driver driver, @NotNull PushMode mode, @Nullable Transport transport) {
+        this(driver, mode, transport, EVENT_STREAM_TIMEOUT);
+    }
+
+    /**
+     * Creates a new channel.
+     *
+     * @param driver The driver to feed the updates into.
+     * @param mode The mode to use.
+     * @param transport The transport to use or {@code null} for the default.
+     * @param idleTimeout The maximum time an event stream may be silent.
+     */
+    PushChannel(@NotNull Driver driver, @NotNull PushMode mode, @Nullable Transport transport, @NotNull Duration idleTimeout) {
+        if (mode == PushMode.DISABLED)
+            throw new IllegalArgumentException("Mode must not be " + mode);
+
+        this.driver = driver;
+        this.mode = mode;
+        this.transport = transport;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Starts receiving updates.
+     */
+    void start() {
+        switch (mode) {
+            case SERVER_SENT_EVENTS:
+                task = Holder.EXECUTOR.submit(this::runEventStream);
+                break;
+            case LONG_POLL:
+                poll();
+                break;
+        }
+    }
+
+    /**
+     * Gets the mode of this channel.
+     * @return The mode.
+     */
+    @NotNull PushMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Checks whether the channel is currently connected to the server.
+     * While active the driver does not need to poll for updates.
+     *
+     * @return Whether the channel is active.
+     */
+    boolean isActive() {
+        return active && !closed;
+    }
+
+    /**
+     * Gets the number of updates received.
+     * @return The number of updates.
+     */
+    long getReceived() {
+        return received.get();
+    }
+
+    @Override
+    public void close() {
+        final @Nullable Future<?> task = this.task;
+        final @Nullable io.ybrid.api.driver.http.Response stream = this.stream;
+        final @Nullable CompletableFuture<?> pending = this.pending;
+
+        closed = true;
+        active = false;
+
+        if (task != null)
+            task.cancel(true);
+        if (pending != null)
+            pending.cancel(false);
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void checkStatus(int statusCode) throws IOException {
+        switch (statusCode) {
+            case HttpURLConnection.HTTP_OK:
+                return;
+            case HttpURLConnection.HTTP_NOT_FOUND:
+            case HttpURLConnection.HTTP_BAD_METHOD:
+            case HttpURLConnection.HTTP_NOT_IMPLEMENTED:
+                throw new UnsupportedPushException("Server does not support push, status: " + statusCode);
+            default:
+                throw new IOException("Push request failed with status: " + statusCode);
+        }
+    }
+
+    private void accept(@NotNull JSONObject json) {
+        final @NotNull Response response;
+
+        try {
+            response = new Response(json);
+        } catch (JSONException e) {
+            LOGGER.warning("Ignoring invalid update from server: " + e);
+            return;
+        }
+
+        received.incrementAndGet();
+        driver.acceptPush(response);
+    }
+
+    private void fallback(@NotNull String reason) {
+        if (closed)
+            return;
+
+        closed = true;
+        active = false;
+        driver.onPushFallback(this, reason);
+    }
+
+    private @NotNull Duration backoff() {
+        return BACKOFF.multipliedBy(1L << Math.min(failures, 6));
+    }
+
+    private boolean onFailure(@NotNull Throwable e) {
+        active = false;
+
+        if (closed)
+            return false;
+
+        if (e instanceof UnsupportedPushException) {
+            fallback(e.getMessage());
+            return false;
+        }
+
+        failures++;
+        LOGGER.log(Level.INFO, "Push channel failed (" + failures + "/" + MAX_FAILURES + ")", e);
+        if (failures >= MAX_FAILURES) {
+            fallback("Too many failures, last: " + e);
+            return false;
+        }
+
+        return true;
+    }
+
+    private void runEventStream() {
+        while (!closed) {
+            try {
+                readEventStream();
+            } catch (IOException | RuntimeException e) {
+                if (!onFailure(e))
+                    return;
+
+                try {
+                    Thread.sleep(backoff().toMillis());
+                } catch (InterruptedException ignored) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the stream once nothing has been received from the server for the idle timeout.
+     * This reschedules itself until the stream is replaced or closed.
+     *
+     * @param response The stream to watch.
+     * @param idle Set if the stream was closed by the watchdog.
+     */
+    private void watch(@NotNull io.ybrid.api.driver.http.Response response, @NotNull AtomicBoolean idle) {
+        final long remaining = idleTimeout.toNanos() - (System.nanoTime() - lastReceived);
+
+        if (stream != response)
+            return;
+
+        if (remaining > 0) {
+            Timers.delay(Duration.ofNanos(remaining)).thenRun(() -> watch(response, idle));
+            return;
+        }
+
+        idle.set(true);
+        active = false;
+        try {
+            response.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void readEventStream() throws IOException {
+        final @NotNull EventStreamRequest request = new EventStreamRequest(driver.getPushUrl(COMMAND_SESSION_EVENTS, Collections.emptyMap()), idleTimeout);
+        final @NotNull AtomicBoolean idle = new AtomicBoolean(false);
+
+        request.setTransport(transport);
+        request.perform();
+
+        try (final @NotNull io.ybrid.api.driver.http.Response response = request.getResponse()) {
+            final @NotNull BufferedReader reader;
+            final @NotNull StringBuilder data = new StringBuilder();
+            @Nullable String line;
+
+            stream = response;
+            if (closed)
+                return;
+
+            active = true;
+            failures = 0;
+            lastReceived = System.nanoTime();
+            watch(response, idle);
+
+            reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+            try {
+                while (!closed && (line = reader.readLine()) != null) {
+                    lastReceived = System.nanoTime();
+                    if (line.isEmpty()) {
+                        if (data.length() > 0) {
+                            try {
+                                accept(new JSONObject(data.toString()));
+                            } catch (JSONException e) {
+                                LOGGER.warning("Ignoring invalid event from server: " + e);
+                            }
+                            data.setLength(0);
+                        }
+                    } else if (line.startsWith("data:")) {
+                        if (data.length() > 0)
+                            data.append('\n');
+                        data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+                    }
+                    // Comments are used to keep the stream alive. Other fields are not used.
+                }
+            } catch (IOException e) {
+                if (!idle.get())
+                    throw e;
+            }
+
+            if (idle.get())
+                throw new IOException("Server sent nothing within " + idleTimeout);
+        } finally {
+            stream = null;
+            active = false;
+        }
+    }
+
+    private void poll() {
+        final @NotNull JSONRequest request;
+
+        if (closed)
+            return;
+
+        try {
+            request = new JSONRequest(driver.getPushUrl(COMMAND_SESSION_WAIT,
+                    Collections.singletonMap("timeout", String.valueOf(LONG_POLL_WAIT.toMillis()))), "GET");
+        } catch (IOException e) {
+            fallback(e.toString());
+            return;
+        }
+
+        request.setTransport(transport);
+        request.setTimeout(LONG_POLL_TIMEOUT);
+        request.setLongLived(true);
+        request.setDeadline(null);
+
+        pending = request.performAsync(ResponseDecoder.JSON_OBJECT).whenComplete((json, e) -> {
+            if (closed)
+                return;
+
+            if (e == null) {
+                try {
+                    if (json == null && request.getStatusCode() != HttpURLConnection.HTTP_NO_CONTENT)
+                        checkStatus(request.getStatusCode());
+                } catch (IOException statusException) {
+                    e = statusException;
+                }
+            }
+
+            if (e instanceof CompletionException && e.getCause() != null)
+                e = e.getCause();
+
+            if (e != null) {
+                if (onFailure(e))
+                    pending = Timers.delay(backoff()).thenRun(this::poll);
+                return;
+            }
+
+            active = true;
+            failures = 0;
+            if (json != null) {
+                final @Nullable JSONObject responseObject = json.optJSONObject("__responseObject");
+                if (responseObject != null && !responseObject.isEmpty())
+                    accept(json);
+            }
+            poll();
+        });
+    }
+}
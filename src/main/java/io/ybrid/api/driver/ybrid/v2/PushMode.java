@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.ybrid.v2;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Modes for receiving session updates pushed by the server.
+ * <P>
+ * If the server does not support the selected mode or it fails repeatedly
+ * the driver falls back to polling the session info.
+ */
+public enum PushMode {
+    /**
+     * Updates are not pushed. The driver polls the session info as needed.
+     */
+    DISABLED,
+    /**
+     * The server streams updates as server-sent events ({@code text/event-stream}).
+     */
+    SERVER_SENT_EVENTS,
+    /**
+     * The driver asks the server for updates using long-polling.
+     */
+    LONG_POLL;
+
+    private static volatile @NotNull PushMode defaultMode = DISABLED;
+
+    /**
+     * Gets the mode used by new drivers.
+     * @return The default mode.
+     */
+    public static @NotNull PushMode getDefault() {
+        return defaultMode;
+    }
+
+    /**
+     * Sets the mode used by new drivers.
+     * @param mode The new default mode.
+     */
+    public static void setDefault(@NotNull PushMode mode) {
+        defaultMode = mode;
+    }
+}
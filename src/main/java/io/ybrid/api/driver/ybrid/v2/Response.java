@@ -22,57 +22,146 @@
 
 package io.ybrid.api.driver.ybrid.v2;
 
+import io.ybrid.api.driver.ResponseDecoder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 final class Response {
-    private final JSONObject root;
-    private final JSONObject responseHeader;
-    private final JSONObject responseObject;
+    /**
+     * Decoder reading the response envelope directly from the stream.
+     * Only the sections used by {@link State} are materialized. All other members are skipped.
+     */
+    static final @NotNull ResponseDecoder<Response> DECODER = Response::new;
+
+    private @Nullable JSONObject responseHeader;
+    private boolean hasResponseObject = false;
+    private @Nullable String token;
+    private @Nullable Boolean valid;
+    private @Nullable JSONObject bouquet;
+    private @Nullable JSONObject metadata;
+    private @Nullable JSONObject playout;
+    private @Nullable JSONObject swapInfo;
+
+    private Response(@NotNull JSONTokener tokener) throws JSONException {
+        ResponseDecoder.forEachMember(tokener, (key, value) -> {
+            switch (key) {
+                case "__responseHeader":
+                    responseHeader = new JSONObject(value);
+                    break;
+                case "__responseObject":
+                    hasResponseObject = true;
+                    ResponseDecoder.forEachMember(value, this::acceptResponseObjectMember);
+                    break;
+                default:
+                    ResponseDecoder.skipValue(value);
+                    break;
+            }
+        });
+
+        if (responseHeader == null)
+            throw new JSONException("JSONObject[\"__responseHeader\"] not found.");
+        if (!hasResponseObject)
+            throw new JSONException("JSONObject[\"__responseObject\"] not found.");
+    }
 
     public Response(@NotNull JSONObject root) {
-        this.root = root;
-        this.responseHeader = root.getJSONObject("__responseHeader");
-        this.responseObject = root.getJSONObject("__responseObject");
+        this(new JSONTokener(root.toString()));
+    }
+
+    private static @Nullable JSONObject nextObject(@NotNull JSONTokener tokener) throws JSONException {
+        final @NotNull Object value = tokener.nextValue();
+
+        if (value instanceof JSONObject)
+            return (JSONObject) value;
+        if (JSONObject.NULL.equals(value))
+            return null;
+        throw new JSONException("Expected a JSONObject but got: " + value);
+    }
+
+    private void acceptResponseObjectMember(@NotNull String key, @NotNull JSONTokener tokener) throws JSONException {
+        switch (key) {
+            case "sessionId":
+                token = tokener.nextValue().toString();
+                break;
+            case "valid": {
+                final @NotNull Object value = tokener.nextValue();
+                if (value instanceof Boolean) {
+                    valid = (Boolean) value;
+                } else if (value instanceof String) {
+                    valid = Boolean.parseBoolean((String) value);
+                }
+                break;
+            }
+            case "bouquet":
+                bouquet = nextObject(tokener);
+                break;
+            case "metadata":
+                metadata = nextObject(tokener);
+                break;
+            case "playout":
+                playout = nextObject(tokener);
+                break;
+            case "swapInfo":
+                swapInfo = nextObject(tokener);
+                break;
+            default:
+                ResponseDecoder.skipValue(tokener);
+                break;
+        }
+    }
+
+    /**
+     * Checks whether this response carries a session token.
+     * Partial responses as sent by the server via {@link PushChannel} may omit it.
+     *
+     * @return Whether there is a token.
+     */
+    public boolean hasToken() {
+        return token != null;
+    }
+
+    /**
+     * Checks whether this response explicitly marks the session as invalid.
+     * Unlike {@link #getValid()} this does not fail if the validity is missing.
+     *
+     * @return Whether the session is known to be invalid.
+     */
+    public boolean isKnownInvalid() {
+        return Boolean.FALSE.equals(valid);
     }
 
     public String getToken() {
-        final String sessionId = responseObject.getString("sessionId");
-        if (sessionId == null)
-            throw new NullPointerException();
-        return sessionId;
+        if (token == null)
+            throw new JSONException("JSONObject[\"sessionId\"] not found.");
+        return token;
     }
 
     public boolean getValid() {
-        return responseObject.getBoolean("valid");
+        if (valid == null)
+            throw new JSONException("JSONObject[\"valid\"] is not a Boolean.");
+        return valid;
     }
 
     @Nullable
     protected JSONObject getRawBouquet() {
-        if (!responseObject.has("bouquet"))
-            return null;
-        return responseObject.getJSONObject("bouquet");
+        return bouquet;
     }
 
     @Nullable
     protected JSONObject getRawMetadata() {
-        if (!responseObject.has("metadata"))
-            return null;
-        return responseObject.getJSONObject("metadata");
+        return metadata;
     }
 
     @Nullable
     protected JSONObject getRawPlayout() {
-        if (!responseObject.has("playout"))
-            return null;
-        return responseObject.getJSONObject("playout");
+        return playout;
     }
 
     @Nullable
     protected JSONObject getRawSwapInfo() {
-        if (!responseObject.has("swapInfo"))
-            return null;
-        return responseObject.getJSONObject("swapInfo");
+        return swapInfo;
     }
 }
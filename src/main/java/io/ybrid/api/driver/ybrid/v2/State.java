@@ -28,6 +28,7 @@ import io.ybrid.api.bouquet.Service;
 import io.ybrid.api.bouquet.SimpleService;
 import io.ybrid.api.driver.ybrid.common.SwapInfo;
 import io.ybrid.api.metadata.InvalidMetadata;
+import io.ybrid.api.metadata.SimpleMetadata;
 import io.ybrid.api.metadata.Metadata;
 import io.ybrid.api.metadata.Sync;
 import io.ybrid.api.session.Session;
@@ -63,6 +64,7 @@ final class State implements KnowsSubInfoState {
     private Service defaultService;
     private Service currentService;
     private Metadata currentMetadata;
+    private @Nullable JSONObject rawMetadata;
     private SwapInfo swapInfo;
     private Duration behindLive;
     private URI baseURI;
@@ -82,6 +84,15 @@ final class State implements KnowsSubInfoState {
         return playbackURI;
     }
 
+    public @Nullable JSONObject getRawMetadata() {
+        return rawMetadata;
+    }
+
+    void restore(@NotNull String token, @Nullable URI playbackURI) {
+        this.token = token;
+        this.playbackURI = playbackURI;
+    }
+
     @Override
     public boolean hasChanged(@NotNull SubInfo what) {
         return changed.contains(what);
@@ -92,8 +103,15 @@ final class State implements KnowsSubInfoState {
         return lastUpdated.get(what);
     }
 
-    private void clearChanged(@NotNull SubInfo what) {
-        changed.remove(what);
+    /**
+     * Checks whether the given sub info has changed and clears the flag.
+     * This must only be called by the thread applying responses to this state.
+     *
+     * @param what The sub info to check.
+     * @return Whether it has changed since the last call.
+     */
+    boolean takeChanged(@NotNull SubInfo what) {
+        return changed.remove(what);
     }
 
     private void setChanged(@NotNull SubInfo what) {
@@ -118,15 +136,26 @@ final class State implements KnowsSubInfoState {
     }
 
     public Bouquet getBouquet() {
-        clearChanged(SubInfo.BOUQUET);
         return new Bouquet(defaultService, services.values());
     }
 
     public PlayoutInfo getPlayoutInfo() {
-        clearChanged(SubInfo.PLAYOUT);
         return new io.ybrid.api.driver.common.PlayoutInfo(swapInfo, null, behindLive);
     }
 
+    public @Nullable Metadata getCurrentMetadata() {
+        return currentMetadata;
+    }
+
+    public @NotNull TemporalValidity getCurrentItemValidity() {
+        final @Nullable Metadata metadata = currentMetadata;
+
+        if (metadata instanceof SimpleMetadata)
+            return ((SimpleMetadata) metadata).getTemporalValidity();
+
+        return TemporalValidity.INDEFINITELY_VALID;
+    }
+
     public @Nullable SwapInfo getSwapInfo() {
         return swapInfo;
     }
@@ -137,6 +166,7 @@ final class State implements KnowsSubInfoState {
 
         try {
             currentMetadata = new io.ybrid.api.driver.ybrid.common.Metadata(currentService, raw);
+            rawMetadata = raw;
         } catch (URISyntaxException ignored) {
         }
 
@@ -379,7 +409,8 @@ final class State implements KnowsSubInfoState {
     }
 
     void accept(@NotNull Response response) {
-        token = response.getToken();
+        if (response.hasToken())
+            token = response.getToken();
         updateBouquet(response.getRawBouquet());
         updateMetadata(response.getRawMetadata()); // This must be after updateBouquet() has been called.
         updatePlayout(response.getRawPlayout());
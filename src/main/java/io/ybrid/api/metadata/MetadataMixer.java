@@ -27,6 +27,7 @@ import io.ybrid.api.bouquet.Bouquet;
 import io.ybrid.api.bouquet.Service;
 import io.ybrid.api.metadata.source.Source;
 import io.ybrid.api.session.Session;
+import io.ybrid.api.util.CoalescingDispatcher;
 import io.ybrid.api.util.Identifier;
 import io.ybrid.api.util.hasIdentifier;
 import org.jetbrains.annotations.ApiStatus;
@@ -35,21 +36,37 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public final class MetadataMixer implements Consumer<@NotNull Sync>, KnowsSubInfoState {
+    private static final Logger LOGGER = Logger.getLogger(MetadataMixer.class.getName());
+
     private final @NotNull Set<Source> sources = new HashSet<>();
     private final @NotNull Map<@NotNull Identifier, @NotNull Service> services = new HashMap<>();
     private final @NotNull Map<@NotNull Identifier, @NotNull Service> serviceUpdates = new HashMap<>();
     private final @NotNull EnumSet<SubInfo> changed = EnumSet.noneOf(SubInfo.class);
+    private final @NotNull ChangeTracker changeTracker;
+    private final @NotNull List<@NotNull SubInfoListener> listeners = new CopyOnWriteArrayList<>();
+    private final @NotNull CoalescingDispatcher dispatcher;
     private Service defaultService = null;
+    private long bouquetVersion = 0;
+    /* Only accessed by the dispatcher. */
+    private long lastDeliveredVersion = 0;
+    private @Nullable Bouquet lastDeliveredBouquet = null;
 
     public MetadataMixer(@NotNull Session session) {
+        changeTracker = session.getChangeTracker();
+        dispatcher = new CoalescingDispatcher(session::getListenerExecutor, this::deliverChanges);
         add(session.getSource());
     }
 
     public synchronized void accept(@NotNull Bouquet bouquet) {
         final @NotNull Map<@NotNull Identifier, @NotNull Service> fromBouquet = new HashMap<>();
+        final @Nullable Service oldDefaultService = defaultService;
+        final @NotNull Map<@NotNull Identifier, @NotNull Service> oldServices = mixServices();
 
         for (final @NotNull Service service : bouquet.getServices()) {
             fromBouquet.put(service.getIdentifier(), service);
@@ -69,6 +86,10 @@ public final class MetadataMixer implements Consumer<@NotNull Sync>, KnowsSubInf
 
         if (defaultService == null)
             defaultService = bouquet.getDefaultService();
+
+        // Drivers pass their bouquet on every refresh, so only real changes are reported.
+        if (!isSameService(oldDefaultService, defaultService) || !isSameServices(oldServices, mixServices()))
+            bouquetChanged();
     }
 
     @Override
@@ -79,6 +100,8 @@ public final class MetadataMixer implements Consumer<@NotNull Sync>, KnowsSubInf
         if (sync.getCurrentService() != null) {
             serviceUpdates.put(sync.getCurrentService().getIdentifier(), sync.getCurrentService());
             changed.add(SubInfo.BOUQUET);
+            changeTracker.markChanged(SubInfo.BOUQUET);
+            bouquetChanged();
         }
     }
 
@@ -121,20 +144,105 @@ public final class MetadataMixer implements Consumer<@NotNull Sync>, KnowsSubInf
         return Objects.requireNonNull(sync.getUpgraded().getCurrentService());
     }
 
+    /**
+     * Adds a listener that is notified about changes of the {@link Bouquet} as returned by {@link #getBouquet()}.
+     * Listeners are called on the {@link Session#getListenerExecutor() listener executor} of the session.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(@NotNull SubInfoListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener previously added with {@link #addListener(SubInfoListener)}.
+     * @param listener The listener to remove.
+     */
+    public void removeListener(@NotNull SubInfoListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void bouquetChanged() {
+        bouquetVersion++;
+        if (!listeners.isEmpty())
+            dispatcher.signal();
+    }
+
+    private void deliverChanges() {
+        final @NotNull SubInfoEvent<Bouquet> event;
+
+        synchronized (this) {
+            if (bouquetVersion == lastDeliveredVersion)
+                return;
+            lastDeliveredVersion = bouquetVersion;
+
+            try {
+                event = new SubInfoEvent<>(SubInfo.BOUQUET, lastDeliveredBouquet, buildBouquet());
+            } catch (IllegalArgumentException e) {
+                // The default service is not yet known.
+                return;
+            }
+            lastDeliveredBouquet = event.getNewValue();
+        }
+
+        for (final @NotNull SubInfoListener listener : listeners) {
+            try {
+                listener.onSubInfoChanged(event);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Listener failed on " + event, e);
+            }
+        }
+    }
+
     public synchronized @NotNull Bouquet getBouquet() {
-        final @NotNull Set<Service> newServices = new HashSet<>();
+        changed.remove(SubInfo.BOUQUET);
+        return buildBouquet();
+    }
+
+    private @NotNull Map<@NotNull Identifier, @NotNull Service> mixServices() {
+        final @NotNull Map<@NotNull Identifier, @NotNull Service> ret = new HashMap<>();
 
         for (final @NotNull Service service : services.values()) {
             //noinspection Java8MapApi
             if (serviceUpdates.containsKey(service.getIdentifier())) {
-                newServices.add(serviceUpdates.get(service.getIdentifier()));
+                ret.put(service.getIdentifier(), serviceUpdates.get(service.getIdentifier()));
             } else {
-                newServices.add(service);
+                ret.put(service.getIdentifier(), service);
             }
         }
 
-        changed.remove(SubInfo.BOUQUET);
-        return new Bouquet(defaultService, newServices);
+        return ret;
+    }
+
+    private @NotNull Bouquet buildBouquet() {
+        return new Bouquet(defaultService, new HashSet<>(mixServices().values()));
+    }
+
+    private static boolean isSameService(@Nullable Service a, @Nullable Service b) {
+        // Services are equal if their identifiers are, but we also need to see changes to what is shown to the user.
+        if (a == b)
+            return true;
+        if (a == null || b == null)
+            return false;
+
+        return a.getIdentifier().equals(b.getIdentifier()) &&
+                Objects.equals(a.getDisplayName(), b.getDisplayName()) &&
+                Objects.equals(a.getIconURI(), b.getIconURI()) &&
+                Objects.equals(a.getGenre(), b.getGenre()) &&
+                Objects.equals(a.getDescription(), b.getDescription()) &&
+                Objects.equals(a.getInfoURI(), b.getInfoURI());
+    }
+
+    private static boolean isSameServices(@NotNull Map<@NotNull Identifier, @NotNull Service> a, @NotNull Map<@NotNull Identifier, @NotNull Service> b) {
+        if (a.size() != b.size())
+            return false;
+
+        for (final @NotNull Map.Entry<@NotNull Identifier, @NotNull Service> entry : a.entrySet()) {
+            if (!isSameService(entry.getValue(), b.get(entry.getKey())))
+                return false;
+        }
+
+        return true;
     }
 
     /**
@@ -55,6 +55,14 @@ public class SimpleMetadata implements Metadata {
         return service;
     }
 
+    /**
+     * Gets the temporal validity of this metadata.
+     * @return The temporal validity.
+     */
+    public @NotNull TemporalValidity getTemporalValidity() {
+        return temporalValidity;
+    }
+
     @Override
     public boolean isValid() {
         return temporalValidity.isValid();
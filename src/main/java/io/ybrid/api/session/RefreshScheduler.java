@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.SubInfo;
+import io.ybrid.api.TemporalValidity;
+import io.ybrid.api.transaction.Transaction;
+import io.ybrid.api.util.ClockManager;
+import io.ybrid.api.util.TimerWheel;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class refreshes the metadata of sessions just before it expires.
+ * <P>
+ * Instead of polling at a fixed interval each session is refreshed shortly before the
+ * {@link TemporalValidity#getNotAfter() end} of the current item as reported by the server.
+ * The delay is reduced by a random jitter to spread the load and is kept between a floor and a ceiling.
+ * If a refresh fails it is retried with an exponential backoff starting at the floor.
+ * <P>
+ * All sessions share a single {@link TimerWheel}. Refreshes are run on the executor of the wheel,
+ * so that executor must be able to run blocking tasks.
+ * Sessions are removed automatically once they are no longer connected.
+ * <P>
+ * This class is thread-safe.
+ *
+ * @see SessionPool#getRefreshScheduler()
+ */
+public final class RefreshScheduler implements AutoCloseable {
+    static final Logger LOGGER = Logger.getLogger(RefreshScheduler.class.getName());
+
+    /**
+     * The default minimum time between two refreshes of a session.
+     */
+    public static final @NotNull Duration DEFAULT_FLOOR = Duration.ofSeconds(1);
+    /**
+     * The default maximum time between two refreshes of a session.
+     */
+    public static final @NotNull Duration DEFAULT_CEILING = Duration.ofSeconds(30);
+    /**
+     * The default time before the end of the current item a session is refreshed.
+     */
+    public static final @NotNull Duration DEFAULT_LEAD = Duration.ofMillis(250);
+    /**
+     * The default jitter as a fraction of the delay.
+     */
+    public static final double DEFAULT_JITTER = 0.1;
+
+    private static final @NotNull EnumSet<SubInfo> REFRESH_INFOS = EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT);
+
+    private final @NotNull TimerWheel wheel;
+    private final @NotNull Duration floor;
+    private final @NotNull Duration ceiling;
+    private final @NotNull Duration lead;
+    private final double jitter;
+    private final @NotNull Map<Session, Entry> entries = new ConcurrentHashMap<>();
+    private final @NotNull AtomicLong refreshes = new AtomicLong();
+    private final @NotNull AtomicLong failures = new AtomicLong();
+
+    private static final class Entry {
+        private final @NotNull Session session;
+        private @Nullable TimerWheel.Timer timer;
+        private int failures = 0;
+
+        private Entry(@NotNull Session session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * Creates a new scheduler with default settings.
+     *
+     * @param wheel The timer wheel to use.
+     */
+    public RefreshScheduler(@NotNull TimerWheel wheel) {
+        this(wheel, DEFAULT_FLOOR, DEFAULT_CEILING, DEFAULT_LEAD, DEFAULT_JITTER);
+    }
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param wheel The timer wheel to use.
+     * @param floor The minimum time between two refreshes of a session.
+     * @param ceiling The maximum time between two refreshes of a session.
+     * @param lead The time before the end of the current item a session is refreshed.
+     * @param jitter The maximum fraction by which the delay is randomly reduced, between 0 and 1.
+     */
+    public RefreshScheduler(@NotNull TimerWheel wheel, @NotNull Duration floor, @NotNull Duration ceiling, @NotNull Duration lead, double jitter) {
+        if (floor.isNegative() || ceiling.compareTo(floor) < 0)
+            throw new IllegalArgumentException("Invalid floor or ceiling: " + floor + ", " + ceiling);
+        if (jitter < 0 || jitter > 1)
+            throw new IllegalArgumentException("Invalid jitter: " + jitter);
+
+        this.wheel = wheel;
+        this.floor = floor;
+        this.ceiling = ceiling;
+        this.lead = lead;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Calculates the delay until the next refresh for the given validity of the current item.
+     *
+     * @param validity The validity of the current item.
+     * @return The delay until the next refresh.
+     */
+    public @NotNull Duration getDelay(@NotNull TemporalValidity validity) {
+        final @Nullable Instant notAfter = validity.getNotAfter();
+        long nanos;
+
+        if (notAfter == null)
+            return ceiling;
+
+        nanos = Duration.between(ClockManager.now(), notAfter).minus(lead).toNanos();
+        if (nanos > ceiling.toNanos())
+            nanos = ceiling.toNanos();
+        if (jitter > 0 && nanos > 0)
+            nanos -= (long) (nanos * jitter * ThreadLocalRandom.current().nextDouble());
+
+        return Duration.ofNanos(Math.max(nanos, floor.toNanos()));
+    }
+
+    private @NotNull Duration getBackoff(int failures) {
+        @NotNull Duration backoff = floor.isZero() ? Duration.ofMillis(1) : floor;
+
+        for (int i = 1; i < failures && backoff.compareTo(ceiling) < 0; i++)
+            backoff = backoff.multipliedBy(2);
+
+        return backoff.compareTo(ceiling) > 0 ? ceiling : backoff;
+    }
+
+    /**
+     * Registers a session with this scheduler.
+     * The first refresh is scheduled based on the current state of the session.
+     * Registering a session that is already registered has no effect.
+     *
+     * @param session The session to register.
+     */
+    public void register(@NotNull Session session) {
+        final @NotNull Entry entry = new Entry(session);
+
+        if (entries.putIfAbsent(session, entry) == null)
+            schedule(entry, getDelay(session.getCurrentItemValidity()));
+    }
+
+    /**
+     * Unregisters a session from this scheduler.
+     * A refresh that is currently running is not interrupted.
+     *
+     * @param session The session to unregister.
+     */
+    public void unregister(@NotNull Session session) {
+        final @Nullable Entry entry = entries.remove(session);
+
+        if (entry != null) {
+            synchronized (entry) {
+                if (entry.timer != null)
+                    entry.timer.cancel();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given session is registered with this scheduler.
+     *
+     * @param session The session to check.
+     * @return Whether the session is registered.
+     */
+    public boolean isRegistered(@NotNull Session session) {
+        return entries.containsKey(session);
+    }
+
+    private void schedule(@NotNull Entry entry, @NotNull Duration delay) {
+        synchronized (entry) {
+            if (entries.get(entry.session) != entry)
+                return;
+
+            if (LOGGER.isLoggable(Level.FINE))
+                LOGGER.fine("Next refresh of " + entry.session + " in " + delay.toMillis() + "ms");
+
+            entry.timer = wheel.schedule(() -> refresh(entry), delay);
+        }
+    }
+
+    private void refresh(@NotNull Entry entry) {
+        final @NotNull Session session = entry.session;
+        final @NotNull Transaction transaction;
+        final @Nullable Throwable error;
+        final @NotNull Duration delay;
+
+        if (entries.get(session) != entry)
+            return;
+
+        if (!session.isConnected()) {
+            entries.remove(session, entry);
+            return;
+        }
+
+        transaction = session.createTransaction(Command.REFRESH.makeRequest(REFRESH_INFOS));
+        transaction.run();
+        error = transaction.getError();
+
+        if (error == null) {
+            refreshes.incrementAndGet();
+            entry.failures = 0;
+            delay = getDelay(session.getCurrentItemValidity());
+        } else {
+            failures.incrementAndGet();
+            entry.failures++;
+            delay = getBackoff(entry.failures);
+            LOGGER.log(Level.WARNING, "Refresh of " + session + " failed, retrying in " + delay.toMillis() + "ms", error);
+        }
+
+        try {
+            schedule(entry, delay);
+        } catch (IllegalStateException e) {
+            // The wheel has been closed.
+            entries.remove(session, entry);
+        }
+    }
+
+    /**
+     * Gets the number of sessions registered with this scheduler.
+     * @return The number of sessions.
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of successful refreshes.
+     * @return The number of refreshes.
+     */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /**
+     * Gets the number of failed refreshes.
+     * @return The number of failures.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Gets the minimum time between two refreshes of a session.
+     * @return The floor.
+     */
+    @Contract(pure = true)
+    public @NotNull Duration getFloor() {
+        return floor;
+    }
+
+    /**
+     * Gets the maximum time between two refreshes of a session.
+     * @return The ceiling.
+     */
+    @Contract(pure = true)
+    public @NotNull Duration getCeiling() {
+        return ceiling;
+    }
+
+    /**
+     * Unregisters all sessions. The timer wheel is not closed.
+     */
+    @Override
+    public void close() {
+        for (final @NotNull Session session : entries.keySet())
+            unregister(session);
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshScheduler{" +
+                "floor=" + floor +
+                ", ceiling=" + ceiling +
+                ", lead=" + lead +
+                ", jitter=" + jitter +
+                ", size=" + getSize() +
+                ", refreshes=" + getRefreshes() +
+                ", failures=" + getFailures() +
+                "}";
+    }
+}
@@ -24,7 +24,9 @@ package io.ybrid.api.session;
 
 import io.ybrid.api.*;
 import io.ybrid.api.driver.Driver;
+import io.ybrid.api.driver.DiscoveryCache;
 import io.ybrid.api.driver.DriverSelector;
+import io.ybrid.api.driver.http.Transport;
 import io.ybrid.api.metadata.MetadataMixer;
 import io.ybrid.api.metadata.source.Source;
 import io.ybrid.api.metadata.source.SourceType;
@@ -32,11 +34,15 @@ import io.ybrid.api.player.Control;
 import io.ybrid.api.transaction.GenericCommand;
 import io.ybrid.api.transaction.Request;
 import io.ybrid.api.transaction.SessionTransaction;
+import io.ybrid.api.transaction.RequestExecutor;
 import io.ybrid.api.transaction.Transaction;
+import io.ybrid.api.transaction.TransactionExecutionException;
+import io.ybrid.api.transaction.TransactionExecutor;
 import io.ybrid.api.transport.ServiceTransportDescription;
 import io.ybrid.api.transport.ServiceURITransportDescription;
 import io.ybrid.api.util.Connectable;
 import io.ybrid.api.util.QualityMap.MediaTypeMap;
+import io.ybrid.api.util.CoalescingDispatcher;
 import io.ybrid.api.util.Utils;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
@@ -44,8 +50,13 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -54,34 +65,86 @@ import java.util.logging.Logger;
  * The session can be used to request an audio stream from the server.
  * It is also used to control the stream.
  */
-public final class Session implements Connectable, KnowsSubInfoState {
+public final class Session implements Connectable, KnowsSubInfoState, RequestExecutor {
     static final Logger LOGGER = Logger.getLogger(Session.class.getName());
 
     private final @NotNull Source source = new Source(SourceType.SESSION);
     private final @NotNull WorkaroundMap activeWorkarounds = new WorkaroundMap();
+    private final @NotNull ChangeTracker changeTracker = new ChangeTracker();
+    private final @NotNull TransactionQueue transactionQueue = new TransactionQueue();
+    private final @NotNull SessionTransaction.Executor sessionTransactionExecutor = new SessionTransaction.Executor() {
+        @Override
+        public void execute(@NotNull SessionTransaction transaction) throws Throwable {
+            transactionQueue.execute(transaction, transaction.getRequest(), request -> executeSessionRequest(transaction, request));
+        }
+
+        @Override
+        public void submit(@NotNull SessionTransaction transaction, @NotNull Runnable start) {
+            transactionQueue.submit(transaction, transaction.getRequest(), start);
+            transaction.onControlComplete(() -> transactionQueue.abandon(transaction));
+        }
+    };
+    private final @NotNull List<@NotNull SubInfoListener> listeners = new CopyOnWriteArrayList<>();
+    private final @NotNull CoalescingDispatcher dispatcher = new CoalescingDispatcher(this::getListenerExecutor, this::deliverStateChanges);
+    private volatile @Nullable Executor listenerExecutor = null;
+    private volatile @Nullable TransactionExecutor transactionExecutor = null;
+    /* Only accessed by the dispatcher. */
+    private @NotNull SessionState lastDeliveredState = SessionState.INITIAL;
     private final @NotNull MetadataMixer metadataMixer;
     private final @NotNull MediaEndpoint mediaEndpoint;
+    private final @Nullable SessionPool pool;
     private @Nullable Control playerControl = null;
-    private @Nullable Driver driver;
+    private volatile @Nullable Driver driver;
+    /* The driver being restored by restore(SessionSnapshot) and the thread doing so, guarded by this. */
+    private @Nullable Driver restoring = null;
+    private @Nullable Thread restoringThread = null;
 
     private @NotNull Driver getDriver() {
+        final @Nullable Driver driver = this.driver;
+
+        if (driver != null)
+            return driver;
+
+        return selectDriver();
+    }
+
+    private synchronized @NotNull Driver selectDriver() {
+        // Wait for a restore in progress. The restoring thread itself uses the driver it restores.
+        while (restoring != null) {
+            if (restoringThread == Thread.currentThread())
+                return restoring;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
         if (driver != null)
             return driver;
 
         LOGGER.info("Connecting driver...");
         try {
             this.driver = DriverSelector.getFactory(this);
-        } catch (MalformedURLException e) {
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
         LOGGER.info("Selected driver: " + driver.getClass().getName());
 
+        // States published while the driver was set up could not yet be seen via getState().
+        onStatePublished();
         return driver;
     }
 
     @ApiStatus.Internal
     public Session(@NotNull MediaEndpoint mediaEndpoint) {
+        this(mediaEndpoint, null);
+    }
+
+    Session(@NotNull MediaEndpoint mediaEndpoint, @Nullable SessionPool pool) {
         this.mediaEndpoint = mediaEndpoint;
+        this.pool = pool;
         this.metadataMixer = new MetadataMixer(this);
 
         activeWorkarounds.merge(mediaEndpoint.getWorkarounds());
@@ -103,8 +166,75 @@ public final class Session implements Connectable, KnowsSubInfoState {
         return mediaEndpoint;
     }
 
+    /**
+     * Gets the {@link SessionPool} this session belongs to.
+     * @return The pool or {@code null} if this session does not belong to a pool.
+     */
+    @Contract(pure = true)
+    public @Nullable SessionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Gets the {@link Transport} used for requests of this session.
+     * @return The transport or {@code null} to use the default transport.
+     */
+    @ApiStatus.Internal
+    public @Nullable Transport getTransport() {
+        return pool == null ? null : pool.getTransport();
+    }
+
+    /**
+     * Gets the {@link DiscoveryCache} used when selecting the driver for this session.
+     * @return The cache or {@code null} if discovery results are not cached.
+     */
+    @ApiStatus.Internal
+    public @Nullable DiscoveryCache getDiscoveryCache() {
+        return pool == null ? DiscoveryCache.getDefault() : pool.getDiscoveryCache();
+    }
+
+    /**
+     * Gets the name of the driver used by this session.
+     * @return The class name of the driver or {@code null} if no driver has been selected yet.
+     */
+    @ApiStatus.Internal
+    public @Nullable String getDriverName() {
+        final @Nullable Driver driver = this.driver;
+
+        return driver == null ? null : driver.getClass().getName();
+    }
+
+    /**
+     * Gets the temporal validity of the current item as reported by the server.
+     * Unlike {@link #getPlayoutInfo()} this does not alter the change state of this session.
+     *
+     * @return The temporal validity of the current item.
+     */
+    @ApiStatus.Internal
+    public @NotNull TemporalValidity getCurrentItemValidity() {
+        return getState().getCurrentItemValidity();
+    }
+
+    /**
+     * Gets the current state of this session.
+     * <P>
+     * This never blocks. The returned state is immutable and consistent in itself.
+     * It is replaced with a new state with a higher {@link SessionState#getVersion() version}
+     * each time the state of the session changes.
+     *
+     * @return The current state.
+     */
+    public @NotNull SessionState getState() {
+        final @Nullable Driver driver = this.driver;
+
+        if (driver == null)
+            return SessionState.INITIAL;
+
+        return driver.getState();
+    }
+
     public @NotNull CapabilitySet getCapabilities() {
-        return getDriver().getCapabilities();
+        return getDriver().getState().getCapabilities();
     }
 
     @Contract("_ -> new")
@@ -129,7 +259,7 @@ public final class Session implements Connectable, KnowsSubInfoState {
 
         if (command instanceof Command) {
             //noinspection unchecked
-            return new SessionTransaction(this, (Request<Command>) request, this::executeSessionTransaction);
+            return new SessionTransaction(this, (Request<Command>) request, sessionTransactionExecutor);
         } else if (command instanceof io.ybrid.api.player.Command) {
             return createPlayerTransaction(request);
         } else if (command instanceof GenericCommand) {
@@ -140,9 +270,55 @@ public final class Session implements Connectable, KnowsSubInfoState {
         }
     }
 
-    private void executeSessionTransaction(@NotNull SessionTransaction transaction) throws Throwable {
-        final @NotNull Request<Command> request = transaction.getRequest();
+    /**
+     * Creates a transaction for this session and runs it.
+     * This blocks until the transaction has completed the control phase.
+     *
+     * @param request The request to execute.
+     * @return The transaction.
+     * @throws TransactionExecutionException Thrown if the transaction failed.
+     */
+    @Override
+    public @NotNull Transaction execute(@NotNull Request<?> request) throws TransactionExecutionException {
+        final @NotNull Transaction transaction = createTransaction(request);
+
+        transaction.run();
+        if (transaction.getError() != null)
+            throw new TransactionExecutionException(transaction);
+
+        return transaction;
+    }
+
+    /**
+     * Creates a transaction for this session and runs it on the {@link #getTransactionExecutor() transaction executor}.
+     * <P>
+     * The calling thread does not wait for the transaction. The transaction itself still performs
+     * blocking network I/O and occupies a thread of the transaction executor while it runs.
+     * Requests can be chained without the caller waiting between steps:
+     * <pre>{@code
+     * session.executeAsync(Command.CONNECT.makeRequest())
+     *         .thenCompose(t -> session.executeAsync(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.METADATA))));
+     * }</pre>
+     *
+     * @param request The request to execute.
+     * @return The future for the {@link Transaction}.
+     */
+    @Override
+    @ApiStatus.Experimental
+    public @NotNull CompletableFuture<@NotNull Transaction> executeAsync(@NotNull Request<?> request) {
+        final @NotNull Transaction transaction;
+
+        try {
+            transaction = createTransaction(request);
+        } catch (RuntimeException e) {
+            return Utils.failedFuture(e);
+        }
+
+        transaction.runInBackground();
+        return transaction.controlFuture();
+    }
 
+    private void executeSessionRequest(@NotNull SessionTransaction transaction, @NotNull Request<Command> request) throws Throwable {
         // Ensure we run all transactions with a valid driver.
         getDriver();
 
@@ -176,13 +352,173 @@ public final class Session implements Connectable, KnowsSubInfoState {
         }
     }
 
+    /**
+     * Gets the {@link ChangeTracker} for this session.
+     * <P>
+     * Consumers should prefer the tracker over {@link #hasChanged(SubInfo)} as
+     * it allows any number of consumers to track changes independently.
+     *
+     * @return The change tracker.
+     */
+    @Contract(pure = true)
+    public @NotNull ChangeTracker getChangeTracker() {
+        return changeTracker;
+    }
+
+    /**
+     * Gets a cursor for the current position of the {@link #getChangeTracker() change tracker}.
+     * @return The new cursor.
+     * @see ChangeTracker#getCursor()
+     */
+    public @NotNull ChangeTracker.Cursor getChangeCursor() {
+        return changeTracker.getCursor();
+    }
+
+    /**
+     * Gets the changes of this session since the given cursor.
+     * @param cursor The cursor as returned by {@link #getChangeCursor()} or a previous call.
+     * @return The changes including the cursor to use for the next call.
+     * @see ChangeTracker#changesSince(ChangeTracker.Cursor)
+     */
+    public @NotNull ChangeTracker.Changes changesSince(@NotNull ChangeTracker.Cursor cursor) {
+        return changeTracker.changesSince(cursor);
+    }
+
+    /**
+     * Adds a listener that is notified about changes of this session.
+     * <P>
+     * Listeners are called on the {@link #getListenerExecutor() listener executor}
+     * after a new {@link SessionState} has been published.
+     *
+     * @param listener The listener to add.
+     * @see #removeListener(SubInfoListener)
+     */
+    public void addListener(@NotNull SubInfoListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener previously added with {@link #addListener(SubInfoListener)}.
+     * @param listener The listener to remove.
+     */
+    public void removeListener(@NotNull SubInfoListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the executor used to call listeners.
+     * If none is set, the executor of the {@link SessionPool} is used if this session belongs to one,
+     * otherwise the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @return The executor.
+     */
+    public @NotNull Executor getListenerExecutor() {
+        final @Nullable Executor executor = listenerExecutor;
+
+        if (executor != null)
+            return executor;
+
+        if (pool != null)
+            return pool.getExecutor();
+
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Sets the executor used to call listeners.
+     * @param listenerExecutor The executor or {@code null} to use the default.
+     */
+    public void setListenerExecutor(@Nullable Executor listenerExecutor) {
+        this.listenerExecutor = listenerExecutor;
+    }
+
+    /**
+     * Gets the executor used to run transactions of this session in the background.
+     * If none is set, the {@link TransactionExecutor#getDefault() default executor} is used.
+     *
+     * @return The executor.
+     * @see Transaction#runInBackground()
+     */
+    @ApiStatus.Experimental
+    public @NotNull TransactionExecutor getTransactionExecutor() {
+        final @Nullable TransactionExecutor executor = transactionExecutor;
+
+        if (executor != null)
+            return executor;
+
+        return TransactionExecutor.getDefault();
+    }
+
+    /**
+     * Sets the executor used to run transactions of this session in the background.
+     * @param transactionExecutor The executor or {@code null} to use the default.
+     */
+    @ApiStatus.Experimental
+    public void setTransactionExecutor(@Nullable TransactionExecutor transactionExecutor) {
+        this.transactionExecutor = transactionExecutor;
+    }
+
+    /**
+     * Called by the driver each time a new {@link SessionState} has been published.
+     */
+    @ApiStatus.Internal
+    public void onStatePublished() {
+        if (!listeners.isEmpty())
+            dispatcher.signal();
+    }
+
+    private static @NotNull SubInfoEvent<?> makeEvent(@NotNull SubInfo what, @NotNull SessionState oldState, @NotNull SessionState newState) {
+        switch (what) {
+            case METADATA:
+                return new SubInfoEvent<>(what, oldState.getMetadata(), newState.getMetadata());
+            case BOUQUET:
+                return new SubInfoEvent<>(what, oldState.getBouquet(), newState.getBouquet());
+            case PLAYOUT:
+                return new SubInfoEvent<>(what, oldState.getPlayoutInfo(), newState.getPlayoutInfo());
+            case CAPABILITIES:
+                return new SubInfoEvent<>(what, oldState.getCapabilities(), newState.getCapabilities());
+            case VALIDITY:
+                return new SubInfoEvent<>(what, oldState.isValid(), newState.isValid());
+            default:
+                return new SubInfoEvent<>(what, null, null);
+        }
+    }
+
+    private void deliverStateChanges() {
+        final @NotNull SessionState state = getState();
+        final @NotNull SessionState last = lastDeliveredState;
+        final @Nullable ChangeTracker.Cursor cursor = state.getChangeCursor();
+
+        if (cursor == null || state == last)
+            return;
+
+        lastDeliveredState = state;
+
+        for (final @NotNull SubInfo what : changeTracker.changesBetween(last.getChangeCursor(), cursor)) {
+            final @NotNull SubInfoEvent<?> event = makeEvent(what, last, state);
+
+            for (final @NotNull SubInfoListener listener : listeners) {
+                try {
+                    listener.onSubInfoChanged(event);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Listener failed on " + event, e);
+                }
+            }
+        }
+    }
+
     public @NotNull PlayoutInfo getPlayoutInfo() {
-        getDriver().clearChanged(SubInfo.PLAYOUT);
-        return getDriver().getPlayoutInfo();
+        final @NotNull Driver driver = getDriver();
+
+        driver.clearChanged(SubInfo.PLAYOUT);
+        //noinspection ConstantConditions
+        return driver.getState().getPlayoutInfo();
     }
 
     @Override
     public boolean hasChanged(@NotNull SubInfo what) {
+        final @Nullable Driver driver = this.driver;
+
         if (driver == null) {
             return metadataMixer.hasChanged(what);
         } else {
@@ -251,9 +587,7 @@ public final class Session implements Connectable, KnowsSubInfoState {
 
     @Override
     public boolean isConnected() {
-        if (driver == null)
-            return false;
-        return driver.isConnected();
+        return getState().isConnected();
     }
 
     @Override
@@ -280,11 +614,93 @@ public final class Session implements Connectable, KnowsSubInfoState {
         } catch (Exception e) {
             e.printStackTrace();
         }
+
+        if (pool != null)
+            pool.release(this);
+    }
+
+    /**
+     * Creates a snapshot of this session.
+     * The snapshot can be used to restore this session on another node using {@link #restore(SessionSnapshot)}.
+     *
+     * @return The new snapshot.
+     * @throws IllegalStateException Thrown if this session is not connected.
+     * @throws UnsupportedOperationException Thrown if the driver of this session does not support snapshots.
+     */
+    public @NotNull SessionSnapshot snapshot() {
+        final @Nullable Driver driver = this.driver;
+        final @NotNull SessionSnapshot.Builder builder = new SessionSnapshot.Builder(mediaEndpoint.getURI());
+
+        if (driver == null || !driver.isConnected())
+            throw new IllegalStateException("Not connected");
+
+        builder.setWorkarounds(activeWorkarounds);
+        driver.exportState(builder);
+        return builder.build();
+    }
+
+    /**
+     * Restores the state of this session from a snapshot instead of connecting.
+     * <P>
+     * This skips protocol discovery and session creation. The restored session is validated
+     * with a single request to the server. The session must not have been used before.
+     * <P>
+     * The current service is not set from the snapshot. The selection is part of the session on the server
+     * and is therefore carried over with the session itself: drivers that support multiple services
+     * take it from the server's answer to the validation request.
+     * <P>
+     * Other threads using this session while it is being restored wait for the restore to finish.
+     *
+     * @param snapshot The snapshot to restore from.
+     * @throws IOException Thrown on I/O-Error or if the session is no longer valid on the server.
+     * @throws IllegalArgumentException Thrown if the snapshot was taken from a session with a different {@link MediaEndpoint}.
+     * @throws IllegalStateException Thrown if this session has already been used.
+     * @see #snapshot()
+     */
+    public void restore(@NotNull SessionSnapshot snapshot) throws IOException {
+        final @NotNull Driver driver;
+
+        if (!snapshot.getMediaEndpointURI().equals(mediaEndpoint.getURI()))
+            throw new IllegalArgumentException("Snapshot is for a different media endpoint: " + snapshot.getMediaEndpointURI());
+
+        synchronized (this) {
+            if (this.driver != null || restoring != null)
+                throw new IllegalStateException("Session has already been used");
+
+            activeWorkarounds.putAll(snapshot.getWorkarounds());
+
+            LOGGER.info("Restoring driver from snapshot...");
+            driver = DriverSelector.getDriver(this, snapshot.getProtocol(), snapshot.getBaseURI());
+            restoring = driver;
+            restoringThread = Thread.currentThread();
+        }
+
+        // The driver talks to the server here, so this must not be done while holding the monitor.
+        boolean restored = false;
+        try {
+            driver.restoreState(snapshot);
+            restored = true;
+        } finally {
+            synchronized (this) {
+                if (restored)
+                    this.driver = driver;
+                restoring = null;
+                restoringThread = null;
+                notifyAll();
+            }
+        }
+        LOGGER.info("Restored driver: " + driver.getClass().getName());
+
+        onStatePublished();
+
+        metadataMixer.accept(driver.getBouquet());
     }
 
     public boolean isValid() {
+        final @Nullable Driver driver = this.driver;
+
         if (driver != null)
             driver.clearChanged(SubInfo.VALIDITY);
-        return driver.isValid();
+        return getState().isValid();
     }
 }
@@ -0,0 +1,503 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.MediaEndpoint;
+import io.ybrid.api.driver.DiscoveryCache;
+import io.ybrid.api.driver.http.ConnectionPool;
+import io.ybrid.api.driver.http.LimitingTransport;
+import io.ybrid.api.driver.http.Transport;
+import io.ybrid.api.driver.http.TransportManager;
+import io.ybrid.api.util.TimerWheel;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class manages a large number of {@link Session}s sharing the same resources.
+ * <P>
+ * All sessions created by a pool share the HTTP transport, the discovery cache, a timer wheel
+ * for refreshing sessions, and a pool of worker threads. The pool limits the total number of sessions as well as the number of requests in flight.
+ * <P>
+ * Sessions are removed from the pool when they are disconnected.
+ * <P>
+ * This class is thread-safe.
+ */
+public final class SessionPool implements AutoCloseable {
+    static final Logger LOGGER = Logger.getLogger(SessionPool.class.getName());
+
+    /**
+     * The default maximum number of sessions.
+     */
+    public static final int DEFAULT_MAX_SESSIONS = 65536;
+    /**
+     * The default maximum number of requests in flight.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 256;
+
+    private static final @NotNull AtomicInteger poolCounter = new AtomicInteger();
+
+    private final int maxSessions;
+    private final @NotNull LimitingTransport transport;
+    private final @NotNull DiscoveryCache discoveryCache;
+    private final @NotNull ExecutorService executor;
+    private final @NotNull TimerWheel timerWheel;
+    private final @NotNull RefreshScheduler refreshScheduler;
+    private final @NotNull Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final @NotNull AtomicInteger sessionCount = new AtomicInteger();
+    private final @NotNull AtomicLong sessionsCreated = new AtomicLong();
+    private final @NotNull AtomicLong sessionsRejected = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * This class holds a snapshot of the statistics of a pool.
+     */
+    public static final class Statistics {
+        private final int sessions;
+        private final int connectedSessions;
+        private final long sessionsCreated;
+        private final long sessionsRejected;
+        private final int requestsInFlight;
+        private final int requestsWaiting;
+        private final long requestsExecuted;
+        private final long requestsRejected;
+        private final long discoveryCacheHits;
+        private final long discoveryCacheMisses;
+        private final @Nullable ConnectionPool.Statistics connections;
+
+        private Statistics(@NotNull SessionPool pool) {
+            int connected = 0;
+
+            for (final @NotNull Session session : pool.sessions) {
+                if (session.isConnected())
+                    connected++;
+            }
+
+            this.sessions = pool.sessionCount.get();
+            this.connectedSessions = connected;
+            this.sessionsCreated = pool.sessionsCreated.get();
+            this.sessionsRejected = pool.sessionsRejected.get();
+            this.requestsInFlight = pool.transport.getInFlight();
+            this.requestsWaiting = pool.transport.getWaiting();
+            this.requestsExecuted = pool.transport.getExecuted();
+            this.requestsRejected = pool.transport.getRejected();
+            this.discoveryCacheHits = pool.discoveryCache.getHits();
+            this.discoveryCacheMisses = pool.discoveryCache.getMisses();
+
+            final @Nullable ConnectionPool connectionPool = pool.transport.getConnectionPool();
+            this.connections = connectionPool == null ? null : connectionPool.getStatistics();
+        }
+
+        /**
+         * Gets the number of sessions in the pool.
+         * @return The number of sessions.
+         */
+        @Contract(pure = true)
+        public int getSessions() {
+            return sessions;
+        }
+
+        /**
+         * Gets the number of sessions in the pool that are connected.
+         * @return The number of sessions.
+         */
+        @Contract(pure = true)
+        public int getConnectedSessions() {
+            return connectedSessions;
+        }
+
+        /**
+         * Gets the total number of sessions created by the pool.
+         * @return The number of sessions.
+         */
+        @Contract(pure = true)
+        public long getSessionsCreated() {
+            return sessionsCreated;
+        }
+
+        /**
+         * Gets the number of sessions that were not created because the pool was full.
+         * @return The number of sessions.
+         */
+        @Contract(pure = true)
+        public long getSessionsRejected() {
+            return sessionsRejected;
+        }
+
+        /**
+         * Gets the number of requests in flight.
+         * @return The number of requests.
+         */
+        @Contract(pure = true)
+        public int getRequestsInFlight() {
+            return requestsInFlight;
+        }
+
+        /**
+         * Gets the number of requests waiting for a slot.
+         * @return The number of requests.
+         */
+        @Contract(pure = true)
+        public int getRequestsWaiting() {
+            return requestsWaiting;
+        }
+
+        /**
+         * Gets the total number of requests performed.
+         * @return The number of requests.
+         */
+        @Contract(pure = true)
+        public long getRequestsExecuted() {
+            return requestsExecuted;
+        }
+
+        /**
+         * Gets the number of requests that failed because no slot became available in time.
+         * @return The number of requests.
+         */
+        @Contract(pure = true)
+        public long getRequestsRejected() {
+            return requestsRejected;
+        }
+
+        /**
+         * Gets the number of driver selections answered by the discovery cache.
+         * @return The number of hits.
+         */
+        @Contract(pure = true)
+        public long getDiscoveryCacheHits() {
+            return discoveryCacheHits;
+        }
+
+        /**
+         * Gets the number of driver selections not answered by the discovery cache.
+         * @return The number of misses.
+         */
+        @Contract(pure = true)
+        public long getDiscoveryCacheMisses() {
+            return discoveryCacheMisses;
+        }
+
+        /**
+         * Gets the statistics of the connection pool of the transport.
+         * @return The statistics or {@code null} if the transport does not use a connection pool.
+         */
+        @Contract(pure = true)
+        public @Nullable ConnectionPool.Statistics getConnections() {
+            return connections;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "sessions=" + sessions +
+                    ", connectedSessions=" + connectedSessions +
+                    ", sessionsCreated=" + sessionsCreated +
+                    ", sessionsRejected=" + sessionsRejected +
+                    ", requestsInFlight=" + requestsInFlight +
+                    ", requestsWaiting=" + requestsWaiting +
+                    ", requestsExecuted=" + requestsExecuted +
+                    ", requestsRejected=" + requestsRejected +
+                    ", discoveryCacheHits=" + discoveryCacheHits +
+                    ", discoveryCacheMisses=" + discoveryCacheMisses +
+                    ", connections=" + connections +
+                    "}";
+        }
+    }
+
+    /**
+     * Creates a new pool with the default settings.
+     */
+    public SessionPool() {
+        this(DEFAULT_MAX_SESSIONS, DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    }
+
+    /**
+     * Creates a new pool using the default transport and a new discovery cache.
+     *
+     * @param maxSessions The maximum number of sessions.
+     * @param maxInFlightRequests The maximum number of requests in flight.
+     */
+    public SessionPool(int maxSessions, int maxInFlightRequests) {
+        this(TransportManager.getDefault(), new DiscoveryCache(), maxSessions, maxInFlightRequests, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param transport The transport to use for all requests.
+     * @param discoveryCache The discovery cache to use.
+     * @param maxSessions The maximum number of sessions.
+     * @param maxInFlightRequests The maximum number of requests in flight.
+     * @param workerThreads The number of worker threads.
+     */
+    public SessionPool(@NotNull Transport transport, @NotNull DiscoveryCache discoveryCache, int maxSessions, int maxInFlightRequests, int workerThreads) {
+        final int id = poolCounter.incrementAndGet();
+
+        if (maxSessions < 1)
+            throw new IllegalArgumentException("maxSessions must be at least 1: " + maxSessions);
+        if (workerThreads < 1)
+            throw new IllegalArgumentException("workerThreads must be at least 1: " + workerThreads);
+
+        this.maxSessions = maxSessions;
+        this.transport = new LimitingTransport(transport, maxInFlightRequests);
+        this.discoveryCache = discoveryCache;
+        this.executor = Executors.newFixedThreadPool(workerThreads, newThreadFactory("Session Pool " + id + " Worker"));
+        this.timerWheel = new TimerWheel(executor);
+        this.refreshScheduler = new RefreshScheduler(timerWheel);
+    }
+
+    private static @NotNull ThreadFactory newThreadFactory(@NotNull String name) {
+        final @NotNull AtomicInteger counter = new AtomicInteger();
+
+        return runnable -> {
+            final @NotNull Thread thread = new Thread(runnable, name + " " + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void assertNotClosed() {
+        if (closed)
+            throw new IllegalStateException("Pool is closed");
+    }
+
+    /**
+     * Creates a new {@link Session} in this pool.
+     *
+     * @param mediaEndpoint The {@link MediaEndpoint} to create the session for.
+     * @return The newly created and unconnected session.
+     * @throws IllegalStateException Thrown if the pool is closed or the maximum number of sessions is reached.
+     * @see MediaEndpoint#createSession()
+     */
+    public @NotNull Session createSession(@NotNull MediaEndpoint mediaEndpoint) {
+        final @NotNull Session session;
+
+        assertNotClosed();
+
+        if (sessionCount.incrementAndGet() > maxSessions) {
+            sessionCount.decrementAndGet();
+            sessionsRejected.incrementAndGet();
+            throw new IllegalStateException("Maximum number of sessions reached: " + maxSessions);
+        }
+
+        session = new Session(mediaEndpoint, this);
+        sessions.add(session);
+        sessionsCreated.incrementAndGet();
+        return session;
+    }
+
+    /**
+     * Removes a session from this pool without disconnecting it.
+     * Sessions are removed automatically when they are disconnected.
+     *
+     * @param session The session to remove.
+     */
+    public void release(@NotNull Session session) {
+        refreshScheduler.unregister(session);
+        if (sessions.remove(session))
+            sessionCount.decrementAndGet();
+    }
+
+    /**
+     * Gets the sessions currently in this pool.
+     * @return A copy of the set of sessions.
+     */
+    public @NotNull Set<Session> getSessions() {
+        return new HashSet<>(sessions);
+    }
+
+    /**
+     * Connects all sessions of this pool that are not yet connected.
+     * This blocks until all sessions have been processed.
+     *
+     * @return The sessions that failed to connect, mapped to the error.
+     * @throws InterruptedException Thrown if the calling thread was interrupted while waiting.
+     */
+    public @NotNull Map<Session, IOException> connectAll() throws InterruptedException {
+        final @NotNull List<Session> list = new ArrayList<>();
+
+        for (final @NotNull Session session : sessions) {
+            if (!session.isConnected())
+                list.add(session);
+        }
+
+        return forEach(list, Session::connect);
+    }
+
+    /**
+     * Disconnects all sessions of this pool. This removes them from the pool.
+     * This blocks until all sessions have been processed.
+     *
+     * @throws InterruptedException Thrown if the calling thread was interrupted while waiting.
+     */
+    public void disconnectAll() throws InterruptedException {
+        forEach(new ArrayList<>(sessions), Session::disconnect);
+    }
+
+    private interface SessionAction {
+        void run(@NotNull Session session) throws IOException;
+    }
+
+    private @NotNull Map<Session, IOException> forEach(@NotNull Collection<Session> list, @NotNull SessionAction action) throws InterruptedException {
+        final @NotNull Map<Session, IOException> failed = new ConcurrentHashMap<>();
+        final @NotNull List<Future<?>> futures = new ArrayList<>(list.size());
+
+        for (final @NotNull Session session : list) {
+            futures.add(executor.submit(() -> {
+                try {
+                    action.run(session);
+                } catch (IOException e) {
+                    failed.put(session, e);
+                } catch (RuntimeException e) {
+                    failed.put(session, new IOException(e));
+                }
+            }));
+        }
+
+        try {
+            for (final @NotNull Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Unexpected failure of session action", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            for (final @NotNull Future<?> future : futures)
+                future.cancel(true);
+            throw e;
+        }
+
+        return failed;
+    }
+
+    /**
+     * Gets the transport shared by all sessions of this pool.
+     * @return The transport.
+     */
+    @Contract(pure = true)
+    public @NotNull LimitingTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Gets the discovery cache shared by all sessions of this pool.
+     * @return The discovery cache.
+     */
+    @Contract(pure = true)
+    public @NotNull DiscoveryCache getDiscoveryCache() {
+        return discoveryCache;
+    }
+
+    /**
+     * Gets the worker threads shared by all sessions of this pool.
+     * @return The executor.
+     */
+    @Contract(pure = true)
+    public @NotNull ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the timer wheel shared by all sessions of this pool.
+     * Its tasks are run on the worker threads of this pool.
+     * @return The timer wheel.
+     */
+    @Contract(pure = true)
+    public @NotNull TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    /**
+     * Gets the refresh scheduler shared by all sessions of this pool.
+     * Sessions must be registered with it to be refreshed automatically.
+     * @return The refresh scheduler.
+     */
+    @Contract(pure = true)
+    public @NotNull RefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
+    /**
+     * Gets the maximum number of sessions.
+     * @return The maximum number of sessions.
+     */
+    @Contract(pure = true)
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Gets a snapshot of the statistics of this pool.
+     * @return The statistics.
+     */
+    public @NotNull Statistics getStatistics() {
+        return new Statistics(this);
+    }
+
+    /**
+     * Returns whether this pool has been closed.
+     * @return Whether this pool is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes this pool. All sessions are disconnected and the threads of this pool are stopped.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+
+        try {
+            disconnectAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        refreshScheduler.close();
+        timerWheel.close();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "SessionPool{" +
+                "maxSessions=" + maxSessions +
+                ", transport=" + transport +
+                ", statistics=" + getStatistics() +
+                "}";
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.MediaProtocol;
+import io.ybrid.api.Workaround;
+import io.ybrid.api.util.ClockManager;
+import io.ybrid.api.util.TriState;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class holds a snapshot of the state of a connected {@link Session}.
+ * <P>
+ * A snapshot allows a session to be restored on another node without creating a new session on the server.
+ * It contains the type of driver, the session token, the negotiated base and playback URIs,
+ * the active workarounds, the current service and the last metadata received.
+ * Snapshots can be transferred using Java serialization or in their compact JSON form.
+ * <P>
+ * Snapshots contain the session token and must therefore be handled as credentials.
+ *
+ * @see Session#snapshot()
+ * @see Session#restore(SessionSnapshot)
+ */
+public final class SessionSnapshot implements Serializable {
+    private static final long serialVersionUID = 4150934285628164131L;
+    private static final int FORMAT_VERSION = 1;
+
+    private final @NotNull URI mediaEndpointURI;
+    private final @NotNull MediaProtocol protocol;
+    private final @NotNull URI baseURI;
+    private final @Nullable String token;
+    private final @Nullable URI playbackURI;
+    private final @NotNull EnumMap<Workaround, TriState> workarounds;
+    private final @Nullable String currentService;
+    private final @Nullable String metadata;
+    private final @NotNull Instant createdAt;
+
+    /**
+     * Builder for {@link SessionSnapshot}s.
+     */
+    public static final class Builder {
+        private final @NotNull URI mediaEndpointURI;
+        private @Nullable MediaProtocol protocol;
+        private @Nullable URI baseURI;
+        private @Nullable String token;
+        private @Nullable URI playbackURI;
+        private final @NotNull EnumMap<Workaround, TriState> workarounds = new EnumMap<>(Workaround.class);
+        private @Nullable String currentService;
+        private @Nullable String metadata;
+
+        /**
+         * Creates a new builder.
+         * @param mediaEndpointURI The URI of the {@link io.ybrid.api.MediaEndpoint} of the session.
+         */
+        public Builder(@NotNull URI mediaEndpointURI) {
+            this.mediaEndpointURI = mediaEndpointURI;
+        }
+
+        /**
+         * Sets the protocol of the driver used by the session.
+         * @param protocol The protocol.
+         */
+        public void setProtocol(@NotNull MediaProtocol protocol) {
+            this.protocol = protocol;
+        }
+
+        /**
+         * Sets the base URI negotiated with the server.
+         * @param baseURI The base URI.
+         */
+        public void setBaseURI(@NotNull URI baseURI) {
+            this.baseURI = baseURI;
+        }
+
+        /**
+         * Sets the token of the session.
+         * @param token The token or {@code null}.
+         */
+        public void setToken(@Nullable String token) {
+            this.token = token;
+        }
+
+        /**
+         * Sets the playback URI negotiated with the server.
+         * @param playbackURI The playback URI or {@code null}.
+         */
+        public void setPlaybackURI(@Nullable URI playbackURI) {
+            this.playbackURI = playbackURI;
+        }
+
+        /**
+         * Sets the active workarounds.
+         * @param workarounds The workarounds.
+         */
+        public void setWorkarounds(@NotNull Map<Workaround, TriState> workarounds) {
+            this.workarounds.clear();
+            this.workarounds.putAll(workarounds);
+        }
+
+        /**
+         * Sets the identifier of the current service.
+         * @param currentService The identifier or {@code null}.
+         */
+        public void setCurrentService(@Nullable String currentService) {
+            this.currentService = currentService;
+        }
+
+        /**
+         * Sets the last metadata as received from the server.
+         * @param metadata The raw metadata or {@code null}.
+         */
+        public void setMetadata(@Nullable JSONObject metadata) {
+            this.metadata = metadata == null ? null : metadata.toString();
+        }
+
+        /**
+         * Builds the snapshot.
+         * @return The new snapshot.
+         * @throws IllegalStateException Thrown if the protocol or the base URI has not been set.
+         */
+        @Contract("-> new")
+        public @NotNull SessionSnapshot build() {
+            if (protocol == null || baseURI == null)
+                throw new IllegalStateException("Protocol and base URI must be set");
+
+            return new SessionSnapshot(mediaEndpointURI, protocol, baseURI, token, playbackURI, workarounds, currentService, metadata, ClockManager.now());
+        }
+    }
+
+    private SessionSnapshot(@NotNull URI mediaEndpointURI, @NotNull MediaProtocol protocol, @NotNull URI baseURI, @Nullable String token, @Nullable URI playbackURI, @NotNull Map<Workaround, TriState> workarounds, @Nullable String currentService, @Nullable String metadata, @NotNull Instant createdAt) {
+        this.mediaEndpointURI = mediaEndpointURI;
+        this.protocol = protocol;
+        this.baseURI = baseURI;
+        this.token = token;
+        this.playbackURI = playbackURI;
+        this.workarounds = new EnumMap<>(Workaround.class);
+        // AUTOMATIC is the default for every workaround, so there is no need to keep it.
+        for (final @NotNull Map.Entry<Workaround, TriState> entry : workarounds.entrySet()) {
+            if (entry.getValue() != TriState.AUTOMATIC)
+                this.workarounds.put(entry.getKey(), entry.getValue());
+        }
+        this.currentService = currentService;
+        this.metadata = metadata;
+        this.createdAt = createdAt.truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Gets the URI of the {@link io.ybrid.api.MediaEndpoint} of the session.
+     * @return The URI.
+     */
+    @Contract(pure = true)
+    public @NotNull URI getMediaEndpointURI() {
+        return mediaEndpointURI;
+    }
+
+    /**
+     * Gets the protocol of the driver used by the session.
+     * @return The protocol.
+     */
+    @Contract(pure = true)
+    public @NotNull MediaProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Gets the base URI negotiated with the server.
+     * @return The base URI.
+     */
+    @Contract(pure = true)
+    public @NotNull URI getBaseURI() {
+        return baseURI;
+    }
+
+    /**
+     * Gets the token of the session.
+     * @return The token or {@code null} if the protocol does not use tokens.
+     */
+    @Contract(pure = true)
+    public @Nullable String getToken() {
+        return token;
+    }
+
+    /**
+     * Gets the playback URI negotiated with the server.
+     * @return The playback URI or {@code null}.
+     */
+    @Contract(pure = true)
+    public @Nullable URI getPlaybackURI() {
+        return playbackURI;
+    }
+
+    /**
+     * Gets the workarounds that were active in the session.
+     * @return A copy of the workarounds.
+     */
+    public @NotNull Map<Workaround, TriState> getWorkarounds() {
+        return new EnumMap<>(workarounds);
+    }
+
+    /**
+     * Gets the identifier of the current service.
+     * @return The identifier or {@code null}.
+     */
+    @Contract(pure = true)
+    public @Nullable String getCurrentService() {
+        return currentService;
+    }
+
+    /**
+     * Gets the last metadata as received from the server.
+     * <P>
+     * The time to the next item is reduced by the time passed since the snapshot was created,
+     * so the metadata can be applied as if it had just been received.
+     *
+     * @return A copy of the metadata or {@code null}.
+     */
+    public @Nullable JSONObject getMetadata() {
+        final @NotNull JSONObject ret;
+
+        if (metadata == null)
+            return null;
+
+        ret = new JSONObject(metadata);
+        if (ret.has("timeToNextItemMillis")) {
+            final long timeToNextItem = ret.getLong("timeToNextItemMillis");
+            if (timeToNextItem >= 0)
+                ret.put("timeToNextItemMillis", Math.max(0, timeToNextItem - getAge().toMillis()));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the time the snapshot was created.
+     * @return The time of creation.
+     */
+    @Contract(pure = true)
+    public @NotNull Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Gets the age of this snapshot.
+     * @return The time passed since the snapshot was created.
+     */
+    public @NotNull Duration getAge() {
+        final @NotNull Duration age = Duration.between(createdAt, ClockManager.now());
+        return age.isNegative() ? Duration.ZERO : age;
+    }
+
+    /**
+     * Converts this snapshot into its compact JSON form.
+     * @return The JSON form.
+     * @see #fromJSON(JSONObject)
+     */
+    public @NotNull JSONObject toJSON() {
+        final @NotNull JSONObject json = new JSONObject();
+        final @NotNull JSONObject workarounds = new JSONObject();
+
+        for (final @NotNull Map.Entry<Workaround, TriState> entry : this.workarounds.entrySet())
+            workarounds.put(entry.getKey().name(), entry.getValue().name());
+
+        json.put("version", FORMAT_VERSION);
+        json.put("mediaEndpoint", mediaEndpointURI.toString());
+        json.put("protocol", protocol.name());
+        json.put("baseURI", baseURI.toString());
+        if (token != null)
+            json.put("token", token);
+        if (playbackURI != null)
+            json.put("playbackURI", playbackURI.toString());
+        if (!workarounds.isEmpty())
+            json.put("workarounds", workarounds);
+        if (currentService != null)
+            json.put("currentService", currentService);
+        if (metadata != null)
+            json.put("metadata", new JSONObject(metadata));
+        json.put("createdAt", createdAt.toEpochMilli());
+
+        return json;
+    }
+
+    /**
+     * Creates a snapshot from its JSON form.
+     *
+     * @param json The JSON form.
+     * @return The snapshot.
+     * @throws IllegalArgumentException Thrown if the JSON form is not valid.
+     * @see #toJSON()
+     */
+    @Contract("_ -> new")
+    public static @NotNull SessionSnapshot fromJSON(@NotNull JSONObject json) throws IllegalArgumentException {
+        try {
+            final @NotNull EnumMap<Workaround, TriState> workarounds = new EnumMap<>(Workaround.class);
+            final @Nullable JSONObject rawWorkarounds = json.optJSONObject("workarounds");
+
+            if (json.getInt("version") != FORMAT_VERSION)
+                throw new IllegalArgumentException("Unsupported snapshot version: " + json.get("version"));
+
+            if (rawWorkarounds != null) {
+                for (final @NotNull String key : rawWorkarounds.keySet())
+                    workarounds.put(Workaround.valueOf(key), TriState.valueOf(rawWorkarounds.getString(key)));
+            }
+
+            return new SessionSnapshot(URI.create(json.getString("mediaEndpoint")),
+                    MediaProtocol.valueOf(json.getString("protocol")),
+                    URI.create(json.getString("baseURI")),
+                    json.optString("token", null),
+                    json.has("playbackURI") ? URI.create(json.getString("playbackURI")) : null,
+                    workarounds,
+                    json.optString("currentService", null),
+                    json.has("metadata") ? json.getJSONObject("metadata").toString() : null,
+                    Instant.ofEpochMilli(json.getLong("createdAt")));
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Invalid snapshot", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final @NotNull SessionSnapshot that = (SessionSnapshot) o;
+        return mediaEndpointURI.equals(that.mediaEndpointURI) &&
+                protocol == that.protocol &&
+                baseURI.equals(that.baseURI) &&
+                Objects.equals(token, that.token) &&
+                Objects.equals(playbackURI, that.playbackURI) &&
+                workarounds.equals(that.workarounds) &&
+                Objects.equals(currentService, that.currentService) &&
+                Objects.equals(metadata, that.metadata) &&
+                createdAt.equals(that.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mediaEndpointURI, protocol, baseURI, token, playbackURI, workarounds, currentService, metadata, createdAt);
+    }
+
+    @Override
+    public String toString() {
+        // The token is left out on purpose.
+        return "SessionSnapshot{" +
+                "mediaEndpointURI=" + mediaEndpointURI +
+                ", protocol=" + protocol +
+                ", baseURI=" + baseURI +
+                ", playbackURI=" + playbackURI +
+                ", currentService=" + currentService +
+                ", createdAt=" + createdAt +
+                "}";
+    }
+}
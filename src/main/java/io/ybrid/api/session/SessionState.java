@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.CapabilitySet;
+import io.ybrid.api.ChangeTracker;
+import io.ybrid.api.PlayoutInfo;
+import io.ybrid.api.TemporalValidity;
+import io.ybrid.api.bouquet.Bouquet;
+import io.ybrid.api.bouquet.Service;
+import io.ybrid.api.metadata.Metadata;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This is an immutable view of the state of a {@link Session}.
+ * <P>
+ * A new state is published by the driver each time a response from the server has been applied.
+ * Readers can obtain the current state using {@link Session#getState()} without blocking.
+ * All values of a state belong to the same point in time.
+ * <P>
+ * Each state carries a version that is increased with every published state.
+ * Comparing versions is a cheap way to check whether anything has changed.
+ */
+public final class SessionState {
+    /**
+     * The state of a session that has not yet selected a driver.
+     */
+    public static final @NotNull SessionState INITIAL = new SessionState(0, null, false, true, CapabilitySet.emptySet(), null, null, null, null, TemporalValidity.INDEFINITELY_VALID);
+
+    private final long version;
+    private final @Nullable ChangeTracker.Cursor changeCursor;
+    private final boolean connected;
+    private final boolean valid;
+    private final @NotNull CapabilitySet capabilities;
+    private final @Nullable Service currentService;
+    private final @Nullable Bouquet bouquet;
+    private final @Nullable PlayoutInfo playoutInfo;
+    private final @Nullable Metadata metadata;
+    private final @NotNull TemporalValidity currentItemValidity;
+
+    /**
+     * Creates a new state. This is used by drivers only.
+     *
+     * @param version The version of this state.
+     * @param changeCursor The position of the session's {@link ChangeTracker} this state includes changes up to.
+     * @param connected Whether the session is connected.
+     * @param valid Whether the session is valid.
+     * @param capabilities The capabilities. A copy is made.
+     * @param currentService The current service or {@code null}.
+     * @param bouquet The bouquet or {@code null} if not yet known.
+     * @param playoutInfo The playout info or {@code null} if not yet known.
+     * @param metadata The current metadata or {@code null} if not known.
+     * @param currentItemValidity The temporal validity of the current item.
+     */
+    @ApiStatus.Internal
+    public SessionState(long version, @Nullable ChangeTracker.Cursor changeCursor, boolean connected, boolean valid, @NotNull CapabilitySet capabilities, @Nullable Service currentService, @Nullable Bouquet bouquet, @Nullable PlayoutInfo playoutInfo, @Nullable Metadata metadata, @NotNull TemporalValidity currentItemValidity) {
+        this.version = version;
+        this.changeCursor = changeCursor;
+        this.connected = connected;
+        this.valid = valid;
+        this.capabilities = CapabilitySet.fromSet(capabilities.toSet());
+        this.currentService = currentService;
+        this.bouquet = bouquet;
+        this.playoutInfo = playoutInfo;
+        this.metadata = metadata;
+        this.currentItemValidity = currentItemValidity;
+    }
+
+    /**
+     * Gets the version of this state.
+     * Versions are increased with each state published for a session.
+     *
+     * @return The version.
+     */
+    @Contract(pure = true)
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks whether this state is newer than the given state.
+     *
+     * @param other The state to compare to.
+     * @return Whether this state is newer.
+     */
+    @Contract(pure = true)
+    public boolean isNewerThan(@NotNull SessionState other) {
+        return version > other.version;
+    }
+
+    /**
+     * Gets the position of the session's {@link ChangeTracker} this state includes changes up to.
+     * @return The cursor or {@code null} for the {@link #INITIAL} state.
+     */
+    @Contract(pure = true)
+    public @Nullable ChangeTracker.Cursor getChangeCursor() {
+        return changeCursor;
+    }
+
+    /**
+     * Gets whether the session is connected.
+     * @return Whether the session is connected.
+     */
+    @Contract(pure = true)
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Gets whether the session is valid.
+     * @return Whether the session is valid.
+     */
+    @Contract(pure = true)
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets the capabilities of the session.
+     * @return The capabilities.
+     */
+    @Contract(pure = true)
+    public @NotNull CapabilitySet getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * Gets the current service.
+     * @return The current service or {@code null}.
+     */
+    @Contract(pure = true)
+    public @Nullable Service getCurrentService() {
+        return currentService;
+    }
+
+    /**
+     * Gets the bouquet.
+     * @return The bouquet or {@code null} if not yet known.
+     */
+    @Contract(pure = true)
+    public @Nullable Bouquet getBouquet() {
+        return bouquet;
+    }
+
+    /**
+     * Gets the playout info.
+     * @return The playout info or {@code null} if not yet known.
+     */
+    @Contract(pure = true)
+    public @Nullable PlayoutInfo getPlayoutInfo() {
+        return playoutInfo;
+    }
+
+    /**
+     * Gets the current metadata as known by the driver.
+     * @return The metadata or {@code null} if not known.
+     */
+    @Contract(pure = true)
+    public @Nullable Metadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Gets the temporal validity of the current item.
+     * @return The temporal validity.
+     */
+    @Contract(pure = true)
+    public @NotNull TemporalValidity getCurrentItemValidity() {
+        return currentItemValidity;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionState{" +
+                "version=" + version +
+                ", connected=" + connected +
+                ", valid=" + valid +
+                ", capabilities=" + capabilities.toSet() +
+                ", currentService=" + currentService +
+                '}';
+    }
+}
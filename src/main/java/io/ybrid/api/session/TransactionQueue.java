@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.SubInfo;
+import io.ybrid.api.transaction.Request;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * This class serializes the execution of session requests.
+ * <P>
+ * Only one request of a session is executed at a time. Waiting requests are executed in order of their
+ * {@link Priority} and within the same priority in the order they were queued.
+ * A {@link Command#REFRESH} for a set of {@link SubInfo} that is queued while another such refresh
+ * is still waiting is merged into the waiting one and completes with it.
+ * <P>
+ * Requests executed from within a running request (e.g. by a player while connecting a transport)
+ * bypass the queue as they would otherwise wait for themselves.
+ * <P>
+ * {@link #execute(Request, Task)} blocks the calling thread until it is the request's turn.
+ * If the current {@link Deadline} passes while waiting the request is removed from the queue and
+ * a {@link DeadlineExceededException} is thrown.
+ * <P>
+ * Requests run in background are {@link #submit(Object, Request, Runnable) submitted} instead.
+ * No thread waits for them while they are queued. Once it is their turn they are handed to their executor,
+ * which then calls {@link #execute(Object, Request, Task)}. This way a session with many queued requests
+ * does not occupy more than one thread of an executor shared with other sessions.
+ */
+final class TransactionQueue {
+    /**
+     * Priority of a request. Requests with a lower ordinal are executed first.
+     */
+    enum Priority {
+        /**
+         * User facing requests and requests changing the state of the session.
+         */
+        FOREGROUND,
+        /**
+         * Requests that only refresh state.
+         */
+        BACKGROUND
+    }
+
+    /**
+     * The task executing a request.
+     */
+    @FunctionalInterface
+    interface Task {
+        void execute(@NotNull Request<Command> request) throws Throwable;
+    }
+
+    private enum EntryState {
+        QUEUED,
+        RUNNING,
+        DONE,
+        ABANDONED
+    }
+
+    private static final class Entry {
+        private final @NotNull Request<Command> request;
+        private final @NotNull Priority priority;
+        private final long sequence;
+        private final @Nullable EnumSet<SubInfo> infos;
+        /* Hands a submitted request to its executor. This is null if a thread waits for the request. */
+        private final @Nullable Runnable start;
+        /* Submitted requests that were merged into this one. */
+        private final @NotNull List<@NotNull Entry> followers = new ArrayList<>();
+        /* The request a submitted request was merged into. */
+        private @Nullable Entry target = null;
+        private int merged = 0;
+        private @NotNull EntryState state = EntryState.QUEUED;
+        private @Nullable Throwable error = null;
+
+        private Entry(@NotNull Request<Command> request, long sequence, @Nullable EnumSet<SubInfo> infos, @Nullable Runnable start) {
+            this.request = request;
+            this.priority = getPriority(request.getCommand());
+            this.sequence = sequence;
+            this.infos = infos;
+            this.start = start;
+        }
+
+        private @NotNull Request<Command> getEffectiveRequest() {
+            if (merged == 0 || infos == null)
+                return request;
+
+            return Command.REFRESH.makeRequest(EnumSet.copyOf(infos)).withDeadline(request.getDeadline());
+        }
+    }
+
+    private final @NotNull PriorityQueue<@NotNull Entry> queue = new PriorityQueue<>(
+            Comparator.comparing((Entry entry) -> entry.priority).thenComparingLong(entry -> entry.sequence));
+    private final @NotNull Map<@NotNull Object, @NotNull Entry> submitted = new IdentityHashMap<>();
+    /* The request that may currently execute. */
+    private @Nullable Entry current = null;
+    /* The thread executing the current request. */
+    private @Nullable Thread owner = null;
+    private long sequence = 0;
+    private long merged = 0;
+
+    /**
+     * Gets the priority of a command.
+     * @param command The command.
+     * @return The priority.
+     */
+    @Contract(pure = true)
+    static @NotNull Priority getPriority(@NotNull Command command) {
+        return command.equals(Command.REFRESH) ? Priority.BACKGROUND : Priority.FOREGROUND;
+    }
+
+    private static @Nullable EnumSet<SubInfo> getMergeableInfos(@NotNull Request<Command> request) {
+        final @Nullable Object argument;
+        final @NotNull EnumSet<SubInfo> ret = EnumSet.noneOf(SubInfo.class);
+
+        if (!request.getCommand().equals(Command.REFRESH))
+            return null;
+
+        argument = request.getArgumentNullable(0);
+        if (!(argument instanceof EnumSet))
+            return null;
+
+        // Copy element by element, so a set of another enum is never treated as a set of SubInfos.
+        for (final @NotNull Object element : (EnumSet<?>) argument) {
+            if (!(element instanceof SubInfo))
+                return null;
+            ret.add((SubInfo) element);
+        }
+
+        return ret;
+    }
+
+    private void await(@Nullable Deadline deadline) throws InterruptedException, DeadlineExceededException {
+        final long millis;
+
+        if (deadline == null) {
+            wait();
+            return;
+        }
+
+        millis = deadline.getRemaining().toMillis();
+        if (millis <= 0)
+            throw new DeadlineExceededException(deadline);
+
+        wait(millis);
+    }
+
+    private @Nullable Entry findMergeTarget() {
+        for (final @NotNull Entry entry : queue) {
+            if (entry.infos != null)
+                return entry;
+        }
+
+        return null;
+    }
+
+    private void mergeInto(@NotNull Entry target, @NotNull EnumSet<SubInfo> infos) {
+        Objects.requireNonNull(target.infos).addAll(infos);
+        target.merged++;
+        merged++;
+    }
+
+    /**
+     * Tries to merge a refresh into a waiting one and waits for it to complete.
+     *
+     * @return Whether the refresh was merged and has completed.
+     *         {@code false} if there was no waiting refresh or it was abandoned by its caller.
+     */
+    private boolean merge(@NotNull EnumSet<SubInfo> infos, @Nullable Deadline deadline) throws Throwable {
+        final @Nullable Entry target = findMergeTarget();
+
+        if (target == null)
+            return false;
+
+        mergeInto(target, infos);
+
+        while (target.state == EntryState.QUEUED || target.state == EntryState.RUNNING)
+            await(deadline);
+
+        if (target.state == EntryState.ABANDONED)
+            return false;
+
+        if (target.error != null)
+            throw target.error;
+
+        return true;
+    }
+
+    /**
+     * Lets the next request run if no request is running.
+     * A submitted request is removed from the queue and its start is added to the given list.
+     * A thread waiting for its request is woken by the caller using {@link #notifyAll()}.
+     */
+    private void dispatch(@NotNull List<@NotNull Runnable> starts) {
+        final @Nullable Entry next = queue.peek();
+
+        if (current != null || next == null || next.start == null)
+            return;
+
+        queue.remove();
+        next.state = EntryState.RUNNING;
+        current = next;
+        starts.add(next.start);
+    }
+
+    private static void start(@NotNull List<@NotNull Runnable> starts) {
+        // This is called without holding the lock as the executor may run the request right away.
+        for (final @NotNull Runnable start : starts)
+            start.run();
+    }
+
+    private @NotNull List<@NotNull Runnable> complete(@NotNull Entry entry, @Nullable Throwable error) {
+        final @NotNull List<@NotNull Runnable> starts = new ArrayList<>();
+
+        entry.error = error;
+        entry.state = EntryState.DONE;
+        current = null;
+        owner = null;
+
+        // Merged requests complete with this one but still need to be run to complete their transactions.
+        for (final @NotNull Entry follower : entry.followers)
+            starts.add(Objects.requireNonNull(follower.start));
+        entry.followers.clear();
+
+        dispatch(starts);
+        notifyAll();
+        return starts;
+    }
+
+    private void abandon(@NotNull Entry entry, @NotNull List<@NotNull Runnable> starts) {
+        if (entry.state == EntryState.QUEUED)
+            queue.remove(entry);
+        if (current == entry)
+            current = null;
+        entry.state = EntryState.ABANDONED;
+
+        // Submitted requests merged into this one are queued on their own again.
+        for (final @NotNull Entry follower : entry.followers) {
+            follower.target = null;
+            queue.add(follower);
+        }
+        entry.followers.clear();
+
+        dispatch(starts);
+        notifyAll();
+    }
+
+    /**
+     * Executes a request once it is its turn.
+     * This blocks until the request has been executed.
+     *
+     * @param request The request to execute.
+     * @param task The task executing the request.
+     * @throws Throwable Any exception thrown by the task, or thrown while waiting.
+     */
+    void execute(@NotNull Request<Command> request, @NotNull Task task) throws Throwable {
+        final @Nullable Deadline deadline = Deadline.current();
+        final @Nullable EnumSet<SubInfo> infos = getMergeableInfos(request);
+        final @NotNull List<@NotNull Runnable> starts = new ArrayList<>();
+        final @Nullable Entry entry;
+        @Nullable Throwable error = null;
+
+        synchronized (this) {
+            if (owner == Thread.currentThread()) {
+                entry = null;
+            } else {
+                if (infos != null && merge(infos, deadline))
+                    return;
+
+                entry = new Entry(request, sequence++, infos, null);
+                queue.add(entry);
+
+                try {
+                    while (current != null || queue.peek() != entry)
+                        await(deadline);
+
+                    queue.remove(entry);
+                    entry.state = EntryState.RUNNING;
+                    current = entry;
+                    owner = Thread.currentThread();
+                } catch (Throwable e) {
+                    error = e;
+                    abandon(entry, starts);
+                }
+            }
+        }
+
+        if (error != null) {
+            // A submitted request may be next now that we gave up our place.
+            start(starts);
+            throw error;
+        }
+
+        if (entry == null) {
+            // Called from within the running request.
+            task.execute(request);
+            return;
+        }
+
+        run(entry, task);
+    }
+
+    private void run(@NotNull Entry entry, @NotNull Task task) throws Throwable {
+        @Nullable Throwable error = null;
+        final @NotNull List<@NotNull Runnable> starts;
+
+        try {
+            task.execute(entry.getEffectiveRequest());
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            synchronized (this) {
+                starts = complete(entry, error);
+            }
+            start(starts);
+        }
+    }
+
+    /**
+     * Queues a request to be run in background.
+     * <P>
+     * No thread waits while the request is queued. Once it is the request's turn {@code start} is called.
+     * It must hand the request to an executor which then calls {@link #execute(Object, Request, Task)}
+     * with the same token. If the request will not be executed, e.g. because it was canceled,
+     * {@link #abandon(Object)} must be called.
+     *
+     * @param token The token identifying the request, e.g. its transaction.
+     * @param request The request.
+     * @param start Hands the request to its executor.
+     */
+    void submit(@NotNull Object token, @NotNull Request<Command> request, @NotNull Runnable start) {
+        final @Nullable EnumSet<SubInfo> infos = getMergeableInfos(request);
+        final @NotNull List<@NotNull Runnable> starts = new ArrayList<>();
+
+        synchronized (this) {
+            final @NotNull Entry entry = new Entry(request, sequence++, infos, start);
+            final @Nullable Entry target = infos == null ? null : findMergeTarget();
+
+            submitted.put(token, entry);
+
+            if (target != null) {
+                mergeInto(target, infos);
+                entry.target = target;
+                target.followers.add(entry);
+            } else {
+                queue.add(entry);
+                dispatch(starts);
+            }
+        }
+
+        start(starts);
+    }
+
+    /**
+     * Executes a request that was {@link #submit(Object, Request, Runnable) submitted}.
+     * Requests that were not submitted are executed as by {@link #execute(Request, Task)}.
+     *
+     * @param token The token passed to {@link #submit(Object, Request, Runnable)}.
+     * @param request The request to execute.
+     * @param task The task executing the request.
+     * @throws Throwable Any exception thrown by the task, or thrown while waiting.
+     */
+    void execute(@NotNull Object token, @NotNull Request<Command> request, @NotNull Task task) throws Throwable {
+        final @Nullable Entry entry;
+        boolean early = false;
+
+        synchronized (this) {
+            entry = submitted.remove(token);
+
+            if (entry != null) {
+                final @Nullable Entry target = entry.target;
+
+                if (target != null && target.state == EntryState.DONE) {
+                    // The request was merged into another one which has completed.
+                    entry.state = EntryState.DONE;
+                    if (target.error != null)
+                        throw target.error;
+                    return;
+                }
+
+                if (entry == current) {
+                    owner = Thread.currentThread();
+                } else {
+                    // The request was run before it was its turn, so it waits for its turn like any other.
+                    if (target != null)
+                        target.followers.remove(entry);
+                    queue.remove(entry);
+                    entry.state = EntryState.ABANDONED;
+                    early = true;
+                }
+            }
+        }
+
+        if (entry == null || early) {
+            execute(request, task);
+            return;
+        }
+
+        run(entry, task);
+    }
+
+    /**
+     * Abandons a submitted request that will not be executed.
+     * This has no effect if the request has already been executed.
+     *
+     * @param token The token passed to {@link #submit(Object, Request, Runnable)}.
+     */
+    void abandon(@NotNull Object token) {
+        final @NotNull List<@NotNull Runnable> starts = new ArrayList<>();
+
+        synchronized (this) {
+            final @Nullable Entry entry = submitted.remove(token);
+
+            if (entry == null)
+                return;
+
+            if (entry.target != null) {
+                entry.target.followers.remove(entry);
+                entry.state = EntryState.ABANDONED;
+                return;
+            }
+
+            abandon(entry, starts);
+        }
+
+        start(starts);
+    }
+
+    /**
+     * Gets the number of requests waiting to be executed.
+     * @return The number of waiting requests.
+     */
+    synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of refreshes merged into other refreshes.
+     * @return The number of merged refreshes.
+     */
+    synchronized long getMergedCount() {
+        return merged;
+    }
+}
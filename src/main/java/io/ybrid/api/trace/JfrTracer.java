@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.trace;
+
+import io.ybrid.api.transaction.CompletionState;
+import io.ybrid.api.util.Identifier;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This implements a {@link Tracer} emitting JDK Flight Recorder events.
+ * <P>
+ * Traces are only created if at least one of the events is enabled in a running recording.
+ * Otherwise {@link TransactionTrace#NONE} and {@link RequestTrace#NONE} are returned.
+ * <P>
+ * Durations of phases that were not observed are reported as {@link Long#MIN_VALUE} which Flight Recorder
+ * tools show as not available.
+ * <P>
+ * This class must only be loaded on platforms providing {@code jdk.jfr}.
+ */
+@ApiStatus.Internal
+public final class JfrTracer extends Tracer {
+    private static final long NOT_AVAILABLE = Long.MIN_VALUE;
+
+    @Name("io.ybrid.Transaction")
+    @Label("Transaction")
+    @Category({"Ybrid", "Transactions"})
+    @Description("Execution of a transaction until its control phase completed")
+    @StackTrace(false)
+    static final class TransactionEvent extends Event {
+        @Label("Transaction")
+        String transaction;
+
+        @Label("Command")
+        String command;
+
+        @Label("Session")
+        String session;
+
+        @Label("Driver")
+        String driver;
+
+        @Label("Queue Time")
+        @Description("Time the transaction waited for its executor")
+        @Timespan
+        long queueTime;
+
+        @Label("Parse Time")
+        @Description("Time spent decoding responses, this includes reading bodies as they are decoded while they arrive")
+        @Timespan
+        long parseTime;
+
+        @Label("Requests")
+        @Description("Number of HTTP requests performed")
+        int requests;
+
+        @Label("State")
+        String state;
+
+        @Label("Error")
+        String error;
+    }
+
+    @Name("io.ybrid.TransactionAudioComplete")
+    @Label("Transaction Audio Complete")
+    @Category({"Ybrid", "Transactions"})
+    @Description("Delay between the completion of the control and the audio phase of a transaction")
+    @StackTrace(false)
+    static final class AudioCompleteEvent extends Event {
+        @Label("Transaction")
+        String transaction;
+
+        @Label("Command")
+        String command;
+
+        @Label("State")
+        String state;
+    }
+
+    @Name("io.ybrid.HttpRequest")
+    @Label("HTTP Request")
+    @Category({"Ybrid", "HTTP"})
+    @Description("A HTTP request from sending it until its body was closed")
+    @StackTrace(false)
+    static final class RequestEvent extends Event {
+        @Label("Transaction")
+        String transaction;
+
+        @Label("Method")
+        String method;
+
+        @Label("URL")
+        @Description("The URL without query and user information")
+        String url;
+
+        @Label("Transport")
+        String transport;
+
+        @Label("Status Code")
+        int statusCode;
+
+        @Label("Name Resolution")
+        @Timespan
+        long resolve;
+
+        @Label("Connect")
+        @Timespan
+        long connect;
+
+        @Label("Time To First Byte")
+        @Description("Time from sending the request until the headers of the response were received")
+        @Timespan
+        long timeToFirstByte;
+
+        @Label("Body")
+        @Description("Time from receiving the headers until the body was closed")
+        @Timespan
+        long body;
+
+        @Label("Wire Bytes")
+        @DataAmount
+        long wireBytes;
+
+        @Label("Error")
+        String error;
+    }
+
+    private static final @NotNull EventType TRANSACTION = EventType.getEventType(TransactionEvent.class);
+    private static final @NotNull EventType AUDIO_COMPLETE = EventType.getEventType(AudioCompleteEvent.class);
+    private static final @NotNull EventType REQUEST = EventType.getEventType(RequestEvent.class);
+
+    private static @Nullable String describe(@Nullable Throwable error) {
+        return error == null ? null : error.toString();
+    }
+
+    private static long between(long start, long end) {
+        return start == NOT_AVAILABLE || end == NOT_AVAILABLE ? NOT_AVAILABLE : end - start;
+    }
+
+    private static final class JfrTransactionTrace extends TransactionTrace {
+        private final @NotNull String transaction;
+        private final @NotNull TransactionEvent event = new TransactionEvent();
+        private final @NotNull AtomicLong parseTime = new AtomicLong();
+        private final @NotNull AtomicInteger requests = new AtomicInteger();
+        private volatile long queueTime = NOT_AVAILABLE;
+        private volatile @Nullable String command = null;
+        private volatile @Nullable String session = null;
+        private volatile @Nullable String driver = null;
+        private volatile @Nullable AudioCompleteEvent audioCompleteEvent = null;
+
+        JfrTransactionTrace(@NotNull Identifier transaction) {
+            this.transaction = transaction.toString();
+            event.begin();
+        }
+
+        void addRequest() {
+            requests.incrementAndGet();
+        }
+
+        @NotNull String getTransaction() {
+            return transaction;
+        }
+
+        @Override
+        public boolean isRecording() {
+            return true;
+        }
+
+        @Override
+        public void setQueueTime(long nanos) {
+            queueTime = nanos;
+        }
+
+        @Override
+        public void setCommand(@NotNull String command) {
+            this.command = command;
+        }
+
+        @Override
+        public void setSession(@NotNull String session) {
+            this.session = session;
+        }
+
+        @Override
+        public void setDriver(@NotNull String driver) {
+            this.driver = driver;
+        }
+
+        @Override
+        public void addParseTime(long nanos) {
+            parseTime.addAndGet(nanos);
+        }
+
+        @Override
+        public void controlComplete(@NotNull CompletionState state, @Nullable Throwable error) {
+            final @NotNull AudioCompleteEvent audioCompleteEvent = new AudioCompleteEvent();
+
+            event.end();
+            audioCompleteEvent.begin();
+            this.audioCompleteEvent = audioCompleteEvent;
+
+            if (event.shouldCommit()) {
+                event.transaction = transaction;
+                event.command = command;
+                event.session = session;
+                event.driver = driver;
+                event.queueTime = queueTime;
+                event.parseTime = parseTime.get();
+                event.requests = requests.get();
+                event.state = state.name();
+                event.error = describe(error);
+                event.commit();
+            }
+        }
+
+        @Override
+        public void audioComplete(@NotNull CompletionState state) {
+            @Nullable AudioCompleteEvent event = audioCompleteEvent;
+
+            // The audio phase may complete before the control phase. There is no delay to report then.
+            if (event == null) {
+                event = new AudioCompleteEvent();
+                event.begin();
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.transaction = transaction;
+                event.command = command;
+                event.state = state.name();
+                event.commit();
+            }
+        }
+    }
+
+    private static final class JfrRequestTrace extends RequestTrace {
+        private final @NotNull RequestEvent event = new RequestEvent();
+        private final @NotNull AtomicBoolean ended = new AtomicBoolean(false);
+        private final long start = System.nanoTime();
+        private volatile long resolved = NOT_AVAILABLE;
+        private volatile long connected = NOT_AVAILABLE;
+        private volatile long responseReceived = NOT_AVAILABLE;
+        private volatile int statusCode = -1;
+
+        JfrRequestTrace(@Nullable String transaction, @NotNull String method, @NotNull URL url, @NotNull String transport) {
+            event.begin();
+            event.transaction = transaction;
+            event.method = method;
+            event.url = url.getProtocol() + "://" + url.getHost() + (url.getPort() < 0 ? "" : ":" + url.getPort()) + url.getPath();
+            event.transport = transport;
+        }
+
+        @Override
+        public boolean isRecording() {
+            return true;
+        }
+
+        @Override
+        public void resolved() {
+            resolved = System.nanoTime();
+        }
+
+        @Override
+        public void connected() {
+            connected = System.nanoTime();
+        }
+
+        @Override
+        public void responseReceived(int statusCode) {
+            this.statusCode = statusCode;
+            responseReceived = System.nanoTime();
+        }
+
+        private void end(long wireBytes, @Nullable Throwable error) {
+            final long end;
+            final long connectStart;
+            final long requestStart;
+
+            if (!ended.compareAndSet(false, true))
+                return;
+
+            end = System.nanoTime();
+            event.end();
+            if (!event.shouldCommit())
+                return;
+
+            connectStart = resolved == NOT_AVAILABLE ? start : resolved;
+            requestStart = connected == NOT_AVAILABLE ? connectStart : connected;
+
+            event.statusCode = statusCode;
+            event.resolve = between(start, resolved);
+            event.connect = between(connectStart, connected);
+            event.timeToFirstByte = between(requestStart, responseReceived);
+            event.body = between(responseReceived, end);
+            event.wireBytes = wireBytes;
+            event.error = describe(error);
+            event.commit();
+        }
+
+        @Override
+        public void complete(long wireBytes) {
+            end(wireBytes, null);
+        }
+
+        @Override
+        public void failed(@NotNull Throwable error) {
+            end(0, error);
+        }
+    }
+
+    @Override
+    public @NotNull TransactionTrace beginTransaction(@NotNull Identifier transaction) {
+        // The trace is also needed for requests to report the transaction they belong to.
+        if (!TRANSACTION.isEnabled() && !AUDIO_COMPLETE.isEnabled() && !REQUEST.isEnabled())
+            return TransactionTrace.NONE;
+
+        return new JfrTransactionTrace(transaction);
+    }
+
+    @Override
+    public @NotNull RequestTrace beginRequest(@NotNull String method, @NotNull URL url, @NotNull String transport) {
+        final @NotNull TransactionTrace transactionTrace = TransactionTrace.current();
+        @Nullable String transaction = null;
+
+        if (transactionTrace instanceof JfrTransactionTrace) {
+            ((JfrTransactionTrace) transactionTrace).addRequest();
+            transaction = ((JfrTransactionTrace) transactionTrace).getTransaction();
+        }
+
+        if (!REQUEST.isEnabled())
+            return RequestTrace.NONE;
+
+        return new JfrRequestTrace(transaction, method, url, transport);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.trace;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The trace of a single HTTP request as performed by a {@link io.ybrid.api.driver.http.Transport}.
+ * <P>
+ * A trace starts before the request is sent and ends once the body of the response was closed or the request failed.
+ * The transport marks the end of each phase it can observe. Phases it can not observe,
+ * such as name resolution on transports that resolve names internally, are not marked.
+ * All methods of this class do nothing. Tracers override the ones they need.
+ * <P>
+ * Implementations must be thread-safe as the body may be closed on a different thread.
+ */
+@ApiStatus.Experimental
+public abstract class RequestTrace {
+    /**
+     * A trace that does not record anything.
+     */
+    public static final @NotNull RequestTrace NONE = new RequestTrace() {};
+
+    /**
+     * Gets whether this trace records anything.
+     * Transports use this to skip measurements that are not free.
+     * @return Whether this trace is recording.
+     */
+    public boolean isRecording() {
+        return false;
+    }
+
+    /**
+     * Marks that the name of the host has been resolved.
+     */
+    public void resolved() {
+    }
+
+    /**
+     * Marks that the connection has been established.
+     */
+    public void connected() {
+    }
+
+    /**
+     * Marks that the status and headers of the response have been received.
+     * @param statusCode The HTTP status code.
+     */
+    public void responseReceived(int statusCode) {
+    }
+
+    /**
+     * Ends the trace after the body has been closed.
+     * @param wireBytes The number of bytes of the body read from the network.
+     */
+    public void complete(long wireBytes) {
+    }
+
+    /**
+     * Ends the trace after the request failed.
+     * @param error The error.
+     */
+    public void failed(@NotNull Throwable error) {
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.trace;
+
+import io.ybrid.api.util.Identifier;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URL;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A tracer creates the traces for {@link io.ybrid.api.transaction.Transaction}s and the HTTP requests they perform.
+ * <P>
+ * Implementations must be cheap when not recording: they should return {@link TransactionTrace#NONE},
+ * and {@link RequestTrace#NONE} in that case so that instrumented code does no further work.
+ * <P>
+ * The {@link #getDefault() default} emits JDK Flight Recorder events if the runtime provides {@code jdk.jfr}.
+ * The events are named {@code io.ybrid.Transaction}, {@code io.ybrid.TransactionAudioComplete},
+ * and {@code io.ybrid.HttpRequest}.
+ */
+@ApiStatus.Experimental
+public abstract class Tracer {
+    static final Logger LOGGER = Logger.getLogger(Tracer.class.getName());
+
+    private static final @NotNull String JFR_TRACER = "io.ybrid.api.trace.JfrTracer";
+
+    /**
+     * A tracer that never records anything.
+     */
+    public static final @NotNull Tracer DISABLED = new Tracer() {
+        @Override
+        public @NotNull TransactionTrace beginTransaction(@NotNull Identifier transaction) {
+            return TransactionTrace.NONE;
+        }
+
+        @Override
+        public @NotNull RequestTrace beginRequest(@NotNull String method, @NotNull URL url, @NotNull String transport) {
+            return RequestTrace.NONE;
+        }
+    };
+
+    private static volatile Tracer defaultTracer = null;
+
+    private static @NotNull Tracer createDefault() {
+        // We must not link JfrTracer directly as it depends on jdk.jfr which is not available on all platforms.
+        try {
+            return Class.forName(JFR_TRACER).asSubclass(Tracer.class).getDeclaredConstructor().newInstance();
+        } catch (Throwable e) {
+            if (LOGGER.isLoggable(Level.INFO))
+                LOGGER.info("Flight Recorder based tracing is not available: " + e);
+            return DISABLED;
+        }
+    }
+
+    /**
+     * Gets the default tracer.
+     * @return The default tracer.
+     */
+    public static @NotNull Tracer getDefault() {
+        Tracer tracer = defaultTracer;
+
+        if (tracer != null)
+            return tracer;
+
+        synchronized (Tracer.class) {
+            if (defaultTracer == null)
+                defaultTracer = createDefault();
+            return defaultTracer;
+        }
+    }
+
+    /**
+     * Sets the default tracer.
+     * This only affects transactions and requests started after this call.
+     *
+     * @param tracer The new default tracer.
+     */
+    public static void setDefault(@NotNull Tracer tracer) {
+        defaultTracer = tracer;
+    }
+
+    /**
+     * Begins the trace of a transaction.
+     * This is called when the transaction starts to execute.
+     *
+     * @param transaction The identifier of the transaction.
+     * @return The trace or {@link TransactionTrace#NONE} if the transaction is not traced.
+     */
+    public abstract @NotNull TransactionTrace beginTransaction(@NotNull Identifier transaction);
+
+    /**
+     * Begins the trace of a HTTP request.
+     * This is called by the {@link io.ybrid.api.driver.http.Transport} before a request is sent.
+     * The request belongs to the {@link TransactionTrace#current() current} transaction.
+     *
+     * @param method The request method.
+     * @param url The URL requested.
+     * @param transport The name of the transport performing the request.
+     * @return The trace or {@link RequestTrace#NONE} if the request is not traced.
+     */
+    public abstract @NotNull RequestTrace beginRequest(@NotNull String method, @NotNull URL url, @NotNull String transport);
+}
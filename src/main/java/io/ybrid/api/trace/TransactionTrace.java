@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.trace;
+
+import io.ybrid.api.transaction.CompletionState;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The trace of a single {@link io.ybrid.api.transaction.Transaction}.
+ * <P>
+ * A trace starts when the transaction starts to execute and records the time until the control phase
+ * completed as well as the delay from there until the audio phase completed.
+ * All methods of this class do nothing. Tracers override the ones they need.
+ * <P>
+ * While the transaction executes its trace is bound to the executing thread so that code further down,
+ * such as the transports, can find it using {@link #current()}.
+ * <P>
+ * Times are given in nanoseconds as measured by {@link System#nanoTime()}.
+ * Implementations must be thread-safe.
+ */
+@ApiStatus.Experimental
+public abstract class TransactionTrace {
+    private static final @NotNull ThreadLocal<TransactionTrace> CURRENT = new ThreadLocal<>();
+
+    /**
+     * A trace that does not record anything.
+     */
+    public static final @NotNull TransactionTrace NONE = new TransactionTrace() {};
+
+    /**
+     * A scope in which a trace is bound to the current thread.
+     * Closing the scope restores the previously bound trace.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final @Nullable TransactionTrace previous;
+        private boolean closed = false;
+
+        private Scope(@Nullable TransactionTrace previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Gets the trace bound to the current thread.
+     * @return The trace or {@link #NONE} if none is bound.
+     * @see #enter()
+     */
+    public static @NotNull TransactionTrace current() {
+        final @Nullable TransactionTrace ret = CURRENT.get();
+        return ret == null ? NONE : ret;
+    }
+
+    /**
+     * Binds this trace to the current thread.
+     * The returned scope must be closed, ideally using a try-with-resources statement.
+     *
+     * @return The scope.
+     */
+    @Contract("-> new")
+    public @NotNull Scope enter() {
+        final @Nullable TransactionTrace previous = CURRENT.get();
+
+        CURRENT.set(this);
+        return new Scope(previous);
+    }
+
+    /**
+     * Gets whether this trace records anything.
+     * Callers can use this to skip measurements that are not free.
+     * @return Whether this trace is recording.
+     */
+    public boolean isRecording() {
+        return false;
+    }
+
+    /**
+     * Sets the time the transaction waited for its executor.
+     * @param nanos The time in nanoseconds.
+     */
+    public void setQueueTime(long nanos) {
+    }
+
+    /**
+     * Sets the command executed by the transaction.
+     * @param command The command.
+     */
+    public void setCommand(@NotNull String command) {
+    }
+
+    /**
+     * Sets the session the transaction is executed on.
+     * @param session The session.
+     */
+    public void setSession(@NotNull String session) {
+    }
+
+    /**
+     * Sets the driver executing the transaction.
+     * @param driver The name of the driver.
+     */
+    public void setDriver(@NotNull String driver) {
+    }
+
+    /**
+     * Adds time spent parsing responses.
+     * @param nanos The time in nanoseconds.
+     */
+    public void addParseTime(long nanos) {
+    }
+
+    /**
+     * Called once the control phase of the transaction completed.
+     * @param state The state the phase completed with.
+     * @param error The error of the transaction or {@code null}.
+     */
+    public void controlComplete(@NotNull CompletionState state, @Nullable Throwable error) {
+    }
+
+    /**
+     * Called once the audio phase of the transaction completed.
+     * @param state The state the phase completed with.
+     */
+    public void audioComplete(@NotNull CompletionState state) {
+    }
+}
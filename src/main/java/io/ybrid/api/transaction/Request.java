@@ -23,11 +23,13 @@
 package io.ybrid.api.transaction;
 
 import io.ybrid.api.session.Session;
+import io.ybrid.api.util.Deadline;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.Objects;
 
 /**
@@ -41,6 +43,7 @@ public class Request<C extends Command<C>> implements Serializable {
 
     private final @NotNull C command;
     private final @Nullable Serializable[] arguments;
+    private final @Nullable Deadline deadline;
 
     /**
      * Internal constructor.
@@ -50,8 +53,54 @@ public class Request<C extends Command<C>> implements Serializable {
      * @see Command#makeRequest(Serializable)
      */
     protected Request(@NotNull C command, @Nullable Serializable[] arguments) {
+        this(command, arguments, null);
+    }
+
+    /**
+     * Internal constructor.
+     * @param command The command to request.
+     * @param arguments The argument list for the request or {@code null}.
+     * @param deadline The deadline for the request or {@code null}.
+     * @see #withDeadline(Deadline)
+     */
+    protected Request(@NotNull C command, @Nullable Serializable[] arguments, @Nullable Deadline deadline) {
         this.command = command;
         this.arguments = arguments;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns a copy of this request with the given deadline.
+     * Transactions for the returned request will fail with {@link CompletionState#TIMEOUT}
+     * if they are not completed by the deadline.
+     *
+     * @param deadline The deadline or {@code null} to remove the deadline.
+     * @return The new request.
+     */
+    @Contract(value = "_ -> new", pure = true)
+    public @NotNull Request<C> withDeadline(@Nullable Deadline deadline) {
+        return new Request<>(command, arguments, deadline);
+    }
+
+    /**
+     * Returns a copy of this request with a deadline the given time from now.
+     *
+     * @param timeout The time the request may take.
+     * @return The new request.
+     * @see #withDeadline(Deadline)
+     */
+    @Contract("_ -> new")
+    public @NotNull Request<C> withTimeout(@NotNull Duration timeout) {
+        return withDeadline(Deadline.after(timeout));
+    }
+
+    /**
+     * Gets the deadline of this request.
+     * @return The deadline or {@code null}.
+     */
+    @Contract(pure = true)
+    public @Nullable Deadline getDeadline() {
+        return deadline;
     }
 
     /**
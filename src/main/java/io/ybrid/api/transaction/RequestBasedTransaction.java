@@ -22,8 +22,11 @@
 
 package io.ybrid.api.transaction;
 
+import io.ybrid.api.trace.TransactionTrace;
+import io.ybrid.api.util.Deadline;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * This class implements {@link Transaction}s based on {@link Request}s.
@@ -45,6 +48,22 @@ public abstract class RequestBasedTransaction<R extends Request<?>> extends Simp
         return request;
     }
 
+    /**
+     * Gets the deadline of this transaction.
+     * This is the earlier of the deadline set on this transaction and the deadline of the {@link Request}.
+     * @return The deadline or {@code null}.
+     */
+    @Override
+    public @Nullable Deadline getDeadline() {
+        return Deadline.earliest(super.getDeadline(), request.getDeadline());
+    }
+
+    @Override
+    protected void describe(@NotNull TransactionTrace trace) {
+        super.describe(trace);
+        trace.setCommand(String.valueOf(request.getCommand()));
+    }
+
     @Override
     public void run() {
         super.run();
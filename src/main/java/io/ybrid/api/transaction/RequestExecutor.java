@@ -22,8 +22,11 @@
 
 package io.ybrid.api.transaction;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface RequestExecutor {
     /**
      * Execute the given request as a transaction.
@@ -35,4 +38,24 @@ public interface RequestExecutor {
      * @return The {@link Transaction} created and executed.
      */
     @NotNull Transaction execute(@NotNull Request<?> request) throws TransactionExecutionException;
+
+    /**
+     * Execute the given request as a transaction without blocking the caller.
+     * <P>
+     * The returned future completes once the transaction completed the control phase.
+     * It completes exceptionally with a {@link TransactionExecutionException} if the transaction failed.
+     * <P>
+     * The default implementation calls {@link #execute(Request)} on the
+     * {@link TransactionExecutor#getDefault() default transaction executor}.
+     * That thread is blocked for as long as the transaction runs.
+     *
+     * @param request The request to execute.
+     * @return The future for the {@link Transaction}.
+     * @see Transaction#controlFuture()
+     */
+    @ApiStatus.Experimental
+    default @NotNull CompletableFuture<@NotNull Transaction> executeAsync(@NotNull Request<?> request) {
+        return CompletableFuture.supplyAsync(() -> execute(request), TransactionExecutor.getDefault())
+                .thenCompose(Transaction::controlFuture);
+    }
 }
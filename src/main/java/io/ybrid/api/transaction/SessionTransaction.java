@@ -24,9 +24,13 @@ package io.ybrid.api.transaction;
 
 import io.ybrid.api.session.Session;
 import io.ybrid.api.session.Command;
+import io.ybrid.api.trace.TransactionTrace;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This class implements transactions on {@link Session}s.
@@ -38,6 +42,18 @@ public final class SessionTransaction extends RequestBasedTransaction<Request<Co
     @ApiStatus.Internal
     public interface Executor {
         void execute(@NotNull SessionTransaction transaction) throws Throwable;
+
+        /**
+         * Queues a transaction that is run in background.
+         * Once it is the transaction's turn {@code start} must be called to hand it to its executor.
+         * The default implementation calls it right away.
+         *
+         * @param transaction The transaction.
+         * @param start Hands the transaction to its executor.
+         */
+        default void submit(@NotNull SessionTransaction transaction, @NotNull Runnable start) {
+            start.run();
+        }
     }
 
     /**
@@ -65,6 +81,36 @@ public final class SessionTransaction extends RequestBasedTransaction<Request<Co
         return session;
     }
 
+    @Override
+    @ApiStatus.Internal
+    protected @NotNull TransactionExecutor getExecutor() {
+        return session.getTransactionExecutor();
+    }
+
+    @Override
+    @ApiStatus.Internal
+    protected void submit() {
+        // Queued transactions do not occupy a thread of the executor before it is their turn.
+        executor.submit(this, () -> {
+            try {
+                super.submit();
+            } catch (RejectedExecutionException e) {
+                rejected(e);
+            }
+        });
+    }
+
+    @Override
+    @ApiStatus.Internal
+    protected void describe(@NotNull TransactionTrace trace) {
+        final @Nullable String driverName = session.getDriverName();
+
+        super.describe(trace);
+        trace.setSession("Session@" + Integer.toHexString(System.identityHashCode(session)));
+        if (driverName != null)
+            trace.setDriver(driverName);
+    }
+
     @Override
     @ApiStatus.Internal
     protected void execute() throws Throwable {
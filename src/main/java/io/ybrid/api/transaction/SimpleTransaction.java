@@ -22,30 +22,151 @@
 
 package io.ybrid.api.transaction;
 
+import io.ybrid.api.trace.Tracer;
+import io.ybrid.api.trace.TransactionTrace;
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
 import io.ybrid.api.util.Identifier;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.function.Consumer;
-import java.util.function.Supplier;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 abstract class SimpleTransaction implements Transaction {
     static final Logger LOGGER = Logger.getLogger(SimpleTransaction.class.getName());
 
     private final @NotNull Identifier identifier = new Identifier(SimpleTransaction.class);
-    private final @NotNull Set<@NotNull Runnable> onControlComplete = new HashSet<>();
-    private final @NotNull Set<@NotNull Runnable> onAudioComplete = new HashSet<>();
-    private boolean signaledControlComplete = false;
-    private boolean signaledAudioComplete = false;
-    private boolean running = false;
-    private @NotNull CompletionState controlComplete = CompletionState.INCOMPLETE;
-    private @NotNull CompletionState audioComplete = CompletionState.INCOMPLETE;
-    private @Nullable Throwable error = null;
+    private final @NotNull Phase control = new Phase("control");
+    private final @NotNull Phase audio = new Phase("audio");
+    private final @NotNull AtomicBoolean running = new AtomicBoolean(false);
+    private final @NotNull Cancellation cancellation = new Cancellation();
+    private final @NotNull Object runnerLock = new Object();
+    private @Nullable Thread runner = null;
+    private volatile boolean submitted = false;
+    private volatile long submittedAt = 0;
+    private volatile @NotNull TransactionTrace trace = TransactionTrace.NONE;
+    private volatile @Nullable Throwable error = null;
+    private volatile @Nullable Deadline deadline = null;
+
+    /**
+     * Completion state of one phase of the transaction.
+     * <P>
+     * The state is only ever changed from {@link CompletionState#INCOMPLETE} once.
+     * Callbacks are kept in registration order and each is run exactly once,
+     * either by the thread completing the phase or by the thread registering it after completion.
+     */
+    private final class Phase {
+        private final @NotNull String name;
+        private final @NotNull AtomicReference<@NotNull CompletionState> state = new AtomicReference<>(CompletionState.INCOMPLETE);
+        private final @NotNull Queue<@NotNull Runnable> callbacks = new ConcurrentLinkedQueue<>();
+        private final @NotNull CompletableFuture<@NotNull Transaction> future = new CompletableFuture<>();
+
+        Phase(@NotNull String name) {
+            this.name = name;
+        }
+
+        @NotNull CompletionState get() {
+            return state.get();
+        }
+
+        boolean isComplete() {
+            return !state.get().equals(CompletionState.INCOMPLETE);
+        }
+
+        /**
+         * Completes this phase.
+         * @param completionState The new state.
+         * @param error The error to set on the transaction or {@code null}.
+         * @return Whether this call completed the phase.
+         */
+        boolean complete(@NotNull CompletionState completionState, @Nullable Throwable error) {
+            if (completionState.equals(CompletionState.INCOMPLETE) || !state.compareAndSet(CompletionState.INCOMPLETE, completionState))
+                return false;
+
+            if (error != null)
+                SimpleTransaction.this.error = error;
+
+            traceComplete(this, completionState);
+            log(name + " is complete [" + completionState + "], signaling");
+            if (SimpleTransaction.this.error == null) {
+                future.complete(SimpleTransaction.this);
+            } else {
+                future.completeExceptionally(new TransactionExecutionException(SimpleTransaction.this));
+            }
+            runCallbacks();
+            log("signaled " + name + " complete");
+            return true;
+        }
+
+        void onComplete(@NotNull Runnable runnable) {
+            callbacks.add(runnable);
+            if (isComplete())
+                runCallbacks();
+        }
+
+        private void runCallbacks() {
+            @Nullable Runnable runnable;
+
+            while ((runnable = callbacks.poll()) != null) {
+                try {
+                    runnable.run();
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+
+        @NotNull CompletableFuture<@NotNull Transaction> copyFuture() {
+            final @NotNull CompletableFuture<@NotNull Transaction> copy = new CompletableFuture<>();
+
+            future.whenComplete((transaction, e) -> {
+                if (e == null) {
+                    copy.complete(transaction);
+                } else {
+                    copy.completeExceptionally(e);
+                }
+            });
+
+            return copy;
+        }
+
+        void await() throws InterruptedException {
+            try {
+                future.get();
+            } catch (ExecutionException ignored) {
+                // The phase is complete, failures are reported by getError().
+            }
+        }
+
+        boolean await(@NotNull Duration timeout) throws InterruptedException {
+            return Futures.waitFor(future, timeout);
+        }
+    }
+
+    private void traceComplete(@NotNull Phase phase, @NotNull CompletionState completionState) {
+        final @NotNull TransactionTrace trace = this.trace;
+
+        if (!trace.isRecording())
+            return;
+
+        if (phase == control) {
+            describe(trace);
+            trace.controlComplete(completionState, error);
+        } else {
+            trace.audioComplete(completionState);
+        }
+    }
 
     private void log(@NotNull String message) {
         if (this instanceof RequestBasedTransaction) {
@@ -65,94 +186,55 @@ abstract class SimpleTransaction implements Transaction {
     @ApiStatus.OverrideOnly
     protected abstract void execute() throws Throwable;
 
-    private void signal(@NotNull Collection<@NotNull Runnable> callbacks) {
-        //noinspection SynchronizationOnLocalVariableOrMethodParameter
-        synchronized (callbacks) {
-            for (@NotNull Runnable runnable : callbacks) {
-                try {
-                    runnable.run();
-                } catch (Throwable ignored) {
-                }
-            }
-        }
-    }
-
     /**
-     * Internal method used to signal that the control phase is complete.
-     */
-    @ApiStatus.Internal
-    protected void signalControlComplete() {
-        log("control is complete [" + controlComplete + "]");
-        synchronized (this) {
-            if (signaledControlComplete)
-                return;
-            signaledControlComplete = true;
-        }
-        log("signaling control complete");
-        signal(onControlComplete);
-        log("signaled control complete");
-    }
-
-    /**
-     * Internal method used to signal that the transaction is complete and now audible.
+     * Adds the attributes of this transaction to its trace.
+     * This is called before the trace records the completion of the control phase.
+     * Overriding methods must call this method of the super class.
+     *
+     * @param trace The trace.
      */
     @ApiStatus.Internal
-    protected void signalAudioComplete() {
-        log("audio is complete [" + audioComplete + "]");
-        synchronized (this) {
-            if (signaledAudioComplete)
-                return;
-            signaledAudioComplete = true;
-        }
-        log("signaling audio complete");
-        signal(onAudioComplete);
-        log("signaled audio complete");
+    protected void describe(@NotNull TransactionTrace trace) {
     }
 
     @Override
     public void onControlComplete(@NotNull Runnable runnable) {
-        synchronized (onControlComplete) {
-            if (signaledControlComplete)
-                runnable.run();
-            onControlComplete.add(runnable);
-        }
+        control.onComplete(runnable);
     }
 
     @Override
     public void onAudioComplete(@NotNull Runnable runnable) {
-        synchronized (onAudioComplete) {
-            if (signaledAudioComplete)
-                runnable.run();
-            onAudioComplete.add(runnable);
-        }
+        audio.onComplete(runnable);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@NotNull Transaction> controlFuture() {
+        return control.copyFuture();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@NotNull Transaction> audioFuture() {
+        return audio.copyFuture();
     }
 
     @Override
     public @NotNull CompletionState getControlCompletionState() {
-        return controlComplete;
+        return control.get();
     }
 
     @Override
     public @NotNull CompletionState getAudioCompletionState() {
-        return audioComplete;
+        return audio.get();
     }
 
     @Override
     public void setAudioComplete(@NotNull CompletionState completionState) {
-        if (!audioComplete.equals(CompletionState.INCOMPLETE))
-            return;
-
-        audioComplete = audioComplete.upgrade(completionState);
-
-        if (audioComplete.equals(CompletionState.INCOMPLETE))
-            return;
-
-        signalAudioComplete();
+        audio.complete(completionState, null);
     }
 
     @Override
     public boolean isRunning() {
-        return running;
+        return running.get();
     }
 
     @Override
@@ -160,6 +242,16 @@ abstract class SimpleTransaction implements Transaction {
         return error;
     }
 
+    @Override
+    public @Nullable Deadline getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public void setDeadline(@Nullable Deadline deadline) {
+        this.deadline = deadline;
+    }
+
     @Override
     public @NotNull Identifier getIdentifier() {
         return identifier;
@@ -167,66 +259,150 @@ abstract class SimpleTransaction implements Transaction {
 
     @Override
     public void run() {
-        synchronized (this) {
-            if (isControlComplete() || running || error != null)
-                return;
+        final @Nullable Deadline deadline;
+        final @NotNull Cancellation.Scope cancellationScope;
+        final @NotNull TransactionTrace.Scope traceScope;
+        @Nullable Throwable error = null;
 
-            running = true;
-            log("Running...");
-            try {
+        if (!running.compareAndSet(false, true))
+            return;
+
+        if (control.isComplete()) {
+            running.set(false);
+            return;
+        }
+
+        synchronized (runnerLock) {
+            runner = Thread.currentThread();
+        }
+
+        deadline = getDeadline();
+        trace = Tracer.getDefault().beginTransaction(identifier);
+        if (submitted && trace.isRecording())
+            trace.setQueueTime(System.nanoTime() - submittedAt);
+
+        log("Running...");
+        cancellationScope = cancellation.enter();
+        traceScope = trace.enter();
+        try {
+            if (deadline == null) {
                 execute();
-            } catch (Throwable e) {
-                error = e;
+            } else {
+                final @NotNull Deadline.Scope deadlineScope;
+
+                deadline.assertNotExpired();
+                deadlineScope = deadline.enter();
+                try {
+                    execute();
+                } finally {
+                    deadlineScope.close();
+                }
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            traceScope.close();
+            cancellationScope.close();
+            synchronized (runnerLock) {
+                runner = null;
+                // Do not leak the interrupt sent by cancel() to whatever this thread runs next.
+                if (cancellation.isCanceled())
+                    //noinspection ResultOfMethodCallIgnored
+                    Thread.interrupted();
             }
-            log("... control completed");
-            controlComplete = controlComplete.upgrade(CompletionState.DONE);
-            running = false;
         }
-        signalControlComplete();
-        if (error != null)
-            setAudioComplete(CompletionState.CANCELED);
+        log("... control completed");
+        running.set(false);
+        if (control.complete(DeadlineExceededException.isCausedBy(error) ? CompletionState.TIMEOUT : CompletionState.DONE, error) && error != null)
+            setAudioComplete(control.get().equals(CompletionState.TIMEOUT) ? CompletionState.TIMEOUT : CompletionState.CANCELED);
     }
 
     @Override
-    public synchronized void runInBackground() {
-        if (isControlComplete() || running || error != null)
-            return;
-        new Thread(this, "Transaction " + identifier).start();
+    public boolean cancel() {
+        if (!control.complete(CompletionState.CANCELED, new CanceledException()))
+            return false;
+
+        log("canceled");
+        if (submitted)
+            getExecutor().remove(this);
+
+        // Abort requests in flight, then wake the thread if it waits for anything else.
+        cancellation.cancel();
+        synchronized (runnerLock) {
+            if (runner != null)
+                runner.interrupt();
+        }
+
+        setAudioComplete(CompletionState.CANCELED);
+        return true;
     }
 
-    private void waitForComplete(@NotNull Supplier<Boolean> isComplete, @NotNull Consumer<Runnable> callbackConsumer) throws InterruptedException {
-        final @NotNull Object bus = new Object();
+    /**
+     * Gets the executor used by {@link #runInBackground()}.
+     * The default implementation returns the {@link TransactionExecutor#getDefault() default executor}.
+     *
+     * @return The executor.
+     */
+    @ApiStatus.Internal
+    protected @NotNull TransactionExecutor getExecutor() {
+        return TransactionExecutor.getDefault();
+    }
 
-        // this is just for speed up:
-        if (isComplete.get())
+    @Override
+    public void runInBackground() {
+        if (isControlComplete() || isRunning())
             return;
 
-        // now the real code:
-        synchronized (this) {
-            callbackConsumer.accept(() -> {
-                synchronized (bus) {
-                    bus.notify();
-                }
-                log("sent notify");
-            });
-
-            if (isComplete.get())
-                return;
+        try {
+            submittedAt = System.nanoTime();
+            submitted = true;
+            submit();
+        } catch (RejectedExecutionException e) {
+            rejected(e);
         }
-        log("registered callback");
+    }
 
-        synchronized (bus) {
-            bus.wait();
-        }
+    /**
+     * Hands this transaction to its {@link #getExecutor() executor}.
+     * This is called by {@link #runInBackground()}. Subclasses may defer the call to
+     * the super implementation, e.g. until earlier transactions have completed.
+     *
+     * @throws RejectedExecutionException Thrown if the executor rejected the transaction.
+     */
+    @ApiStatus.Internal
+    protected void submit() {
+        getExecutor().execute(this);
+    }
+
+    /**
+     * Completes this transaction after it was rejected by its executor.
+     *
+     * @param e The exception thrown by the executor.
+     */
+    @ApiStatus.Internal
+    protected final void rejected(@NotNull RejectedExecutionException e) {
+        LOGGER.log(Level.WARNING, "Transaction " + identifier + " was rejected by executor", e);
+        if (control.complete(CompletionState.CANCELED, e))
+            setAudioComplete(CompletionState.CANCELED);
     }
 
     @Override
     public void waitControlComplete() throws InterruptedException {
-        waitForComplete(this::isControlComplete, this::onControlComplete);
+        control.await();
     }
 
     @Override
     public void waitAudioComplete() throws InterruptedException {
-        waitForComplete(this::isAudioComplete, this::onAudioComplete);
+        audio.await();
+    }
+
+    @Override
+    public boolean waitControlComplete(@NotNull Duration timeout) throws InterruptedException {
+        return control.await(timeout);
+    }
+
+    @Override
+    public boolean waitAudioComplete(@NotNull Duration timeout) throws InterruptedException {
+        return audio.await(timeout);
     }
 }
@@ -22,12 +22,16 @@
 
 package io.ybrid.api.transaction;
 
+import io.ybrid.api.util.Deadline;
 import io.ybrid.api.util.hasIdentifier;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This interface is common to all transactions.
  * It provides the basic outline for interaction with transactions.
@@ -45,6 +49,54 @@ public interface Transaction extends hasIdentifier, Runnable {
      */
     void onAudioComplete(@NotNull Runnable runnable);
 
+    /**
+     * Gets a future that completes once the transaction has completed the control phase.
+     * <P>
+     * The future completes with this transaction.
+     * If the transaction failed it completes exceptionally with a {@link TransactionExecutionException}.
+     * Completing the returned future has no effect on the transaction.
+     * <P>
+     * The default implementation registers a new callback using {@link #onControlComplete(Runnable)} on each call.
+     *
+     * @return The future.
+     */
+    @ApiStatus.Experimental
+    default @NotNull CompletableFuture<@NotNull Transaction> controlFuture() {
+        final @NotNull CompletableFuture<@NotNull Transaction> future = new CompletableFuture<>();
+        onControlComplete(() -> {
+            if (getError() == null) {
+                future.complete(this);
+            } else {
+                future.completeExceptionally(new TransactionExecutionException(this));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets a future that completes once the transaction has completed and the result is audible.
+     * <P>
+     * The future completes with this transaction.
+     * If the transaction failed it completes exceptionally with a {@link TransactionExecutionException}.
+     * Completing the returned future has no effect on the transaction.
+     * <P>
+     * The default implementation registers a new callback using {@link #onAudioComplete(Runnable)} on each call.
+     *
+     * @return The future.
+     */
+    @ApiStatus.Experimental
+    default @NotNull CompletableFuture<@NotNull Transaction> audioFuture() {
+        final @NotNull CompletableFuture<@NotNull Transaction> future = new CompletableFuture<>();
+        onAudioComplete(() -> {
+            if (getError() == null) {
+                future.complete(this);
+            } else {
+                future.completeExceptionally(new TransactionExecutionException(this));
+            }
+        });
+        return future;
+    }
+
     /**
      * Queries whether the transaction has completed the control phase.
      * @return Whether the transaction completed the control phase.
@@ -99,6 +151,28 @@ public interface Transaction extends hasIdentifier, Runnable {
     @Contract(pure = true)
     @Nullable Throwable getError();
 
+    /**
+     * Gets the deadline of this transaction.
+     * If the transaction is not completed by the deadline it fails with {@link CompletionState#TIMEOUT}.
+     * @return The deadline or {@code null}.
+     */
+    @Contract(pure = true)
+    default @Nullable Deadline getDeadline() {
+        return null;
+    }
+
+    /**
+     * Sets the deadline of this transaction.
+     * This must be called before the transaction is run.
+     *
+     * @param deadline The deadline or {@code null}.
+     * @throws UnsupportedOperationException Thrown if this transaction does not support deadlines.
+     * @see Request#withDeadline(Deadline)
+     */
+    default void setDeadline(@Nullable Deadline deadline) {
+        throw new UnsupportedOperationException("Deadlines are not supported by " + getClass().getName());
+    }
+
     /**
      * This runs the actual transaction.
      * This method will block as long as the transaction is running.
@@ -109,12 +183,30 @@ public interface Transaction extends hasIdentifier, Runnable {
     void run();
 
     /**
-     * This is a helper method. It runs {@link #run()} in a thread.
-     * This method returns once the thread has been started and does not block
+     * This is a helper method. It runs {@link #run()} on a {@link TransactionExecutor}.
+     * This method returns once the transaction has been submitted and does not block
      * until the transaction has been completed.
+     * If the executor rejects the transaction it completes with {@link CompletionState#CANCELED}.
      */
     void runInBackground();
 
+    /**
+     * Cancels this transaction.
+     * <P>
+     * If the transaction has not completed the control phase yet, both phases are completed with
+     * {@link CompletionState#CANCELED} and {@link #getError()} returns a {@link io.ybrid.api.util.CanceledException}.
+     * A transaction that has not started yet will not run. A running transaction is aborted,
+     * including any request in flight.
+     * <P>
+     * The default implementation does not support cancellation and returns {@code false}.
+     *
+     * @return Whether the transaction was canceled by this call.
+     */
+    @ApiStatus.Experimental
+    default boolean cancel() {
+        return false;
+    }
+
     /**
      * Asserts that this transaction has been completed successfully.
      * If the transaction has not completed at all (not been started yet or still running)
@@ -140,4 +232,32 @@ public interface Transaction extends hasIdentifier, Runnable {
      * @throws InterruptedException Thrown as by {@link Object#wait()}
      */
     void waitAudioComplete() throws InterruptedException;
+
+    /**
+     * Waits for the transaction to reach the control complete state or the timeout to pass.
+     * <P>
+     * The default implementation waits on {@link #controlFuture()}.
+     *
+     * @param timeout The maximum time to wait.
+     * @return Whether the transaction reached the control complete state.
+     * @throws InterruptedException Thrown if the current thread was interrupted while waiting.
+     */
+    @ApiStatus.Experimental
+    default boolean waitControlComplete(@NotNull Duration timeout) throws InterruptedException {
+        return Futures.waitFor(controlFuture(), timeout);
+    }
+
+    /**
+     * Waits for the transaction to reach the audio complete state or the timeout to pass.
+     * <P>
+     * The default implementation waits on {@link #audioFuture()}.
+     *
+     * @param timeout The maximum time to wait.
+     * @return Whether the transaction reached the audio complete state.
+     * @throws InterruptedException Thrown if the current thread was interrupted while waiting.
+     */
+    @ApiStatus.Experimental
+    default boolean waitAudioComplete(@NotNull Duration timeout) throws InterruptedException {
+        return Futures.waitFor(audioFuture(), timeout);
+    }
 }
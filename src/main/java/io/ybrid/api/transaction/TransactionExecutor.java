@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.transaction;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor used to run {@link Transaction}s in the background.
+ * <P>
+ * This wraps another {@link Executor} and keeps track of how many tasks are waiting and running.
+ * The {@link #getDefault() default} is a bounded pool of daemon threads.
+ * On JDK 21 and later a {@link #newVirtualThreadPerTask() virtual thread per task} executor can be used instead.
+ *
+ * @see Transaction#runInBackground()
+ * @see io.ybrid.api.session.Session#setTransactionExecutor(TransactionExecutor)
+ */
+@ApiStatus.Experimental
+public final class TransactionExecutor implements Executor {
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final @NotNull AtomicInteger threadCounter = new AtomicInteger();
+    private static volatile TransactionExecutor defaultExecutor = null;
+
+    private final @NotNull Executor executor;
+    private final @NotNull AtomicInteger queued = new AtomicInteger();
+    private final @NotNull AtomicInteger active = new AtomicInteger();
+    private final @NotNull AtomicLong completed = new AtomicLong();
+
+    private TransactionExecutor(@NotNull Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the default executor.
+     * Unless set otherwise this is a {@link #newPool(int) pool} with twice as many threads as there are processors,
+     * but at least four.
+     *
+     * @return The default executor.
+     */
+    public static @NotNull TransactionExecutor getDefault() {
+        TransactionExecutor executor = defaultExecutor;
+
+        if (executor == null) {
+            synchronized (TransactionExecutor.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    executor = newPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+                    defaultExecutor = executor;
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Sets the default executor.
+     * This is used by all transactions that are not bound to a session with an executor of its own.
+     *
+     * @param executor The new default executor.
+     */
+    public static void setDefault(@NotNull TransactionExecutor executor) {
+        defaultExecutor = executor;
+    }
+
+    /**
+     * Creates a new executor backed by a pool of daemon threads.
+     * Threads are started as needed up to the given limit and end after being idle for a while.
+     * Tasks submitted while all threads are busy are queued.
+     *
+     * @param threads The maximum number of threads.
+     * @return The new executor.
+     */
+    public static @NotNull TransactionExecutor newPool(int threads) {
+        final @NotNull ThreadPoolExecutor pool;
+
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+
+        pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final @NotNull Thread thread = new Thread(runnable, "Transaction Worker " + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+
+        return new TransactionExecutor(pool);
+    }
+
+    /**
+     * Checks whether {@link #newVirtualThreadPerTask()} is supported by the running JVM.
+     * @return Whether virtual threads are supported.
+     */
+    @Contract(pure = true)
+    public static boolean isVirtualThreadPerTaskSupported() {
+        return VirtualThreads.FACTORY != null;
+    }
+
+    /**
+     * Creates a new executor that starts a new virtual thread for each task.
+     * This requires JDK 21 or later.
+     *
+     * @return The new executor.
+     * @throws UnsupportedOperationException Thrown if virtual threads are not supported by the running JVM.
+     * @see #isVirtualThreadPerTaskSupported()
+     */
+    public static @NotNull TransactionExecutor newVirtualThreadPerTask() throws UnsupportedOperationException {
+        final Method factory = VirtualThreads.FACTORY;
+
+        if (factory == null)
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+
+        try {
+            return new TransactionExecutor((Executor) factory.invoke(null));
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new UnsupportedOperationException("Can not create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Creates a new executor that runs tasks on the given executor.
+     * @param executor The executor to run tasks on.
+     * @return The new executor.
+     */
+    public static @NotNull TransactionExecutor wrap(@NotNull Executor executor) {
+        if (executor instanceof TransactionExecutor)
+            return (TransactionExecutor) executor;
+        return new TransactionExecutor(executor);
+    }
+
+    private final class Task implements Runnable {
+        private final @NotNull Runnable command;
+
+        private Task(@NotNull Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                command.run();
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        queued.incrementAndGet();
+        try {
+            executor.execute(new Task(command));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Removes a task that has been submitted but not yet started.
+     * This is only supported if the underlying executor is a {@link ThreadPoolExecutor}.
+     *
+     * @param command The task as passed to {@link #execute(Runnable)}.
+     * @return Whether the task was removed.
+     */
+    public boolean remove(@NotNull Runnable command) {
+        if (!(executor instanceof ThreadPoolExecutor))
+            return false;
+
+        for (final @NotNull Runnable runnable : ((ThreadPoolExecutor) executor).getQueue()) {
+            if (runnable instanceof Task && ((Task) runnable).command == command) {
+                if (((ThreadPoolExecutor) executor).remove(runnable)) {
+                    queued.decrementAndGet();
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the number of tasks that have been submitted but not yet started.
+     * @return The queue depth.
+     */
+    @Contract(pure = true)
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Gets the number of tasks currently running.
+     * @return The number of active tasks.
+     */
+    @Contract(pure = true)
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Gets the number of tasks that have completed.
+     * @return The number of completed tasks.
+     */
+    @Contract(pure = true)
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionExecutor{" +
+                "executor=" + executor +
+                ", queued=" + queued +
+                ", active=" + active +
+                ", completed=" + completed +
+                '}';
+    }
+
+    private static final class VirtualThreads {
+        // Looked up by reflection as this is built for Java 8.
+        static final Method FACTORY = lookup();
+
+        private static Method lookup() {
+            try {
+                return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
+}
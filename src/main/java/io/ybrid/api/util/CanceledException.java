@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InterruptedIOException;
+
+/**
+ * This exception is thrown if an operation was aborted because it has been {@link Cancellation canceled}.
+ */
+public class CanceledException extends InterruptedIOException {
+    private static final long serialVersionUID = -3207129873391466216L;
+
+    /**
+     * Main constructor.
+     */
+    public CanceledException() {
+        super("Canceled");
+    }
+
+    /**
+     * Creates a new exception with a cause.
+     * @param cause The cause, e.g. the error of the aborted transport.
+     */
+    public CanceledException(@Nullable Throwable cause) {
+        this();
+        initCause(cause);
+    }
+
+    /**
+     * Checks whether the given exception or any of its causes is a {@link CanceledException}.
+     * @param e The exception to check.
+     * @return Whether the operation was canceled.
+     */
+    public static boolean isCausedBy(@Nullable Throwable e) {
+        while (e != null) {
+            if (e instanceof CanceledException)
+                return true;
+            if (e.getCause() == e)
+                break;
+            e = e.getCause();
+        }
+        return false;
+    }
+}
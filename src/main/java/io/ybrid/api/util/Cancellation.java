@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class allows an operation to be canceled from another thread.
+ * <P>
+ * Like a {@link Deadline} a cancellation can be bound to the current thread using {@link #enter()}.
+ * Code that performs I/O can then find it using {@link #current()} and {@link #register(Runnable) register}
+ * a callback that aborts the I/O once the operation is canceled.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Experimental
+public final class Cancellation {
+    private static final @NotNull ThreadLocal<Cancellation> CURRENT = new ThreadLocal<>();
+    private static final @NotNull Registration NO_REGISTRATION = () -> {};
+
+    private final @NotNull Queue<@NotNull Runnable> callbacks = new ConcurrentLinkedQueue<>();
+    private volatile boolean canceled = false;
+
+    /**
+     * A scope in which a cancellation is bound to the current thread.
+     * Closing the scope restores the previously bound cancellation.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final @Nullable Cancellation previous;
+        private boolean closed = false;
+
+        private Scope(@Nullable Cancellation previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * A registered callback. Closing the registration removes the callback.
+     */
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Gets the cancellation bound to the current thread.
+     * @return The cancellation or {@code null} if none is bound.
+     * @see #enter()
+     */
+    public static @Nullable Cancellation current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Registers a callback with the given cancellation.
+     * This is a helper for code that may or may not run with a cancellation.
+     *
+     * @param cancellation The cancellation or {@code null}.
+     * @param callback The callback to register.
+     * @return The registration.
+     */
+    public static @NotNull Registration register(@Nullable Cancellation cancellation, @NotNull Runnable callback) {
+        if (cancellation == null)
+            return NO_REGISTRATION;
+        return cancellation.register(callback);
+    }
+
+    /**
+     * Binds this cancellation to the current thread.
+     * The returned scope must be closed, ideally using a try-with-resources statement.
+     *
+     * @return The scope.
+     */
+    @Contract("-> new")
+    public @NotNull Scope enter() {
+        final @Nullable Cancellation previous = CURRENT.get();
+
+        CURRENT.set(this);
+        return new Scope(previous);
+    }
+
+    /**
+     * Checks whether this has been canceled.
+     * @return Whether this has been canceled.
+     */
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Cancels and runs all registered callbacks.
+     * @return Whether this call canceled. {@code false} if it had already been canceled.
+     */
+    public boolean cancel() {
+        if (canceled)
+            return false;
+
+        synchronized (this) {
+            if (canceled)
+                return false;
+            canceled = true;
+        }
+
+        runCallbacks();
+        return true;
+    }
+
+    /**
+     * Registers a callback to be run once this is canceled.
+     * If this has already been canceled the callback is run before this method returns.
+     *
+     * @param callback The callback to register.
+     * @return The registration. It should be closed once the callback is no longer needed.
+     */
+    public @NotNull Registration register(@NotNull Runnable callback) {
+        callbacks.add(callback);
+        if (canceled)
+            runCallbacks();
+        return () -> callbacks.remove(callback);
+    }
+
+    /**
+     * Throws if this has been canceled.
+     * @throws CanceledException Thrown if this has been canceled.
+     */
+    @ApiStatus.Internal
+    public void assertNotCanceled() throws CanceledException {
+        if (canceled)
+            throw new CanceledException();
+    }
+
+    private void runCallbacks() {
+        @Nullable Runnable callback;
+
+        while ((callback = callbacks.poll()) != null) {
+            try {
+                callback.run();
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a task on an executor each time it is {@link #signal() signaled}.
+ * <P>
+ * Signals that arrive while the task is pending or running are coalesced into a single additional run.
+ * The task never runs concurrently with itself.
+ */
+@ApiStatus.Internal
+public final class CoalescingDispatcher {
+    private static final Logger LOGGER = Logger.getLogger(CoalescingDispatcher.class.getName());
+
+    private final @NotNull Supplier<@NotNull Executor> executor;
+    private final @NotNull Runnable task;
+    private final @NotNull AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Creates a new dispatcher.
+     *
+     * @param executor Supplier of the executor to run the task on. Called for each dispatch.
+     * @param task The task to run.
+     */
+    public CoalescingDispatcher(@NotNull Supplier<@NotNull Executor> executor, @NotNull Runnable task) {
+        this.executor = executor;
+        this.task = task;
+    }
+
+    /**
+     * Signals that the task should run.
+     */
+    public void signal() {
+        if (pending.getAndIncrement() != 0)
+            return;
+
+        try {
+            executor.get().execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.WARNING, "Dispatch rejected by executor", e);
+            pending.set(0);
+        }
+    }
+
+    private void drain() {
+        int missed = pending.get();
+
+        do {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Dispatch failed", e);
+            }
+            missed = pending.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
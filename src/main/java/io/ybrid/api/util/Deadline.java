@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * This class represents a point in time by which an operation must be completed.
+ * <P>
+ * Deadlines are measured using {@link System#nanoTime()} so that changes to the wall clock, e.g. by NTP,
+ * neither expire them early nor extend them. The {@link #getInstant() instant} is derived from the
+ * {@link ClockManager} when the deadline is created. It is only used for display and serialization.
+ * A deserialized deadline expires after the time that was remaining according to the {@link ClockManager}.
+ * <P>
+ * A deadline can be bound to the current thread using {@link #enter()}. Code that performs I/O can then find
+ * the deadline using {@link #current()} and limit its timeouts to the remaining time.
+ */
+public final class Deadline implements Serializable {
+    private static final long serialVersionUID = -2417339524722306118L;
+    private static final @NotNull ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+    /* Keeps differences between values of System.nanoTime() free of overflows. */
+    private static final long MAX_NANOS = Long.MAX_VALUE / 4;
+
+    private final @NotNull Instant instant;
+    private final transient long nanos;
+
+    /**
+     * A scope in which a deadline is bound to the current thread.
+     * Closing the scope restores the previously bound deadline.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final @Nullable Deadline previous;
+        private boolean closed = false;
+
+        private Scope(@Nullable Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    private Deadline(@NotNull Instant instant, long nanos) {
+        this.instant = instant;
+        this.nanos = nanos;
+    }
+
+    private static long toNanos(@NotNull Duration duration) {
+        try {
+            return Math.max(-MAX_NANOS, Math.min(MAX_NANOS, duration.toNanos()));
+        } catch (ArithmeticException e) {
+            return duration.isNegative() ? -MAX_NANOS : MAX_NANOS;
+        }
+    }
+
+    /**
+     * Creates a deadline at the given instant.
+     * The instant is converted to the time remaining according to the {@link ClockManager} at the time of this call.
+     * @param instant The instant as returned by {@link ClockManager#now()}.
+     * @return The new deadline.
+     */
+    @Contract("_ -> new")
+    public static @NotNull Deadline at(@NotNull Instant instant) {
+        return new Deadline(instant, System.nanoTime() + toNanos(Duration.between(ClockManager.now(), instant)));
+    }
+
+    /**
+     * Creates a deadline that expires after the given duration from now.
+     * @param duration The duration.
+     * @return The new deadline.
+     */
+    @Contract("_ -> new")
+    public static @NotNull Deadline after(@NotNull Duration duration) {
+        return new Deadline(ClockManager.now().plus(duration), System.nanoTime() + toNanos(duration));
+    }
+
+    /**
+     * Gets the deadline bound to the current thread.
+     * @return The deadline or {@code null} if none is bound.
+     * @see #enter()
+     */
+    public static @Nullable Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the earlier of two deadlines.
+     * @param a The first deadline or {@code null}.
+     * @param b The second deadline or {@code null}.
+     * @return The earlier deadline or {@code null} if both are {@code null}.
+     */
+    @Contract(pure = true)
+    public static @Nullable Deadline earliest(@Nullable Deadline a, @Nullable Deadline b) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+        return a.nanos - b.nanos > 0 ? b : a;
+    }
+
+    /**
+     * Binds this deadline to the current thread.
+     * If there is already a deadline bound that expires earlier, that one stays in effect.
+     * The returned scope must be closed, ideally using a try-with-resources statement.
+     *
+     * @return The scope.
+     */
+    @Contract("-> new")
+    public @NotNull Scope enter() {
+        final @Nullable Deadline previous = CURRENT.get();
+
+        CURRENT.set(Objects.requireNonNull(earliest(previous, this)));
+        return new Scope(previous);
+    }
+
+    /**
+     * Gets the instant of this deadline.
+     * This is the instant according to the {@link ClockManager} at the time the deadline was created.
+     * @return The instant.
+     */
+    @Contract(pure = true)
+    public @NotNull Instant getInstant() {
+        return instant;
+    }
+
+    /**
+     * Gets the time remaining until this deadline.
+     * @return The remaining time, never negative.
+     */
+    public @NotNull Duration getRemaining() {
+        final long remaining = nanos - System.nanoTime();
+
+        if (remaining <= 0)
+            return Duration.ZERO;
+
+        return Duration.ofNanos(remaining);
+    }
+
+    /**
+     * Checks whether this deadline has passed.
+     * @return Whether this deadline has passed.
+     */
+    public boolean isExpired() {
+        return nanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Limits the given timeout to the time remaining until this deadline.
+     * @param timeout The timeout.
+     * @return The smaller of the timeout and the remaining time.
+     */
+    public @NotNull Duration limit(@NotNull Duration timeout) {
+        final @NotNull Duration remaining = getRemaining();
+
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * Throws if this deadline has passed.
+     * @throws DeadlineExceededException Thrown if this deadline has passed.
+     */
+    @ApiStatus.Internal
+    public void assertNotExpired() throws DeadlineExceededException {
+        if (isExpired())
+            throw new DeadlineExceededException(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return nanos == ((Deadline) o).nanos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(nanos);
+    }
+
+    private @NotNull Object readResolve() {
+        return at(instant);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{" +
+                "instant=" + instant +
+                "}";
+    }
+}
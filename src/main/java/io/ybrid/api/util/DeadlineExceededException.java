@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InterruptedIOException;
+
+/**
+ * This exception is thrown if an operation was aborted because its {@link Deadline} has passed.
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+    private static final long serialVersionUID = 6630658120939244395L;
+
+    private final @NotNull Deadline deadline;
+
+    /**
+     * Main constructor.
+     * @param deadline The deadline that has passed.
+     */
+    public DeadlineExceededException(@NotNull Deadline deadline) {
+        super("Deadline exceeded: " + deadline.getInstant());
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a new exception with a cause.
+     * @param deadline The deadline that has passed.
+     * @param cause The cause, e.g. a timeout of the underlying transport.
+     */
+    public DeadlineExceededException(@NotNull Deadline deadline, @Nullable Throwable cause) {
+        this(deadline);
+        initCause(cause);
+    }
+
+    /**
+     * Gets the deadline that has passed.
+     * @return The deadline.
+     */
+    public @NotNull Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Checks whether the given exception or any of its causes is a {@link DeadlineExceededException}.
+     * @param e The exception to check.
+     * @return Whether a deadline was exceeded.
+     */
+    public static boolean isCausedBy(@Nullable Throwable e) {
+        while (e != null) {
+            if (e instanceof DeadlineExceededException)
+                return true;
+            if (e.getCause() == e)
+                break;
+            e = e.getCause();
+        }
+        return false;
+    }
+}
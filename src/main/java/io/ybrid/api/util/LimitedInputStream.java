@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This {@link InputStream} fails once more than a given number of bytes have been read from it.
+ * It is used to protect against servers sending bodies of unexpected size.
+ */
+@ApiStatus.Internal
+public final class LimitedInputStream extends FilterInputStream {
+    private final long maxLength;
+    private long position = 0;
+    private long mark = 0;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param in The stream to read from.
+     * @param maxLength The maximum number of bytes that may be read.
+     */
+    public LimitedInputStream(@NotNull InputStream in, long maxLength) {
+        super(in);
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Wraps the given stream if a limit is given.
+     *
+     * @param in The stream to wrap.
+     * @param maxLength The maximum number of bytes that may be read or {@code -1} for no limit.
+     * @return The new stream or {@code in} if there is no limit.
+     */
+    public static @NotNull InputStream wrap(@NotNull InputStream in, long maxLength) {
+        if (maxLength < 0)
+            return in;
+        return new LimitedInputStream(in, maxLength);
+    }
+
+    private void account(long length) throws IOException {
+        if (length < 0)
+            return;
+
+        position += length;
+        if (position > maxLength)
+            throw new IOException("Body exceeds maximum size of " + maxLength + " bytes");
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int ret = super.read();
+        if (ret >= 0)
+            account(1);
+        return ret;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final int ret = super.read(b, off, len);
+        account(ret);
+        return ret;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final long ret = super.skip(n);
+        account(ret);
+        return ret;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        super.mark(readlimit);
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        position = mark;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class implements a hashed timer wheel.
+ * <P>
+ * A timer wheel handles a large number of timers with low overhead, at the cost of precision:
+ * timers fire on the first tick at or after their deadline.
+ * This makes it suitable for tasks such as refreshing thousands of sessions.
+ * <P>
+ * All timers are handled by a single daemon thread that is started with the first timer.
+ * Tasks are run on the given {@link Executor} and should not block if the executor runs them directly.
+ * <P>
+ * This class is thread-safe.
+ */
+@ApiStatus.Internal
+public final class TimerWheel implements AutoCloseable {
+    static final Logger LOGGER = Logger.getLogger(TimerWheel.class.getName());
+
+    /**
+     * The default duration of a tick.
+     */
+    public static final @NotNull Duration DEFAULT_TICK = Duration.ofMillis(100);
+    /**
+     * The default number of buckets of the wheel.
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final @NotNull AtomicInteger wheelCounter = new AtomicInteger();
+
+    private final long tickNanos;
+    private final int mask;
+    private final @NotNull List<Queue<Timer>> buckets;
+    private final @NotNull Queue<Timer> pending = new ConcurrentLinkedQueue<>();
+    private final @NotNull Executor executor;
+    private final @NotNull Thread thread;
+    private final @NotNull AtomicBoolean started = new AtomicBoolean(false);
+    private final long startTime = System.nanoTime();
+    private volatile boolean closed = false;
+    private long tick = 0;
+
+    /**
+     * A timer scheduled on a {@link TimerWheel}.
+     */
+    public static final class Timer {
+        private static final int STATE_SCHEDULED = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private final @NotNull Runnable task;
+        private final long deadline;
+        private final @NotNull AtomicInteger state = new AtomicInteger(STATE_SCHEDULED);
+        private long rounds;
+
+        private Timer(@NotNull Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels this timer.
+         * @return Whether the timer was cancelled before it expired.
+         */
+        public boolean cancel() {
+            return state.compareAndSet(STATE_SCHEDULED, STATE_CANCELLED);
+        }
+
+        /**
+         * Returns whether this timer has been cancelled.
+         * @return Whether this timer has been cancelled.
+         */
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        /**
+         * Returns whether this timer has expired and its task was started.
+         * @return Whether this timer has expired.
+         */
+        public boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+    }
+
+    /**
+     * Creates a new timer wheel with default settings.
+     *
+     * @param executor The executor to run tasks on.
+     */
+    public TimerWheel(@NotNull Executor executor) {
+        this(executor, DEFAULT_TICK, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates a new timer wheel.
+     *
+     * @param executor The executor to run tasks on.
+     * @param tick The duration of a tick. This is the precision of the timers.
+     * @param wheelSize The number of buckets. This is rounded up to the next power of two.
+     */
+    public TimerWheel(@NotNull Executor executor, @NotNull Duration tick, int wheelSize) {
+        int size = 1;
+
+        if (tick.isZero() || tick.isNegative())
+            throw new IllegalArgumentException("Invalid tick: " + tick);
+        if (wheelSize < 1 || wheelSize > (1 << 30))
+            throw new IllegalArgumentException("Invalid wheel size: " + wheelSize);
+
+        while (size < wheelSize)
+            size <<= 1;
+
+        this.executor = executor;
+        this.tickNanos = tick.toNanos();
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            buckets.add(new ArrayDeque<>());
+
+        this.thread = new Thread(this::run, "Timer Wheel " + wheelCounter.incrementAndGet());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param task The task to run.
+     * @param delay The delay after which the task is run.
+     * @return The new timer.
+     * @throws IllegalStateException Thrown if this wheel has been closed.
+     */
+    @Contract("_, _ -> new")
+    public @NotNull Timer schedule(@NotNull Runnable task, @NotNull Duration delay) {
+        final @NotNull Timer timer;
+
+        if (closed)
+            throw new IllegalStateException("Timer wheel is closed");
+
+        if (started.compareAndSet(false, true))
+            thread.start();
+
+        timer = new Timer(task, System.nanoTime() - startTime + Math.max(0, delay.toNanos()));
+        pending.add(timer);
+        return timer;
+    }
+
+    /**
+     * Gets the duration of a tick.
+     * @return The duration of a tick.
+     */
+    @Contract(pure = true)
+    public @NotNull Duration getTick() {
+        return Duration.ofNanos(tickNanos);
+    }
+
+    /**
+     * Stops this wheel. Timers that did not yet expire will not run.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (!closed) {
+            final long deadline = tickNanos * (tick + 1);
+            final long sleepNanos = deadline - (System.nanoTime() - startTime);
+
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
+                } catch (InterruptedException e) {
+                    if (closed)
+                        return;
+                    continue;
+                }
+            }
+
+            transferPending();
+            expire(buckets.get((int) (tick & mask)), deadline);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        @NotNull Timer timer;
+
+        while ((timer = pending.poll()) != null) {
+            final long expiryTick;
+
+            if (timer.isCancelled())
+                continue;
+
+            // Timers that are already due go into the current bucket.
+            expiryTick = Math.max(timer.deadline / tickNanos, tick);
+            timer.rounds = (expiryTick - tick) / buckets.size();
+            buckets.get((int) (expiryTick & mask)).add(timer);
+        }
+    }
+
+    private void expire(@NotNull Queue<Timer> bucket, long deadline) {
+        final @NotNull Iterator<Timer> iterator = bucket.iterator();
+
+        while (iterator.hasNext()) {
+            final @NotNull Timer timer = iterator.next();
+
+            if (timer.isCancelled()) {
+                iterator.remove();
+            } else if (timer.rounds > 0) {
+                timer.rounds--;
+            } else if (timer.deadline <= deadline) {
+                iterator.remove();
+                if (timer.state.compareAndSet(Timer.STATE_SCHEDULED, Timer.STATE_EXPIRED)) {
+                    try {
+                        executor.execute(timer.task);
+                    } catch (RejectedExecutionException e) {
+                        LOGGER.log(Level.WARNING, "Timer task rejected by executor", e);
+                    }
+                }
+            }
+        }
+    }
+}
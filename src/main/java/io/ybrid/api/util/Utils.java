@@ -27,14 +27,18 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 
 /**
@@ -42,14 +46,58 @@ import java.util.function.Function;
  * It should not be used outside the Ybrid ecosystem.
  */
 public final class Utils {
-    private static ByteArrayOutputStream slurp(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream result = new ByteArrayOutputStream();
-        byte[] buffer = new byte[1024];
-        int length;
-        while ((length = inputStream.read(buffer)) != -1) {
-            result.write(buffer, 0, length);
+    private static final int SLURP_BUFFER_SIZE = 8192;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int MAX_PRESIZE = 1024 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+    private static final @NotNull ThreadLocal<byte[]> SLURP_BUFFER = ThreadLocal.withInitial(() -> new byte[SLURP_BUFFER_SIZE]);
+
+    private static final class Slurped {
+        private final byte[] data;
+        private final int length;
+
+        private Slurped(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    private static void assertBodySize(long length, long maxLength) throws IOException {
+        if ((maxLength >= 0 && length > maxLength) || length > MAX_ARRAY_SIZE)
+            throw new IOException("Body exceeds maximum size of " + (maxLength >= 0 ? maxLength : MAX_ARRAY_SIZE) + " bytes");
+    }
+
+    private static @NotNull Slurped slurp(@NotNull InputStream inputStream, long expectedLength, long maxLength) throws IOException {
+        byte[] result = EMPTY;
+        int length = 0;
+        int ret;
+
+        if (expectedLength > 0) {
+            assertBodySize(expectedLength, maxLength);
+
+            // We read directly into the final array. In the common case this is the only allocation.
+            // We do not trust huge announced sizes unless the caller accepts them explicitly.
+            result = new byte[(int) Math.min(expectedLength, Math.max(maxLength, MAX_PRESIZE))];
+            while (length < result.length) {
+                ret = inputStream.read(result, length, result.length - length);
+                if (ret == -1)
+                    return new Slurped(result, length);
+                length += ret;
+            }
+        }
+
+        // Either the length was unknown or the server sent more than announced.
+        // We read using a per-thread buffer so we only allocate for growing the result.
+        final byte[] buffer = SLURP_BUFFER.get();
+        while ((ret = inputStream.read(buffer)) != -1) {
+            assertBodySize((long) length + ret, maxLength);
+            if (length + ret > result.length)
+                result = Arrays.copyOf(result, (int) Math.min(MAX_ARRAY_SIZE, Math.max((long) length + ret, Math.max(SLURP_BUFFER_SIZE, result.length * 2L))));
+            System.arraycopy(buffer, 0, result, length, ret);
+            length += ret;
         }
-        return result;
+
+        return new Slurped(result, length);
     }
 
     /**
@@ -61,8 +109,23 @@ public final class Utils {
      * @throws IOException Thrown on I/O-Error on the {@code inputStream}.
      */
     public static String slurpToString(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream result = slurp(inputStream);
-        return result.toString(StandardCharsets.UTF_8.name());
+        return slurpToString(inputStream, -1, -1);
+    }
+
+    /**
+     * Slurps a {@link InputStream} into a {@link String}.
+     * The encoding is expected to be UTF-8.
+     *
+     * @param inputStream The input stream to slurp.
+     * @param expectedLength The expected length in bytes (e.g. from {@code Content-Length}) or {@code -1} if unknown.
+     * @param maxLength The maximum length in bytes to accept or {@code -1} for no limit.
+     * @return The content of the input stream as {@link String}.
+     * @throws IOException Thrown on I/O-Error on the {@code inputStream} or if {@code maxLength} was exceeded.
+     */
+    @ApiStatus.Internal
+    public static @NotNull String slurpToString(@NotNull InputStream inputStream, long expectedLength, long maxLength) throws IOException {
+        final @NotNull Slurped result = slurp(inputStream, expectedLength, maxLength);
+        return new String(result.data, 0, result.length, StandardCharsets.UTF_8);
     }
 
     /**
@@ -74,8 +137,26 @@ public final class Utils {
      * @throws IOException Thrown on I/O-Error on the {@code inputStream}.
      */
     public static byte[] slurpToByteArray(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream result = slurp(inputStream);
-        return result.toByteArray();
+        final @NotNull Slurped result = slurp(inputStream, -1, -1);
+
+        if (result.length == result.data.length)
+            return result.data;
+        return Arrays.copyOf(result.data, result.length);
+    }
+
+    /**
+     * Slurps a {@link InputStream} into memory and returns a new {@link InputStream} for the data.
+     *
+     * @param inputStream The input stream to slurp.
+     * @param expectedLength The expected length in bytes (e.g. from {@code Content-Length}) or {@code -1} if unknown.
+     * @param maxLength The maximum length in bytes to accept or {@code -1} for no limit.
+     * @return The stream for the buffered content.
+     * @throws IOException Thrown on I/O-Error on the {@code inputStream} or if {@code maxLength} was exceeded.
+     */
+    @ApiStatus.Internal
+    public static @NotNull ByteArrayInputStream slurpToInputStream(@NotNull InputStream inputStream, long expectedLength, long maxLength) throws IOException {
+        final @NotNull Slurped result = slurp(inputStream, expectedLength, maxLength);
+        return new ByteArrayInputStream(result.data, 0, result.length);
     }
 
     /**
@@ -168,6 +249,50 @@ public final class Utils {
         return transformer.apply(input);
     }
 
+    /**
+     * Creates a {@link CompletableFuture} that is already completed exceptionally.
+     * @param throwable The exception to complete the future with.
+     * @param <T> The type of the future.
+     * @return The new future.
+     */
+    @Contract("_ -> new")
+    public static <T> @NotNull CompletableFuture<T> failedFuture(@NotNull Throwable throwable) {
+        final @NotNull CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    /**
+     * Waits for a {@link CompletableFuture} to complete and returns its result.
+     * If the future completed exceptionally with an {@link IOException} or an unchecked exception
+     * that exception is rethrown as is.
+     *
+     * @param future The future to wait for.
+     * @param <T> The type of the future.
+     * @return The result of the future.
+     * @throws IOException Thrown if the future completed with an {@link IOException} or the thread was interrupted.
+     */
+    @ApiStatus.Internal
+    public static <T> T getIO(@NotNull CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.toString());
+        } catch (ExecutionException e) {
+            final @NotNull Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
     /**
      * This returns the first non-{@code null} value passed or {@code null} if no non-{@code null} values are passed.
      * @param inputs The values to check.
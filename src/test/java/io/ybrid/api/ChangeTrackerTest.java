@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class ChangeTrackerTest {
+    @Test
+    public void independentConsumers() {
+        final @NotNull ChangeTracker tracker = new ChangeTracker();
+        final @NotNull ChangeTracker.Cursor a = tracker.getCursor();
+        ChangeTracker.Cursor b = tracker.getCursor();
+        ChangeTracker.Changes changes;
+
+        assertTrue(tracker.changesSince(a).isEmpty());
+
+        tracker.markChanged(SubInfo.METADATA);
+        tracker.markChanged(SubInfo.PLAYOUT);
+        assertEquals(1, tracker.getVersion(SubInfo.METADATA));
+
+        changes = tracker.changesSince(b);
+        assertEquals(EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT), changes.getChanged());
+        b = changes.getCursor();
+        assertTrue(tracker.changesSince(b).isEmpty());
+
+        // Consumer a did not read yet, so it must still see the changes.
+        assertTrue(tracker.changesSince(a).contains(SubInfo.METADATA));
+
+        tracker.markChanged(SubInfo.BOUQUET);
+        assertEquals(EnumSet.of(SubInfo.BOUQUET), tracker.changesSince(b).getChanged());
+        assertEquals(EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT, SubInfo.BOUQUET), tracker.changesSince(a).getChanged());
+    }
+
+    @Test
+    public void foreignCursor() {
+        assertThrows(IllegalArgumentException.class, () -> new ChangeTracker().changesSince(new ChangeTracker().getCursor()));
+    }
+
+    @Test
+    public void noLostChanges() throws InterruptedException {
+        final @NotNull ChangeTracker tracker = new ChangeTracker();
+        final int rounds = 10_000;
+        final @NotNull Thread writer = new Thread(() -> {
+            for (int i = 0; i < rounds; i++)
+                tracker.markChanged(SubInfo.METADATA);
+        });
+        ChangeTracker.Cursor cursor = tracker.getCursor();
+        long seen = 0;
+
+        writer.start();
+        while (writer.isAlive() || !tracker.changesSince(cursor).isEmpty()) {
+            final @NotNull ChangeTracker.Changes changes = tracker.changesSince(cursor);
+            cursor = changes.getCursor();
+            if (changes.contains(SubInfo.METADATA))
+                seen = cursor.getVersion(SubInfo.METADATA);
+        }
+        writer.join();
+
+        assertEquals(rounds, seen);
+    }
+}
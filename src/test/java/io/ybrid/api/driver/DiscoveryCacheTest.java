@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver;
+
+import io.ybrid.api.MediaProtocol;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class DiscoveryCacheTest {
+    private static final @NotNull URI ENDPOINT = URI.create("https://example.org/adaptive-demo");
+    private static final @NotNull URI BASE_URI = URI.create("https://edge.example.org/adaptive-demo");
+
+    @Rule
+    public final @NotNull TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void getAndPut() {
+        final @NotNull DiscoveryCache cache = new DiscoveryCache();
+        final DiscoveryCache.Entry entry;
+
+        assertNull(cache.get(ENDPOINT));
+        cache.put(ENDPOINT, EnumSet.of(MediaProtocol.YBRID_V2_BETA), "OPTIONS", BASE_URI);
+
+        entry = cache.get(ENDPOINT);
+        assertNotNull(entry);
+        assertFalse(entry.isNegative());
+        assertEquals(EnumSet.of(MediaProtocol.YBRID_V2_BETA), entry.getProtocols());
+        assertEquals(BASE_URI, entry.getBaseURI());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.invalidate(ENDPOINT);
+        assertNull(cache.get(ENDPOINT));
+    }
+
+    @Test
+    public void negative() {
+        final @NotNull DiscoveryCache cache = new DiscoveryCache(Duration.ofMinutes(1), Duration.ZERO, null);
+
+        cache.putNegative(ENDPOINT);
+        assertNull(cache.get(ENDPOINT));
+
+        final @NotNull DiscoveryCache other = new DiscoveryCache();
+        other.putNegative(ENDPOINT);
+        final DiscoveryCache.Entry entry = other.get(ENDPOINT);
+        assertNotNull(entry);
+        assertTrue(entry.isNegative());
+        assertNull(entry.getProtocols());
+    }
+
+    @Test
+    public void file() throws IOException {
+        final @NotNull File file = new File(folder.getRoot(), "discovery.json");
+        final @NotNull DiscoveryCache cache = new DiscoveryCache(Duration.ofMinutes(1), Duration.ofMinutes(1), file);
+        final @NotNull DiscoveryCache restored;
+        final DiscoveryCache.Entry entry;
+
+        cache.put(ENDPOINT, EnumSet.of(MediaProtocol.YBRID_V1, MediaProtocol.ICY), "OPTIONS", BASE_URI);
+        cache.putNegative(URI.create("https://example.org/broken"));
+        assertTrue(file.exists());
+
+        restored = new DiscoveryCache(Duration.ofMinutes(1), Duration.ofMinutes(1), file);
+        assertEquals(2, restored.getSize());
+
+        entry = restored.get(ENDPOINT);
+        assertNotNull(entry);
+        assertEquals(EnumSet.of(MediaProtocol.YBRID_V1, MediaProtocol.ICY), entry.getProtocols());
+        assertEquals("OPTIONS", entry.getMethod());
+        assertEquals(BASE_URI, entry.getBaseURI());
+
+        final DiscoveryCache.Entry negative = restored.get(URI.create("https://example.org/broken"));
+        assertNotNull(negative);
+        assertTrue(negative.isNegative());
+    }
+}
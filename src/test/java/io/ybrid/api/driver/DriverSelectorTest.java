@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.ybrid.api.MediaEndpoint;
+import io.ybrid.api.driver.http.LatencyTracker;
+import io.ybrid.api.session.Session;
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DriverSelectorTest {
+    /* A delay of this means the server never answers. */
+    private static final long STALL = -1;
+
+    private final @NotNull CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+    private URI uri;
+    private volatile long optionsDelay = 0;
+    private volatile @Nullable String optionsVersion = null;
+    private volatile long v2Delay = 0;
+    private volatile @Nullable String v2Version = null;
+
+    private void respond(@NotNull HttpExchange exchange, long delay, @Nullable String version) throws IOException {
+        try {
+            if (delay == STALL) {
+                stopped.await();
+            } else {
+                Thread.sleep(delay);
+            }
+        } catch (InterruptedException ignored) {
+        }
+
+        if (version == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        final byte[] body = ("{\"__responseHeader\": {\"supportedVersions\": [\"" + version + "\"]}, \"__responseObject\": {}}").getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (final @NotNull OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> respond(exchange, optionsDelay, optionsVersion));
+        server.createContext("/ctrl/v2/session/info", exchange -> respond(exchange, v2Delay, v2Version));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    @After
+    public void tearDown() {
+        stopped.countDown();
+        server.stop(0);
+    }
+
+    private @NotNull Driver getFactory() throws IOException {
+        return DriverSelector.getFactory(new MediaEndpoint(uri).createSession());
+    }
+
+    private @NotNull String getCachedMethod() {
+        final @Nullable DiscoveryCache.Entry entry = Objects.requireNonNull(DiscoveryCache.getDefault()).get(uri);
+
+        assertNotNull(entry);
+        return Objects.requireNonNull(entry.getMethod());
+    }
+
+    @Test
+    public void race() throws Exception {
+        final @NotNull LatencyTracker optionsLatency = DriverSelector.getProbeLatencyTracker(DriverSelector.PROBE_OPTIONS);
+        final long optionsProbes = optionsLatency.getCount();
+        final long start = System.nanoTime();
+        final long end;
+
+        optionsDelay = STALL;
+        v2Version = "v1";
+
+        // The stalled OPTIONS probe must not hold up the answer of the v2 probe until it times out after three seconds.
+        assertTrue(getFactory() instanceof io.ybrid.api.driver.ybrid.v1.Driver);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2500));
+        assertEquals(DriverSelector.PROBE_YBRID_V2, getCachedMethod());
+
+        // The OPTIONS probe is aborted rather than left running until its timeout.
+        end = System.currentTimeMillis() + 1000;
+        while (optionsLatency.getCount() == optionsProbes) {
+            if (System.currentTimeMillis() > end)
+                fail("OPTIONS probe not aborted");
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void precedence() throws Exception {
+        optionsDelay = 100;
+        optionsVersion = "v1";
+        v2Version = "v2";
+
+        // The OPTIONS probe answers within the grace period, so it wins over the faster v2 probe.
+        assertTrue(getFactory() instanceof io.ybrid.api.driver.ybrid.v1.Driver);
+        assertEquals(DriverSelector.PROBE_OPTIONS, getCachedMethod());
+    }
+
+    @Test
+    public void fallback() throws Exception {
+        final @Nullable DiscoveryCache.Entry entry;
+
+        assertTrue(getFactory() instanceof io.ybrid.api.driver.plain.Driver);
+
+        entry = Objects.requireNonNull(DiscoveryCache.getDefault()).get(uri);
+        assertNotNull(entry);
+        assertTrue(entry.isNegative());
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        final @NotNull Cancellation cancellation = new Cancellation();
+        final @NotNull Thread canceler = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            cancellation.cancel();
+        });
+        final @NotNull Cancellation.Scope scope;
+        final long start = System.nanoTime();
+
+        optionsDelay = STALL;
+        v2Delay = STALL;
+
+        canceler.setDaemon(true);
+        canceler.start();
+        scope = cancellation.enter();
+        try {
+            getFactory();
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.toString(), CanceledException.isCausedBy(e));
+        } finally {
+            scope.close();
+        }
+
+        // The discovery did not finish, so nothing must have been cached.
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+        assertNull(Objects.requireNonNull(DiscoveryCache.getDefault()).get(uri));
+    }
+}
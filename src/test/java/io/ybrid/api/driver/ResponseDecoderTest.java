@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver;
+
+import org.jetbrains.annotations.NotNull;
+import org.json.JSONException;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResponseDecoderTest {
+    @Test
+    public void forEachMember() {
+        final @NotNull JSONTokener tokener = new JSONTokener("{\"a\": {\"x\": [1, \"}]\", {\"y\": null}]}, 'b': true, \"c\": \"v\", }");
+        final @NotNull List<String> keys = new ArrayList<>();
+
+        ResponseDecoder.forEachMember(tokener, (key, value) -> {
+            keys.add(key);
+            if (key.equals("c")) {
+                assertEquals("v", value.nextValue());
+            } else {
+                ResponseDecoder.skipValue(value);
+            }
+        });
+
+        assertEquals(3, keys.size());
+        assertEquals("a", keys.get(0));
+        assertEquals("b", keys.get(1));
+        assertEquals("c", keys.get(2));
+        assertEquals(0, tokener.nextClean());
+    }
+
+    @Test(expected = JSONException.class)
+    public void truncated() {
+        ResponseDecoder.forEachMember(new JSONTokener("{\"a\": [1, 2"), (key, value) -> ResponseDecoder.skipValue(value));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+    @Test
+    public void openAndRecover() throws Exception {
+        final @NotNull CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMillis(50));
+        final @NotNull URL url = new URL("http://example.org/a");
+        final @NotNull URI uri = URI.create("http://example.org/");
+
+        circuitBreaker.acquire(url).failure();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(uri));
+        circuitBreaker.acquire(url).failure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(uri));
+
+        try {
+            circuitBreaker.acquire(url);
+            fail();
+        } catch (CircuitOpenException ignored) {
+        }
+        assertEquals(1, circuitBreaker.getRejected(uri));
+
+        // Other hosts are not affected.
+        circuitBreaker.acquire(new URL("http://example.com/")).success();
+
+        Thread.sleep(100);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(uri));
+        final @NotNull CircuitBreaker.Permit probe = circuitBreaker.acquire(url);
+
+        // Only a single probe is permitted.
+        try {
+            circuitBreaker.acquire(url);
+            fail();
+        } catch (CircuitOpenException ignored) {
+        }
+
+        probe.success();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(uri));
+        circuitBreaker.acquire(url).success();
+    }
+
+    @Test
+    public void failedProbe() throws Exception {
+        final @NotNull CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(10));
+        final @NotNull URL url = new URL("http://example.org/");
+
+        circuitBreaker.acquire(url).failure();
+        Thread.sleep(50);
+        circuitBreaker.acquire(url).failure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getStates().get(ConnectionPool.key(url)));
+    }
+}
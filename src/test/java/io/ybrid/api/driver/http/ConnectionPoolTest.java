@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.JSONRequest;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class ConnectionPoolTest {
+    private static final @NotNull Duration TIMEOUT = Duration.ofMillis(100);
+
+    @Test
+    public void key() throws IOException {
+        assertEquals("http://example.org:80", ConnectionPool.key(new URL("http://example.org/a")));
+        assertEquals("https://example.org:443", ConnectionPool.key(new URL("https://EXAMPLE.org/b")));
+        assertEquals("http://example.org:8080", ConnectionPool.key(new URL("http://example.org:8080/")));
+    }
+
+    @Test
+    public void reuse() throws IOException {
+        final @NotNull ConnectionPool pool = new ConnectionPool(2, 1, Duration.ofMinutes(1));
+        final @NotNull URL url = new URL("http://example.org/");
+        final @NotNull ConnectionPool.Lease first = pool.acquire(url, TIMEOUT);
+        final @NotNull ConnectionPool.Lease second;
+
+        assertFalse(first.isWarm());
+        first.release(true);
+        first.release(true);
+        assertEquals(1, pool.getStatistics().getIdle());
+
+        second = pool.acquire(url, TIMEOUT);
+        assertTrue(second.isWarm());
+        second.release(false);
+
+        assertEquals(1, pool.getStatistics().getWarmLeases());
+        assertEquals(1, pool.getStatistics().getColdLeases());
+        assertEquals(0, pool.getStatistics().getIdle());
+        assertEquals(0, pool.getStatistics().getLeased());
+    }
+
+    @Test
+    public void limit() throws IOException {
+        final @NotNull ConnectionPool pool = new ConnectionPool(1, 1, Duration.ofMinutes(1));
+        final @NotNull URL url = new URL("http://example.org/");
+        final @NotNull ConnectionPool.Lease lease = pool.acquire(url, TIMEOUT);
+        final @NotNull CompletableFuture<ConnectionPool.Lease> waiter = pool.acquireAsync(url);
+
+        assertFalse(waiter.isDone());
+        try {
+            pool.acquire(url, TIMEOUT);
+            fail();
+        } catch (IOException ignored) {
+        }
+
+        // Long-lived requests are not limited by the pool.
+        final @NotNull JSONRequest longLived = new JSONRequest(url, "GET");
+        longLived.setLongLived(true);
+        pool.acquire(longLived).release(true);
+        assertTrue(pool.acquireAsync(longLived).isDone());
+        assertEquals(1, pool.getStatistics().getLeased());
+        assertEquals(0, pool.getStatistics().getIdle());
+
+        lease.release(true);
+        assertTrue(waiter.isDone());
+        assertTrue(waiter.join().isWarm());
+        waiter.join().release(true);
+        assertEquals(0, pool.getStatistics().getLeased());
+    }
+
+    @Test
+    public void evictIdle() throws IOException, InterruptedException {
+        final @NotNull ConnectionPool pool = new ConnectionPool(4, 4, Duration.ofMillis(1));
+        final @NotNull URL url = new URL("http://example.org/");
+
+        pool.acquire(url, TIMEOUT).release(true);
+        Thread.sleep(10);
+        pool.evictIdle();
+        assertEquals(0, pool.getStatistics().getIdle());
+        assertEquals(1, pool.getStatistics().getEvictions());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.util.Cancellation;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HedgingPolicyTest {
+    private static final @NotNull String KEY = "test";
+
+    @Test
+    public void percentile() {
+        final @NotNull LatencyTracker tracker = new LatencyTracker(100);
+
+        assertNull(tracker.getPercentile(0.95));
+        for (int i = 1; i <= 200; i++)
+            tracker.recordNanos(i);
+
+        assertEquals(100, tracker.getSize());
+        assertEquals(200, tracker.getCount());
+        assertEquals(Duration.ofNanos(195), tracker.getPercentile(0.95));
+        assertEquals(Duration.ofNanos(101), tracker.getPercentile(0));
+        assertEquals(Duration.ofNanos(200), tracker.getPercentile(1));
+    }
+
+    @Test
+    public void fastPrimary() throws Exception {
+        final @NotNull HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ofMillis(10), Duration.ofMillis(50));
+        final @NotNull AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("ok", policy.execute(KEY, () -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture("ok");
+        }).get(1, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+        assertEquals(1, attempts.get());
+        assertEquals(0, policy.getHedgesFired());
+        assertEquals(1, policy.getLatencyTracker(KEY).getCount());
+    }
+
+    @Test
+    public void slowPrimary() throws Exception {
+        final @NotNull HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ofMillis(10), Duration.ofMillis(20));
+        final @NotNull CompletableFuture<String> primary = new CompletableFuture<>();
+        final @NotNull AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("hedge", policy.execute(KEY, () -> {
+            if (attempts.incrementAndGet() == 1)
+                return primary;
+            return CompletableFuture.completedFuture("hedge");
+        }).get(1, TimeUnit.SECONDS));
+
+        assertEquals(2, attempts.get());
+        assertEquals(1, policy.getHedgesFired());
+        assertEquals(1, policy.getHedgesWon());
+        assertTrue(primary.isCancelled());
+    }
+
+    @Test
+    public void cancellation() throws Exception {
+        final @NotNull HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ofMillis(10), Duration.ofMillis(20));
+        final @NotNull Cancellation cancellation = new Cancellation();
+        final @NotNull List<Cancellation> seen = new CopyOnWriteArrayList<>();
+        final @NotNull CompletableFuture<String> result;
+
+        // The hedged attempt is started on another thread but must still see the cancellation of the caller.
+        try (Cancellation.Scope ignored = cancellation.enter()) {
+            result = policy.execute(KEY, () -> {
+                seen.add(Cancellation.current());
+                if (seen.size() == 1)
+                    return new CompletableFuture<>();
+                return CompletableFuture.completedFuture("hedge");
+            });
+        }
+
+        assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(cancellation, cancellation), seen);
+
+        // Once canceled no hedge is fired.
+        cancellation.cancel();
+        try (Cancellation.Scope ignored = cancellation.enter()) {
+            policy.execute(KEY, CompletableFuture::new);
+        }
+        Thread.sleep(100);
+        assertEquals(1, policy.getHedgesFired());
+    }
+
+    @Test
+    public void failures() throws Exception {
+        final @NotNull HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ofMillis(10), Duration.ofMillis(20));
+        final @NotNull CompletableFuture<String> primary = new CompletableFuture<>();
+        final @NotNull AtomicInteger attempts = new AtomicInteger();
+        final @NotNull CompletableFuture<String> result = policy.execute(KEY, () -> {
+            final @NotNull CompletableFuture<String> ret = new CompletableFuture<>();
+
+            if (attempts.incrementAndGet() == 1)
+                return primary;
+            ret.completeExceptionally(new IOException("hedge failed"));
+            return ret;
+        });
+
+        // The primary is still running, so the failing hedge must not fail the result.
+        Thread.sleep(100);
+        assertFalse(result.isDone());
+
+        primary.completeExceptionally(new IOException("primary failed"));
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+}
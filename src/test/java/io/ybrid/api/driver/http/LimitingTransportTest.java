@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.JSONRequest;
+import io.ybrid.api.util.Deadline;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LimitingTransportTest {
+    private static @NotNull Response newResponse() {
+        return new Response(200, "OK", null, new ByteArrayInputStream(new byte[0]), null);
+    }
+
+    @Test
+    public void limit() throws Exception {
+        final @NotNull CompletableFuture<Response> pending = new CompletableFuture<>();
+        final @NotNull Transport slow = new Transport() {
+            @Override
+            public @NotNull Response execute(@NotNull io.ybrid.api.driver.Request request, io.ybrid.api.util.QualityMap.MediaTypeMap accepted) {
+                return newResponse();
+            }
+
+            @Override
+            public @NotNull CompletableFuture<Response> executeAsync(@NotNull io.ybrid.api.driver.Request request, io.ybrid.api.util.QualityMap.MediaTypeMap accepted) {
+                return pending;
+            }
+        };
+        final @NotNull LimitingTransport transport = new LimitingTransport(slow, 1);
+        final @NotNull JSONRequest request = new JSONRequest(new URL("http://example.org/"), "GET");
+        final @NotNull CompletableFuture<Response> first;
+        final @NotNull CompletableFuture<Response> second;
+
+        first = transport.executeAsync(request, null);
+        second = transport.executeAsync(request, null);
+        assertEquals(1, transport.getInFlight());
+        assertEquals(1, transport.getWaiting());
+
+        // Long-lived requests do not take a slot.
+        final @NotNull JSONRequest longLived = new JSONRequest(new URL("http://example.org/"), "GET");
+        longLived.setLongLived(true);
+        try (final @NotNull Response response = transport.execute(longLived, null)) {
+            assertNotNull(response);
+            assertEquals(1, transport.getInFlight());
+        }
+        assertEquals(1, transport.getWaiting());
+
+        // The synchronous path gives up after the timeout of the request.
+        request.setDeadline(Deadline.after(Duration.ofMillis(10)));
+        assertThrows(IOException.class, () -> transport.execute(request, null));
+        assertEquals(1, transport.getRejected());
+
+        request.setDeadline(null);
+        pending.complete(newResponse());
+        assertNotNull(first.get(1, TimeUnit.SECONDS));
+        assertNotNull(second.get(1, TimeUnit.SECONDS));
+        assertEquals(0, transport.getInFlight());
+        assertEquals(2, transport.getExecuted());
+
+        // A slot is held until the response is closed.
+        try (final @NotNull Response response = transport.execute(request, null)) {
+            assertNotNull(response);
+            assertEquals(1, transport.getInFlight());
+        }
+        assertEquals(0, transport.getInFlight());
+    }
+}
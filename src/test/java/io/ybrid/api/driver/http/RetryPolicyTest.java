@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.driver.JSONRequest;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URL;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+    @Test
+    public void shouldRetry() throws IOException {
+        final @NotNull RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(1), 0);
+        final @NotNull JSONRequest request = new JSONRequest(new URL("http://example.org/"), "POST");
+
+        assertFalse(request.isIdempotent());
+        assertFalse(policy.shouldRetry(request, 1, 503, null));
+        assertFalse(policy.shouldRetry(request, 1, -1, new IOException()));
+        assertTrue(policy.shouldRetry(request, 1, -1, new ConnectException()));
+
+        request.setIdempotent(true);
+        assertTrue(policy.shouldRetry(request, 1, 503, null));
+        assertTrue(policy.shouldRetry(request, 2, -1, new IOException()));
+        assertFalse(policy.shouldRetry(request, 3, -1, new IOException()));
+        assertFalse(policy.shouldRetry(request, 1, 404, null));
+        assertFalse(policy.shouldRetry(request, 1, -1, new CircuitOpenException("http://example.org:80")));
+    }
+
+    @Test
+    public void backoff() {
+        final @NotNull RetryPolicy policy = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofSeconds(1), 0);
+        final @NotNull RetryPolicy jittered = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofSeconds(1), 1);
+
+        assertEquals(Duration.ofMillis(100), policy.getBackoff(1));
+        assertEquals(Duration.ofMillis(200), policy.getBackoff(2));
+        assertEquals(Duration.ofMillis(400), policy.getBackoff(3));
+        assertEquals(Duration.ofSeconds(1), policy.getBackoff(5));
+        assertEquals(Duration.ofSeconds(1), policy.getBackoff(1000));
+
+        for (int i = 0; i < 100; i++) {
+            final @NotNull Duration backoff = jittered.getBackoff(3);
+            assertFalse(backoff.isNegative());
+            assertTrue(backoff.compareTo(Duration.ofMillis(400)) <= 0);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+    private static @NotNull SingleFlight.Key<Integer> key(@NotNull String body) throws IOException {
+        return new SingleFlight.Key<>(new URL("http://example.org/ctrl"), "POST", body.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    @Test
+    public void key() throws IOException {
+        assertEquals(key("a=1"), key("a=1"));
+        assertEquals(key("a=1").hashCode(), key("a=1").hashCode());
+        assertNotEquals(key("a=1"), key("a=2"));
+        assertNotEquals(key("a=1"), new SingleFlight.Key<>(new URL("http://example.org/ctrl"), "GET", "a=1".getBytes(StandardCharsets.UTF_8), null));
+    }
+
+    @Test
+    public void call() throws Exception {
+        final @NotNull SingleFlight singleFlight = new SingleFlight();
+        final @NotNull AtomicInteger calls = new AtomicInteger();
+        final @NotNull CountDownLatch started = new CountDownLatch(1);
+        final @NotNull CountDownLatch release = new CountDownLatch(1);
+        final @NotNull ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final @NotNull Future<Integer> leader = executor.submit(() -> singleFlight.call(key("a=1"), () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return calls.incrementAndGet();
+            }));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            final @NotNull Future<Integer> follower = executor.submit(() -> singleFlight.call(key("a=1"), calls::incrementAndGet));
+            final @NotNull CompletableFuture<Integer> asyncFollower = singleFlight.execute(key("a=1"), () -> CompletableFuture.completedFuture(calls.incrementAndGet()));
+
+            while (singleFlight.getCollapsed() < 2)
+                Thread.sleep(1);
+
+            assertEquals(1, singleFlight.getInFlight());
+            release.countDown();
+
+            assertEquals(1, (int) leader.get(5, TimeUnit.SECONDS));
+            assertEquals(1, (int) follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, (int) asyncFollower.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.getExecuted());
+        assertEquals(2, singleFlight.getCollapsed());
+        assertEquals(0, singleFlight.getInFlight());
+
+        // Requests that are not concurrent are not coalesced.
+        assertEquals(2, (int) singleFlight.call(key("a=1"), calls::incrementAndGet));
+        assertEquals(2, singleFlight.getExecuted());
+    }
+
+    @Test
+    public void failure() throws IOException {
+        final @NotNull SingleFlight singleFlight = new SingleFlight();
+
+        try {
+            singleFlight.call(key("a=1"), () -> {
+                throw new IOException("failed");
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    /**
+     * Starts a leader that blocks until released and then performs the given call.
+     */
+    private static @NotNull Future<Integer> startLeader(@NotNull ExecutorService executor, @NotNull SingleFlight singleFlight,
+                                                      @NotNull CountDownLatch release, @NotNull SingleFlight.Call<Integer> call) throws InterruptedException {
+        final @NotNull CountDownLatch started = new CountDownLatch(1);
+        final @NotNull Future<Integer> leader = executor.submit(() -> singleFlight.call(key("a=1"), () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return call.call();
+        }));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    @Test
+    public void followerDeadline() throws Exception {
+        final @NotNull SingleFlight singleFlight = new SingleFlight();
+        final @NotNull CountDownLatch release = new CountDownLatch(1);
+        final @NotNull ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final @NotNull Future<Integer> leader = startLeader(executor, singleFlight, release, () -> 1);
+
+            try (Deadline.Scope scope = Deadline.after(Duration.ofMillis(100)).enter()) {
+                assertNotNull(scope);
+                assertThrows(DeadlineExceededException.class, () -> singleFlight.call(key("a=1"), () -> 2));
+                try {
+                    singleFlight.execute(key("a=1"), () -> CompletableFuture.completedFuture(2)).get(5, TimeUnit.SECONDS);
+                    fail();
+                } catch (ExecutionException e) {
+                    assertTrue(DeadlineExceededException.isCausedBy(e));
+                }
+            }
+
+            // The leader is not affected by the followers giving up.
+            release.countDown();
+            assertEquals(1, (int) leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void followerCancellation() throws Exception {
+        final @NotNull SingleFlight singleFlight = new SingleFlight();
+        final @NotNull CountDownLatch release = new CountDownLatch(1);
+        final @NotNull ExecutorService executor = Executors.newFixedThreadPool(2);
+        final @NotNull Cancellation cancellation = new Cancellation();
+
+        try {
+            final @NotNull Future<Integer> leader = startLeader(executor, singleFlight, release, () -> 1);
+
+            cancellation.cancel();
+            try (Cancellation.Scope scope = cancellation.enter()) {
+                assertNotNull(scope);
+                assertThrows(CanceledException.class, () -> singleFlight.call(key("a=1"), () -> 2));
+            }
+
+            release.countDown();
+            assertEquals(1, (int) leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void leaderCancellation() throws Exception {
+        final @NotNull SingleFlight singleFlight = new SingleFlight();
+        final @NotNull CountDownLatch release = new CountDownLatch(1);
+        final @NotNull ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final @NotNull Future<Integer> leader = startLeader(executor, singleFlight, release, () -> {
+                throw new CanceledException();
+            });
+            final @NotNull Future<Integer> follower = executor.submit(() -> singleFlight.call(key("a=1"), () -> 2));
+            final @NotNull CompletableFuture<Integer> asyncFollower = singleFlight.execute(key("a=1"), () -> CompletableFuture.completedFuture(3));
+
+            while (singleFlight.getCollapsed() < 2)
+                Thread.sleep(1);
+            release.countDown();
+
+            try {
+                leader.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(CanceledException.isCausedBy(e));
+            }
+
+            // The followers were not canceled, so they perform the call themselves.
+            final int result = follower.get(5, TimeUnit.SECONDS);
+            final int asyncResult = asyncFollower.get(5, TimeUnit.SECONDS);
+            assertTrue(result == 2 || result == 3);
+            assertTrue(asyncResult == 2 || asyncResult == 3);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
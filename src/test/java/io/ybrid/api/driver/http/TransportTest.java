@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.ybrid.api.driver.JSONRequest;
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class TransportTest {
+    private HttpServer server;
+    private URL url;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            final byte[] body = ("{\"method\": \"" + exchange.getRequestMethod() + "\"}").getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (final @NotNull OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.createContext("/gzip", exchange -> {
+            final @NotNull StringBuilder builder = new StringBuilder("{\"method\": \"" + exchange.getRequestMethod() + "\", \"padding\": \"");
+            final @Nullable String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            final boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+            for (int i = 0; i < 1024; i++)
+                builder.append("ybrid");
+            builder.append("\"}");
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            if (gzip)
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (final @NotNull OutputStream outputStream = gzip ? new GZIPOutputStream(exchange.getResponseBody()) : exchange.getResponseBody()) {
+                outputStream.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException ignored) {
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/large", exchange -> {
+            final byte[] chunk = new byte[4096];
+
+            Arrays.fill(chunk, (byte) 'y');
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            // Send far more than any client should ever buffer. This stops once the client aborts.
+            try (final @NotNull OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write("{\"padding\": \"".getBytes(StandardCharsets.UTF_8));
+                for (int i = 0; i < 64 * 1024; i++)
+                    outputStream.write(chunk);
+                outputStream.write("\"}".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException ignored) {
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void assertPerform(@NotNull Transport transport, @NotNull String method) throws IOException {
+        final @NotNull JSONRequest request = new JSONRequest(url, method);
+        final @NotNull JSONObject body;
+
+        request.setTransport(transport);
+        assertTrue(request.perform());
+        body = Objects.requireNonNull(request.getResponseBody());
+        assertEquals(method, body.getString("method"));
+    }
+
+    @Test
+    public void urlConnectionTransport() throws IOException {
+        final @NotNull Transport transport = new URLConnectionTransport();
+        final @NotNull ConnectionPool.Statistics statistics;
+
+        assertPerform(transport, "GET");
+        assertPerform(transport, "POST");
+        assertPerform(transport, "OPTIONS");
+
+        statistics = Objects.requireNonNull(transport.getConnectionPool()).getStatistics();
+        assertEquals(1, statistics.getColdLeases());
+        assertEquals(2, statistics.getWarmLeases());
+        assertEquals(0, statistics.getLeased());
+        assertEquals(1, statistics.getIdle());
+    }
+
+    @Test
+    public void defaultTransport() throws IOException {
+        final @NotNull Transport transport = TransportManager.getDefault();
+
+        assertPerform(transport, "GET");
+        assertPerform(transport, "POST");
+        assertPerform(transport, "OPTIONS");
+    }
+
+    private void assertCompressed(@NotNull Transport transport) throws IOException {
+        final @NotNull JSONRequest request = new JSONRequest(new URL(url, "/gzip"), "GET");
+        final @NotNull TransferStatistics statistics;
+
+        request.setTransport(transport);
+        assertTrue(request.perform());
+        assertEquals("GET", Objects.requireNonNull(request.getResponseBody()).getString("method"));
+
+        statistics = Objects.requireNonNull(request.getTransferStatistics());
+        assertEquals("gzip", statistics.getContentEncoding());
+        assertTrue(statistics.toString(), statistics.getBodyBytes() > 5 * 1024);
+        assertTrue(statistics.toString(), statistics.getWireBytes() < statistics.getBodyBytes() / 10);
+    }
+
+    @Test
+    public void compression() throws IOException {
+        assertCompressed(new URLConnectionTransport());
+        assertCompressed(TransportManager.getDefault());
+    }
+
+    @Test
+    public void deadline() throws IOException {
+        final @NotNull JSONRequest request;
+
+        try (Deadline.Scope ignored = Deadline.after(Duration.ofMillis(200)).enter()) {
+            request = new JSONRequest(new URL(url, "/slow"), "GET");
+        }
+
+        assertNotNull(request.getDeadline());
+        assertTrue(request.getTimeout().compareTo(Duration.ofMillis(200)) <= 0);
+
+        try {
+            request.perform();
+            fail();
+        } catch (DeadlineExceededException ignored) {
+        }
+    }
+
+    private @NotNull JSONRequest createLargeRequest(@NotNull Transport transport) throws IOException {
+        final @NotNull JSONRequest request = new JSONRequest(new URL(url, "/large"), "GET");
+
+        request.setTransport(transport);
+        request.setMaxResponseBodySize(64 * 1024);
+        return request;
+    }
+
+    @Test
+    public void maxResponseBodySize() throws IOException {
+        for (final @NotNull Transport transport : new Transport[]{new URLConnectionTransport(), TransportManager.getDefault()}) {
+            final @NotNull IOException e = assertThrows(IOException.class, createLargeRequest(transport)::perform);
+            assertTrue(e.toString(), e.getMessage().contains("maximum size"));
+        }
+    }
+
+    @Test
+    public void maxResponseBodySizeAsync() throws Exception {
+        final @NotNull ExecutionException e = assertThrows(ExecutionException.class,
+                () -> createLargeRequest(TransportManager.getDefault()).performAsync().get(5, TimeUnit.SECONDS));
+
+        assertTrue(e.toString(), e.getCause() instanceof IOException);
+        assertTrue(e.toString(), e.getCause().getMessage().contains("maximum size"));
+    }
+
+    @Test
+    public void performAsync() throws Exception {
+        final @NotNull JSONRequest request = new JSONRequest(url, "POST");
+        final @NotNull JSONObject body;
+
+        body = Objects.requireNonNull(request.performAsync().get(5, TimeUnit.SECONDS));
+        assertEquals("POST", body.getString("method"));
+        assertEquals("POST", Objects.requireNonNull(request.getResponseBody()).getString("method"));
+    }
+
+    private @NotNull JSONRequest createSlowRequest(@NotNull Transport transport, @NotNull Cancellation cancellation) throws IOException {
+        final @NotNull JSONRequest request;
+
+        try (Cancellation.Scope ignored = cancellation.enter()) {
+            request = new JSONRequest(new URL(url, "/slow"), "GET");
+        }
+
+        assertSame(cancellation, request.getCancellation());
+        request.setTransport(transport);
+        return request;
+    }
+
+    private static void cancelLater(@NotNull Cancellation cancellation) {
+        final @NotNull Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            cancellation.cancel();
+        });
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void assertCanceled(@NotNull Transport transport) throws IOException {
+        final @NotNull Cancellation cancellation = new Cancellation();
+        final @NotNull JSONRequest request = createSlowRequest(transport, cancellation);
+        final long start = System.nanoTime();
+
+        cancelLater(cancellation);
+        try {
+            request.perform();
+            fail();
+        } catch (CanceledException ignored) {
+        }
+
+        // The server answers after two seconds, so the request must have been aborted.
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+
+        // Once canceled requests fail before they are sent.
+        assertThrows(CanceledException.class, createSlowRequest(transport, cancellation)::perform);
+    }
+
+    @Test
+    public void cancel() throws IOException {
+        assertCanceled(new URLConnectionTransport());
+        assertCanceled(TransportManager.getDefault());
+    }
+
+    private void assertCanceledAsync(@NotNull Transport transport) throws Exception {
+        final @NotNull Cancellation cancellation = new Cancellation();
+        final @NotNull JSONRequest request = createSlowRequest(transport, cancellation);
+
+        cancelLater(cancellation);
+        try {
+            request.performAsync().get(1500, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(CanceledException.isCausedBy(e));
+        }
+    }
+
+    @Test
+    public void cancelAsync() throws Exception {
+        final @NotNull Transport transport = new URLConnectionTransport();
+        final @NotNull ConnectionPool pool = Objects.requireNonNull(transport.getConnectionPool());
+        final long end;
+
+        assertCanceledAsync(TransportManager.getDefault());
+        assertCanceledAsync(transport);
+
+        // The exchange was aborted, so its lease is returned before the server answers.
+        end = System.currentTimeMillis() + 1000;
+        while (pool.getStatistics().getLeased() > 0) {
+            if (System.currentTimeMillis() > end)
+                fail("Lease not released");
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void httpClientTransportHasNoConnectionPool() {
+        // The client multiplexes requests on its own connections, so a pool would only limit requests.
+        assertNull(TransportManager.getDefault().getConnectionPool());
+    }
+}
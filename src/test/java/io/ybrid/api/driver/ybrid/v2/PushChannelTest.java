@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.ybrid.v2;
+
+import io.ybrid.api.MediaEndpoint;
+import io.ybrid.api.MediaProtocol;
+import io.ybrid.api.SubInfo;
+import io.ybrid.api.driver.DriverSelector;
+import io.ybrid.api.metadata.Metadata;
+import io.ybrid.api.session.Command;
+import io.ybrid.api.session.Session;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class PushChannelTest {
+    private static void await(@NotNull BooleanSupplier condition) throws InterruptedException {
+        final long end = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end)
+                fail("Condition not reached in time");
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+    }
+
+    private static @Nullable String getTitle(@NotNull Driver driver) {
+        final @Nullable Metadata metadata = driver.getState().getMetadata();
+
+        if (metadata == null)
+            return null;
+        return metadata.getCurrentItem().getMetadata().get("title");
+    }
+
+    private static @NotNull Driver connect(@NotNull StandInServer server, @NotNull PushMode mode) throws Throwable {
+        final @NotNull Session session = new MediaEndpoint(server.getBaseURI()).createSession();
+        final @NotNull Driver driver = (Driver) DriverSelector.getDriver(session, MediaProtocol.YBRID_V2_BETA, server.getBaseURI());
+
+        driver.setPushMode(mode);
+        driver.executeRequest(Command.CONNECT.makeRequest());
+        return driver;
+    }
+
+    private static void assertPushed(@NotNull StandInServer server, @NotNull Driver driver) throws Throwable {
+        final int infoRequests;
+
+        await(driver::isPushActive);
+        assertEquals("Initial", getTitle(driver));
+
+        server.setTitle("Pushed");
+        await(() -> "Pushed".equals(getTitle(driver)));
+
+        // While push is active refreshing must not poll the server.
+        infoRequests = server.getInfoRequests();
+        driver.executeRequest(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.METADATA)));
+        assertEquals(infoRequests, server.getInfoRequests());
+    }
+
+    @Test
+    public void serverSentEvents() throws Throwable {
+        try (final @NotNull StandInServer server = new StandInServer(true, false)) {
+            final @NotNull Driver driver = connect(server, PushMode.SERVER_SENT_EVENTS);
+
+            await(() -> server.getEventStreams() == 1);
+            assertPushed(server, driver);
+            driver.executeRequest(Command.DISCONNECT.makeRequest());
+            assertFalse(driver.isPushActive());
+        }
+    }
+
+    @Test
+    public void silentEventStream() throws Throwable {
+        try (final @NotNull StandInServer server = new StandInServer(true, false)) {
+            final @NotNull Driver driver = connect(server, PushMode.DISABLED);
+            final @NotNull PushChannel channel = new PushChannel(driver, PushMode.SERVER_SENT_EVENTS, null, Duration.ofMillis(300));
+
+            try {
+                channel.start();
+                await(channel::isActive);
+
+                // The stand-in server only sends a comment when the stream is opened and then goes silent.
+                await(() -> !channel.isActive());
+
+                // The silent stream has been closed and the channel connects again.
+                await(() -> server.getEventStreams() == 2);
+                await(channel::isActive);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    @Test
+    public void longPoll() throws Throwable {
+        try (final @NotNull StandInServer server = new StandInServer(false, true)) {
+            final @NotNull Driver driver = connect(server, PushMode.LONG_POLL);
+
+            assertPushed(server, driver);
+            driver.executeRequest(Command.DISCONNECT.makeRequest());
+        }
+    }
+
+    @Test
+    public void fallbackToPolling() throws Throwable {
+        try (final @NotNull StandInServer server = new StandInServer(false, false)) {
+            final @NotNull Driver driver = connect(server, PushMode.SERVER_SENT_EVENTS);
+            final int infoRequests;
+
+            // Wait for the fallback and for the minimum time between two session info requests to pass.
+            Thread.sleep(500);
+            assertFalse(driver.isPushActive());
+
+            server.setTitle("Polled");
+            infoRequests = server.getInfoRequests();
+            driver.executeRequest(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.METADATA)));
+            assertEquals(infoRequests + 1, server.getInfoRequests());
+            assertEquals("Polled", getTitle(driver));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.ybrid.v2;
+
+import org.jetbrains.annotations.NotNull;
+import org.json.JSONException;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+import java.util.Objects;
+
+import static org.junit.Assert.*;
+
+public class ResponseTest {
+    @Test
+    public void decode() {
+        final @NotNull Response response = Objects.requireNonNull(Response.DECODER.decode(new JSONTokener("{" +
+                "\"__responseHeader\": {\"responseVersion\": \"v2\", \"supportedVersions\": [\"v2\"]}," +
+                "\"__responseObject\": {" +
+                "\"sessionId\": \"abc\", \"valid\": true, \"unknown\": {\"deep\": [{}, []]}," +
+                "\"bouquet\": {\"availableServices\": []}, \"playout\": {\"offsetToLive\": 0}, \"swapInfo\": null" +
+                "}}")));
+
+        assertEquals("abc", response.getToken());
+        assertTrue(response.getValid());
+        assertNotNull(response.getRawBouquet());
+        assertNotNull(response.getRawPlayout());
+        assertNull(response.getRawMetadata());
+        assertNull(response.getRawSwapInfo());
+    }
+
+    @Test(expected = JSONException.class)
+    public void missingResponseObject() {
+        Response.DECODER.decode(new JSONTokener("{\"__responseHeader\": {}}"));
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.driver.ybrid.v2;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process stand-in for a v2 server.
+ * <P>
+ * It implements session create, info and close as well as the push endpoints used by {@link PushChannel}.
+ * This allows testing and benchmarking the driver without network access.
+ */
+public final class StandInServer implements AutoCloseable {
+    private static final @NotNull String SERVICE = "adaptive-demo";
+    private static final @NotNull String SESSION_ID = "stand-in-session";
+
+    private final @NotNull HttpServer server;
+    private final @NotNull ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final @NotNull Thread thread = new Thread(runnable, "Stand-in server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final @NotNull List<@NotNull OutputStream> eventStreams = new CopyOnWriteArrayList<>();
+    private final @NotNull AtomicInteger infoRequests = new AtomicInteger();
+    private final boolean supportsEvents;
+    private final boolean supportsLongPoll;
+    private long version = 0;
+    private long deliveredVersion = 0;
+    private @NotNull String title = "Initial";
+
+    /**
+     * Creates and starts a new server on a random local port.
+     *
+     * @param supportsEvents Whether server-sent events are supported.
+     * @param supportsLongPoll Whether long-polling is supported.
+     * @throws IOException Thrown if the server can not be started.
+     */
+    public StandInServer(boolean supportsEvents, boolean supportsLongPoll) throws IOException {
+        this.supportsEvents = supportsEvents;
+        this.supportsLongPoll = supportsLongPoll;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/ctrl/v2/session/create", exchange -> sendJSON(exchange, fullEnvelope()));
+        server.createContext("/ctrl/v2/session/info", exchange -> {
+            infoRequests.incrementAndGet();
+            sendJSON(exchange, fullEnvelope());
+        });
+        server.createContext("/ctrl/v2/session/close", exchange -> sendJSON(exchange, envelope(new JSONObject().put("valid", false))));
+        server.createContext("/ctrl/v2/session/events", this::handleEvents);
+        server.createContext("/ctrl/v2/session/wait", this::handleWait);
+        server.start();
+    }
+
+    public @NotNull URI getBaseURI() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    /**
+     * Gets the number of session info requests received.
+     * @return The number of requests.
+     */
+    public int getInfoRequests() {
+        return infoRequests.get();
+    }
+
+    /**
+     * Gets the number of currently open event streams.
+     * @return The number of streams.
+     */
+    public int getEventStreams() {
+        return eventStreams.size();
+    }
+
+    /**
+     * Changes the title of the current item and pushes the change to all clients.
+     * @param title The new title.
+     */
+    public void setTitle(@NotNull String title) {
+        final @NotNull String event;
+
+        synchronized (this) {
+            this.title = title;
+            version++;
+            event = "data: " + envelope(new JSONObject().put("metadata", metadata())) + "\n\n";
+            notifyAll();
+        }
+
+        for (final @NotNull OutputStream stream : eventStreams) {
+            try {
+                stream.write(event.getBytes(StandardCharsets.UTF_8));
+                stream.flush();
+            } catch (IOException e) {
+                eventStreams.remove(stream);
+            }
+        }
+    }
+
+    private static @NotNull JSONObject envelope(@NotNull JSONObject responseObject) {
+        return new JSONObject()
+                .put("__responseHeader", new JSONObject().put("responseVersion", "v2").put("supportedVersions", new JSONArray().put("v2")))
+                .put("__responseObject", responseObject);
+    }
+
+    private static @NotNull JSONObject item(@NotNull String id, @NotNull String title) {
+        return new JSONObject()
+                .put("id", id)
+                .put("title", title)
+                .put("artist", "")
+                .put("description", "")
+                .put("type", "MUSIC")
+                .put("durationMillis", 180000)
+                .put("companions", new JSONArray());
+    }
+
+    private synchronized @NotNull JSONObject metadata() {
+        return new JSONObject()
+                .put("currentItem", item("item-" + version, title))
+                .put("nextItem", item("next", "Next"))
+                .put("timeToNextItemMillis", 60000);
+    }
+
+    private @NotNull JSONObject fullEnvelope() {
+        final @NotNull String base = getBaseURI().toString();
+
+        return envelope(new JSONObject()
+                .put("sessionId", SESSION_ID)
+                .put("valid", true)
+                .put("bouquet", new JSONObject()
+                        .put("availableServices", new JSONArray().put(new JSONObject().put("id", SERVICE).put("displayName", "Adaptive Demo").put("iconURL", "")))
+                        .put("activeServiceId", SERVICE)
+                        .put("primaryServiceId", SERVICE))
+                .put("metadata", metadata())
+                .put("playout", new JSONObject()
+                        .put("baseURL", base)
+                        .put("playbackURI", base.replace("http:", "icyx:") + SERVICE)
+                        .put("offsetToLive", 0))
+                .put("swapInfo", new JSONObject()
+                        .put("nextSwapReturnsToMain", false)
+                        .put("swapsLeft", -1)));
+    }
+
+    private static void sendJSON(@NotNull HttpExchange exchange, @NotNull JSONObject json) throws IOException {
+        final byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (final @NotNull OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static void sendNotFound(@NotNull HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(404, -1);
+        exchange.close();
+    }
+
+    private void handleEvents(@NotNull HttpExchange exchange) throws IOException {
+        final @NotNull OutputStream stream;
+
+        if (!supportsEvents) {
+            sendNotFound(exchange);
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        stream = exchange.getResponseBody();
+        stream.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+        stream.flush();
+        // The stream is kept open and written by setTitle() until the client goes away.
+        eventStreams.add(stream);
+    }
+
+    private void handleWait(@NotNull HttpExchange exchange) throws IOException {
+        final @Nullable String query = exchange.getRequestURI().getQuery();
+        long timeout = 1000;
+        final @NotNull JSONObject response;
+
+        if (!supportsLongPoll) {
+            sendNotFound(exchange);
+            return;
+        }
+
+        if (query != null) {
+            for (final @NotNull String part : query.split("&")) {
+                if (part.startsWith("timeout="))
+                    timeout = Math.min(timeout, Long.parseLong(part.substring(8)));
+            }
+        }
+
+        synchronized (this) {
+            final long end = System.currentTimeMillis() + timeout;
+
+            // Like a real server this remembers what was delivered so no change between two waits is lost.
+            while (version == deliveredVersion && System.currentTimeMillis() < end) {
+                try {
+                    wait(Math.max(1, end - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            response = version == deliveredVersion ? new JSONObject() : new JSONObject().put("metadata", metadata());
+            deliveredVersion = version;
+        }
+
+        sendJSON(exchange, envelope(response));
+    }
+
+    @Override
+    public void close() {
+        for (final @NotNull OutputStream stream : eventStreams) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.TemporalValidity;
+import io.ybrid.api.util.TimerWheel;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class RefreshSchedulerTest {
+    @Test
+    public void getDelay() {
+        try (final @NotNull TimerWheel wheel = new TimerWheel(Runnable::run)) {
+            final @NotNull RefreshScheduler scheduler = new RefreshScheduler(wheel, Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofMillis(250), 0.1);
+
+            assertEquals(Duration.ofSeconds(30), scheduler.getDelay(TemporalValidity.INDEFINITELY_VALID));
+            assertEquals(Duration.ofSeconds(1), scheduler.getDelay(TemporalValidity.makeFromNow(Duration.ofMillis(100))));
+            assertEquals(Duration.ofSeconds(1), scheduler.getDelay(TemporalValidity.INVALID));
+
+            for (int i = 0; i < 100; i++) {
+                final @NotNull Duration delay = scheduler.getDelay(TemporalValidity.makeFromNow(Duration.ofSeconds(10)));
+
+                // The refresh must happen before the item ends but not much earlier than needed.
+                assertTrue(delay.compareTo(Duration.ofMillis(9750)) <= 0);
+                assertTrue(delay.compareTo(Duration.ofMillis(8700)) >= 0);
+            }
+
+            for (int i = 0; i < 100; i++) {
+                final @NotNull Duration delay = scheduler.getDelay(TemporalValidity.makeFromNow(Duration.ofMinutes(10)));
+                assertTrue(delay.compareTo(Duration.ofSeconds(30)) <= 0);
+                assertTrue(delay.compareTo(Duration.ofSeconds(27)) >= 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.*;
+import io.ybrid.api.bouquet.Bouquet;
+import io.ybrid.api.bouquet.Service;
+import io.ybrid.api.bouquet.SimpleService;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class SessionListenerTest {
+    private static final @NotNull URI URI = java.net.URI.create("http://localhost:1/");
+
+    private static void restorePlain(@NotNull Session session) throws IOException {
+        final @NotNull SessionSnapshot.Builder builder = new SessionSnapshot.Builder(URI);
+
+        builder.setProtocol(MediaProtocol.PLAIN);
+        builder.setBaseURI(URI);
+        session.restore(builder.build());
+    }
+
+    @Test
+    public void eventsOnConnect() throws IOException {
+        final @NotNull Session session = new MediaEndpoint(URI).createSession();
+        final @NotNull List<SubInfoEvent<?>> events = new ArrayList<>();
+
+        session.setListenerExecutor(Runnable::run);
+        session.addListener(events::add);
+        restorePlain(session);
+
+        assertFalse(events.isEmpty());
+        for (final @NotNull SubInfoEvent<?> event : events) {
+            if (event.getSubInfo() == SubInfo.CAPABILITIES) {
+                assertTrue(((CapabilitySet) event.getNewValue()).contains(Capability.AUDIO_TRANSPORT));
+                return;
+            }
+        }
+        fail("No capabilities event: " + events);
+    }
+
+    @Test
+    public void coalescing() throws IOException {
+        final @NotNull Session session = new MediaEndpoint(URI).createSession();
+        final @NotNull Queue<Runnable> queue = new ArrayDeque<>();
+        final @NotNull List<SubInfoEvent<?>> events = new ArrayList<>();
+
+        session.setListenerExecutor(queue::add);
+        session.addListener(events::add);
+        restorePlain(session);
+
+        // The driver published several states while the first dispatch was still pending.
+        assertEquals(1, queue.size());
+        queue.remove().run();
+        assertTrue(queue.isEmpty());
+
+        assertEquals(1, events.stream().filter(event -> event.getSubInfo() == SubInfo.CAPABILITIES).count());
+    }
+
+    @Test
+    public void unchangedBouquet() throws Exception {
+        final @NotNull Session session = new MediaEndpoint(URI).createSession();
+        final @NotNull List<SubInfoEvent<?>> events = new ArrayList<>();
+        final @NotNull Service service;
+
+        session.setListenerExecutor(Runnable::run);
+        restorePlain(session);
+        session.getMetadataMixer().addListener(events::add);
+
+        // A refresh that does not change the bouquet must not be reported.
+        session.execute(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.BOUQUET)));
+        assertTrue(events.toString(), events.isEmpty());
+
+        // Neither must a new but equal bouquet.
+        service = session.getMetadataMixer().getBouquet().getDefaultService();
+        session.getMetadataMixer().accept(new Bouquet(new SimpleService(service.getDisplayName(), service.getIdentifier(), service.getIconURI(), service.getGenre())));
+        assertTrue(events.toString(), events.isEmpty());
+
+        session.getMetadataMixer().accept(new Bouquet(new SimpleService("Other", service.getIdentifier())));
+        assertEquals(1, events.size());
+        assertEquals(SubInfo.BOUQUET, events.get(0).getSubInfo());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.MediaEndpoint;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+
+public class SessionPoolTest {
+    @Test
+    public void maxSessions() throws MalformedURLException {
+        final @NotNull MediaEndpoint mediaEndpoint = new MediaEndpoint(URI.create("http://localhost:1/adaptive-demo"));
+
+        try (final @NotNull SessionPool pool = new SessionPool(2, 4)) {
+            final @NotNull Session a = pool.createSession(mediaEndpoint);
+            final @NotNull Session b = pool.createSession(mediaEndpoint);
+            final SessionPool.Statistics statistics;
+
+            assertSame(pool, a.getPool());
+            assertSame(pool.getTransport(), a.getTransport());
+            assertSame(pool.getDiscoveryCache(), b.getDiscoveryCache());
+            assertThrows(IllegalStateException.class, () -> pool.createSession(mediaEndpoint));
+
+            pool.release(a);
+            pool.createSession(mediaEndpoint);
+
+            statistics = pool.getStatistics();
+            assertEquals(2, statistics.getSessions());
+            assertEquals(0, statistics.getConnectedSessions());
+            assertEquals(3, statistics.getSessionsCreated());
+            assertEquals(1, statistics.getSessionsRejected());
+        }
+    }
+
+    @Test
+    public void close() throws MalformedURLException {
+        final @NotNull SessionPool pool = new SessionPool(2, 4);
+
+        pool.close();
+        assertTrue(pool.isClosed());
+        assertTrue(pool.getExecutor().isShutdown());
+        assertThrows(IllegalStateException.class, () -> pool.createSession(new MediaEndpoint(URI.create("http://localhost:1/"))));
+    }
+}
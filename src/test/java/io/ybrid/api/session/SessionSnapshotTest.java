@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.MediaEndpoint;
+import io.ybrid.api.MediaProtocol;
+import io.ybrid.api.Workaround;
+import io.ybrid.api.util.TriState;
+import org.jetbrains.annotations.NotNull;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SessionSnapshotTest {
+    private static final @NotNull URI MEDIA_ENDPOINT = URI.create("http://localhost:1/adaptive-demo");
+
+    private static @NotNull SessionSnapshot build(long timeToNextItemMillis) {
+        final @NotNull SessionSnapshot.Builder builder = new SessionSnapshot.Builder(MEDIA_ENDPOINT);
+        final @NotNull Map<Workaround, TriState> workarounds = new EnumMap<>(Workaround.class);
+        final @NotNull JSONObject metadata = new JSONObject();
+
+        workarounds.put(Workaround.WORKAROUND_BAD_FQDN, TriState.TRUE);
+        workarounds.put(Workaround.WORKAROUND_SKIP_SILENCE, TriState.AUTOMATIC);
+        metadata.put("timeToNextItemMillis", timeToNextItemMillis);
+
+        builder.setProtocol(MediaProtocol.YBRID_V2_BETA);
+        builder.setBaseURI(URI.create("http://localhost:1/"));
+        builder.setToken("token");
+        builder.setPlaybackURI(URI.create("icyx://localhost:1/adaptive-demo"));
+        builder.setWorkarounds(workarounds);
+        builder.setCurrentService("adaptive-demo");
+        builder.setMetadata(metadata);
+        return builder.build();
+    }
+
+    @Test
+    public void jsonRoundTrip() {
+        final @NotNull SessionSnapshot snapshot = build(60_000);
+        final @NotNull SessionSnapshot copy = SessionSnapshot.fromJSON(new JSONObject(snapshot.toJSON().toString()));
+
+        assertEquals(snapshot, copy);
+        assertEquals("token", copy.getToken());
+        assertEquals(TriState.TRUE, copy.getWorkarounds().get(Workaround.WORKAROUND_BAD_FQDN));
+        assertFalse(copy.getWorkarounds().containsKey(Workaround.WORKAROUND_SKIP_SILENCE));
+        assertFalse(snapshot.toString().contains("token=token"));
+    }
+
+    @Test
+    public void incompleteBuilder() {
+        assertThrows(IllegalStateException.class, () -> new SessionSnapshot.Builder(MEDIA_ENDPOINT).build());
+    }
+
+    @Test
+    public void metadataIsAdjustedForAge() throws InterruptedException {
+        final @NotNull SessionSnapshot snapshot = build(60_000);
+        final JSONObject metadata;
+
+        Thread.sleep(20);
+        metadata = snapshot.getMetadata();
+        assertNotNull(metadata);
+        assertTrue(metadata.getLong("timeToNextItemMillis") < 60_000);
+    }
+
+    @Test
+    public void restoreRejectsOtherEndpoint() throws MalformedURLException {
+        final @NotNull Session session = new MediaEndpoint(URI.create("http://localhost:1/other")).createSession();
+
+        assertThrows(IllegalArgumentException.class, () -> session.restore(build(60_000)));
+        assertThrows(IllegalStateException.class, session::snapshot);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.Capability;
+import io.ybrid.api.MediaEndpoint;
+import io.ybrid.api.MediaProtocol;
+import io.ybrid.api.SubInfo;
+import io.ybrid.api.driver.Driver;
+import io.ybrid.api.driver.DriverSelector;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+
+public class SessionStateTest {
+    @Test
+    public void initial() throws MalformedURLException {
+        final @NotNull Session session = new MediaEndpoint(URI.create("http://localhost:1/")).createSession();
+
+        assertSame(SessionState.INITIAL, session.getState());
+        assertFalse(session.isConnected());
+        assertTrue(session.isValid());
+    }
+
+    @Test
+    public void publishedOnConnect() throws Throwable {
+        final @NotNull URI uri = URI.create("http://localhost:1/");
+        final @NotNull Session session = new MediaEndpoint(uri).createSession();
+        final @NotNull Driver driver = DriverSelector.getDriver(session, MediaProtocol.PLAIN, uri);
+        final @NotNull SessionState before = driver.getState();
+        final @NotNull SessionState after;
+
+        assertFalse(before.isConnected());
+        assertNotNull(before.getBouquet());
+
+        driver.executeRequest(Command.CONNECT.makeRequest());
+        after = driver.getState();
+
+        assertTrue(after.isNewerThan(before));
+        assertTrue(after.isConnected());
+        assertTrue(after.getCapabilities().contains(Capability.AUDIO_TRANSPORT));
+
+        // Published states must never change.
+        assertFalse(before.isConnected());
+        assertFalse(before.getCapabilities().contains(Capability.AUDIO_TRANSPORT));
+    }
+
+    @Test
+    public void getCapabilitiesKeepsChange() throws Throwable {
+        final @NotNull URI uri = URI.create("http://localhost:1/");
+        final @NotNull SessionSnapshot.Builder builder = new SessionSnapshot.Builder(uri);
+        final @NotNull Session session = new MediaEndpoint(uri).createSession();
+
+        builder.setProtocol(MediaProtocol.PLAIN);
+        builder.setBaseURI(uri);
+        session.restore(builder.build());
+
+        assertTrue(session.hasChanged(SubInfo.CAPABILITIES));
+        assertTrue(session.getCapabilities().contains(Capability.AUDIO_TRANSPORT));
+        // Reading the capabilities must not consume the change.
+        assertTrue(session.hasChanged(SubInfo.CAPABILITIES));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.session;
+
+import io.ybrid.api.SubInfo;
+import io.ybrid.api.SwapMode;
+import io.ybrid.api.transaction.Request;
+import io.ybrid.api.transaction.TransactionExecutor;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class TransactionQueueTest {
+    private final @NotNull TransactionQueue queue = new TransactionQueue();
+    private final @NotNull List<@NotNull Request<Command>> executed = Collections.synchronizedList(new ArrayList<>());
+    private final @NotNull CountDownLatch release = new CountDownLatch(1);
+
+    private void record(@NotNull Request<Command> request) {
+        executed.add(request);
+    }
+
+    private static void await(@NotNull BooleanSupplier condition) throws InterruptedException {
+        final long end = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end)
+                fail("Condition not reached in time");
+            //noinspection BusyWait
+            Thread.sleep(5);
+        }
+    }
+
+    private @NotNull CompletableFuture<Void> submit(@NotNull Request<Command> request, @Nullable Deadline deadline) {
+        final @NotNull CompletableFuture<Void> future = new CompletableFuture<>();
+        final @NotNull Thread thread = new Thread(() -> {
+            try {
+                if (deadline == null) {
+                    queue.execute(request, this::record);
+                } else {
+                    try (Deadline.Scope ignored = deadline.enter()) {
+                        queue.execute(request, this::record);
+                    }
+                }
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    private @NotNull CompletableFuture<Void> block() throws InterruptedException {
+        final @NotNull CountDownLatch started = new CountDownLatch(1);
+        final @NotNull CompletableFuture<Void> future = new CompletableFuture<>();
+        final @NotNull Thread thread = new Thread(() -> {
+            try {
+                queue.execute(Command.CONNECT.makeRequest(), request -> {
+                    started.countDown();
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                });
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        thread.setDaemon(true);
+        thread.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return future;
+    }
+
+    private @NotNull CompletableFuture<Void> submitInBackground(@NotNull Request<Command> request, @NotNull TransactionExecutor executor) {
+        final @NotNull CompletableFuture<Void> future = new CompletableFuture<>();
+
+        queue.submit(future, request, () -> executor.execute(() -> {
+            try {
+                queue.execute(future, request, this::record);
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }));
+        return future;
+    }
+
+    @Test
+    public void foregroundBeforeBackground() throws Exception {
+        final @NotNull CompletableFuture<Void> blocker = block();
+        final @NotNull CompletableFuture<Void> refresh = submit(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.METADATA)), null);
+        final @NotNull CompletableFuture<Void> swap;
+
+        await(() -> queue.getQueueDepth() == 1);
+        swap = submit(Command.SWAP_ITEM.makeRequest(SwapMode.END2END), null);
+        await(() -> queue.getQueueDepth() == 2);
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, refresh, swap).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, executed.size());
+        assertEquals(Command.SWAP_ITEM, executed.get(0).getCommand());
+        assertEquals(Command.REFRESH, executed.get(1).getCommand());
+    }
+
+    @Test
+    public void mergeRefreshes() throws Exception {
+        final @NotNull CompletableFuture<Void> blocker = block();
+        final @NotNull CompletableFuture<Void> first = submit(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.METADATA)), null);
+        final @NotNull CompletableFuture<Void> second;
+
+        await(() -> queue.getQueueDepth() == 1);
+        second = submit(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.PLAYOUT)), null);
+        await(() -> queue.getMergedCount() == 1);
+        assertEquals(1, queue.getQueueDepth());
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, first, second).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, executed.size());
+        assertEquals(EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT), executed.get(0).getArgumentNotNull(0));
+    }
+
+    @Test
+    public void deadlineWhileQueued() throws Exception {
+        final @NotNull CompletableFuture<Void> blocker = block();
+        final @NotNull CompletableFuture<Void> swap = submit(Command.SWAP_ITEM.makeRequest(SwapMode.END2END), Deadline.after(Duration.ofMillis(50)));
+
+        try {
+            swap.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DeadlineExceededException);
+        }
+        assertEquals(0, queue.getQueueDepth());
+
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    public void nested() throws Throwable {
+        queue.execute(Command.CONNECT.makeRequest(), request -> queue.execute(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.METADATA)), this::record));
+        assertEquals(1, executed.size());
+    }
+
+    @Test
+    public void moreSubmittedThanPoolThreads() throws Exception {
+        final @NotNull TransactionExecutor executor = TransactionExecutor.newPool(2);
+        final @NotNull CompletableFuture<Void> blocker = block();
+        final @NotNull List<@NotNull CompletableFuture<Void>> futures = new ArrayList<>();
+        final @NotNull CompletableFuture<Void> other = new CompletableFuture<>();
+
+        for (int i = 0; i < 6; i++)
+            futures.add(submitInBackground(Command.SWAP_ITEM.makeRequest(SwapMode.END2END), executor));
+        assertEquals(6, queue.getQueueDepth());
+
+        // Queued requests must not occupy the pool, so work of other sessions still runs.
+        assertEquals(0, executor.getActiveCount());
+        executor.execute(() -> other.complete(null));
+        other.get(5, TimeUnit.SECONDS);
+
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(6, executed.size());
+        assertEquals(0, queue.getQueueDepth());
+    }
+
+    @Test
+    public void mergeSubmittedRefreshes() throws Exception {
+        final @NotNull TransactionExecutor executor = TransactionExecutor.newPool(1);
+        final @NotNull CompletableFuture<Void> blocker = block();
+        final @NotNull CompletableFuture<Void> first = submitInBackground(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.METADATA)), executor);
+        final @NotNull CompletableFuture<Void> second = submitInBackground(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.PLAYOUT)), executor);
+
+        assertEquals(1, queue.getQueueDepth());
+        assertEquals(1, queue.getMergedCount());
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, first, second).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, executed.size());
+        assertEquals(EnumSet.of(SubInfo.METADATA, SubInfo.PLAYOUT), executed.get(0).getArgumentNotNull(0));
+    }
+
+    @Test
+    public void abandonSubmitted() throws Exception {
+        final @NotNull TransactionExecutor executor = TransactionExecutor.newPool(1);
+        final @NotNull CompletableFuture<Void> blocker = block();
+        final @NotNull CompletableFuture<Void> refresh = submitInBackground(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.METADATA)), executor);
+        final @NotNull CompletableFuture<Void> merged = submitInBackground(Command.REFRESH.makeRequest(EnumSet.of(SubInfo.PLAYOUT)), executor);
+
+        queue.abandon(refresh);
+        assertEquals(1, queue.getQueueDepth());
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, merged).get(5, TimeUnit.SECONDS);
+        assertFalse(refresh.isDone());
+
+        assertEquals(1, executed.size());
+        assertEquals(EnumSet.of(SubInfo.PLAYOUT), executed.get(0).getArgumentNotNull(0));
+    }
+}
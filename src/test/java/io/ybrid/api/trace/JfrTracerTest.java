@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.trace;
+
+import com.sun.net.httpserver.HttpServer;
+import io.ybrid.api.driver.JSONRequest;
+import io.ybrid.api.driver.http.HttpClientTransport;
+import io.ybrid.api.driver.http.URLConnectionTransport;
+import io.ybrid.api.transaction.CompletionState;
+import io.ybrid.api.transaction.GenericCommand;
+import io.ybrid.api.transaction.Transaction;
+import io.ybrid.api.util.Identifier;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class JfrTracerTest {
+    private HttpServer server;
+    private URL url;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            final byte[] body = "{\"status\": \"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (final @NotNull OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/status?secret=1");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private static @NotNull Recording startRecording() {
+        final @NotNull Recording recording = new Recording();
+
+        recording.enable(JfrTracer.TransactionEvent.class).withoutThreshold();
+        recording.enable(JfrTracer.AudioCompleteEvent.class).withoutThreshold();
+        recording.enable(JfrTracer.RequestEvent.class).withoutThreshold();
+        recording.start();
+
+        return recording;
+    }
+
+    private static @NotNull List<RecordedEvent> stopRecording(@NotNull Recording recording) throws IOException {
+        final @NotNull Path path = Files.createTempFile("ybrid", ".jfr");
+
+        try {
+            recording.stop();
+            recording.dump(path);
+            return RecordingFile.readAllEvents(path);
+        } finally {
+            recording.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static @NotNull List<RecordedEvent> filter(@NotNull List<RecordedEvent> events, @NotNull String eventName) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void disabledWithoutRecording() throws IOException {
+        final @NotNull Tracer tracer = new JfrTracer();
+
+        assertSame(TransactionTrace.NONE, tracer.beginTransaction(new Identifier(Transaction.class)));
+        assertSame(RequestTrace.NONE, tracer.beginRequest("GET", url, "Test"));
+        assertSame(TransactionTrace.NONE, TransactionTrace.current());
+    }
+
+    @Test
+    public void transaction() throws IOException, URISyntaxException {
+        final @NotNull Recording recording = startRecording();
+        final @NotNull Transaction transaction = GenericCommand.createTransaction(GenericCommand.NOOP.makeRequest());
+        final @NotNull List<RecordedEvent> events;
+        final @NotNull List<RecordedEvent> audioEvents;
+
+        try {
+            transaction.run();
+            assertEquals(CompletionState.DONE, transaction.getControlCompletionState());
+        } finally {
+            final @NotNull List<RecordedEvent> all = stopRecording(recording);
+
+            events = filter(all, "io.ybrid.Transaction");
+            audioEvents = filter(all, "io.ybrid.TransactionAudioComplete");
+        }
+
+        assertEquals(1, events.size());
+        assertEquals(transaction.getIdentifier().toString(), events.get(0).getString("transaction"));
+        assertEquals("NOOP", events.get(0).getString("command"));
+        assertEquals("DONE", events.get(0).getString("state"));
+        assertNull(events.get(0).getString("error"));
+        assertEquals(0, events.get(0).getInt("requests"));
+
+        assertEquals(1, audioEvents.size());
+        assertEquals(transaction.getIdentifier().toString(), audioEvents.get(0).getString("transaction"));
+        assertEquals(transaction.getAudioCompletionState().name(), audioEvents.get(0).getString("state"));
+    }
+
+    @Test
+    public void requests() throws IOException {
+        final @NotNull Recording recording = startRecording();
+        final @NotNull Tracer tracer = new JfrTracer();
+        final @NotNull Tracer previous = Tracer.getDefault();
+        final @NotNull Identifier identifier = new Identifier(Transaction.class);
+        final @NotNull List<RecordedEvent> events;
+        final @NotNull List<RecordedEvent> transactionEvents;
+
+        Tracer.setDefault(tracer);
+        try {
+            final @NotNull TransactionTrace trace = tracer.beginTransaction(identifier);
+
+            assertTrue(trace.isRecording());
+            try (TransactionTrace.Scope ignored = trace.enter()) {
+                final @NotNull JSONRequest viaURLConnection = new JSONRequest(url, "GET");
+                final @NotNull JSONRequest viaHttpClient = new JSONRequest(url, "GET");
+
+                viaURLConnection.setTransport(new URLConnectionTransport());
+                assertTrue(viaURLConnection.perform());
+                viaHttpClient.setTransport(new HttpClientTransport());
+                assertTrue(viaHttpClient.perform());
+            }
+            trace.controlComplete(CompletionState.DONE, null);
+            trace.audioComplete(CompletionState.DONE);
+        } finally {
+            final @NotNull List<RecordedEvent> all = stopRecording(recording);
+
+            Tracer.setDefault(previous);
+            events = filter(all, "io.ybrid.HttpRequest");
+            transactionEvents = filter(all, "io.ybrid.Transaction");
+        }
+
+        assertEquals(1, transactionEvents.size());
+        assertEquals(2, transactionEvents.get(0).getInt("requests"));
+        assertTrue(transactionEvents.get(0).getLong("parseTime") > 0);
+
+        assertEquals(2, events.size());
+        for (final @NotNull RecordedEvent event : events) {
+            assertEquals(identifier.toString(), event.getString("transaction"));
+            assertEquals("GET", event.getString("method"));
+            assertEquals("http://127.0.0.1:" + server.getAddress().getPort() + "/status", event.getString("url"));
+            assertEquals(200, event.getInt("statusCode"));
+            assertTrue(event.getLong("timeToFirstByte") >= 0);
+            assertTrue(event.getLong("body") >= 0);
+            assertTrue(event.getLong("wireBytes") > 0);
+            assertNull(event.getString("error"));
+        }
+
+        assertEquals("URLConnectionTransport", events.get(0).getString("transport"));
+        assertTrue(events.get(0).getLong("resolve") >= 0);
+        assertTrue(events.get(0).getLong("connect") >= 0);
+        assertEquals("HttpClientTransport", events.get(1).getString("transport"));
+        assertEquals(Long.MIN_VALUE, events.get(1).getLong("resolve"));
+        assertEquals(Long.MIN_VALUE, events.get(1).getLong("connect"));
+    }
+}
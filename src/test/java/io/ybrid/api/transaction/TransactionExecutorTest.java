@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.transaction;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TransactionExecutorTest {
+    private static @NotNull SimpleTransaction createTransaction(@NotNull TransactionExecutor executor, @NotNull Runnable runnable) {
+        return new SimpleTransaction() {
+            @Override
+            protected @NotNull TransactionExecutor getExecutor() {
+                return executor;
+            }
+
+            @Override
+            protected void execute() {
+                runnable.run();
+            }
+        };
+    }
+
+    private static void await(@NotNull CountDownLatch latch) throws InterruptedException {
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void metrics() throws InterruptedException {
+        final @NotNull TransactionExecutor executor = TransactionExecutor.newPool(1);
+        final @NotNull CountDownLatch started = new CountDownLatch(1);
+        final @NotNull CountDownLatch release = new CountDownLatch(1);
+        final @NotNull CountDownLatch done = new CountDownLatch(2);
+        final @NotNull Transaction first = createTransaction(executor, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        final @NotNull Transaction second = createTransaction(executor, () -> {});
+
+        first.onControlComplete(done::countDown);
+        second.onControlComplete(done::countDown);
+
+        first.runInBackground();
+        await(started);
+        second.runInBackground();
+
+        assertEquals(1, executor.getActiveCount());
+        assertEquals(1, executor.getQueueDepth());
+
+        release.countDown();
+        await(done);
+        first.assertSuccess();
+        second.assertSuccess();
+        assertEquals(0, executor.getQueueDepth());
+
+        // The counters are updated after the transaction signaled completion.
+        for (int i = 0; i < 500 && executor.getCompletedCount() != 2; i++)
+            Thread.sleep(10);
+        assertEquals(2, executor.getCompletedCount());
+        assertEquals(0, executor.getActiveCount());
+    }
+
+    @Test
+    public void rejected() {
+        final @NotNull TransactionExecutor executor = TransactionExecutor.wrap(command -> {
+            throw new RejectedExecutionException();
+        });
+        final @NotNull Transaction transaction = createTransaction(executor, () -> fail());
+
+        transaction.runInBackground();
+        assertEquals(CompletionState.CANCELED, transaction.getControlCompletionState());
+        assertEquals(CompletionState.CANCELED, transaction.getAudioCompletionState());
+        assertTrue(transaction.getError() instanceof RejectedExecutionException);
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void virtualThreads() throws InterruptedException {
+        final @NotNull TransactionExecutor executor;
+        final @NotNull CountDownLatch done = new CountDownLatch(1);
+
+        if (!TransactionExecutor.isVirtualThreadPerTaskSupported()) {
+            assertThrows(UnsupportedOperationException.class, TransactionExecutor::newVirtualThreadPerTask);
+            return;
+        }
+
+        executor = TransactionExecutor.newVirtualThreadPerTask();
+        createTransaction(executor, done::countDown).runInBackground();
+        await(done);
+    }
+}
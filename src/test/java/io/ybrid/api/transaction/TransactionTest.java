@@ -22,9 +22,20 @@
 
 package io.ybrid.api.transaction;
 
+import io.ybrid.api.util.CanceledException;
+import io.ybrid.api.util.Cancellation;
+import io.ybrid.api.util.Deadline;
+import io.ybrid.api.util.DeadlineExceededException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.*;
 
 public class TransactionTest {
@@ -76,6 +87,27 @@ public class TransactionTest {
         assertThrows(TransactionExecutionException.class, transaction::assertSuccess);
     }
 
+    @Test
+    public void deadline() {
+        final @NotNull Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+        @NotNull Transaction transaction;
+
+        transaction = createTransaction(() -> assertEquals(deadline, Deadline.current()));
+        transaction.setDeadline(deadline);
+        transaction.run();
+        transaction.assertSuccess();
+        assertEquals(CompletionState.DONE, transaction.getControlCompletionState());
+        assertNull(Deadline.current());
+
+        transaction = createTransaction(() -> fail());
+        transaction.setDeadline(Deadline.after(Duration.ofMinutes(-1)));
+        transaction.run();
+        assertEquals(CompletionState.TIMEOUT, transaction.getControlCompletionState());
+        assertEquals(CompletionState.TIMEOUT, transaction.getAudioCompletionState());
+        assertTrue(transaction.getError() instanceof DeadlineExceededException);
+        assertThrows(TransactionExecutionException.class, transaction::assertSuccess);
+    }
+
     @Test
     public void waitControlComplete() throws InterruptedException {
         final @NotNull Transaction transaction = createTransaction(() -> {
@@ -150,4 +182,115 @@ public class TransactionTest {
         assertEquals(CompletionState.DONE, transaction.getControlCompletionState());
         assertEquals(CompletionState.CANCELED, transaction.getAudioCompletionState());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void futures() throws Exception {
+        final @NotNull Transaction transaction = createTransaction(() -> {});
+        final @NotNull CompletableFuture<@NotNull Transaction> control = transaction.controlFuture();
+        final @NotNull CompletableFuture<@NotNull Transaction> audio = transaction.audioFuture();
+
+        // Completing a returned future must not complete the transaction.
+        transaction.controlFuture().cancel(false);
+        assertFalse(control.isDone());
+
+        transaction.runInBackground();
+        assertSame(transaction, control.get(5, TimeUnit.SECONDS));
+        assertFalse(audio.isDone());
+        transaction.setAudioComplete(CompletionState.DONE);
+        assertSame(transaction, audio.get(5, TimeUnit.SECONDS));
+        assertTrue(transaction.controlFuture().isDone());
+    }
+
+    @Test
+    public void futuresOnFailure() throws InterruptedException {
+        final @NotNull RuntimeException error = new RuntimeException();
+        final @NotNull Transaction transaction = createTransaction(() -> {throw error;});
+        final @NotNull ExecutionException exception;
+
+        transaction.run();
+        exception = assertThrows(ExecutionException.class, () -> transaction.controlFuture().get());
+        assertTrue(exception.getCause() instanceof TransactionExecutionException);
+        assertSame(error, exception.getCause().getCause());
+        assertTrue(transaction.audioFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void timedWait() throws InterruptedException {
+        final @NotNull Transaction transaction = createTransaction(() -> {});
+
+        assertFalse(transaction.waitControlComplete(Duration.ofMillis(10)));
+        assertFalse(transaction.waitAudioComplete(Duration.ZERO));
+
+        transaction.runInBackground();
+        assertTrue(transaction.waitControlComplete(Duration.ofSeconds(5)));
+        assertFalse(transaction.waitAudioComplete(Duration.ofMillis(10)));
+        transaction.setAudioComplete(CompletionState.DONE);
+        assertTrue(transaction.waitAudioComplete(Duration.ofSeconds(5)));
+        assertTrue(transaction.waitAudioComplete(Duration.ofSeconds(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void callbackOrder() {
+        final @NotNull Transaction transaction = createTransaction(() -> {});
+        final @NotNull StringBuilder order = new StringBuilder();
+
+        transaction.onControlComplete(() -> order.append('a'));
+        transaction.onControlComplete(() -> order.append('b'));
+        transaction.onControlComplete(() -> order.append('c'));
+        transaction.run();
+        transaction.onControlComplete(() -> order.append('d'));
+
+        assertEquals("abcd", order.toString());
+    }
+
+    @Test
+    public void cancelBeforeRun() {
+        final @NotNull Transaction transaction = createTransaction(() -> fail());
+
+        assertTrue(transaction.cancel());
+        assertFalse(transaction.cancel());
+        transaction.run();
+
+        assertEquals(CompletionState.CANCELED, transaction.getControlCompletionState());
+        assertEquals(CompletionState.CANCELED, transaction.getAudioCompletionState());
+        assertTrue(transaction.getError() instanceof CanceledException);
+        assertTrue(transaction.controlFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void cancelWhileRunning() throws InterruptedException {
+        final @NotNull CountDownLatch started = new CountDownLatch(1);
+        final @NotNull CountDownLatch aborted = new CountDownLatch(1);
+        final @NotNull Transaction transaction = createTransaction(() -> {
+            final @Nullable Cancellation cancellation = Cancellation.current();
+
+            assertNotNull(cancellation);
+            started.countDown();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                assertTrue(cancellation.isCanceled());
+                aborted.countDown();
+            }
+        });
+
+        transaction.runInBackground();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(transaction.cancel());
+        assertTrue(transaction.waitControlComplete(Duration.ZERO));
+        assertTrue(aborted.await(5, TimeUnit.SECONDS));
+
+        assertEquals(CompletionState.CANCELED, transaction.getControlCompletionState());
+        assertEquals(CompletionState.CANCELED, transaction.getAudioCompletionState());
+        assertTrue(transaction.getError() instanceof CanceledException);
+    }
+
+    @Test
+    public void cancelAfterComplete() {
+        final @NotNull Transaction transaction = createTransaction(() -> {});
+
+        transaction.run();
+        assertFalse(transaction.cancel());
+        transaction.assertSuccess();
+    }
+}
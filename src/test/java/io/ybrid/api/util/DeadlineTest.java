@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class DeadlineTest {
+    @Test
+    public void expiry() throws InterruptedException {
+        final @NotNull Deadline deadline = Deadline.after(Duration.ofMillis(50));
+
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.getRemaining().compareTo(Duration.ofMillis(50)) <= 0);
+        assertEquals(Duration.ofMillis(10), deadline.limit(Duration.ofMillis(10)));
+
+        Thread.sleep(60);
+        assertTrue(deadline.isExpired());
+        assertEquals(Duration.ZERO, deadline.getRemaining());
+        assertThrows(DeadlineExceededException.class, deadline::assertNotExpired);
+    }
+
+    @Test
+    public void extremes() {
+        final @NotNull Deadline never = Deadline.after(Duration.ofDays(1000 * 365));
+        final @NotNull Deadline past = Deadline.after(Duration.ofDays(-1000 * 365));
+
+        assertFalse(never.isExpired());
+        assertTrue(past.isExpired());
+        assertSame(past, Deadline.earliest(never, past));
+        assertSame(past, Deadline.earliest(past, never));
+        assertSame(never, Deadline.earliest(null, never));
+    }
+
+    @Test
+    public void serialization() throws IOException, ClassNotFoundException {
+        final @NotNull Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+        final @NotNull ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final @NotNull Deadline copy;
+
+        try (final @NotNull ObjectOutputStream outputStream = new ObjectOutputStream(buffer)) {
+            outputStream.writeObject(deadline);
+        }
+
+        try (final @NotNull ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+            copy = (Deadline) inputStream.readObject();
+        }
+
+        assertEquals(deadline.getInstant(), copy.getInstant());
+        assertFalse(copy.isExpired());
+        assertTrue(copy.getRemaining().compareTo(Duration.ofSeconds(50)) > 0);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TimerWheelTest {
+    @Test
+    public void schedule() throws InterruptedException {
+        try (final @NotNull TimerWheel wheel = new TimerWheel(Runnable::run, Duration.ofMillis(10), 4)) {
+            final @NotNull CountDownLatch latch = new CountDownLatch(2);
+            final @NotNull AtomicInteger cancelledRuns = new AtomicInteger();
+            final long start = System.nanoTime();
+            final @NotNull TimerWheel.Timer cancelled;
+            final @NotNull TimerWheel.Timer now;
+            final @NotNull TimerWheel.Timer later;
+
+            // The later timer needs more than one round of the wheel.
+            later = wheel.schedule(latch::countDown, Duration.ofMillis(150));
+            now = wheel.schedule(latch::countDown, Duration.ZERO);
+            cancelled = wheel.schedule(cancelledRuns::incrementAndGet, Duration.ofMillis(20));
+            assertTrue(cancelled.cancel());
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(150).toNanos());
+            assertTrue(now.isExpired());
+            assertTrue(later.isExpired());
+            assertFalse(later.cancel());
+            assertTrue(cancelled.isCancelled());
+            assertEquals(0, cancelledRuns.get());
+        }
+    }
+
+    @Test
+    public void close() {
+        final @NotNull TimerWheel wheel = new TimerWheel(Runnable::run);
+
+        wheel.close();
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(() -> {}, Duration.ZERO));
+    }
+}
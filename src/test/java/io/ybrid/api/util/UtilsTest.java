@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.api.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class UtilsTest {
+    private static byte[] data(int length) {
+        final byte[] ret = new byte[length];
+
+        for (int i = 0; i < length; i++)
+            ret[i] = (byte) i;
+
+        return ret;
+    }
+
+    @Test
+    public void slurp() throws IOException {
+        for (final int length : new int[]{0, 1, 8191, 8192, 8193, 100000}) {
+            final byte[] data = data(length);
+
+            assertArrayEquals(data, Utils.slurpToByteArray(new ByteArrayInputStream(data)));
+            // Correct, too small, and too large Content-Length.
+            for (final long expected : new long[]{length, length / 2, length + 10L}) {
+                final @NotNull InputStream inputStream = Utils.slurpToInputStream(new ByteArrayInputStream(data), expected, -1);
+                final byte[] result = Utils.slurpToByteArray(inputStream);
+
+                assertArrayEquals(Arrays.toString(new long[]{length, expected}), data, result);
+            }
+        }
+    }
+
+    @Test
+    public void slurpToString() throws IOException {
+        final @NotNull String text = "Ybrid® – test";
+        final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(text, Utils.slurpToString(new ByteArrayInputStream(data)));
+        assertEquals(text, Utils.slurpToString(new ByteArrayInputStream(data), data.length, data.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void slurpMaxLength() throws IOException {
+        Utils.slurpToInputStream(new ByteArrayInputStream(data(100)), -1, 99);
+    }
+
+    @Test(expected = IOException.class)
+    public void slurpMaxLengthAnnounced() throws IOException {
+        Utils.slurpToInputStream(new ByteArrayInputStream(data(10)), 100, 99);
+    }
+
+    @Test
+    public void limitedInputStream() throws IOException {
+        assertEquals(100, Utils.slurpToByteArray(LimitedInputStream.wrap(new ByteArrayInputStream(data(100)), 100)).length);
+        try {
+            Utils.slurpToByteArray(LimitedInputStream.wrap(new ByteArrayInputStream(data(101)), 100));
+            fail();
+        } catch (IOException ignored) {
+        }
+    }
+}